@@ -9,8 +9,10 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler;
 import org.wordpress.android.fluxc.network.OkHttpStack;
 import org.wordpress.android.fluxc.network.UserAgent;
+import org.wordpress.android.fluxc.network.discovery.DiscoveryCache;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryWPAPIRestClient;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryXMLRPCClient;
 import org.wordpress.android.fluxc.network.discovery.SelfHostedEndpointFinder;
@@ -65,8 +67,8 @@ public class MockedNetworkModule {
 
     @Singleton
     @Provides
-    public RequestQueue provideRequestQueue(OkHttpClient.Builder okHttpClientBuilder, Context appContext) {
-        return Volley.newRequestQueue(appContext, new OkHttpStack(okHttpClientBuilder));
+    public RequestQueue provideRequestQueue(OkHttpClient okHttpClient, Context appContext) {
+        return Volley.newRequestQueue(appContext, new OkHttpStack(okHttpClient));
     }
 
     @Singleton
@@ -118,6 +120,12 @@ public class MockedNetworkModule {
         return new SiteRestClient(appContext, dispatcher, requestQueue, appSecrets, token, userAgent);
     }
 
+    @Singleton
+    @Provides
+    public MediaUploadScheduler provideMediaUploadScheduler() {
+        return new MediaUploadScheduler();
+    }
+
     @Singleton
     @Provides
     public MediaRestClient provideMediaRestClient(Dispatcher dispatcher, Context appContext,
@@ -181,8 +189,16 @@ public class MockedNetworkModule {
     @Provides
     public SelfHostedEndpointFinder provideSelfHostedEndpointFinder(Dispatcher dispatcher,
                                                                     DiscoveryXMLRPCClient discoveryXMLRPCClient,
-                                                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient) {
-        return new SelfHostedEndpointFinder(dispatcher, discoveryXMLRPCClient, discoveryWPAPIRestClient);
+                                                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient,
+                                                                    DiscoveryCache discoveryCache) {
+        return new SelfHostedEndpointFinder(dispatcher, discoveryXMLRPCClient, discoveryWPAPIRestClient,
+                discoveryCache);
+    }
+
+    @Singleton
+    @Provides
+    public DiscoveryCache provideDiscoveryCache(Context appContext) {
+        return new DiscoveryCache(appContext);
     }
 
     @Singleton
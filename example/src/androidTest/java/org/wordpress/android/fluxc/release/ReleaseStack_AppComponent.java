@@ -29,6 +29,7 @@ public interface ReleaseStack_AppComponent {
     void inject(ReleaseStack_CommentTestWPCom test);
     void inject(ReleaseStack_CommentTestXMLRPC test);
     void inject(ReleaseStack_DiscoveryTest test);
+    void inject(ReleaseStack_DispatcherStartupTest test);
     void inject(ReleaseStack_FluxCImageLoaderTest test);
     void inject(ReleaseStack_MediaTestJetpack test);
     void inject(ReleaseStack_MediaTestWPCom test);
@@ -0,0 +1,182 @@
+package org.wordpress.android.fluxc.release;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.EventBusBuilder;
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.Test;
+import org.wordpress.android.fluxc.TestUtils;
+import org.wordpress.android.fluxc.action.PostAction;
+import org.wordpress.android.fluxc.generated.FluxCSubscriberIndex;
+import org.wordpress.android.fluxc.generated.PostActionBuilder;
+import org.wordpress.android.fluxc.module.AppContextModule;
+import org.wordpress.android.fluxc.store.AccountStore;
+import org.wordpress.android.fluxc.store.ActivityLogStore;
+import org.wordpress.android.fluxc.store.CommentStore;
+import org.wordpress.android.fluxc.store.MediaStore;
+import org.wordpress.android.fluxc.store.PluginStore;
+import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.PostStore.OnPostChanged;
+import org.wordpress.android.fluxc.store.SiteStore;
+import org.wordpress.android.fluxc.store.StockMediaStore;
+import org.wordpress.android.fluxc.store.Store;
+import org.wordpress.android.fluxc.store.TaxonomyStore;
+import org.wordpress.android.fluxc.store.ThemeStore;
+import org.wordpress.android.fluxc.store.UploadStore;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the startup cost of the Dispatcher and the stores. Results are logged with the TESTS tag.
+ */
+public class ReleaseStack_DispatcherStartupTest extends ReleaseStack_Base {
+    private static final int ITERATIONS = 10;
+
+    @Inject AccountStore mAccountStore;
+    @Inject ActivityLogStore mActivityLogStore;
+    @Inject CommentStore mCommentStore;
+    @Inject MediaStore mMediaStore;
+    @Inject PluginStore mPluginStore;
+    @Inject PostStore mPostStore;
+    @Inject SiteStore mSiteStore;
+    @Inject StockMediaStore mStockMediaStore;
+    @Inject TaxonomyStore mTaxonomyStore;
+    @Inject ThemeStore mThemeStore;
+    @Inject UploadStore mUploadStore;
+
+    /**
+     * Time from building the app component to the first change event emitted by a store: creating the Dispatcher,
+     * creating and registering every store, and dispatching an action to one of them.
+     */
+    @Test
+    public void testTimeToFirstChange() throws InterruptedException {
+        long[] times = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            times[i] = measureTimeToFirstChange();
+        }
+
+        AppLog.i(T.TESTS, "Time to first change (median of " + ITERATIONS + " runs): "
+                + TimeUnit.NANOSECONDS.toMicros(median(times)) + "us");
+    }
+
+    /**
+     * Time from building the event bus to the delivery of the first event, with every store registered as a
+     * subscriber, finding their subscriber methods by reflection or with the generated FluxC subscriber index.
+     */
+    @Test
+    public void testTimeToFirstDispatch() throws InterruptedException {
+        mReleaseStackAppComponent.inject(this);
+        List<Store> stores = getStores();
+
+        long[] reflectionTimes = new long[ITERATIONS];
+        long[] indexTimes = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            reflectionTimes[i] = measureTimeToFirstDispatch(stores, false);
+            indexTimes[i] = measureTimeToFirstDispatch(stores, true);
+        }
+
+        AppLog.i(T.TESTS, "Time to first dispatch (median of " + ITERATIONS + " runs) - reflection: "
+                + TimeUnit.NANOSECONDS.toMicros(median(reflectionTimes)) + "us, subscriber index: "
+                + TimeUnit.NANOSECONDS.toMicros(median(indexTimes)) + "us");
+        tearDownComponent(stores);
+    }
+
+    private long measureTimeToFirstChange() throws InterruptedException {
+        // The subscriber method cache is static, clear it so every run pays the full registration cost
+        EventBus.clearCaches();
+        mCountDownLatch = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        // A new component holds a new Dispatcher, and new stores registering with it
+        DaggerReleaseStack_AppComponent.builder()
+                .appContextModule(new AppContextModule(mAppContext))
+                .build()
+                .inject(this);
+        mDispatcher.register(this);
+        mDispatcher.dispatch(PostActionBuilder.newRemoveAllPostsAction());
+        assertTrue(mCountDownLatch.await(TestUtils.DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        long time = System.nanoTime() - start;
+
+        mDispatcher.unregister(this);
+        tearDownComponent(getStores());
+        return time;
+    }
+
+    private long measureTimeToFirstDispatch(List<Store> stores, boolean useIndex) throws InterruptedException {
+        EventBus.clearCaches();
+
+        long start = System.nanoTime();
+        // Same configuration as the Dispatcher
+        EventBusBuilder builder = EventBus.builder()
+                .logNoSubscriberMessages(true)
+                .sendNoSubscriberEvent(true)
+                .throwSubscriberException(true);
+        if (useIndex) {
+            builder.addIndex(new FluxCSubscriberIndex());
+        } else {
+            builder.ignoreGeneratedIndex(true);
+        }
+        EventBus bus = builder.build();
+
+        for (Store store : stores) {
+            bus.register(store);
+        }
+        FirstEventSubscriber firstEventSubscriber = new FirstEventSubscriber();
+        bus.register(firstEventSubscriber);
+        bus.post(new FirstEvent());
+        assertTrue(firstEventSubscriber.mCountDownLatch.await(TestUtils.DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        long time = System.nanoTime() - start;
+
+        for (Store store : stores) {
+            bus.unregister(store);
+        }
+        bus.unregister(firstEventSubscriber);
+        return time;
+    }
+
+    private List<Store> getStores() {
+        return Arrays.<Store>asList(mAccountStore, mActivityLogStore, mCommentStore, mMediaStore, mPluginStore,
+                mPostStore, mSiteStore, mStockMediaStore, mTaxonomyStore, mThemeStore, mUploadStore);
+    }
+
+    // Each component has its own Dispatcher, don't leave its stores registered and its lane threads running
+    private void tearDownComponent(List<Store> stores) {
+        for (Store store : stores) {
+            mDispatcher.unregister(store);
+        }
+        mDispatcher.shutdown();
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @SuppressWarnings("unused")
+    @Subscribe
+    public void onPostChanged(OnPostChanged event) {
+        if (event.causeOfChange == PostAction.REMOVE_ALL_POSTS) {
+            mCountDownLatch.countDown();
+        }
+    }
+
+    public static class FirstEvent {}
+
+    public static class FirstEventSubscriber {
+        private final CountDownLatch mCountDownLatch = new CountDownLatch(1);
+
+        @Subscribe
+        public void onFirstEvent(FirstEvent event) {
+            mCountDownLatch.countDown();
+        }
+    }
+}
@@ -17,6 +17,7 @@ import javax.inject.Singleton
         DebugOkHttpClientModule::class,
         InterceptorModule::class,
         ReleaseBaseModule::class,
+        SubscriberIndexModule::class,
         ReleaseNetworkModule::class,
         MainActivityModule::class))
 interface AppComponentDebug : AppComponent {
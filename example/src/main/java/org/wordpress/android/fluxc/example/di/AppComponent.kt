@@ -18,6 +18,7 @@ import javax.inject.Singleton
         AppSecretsModule::class,
         ReleaseOkHttpClientModule::class,
         ReleaseBaseModule::class,
+        SubscriberIndexModule::class,
         ReleaseNetworkModule::class,
         MainActivityModule::class))
 interface AppComponent : AndroidInjector<ExampleApp> {
@@ -0,0 +1,19 @@
+package org.wordpress.android.fluxc.example.di
+
+import dagger.Module
+import dagger.Provides
+import dagger.multibindings.IntoSet
+import org.greenrobot.eventbus.meta.SubscriberInfoIndex
+import org.wordpress.android.fluxc.example.ExampleSubscriberIndex
+import org.wordpress.android.fluxc.generated.WooCommerceSubscriberIndex
+
+@Module
+class SubscriberIndexModule {
+    @Provides
+    @IntoSet
+    fun provideExampleSubscriberIndex(): SubscriberInfoIndex = ExampleSubscriberIndex()
+
+    @Provides
+    @IntoSet
+    fun provideWooCommerceSubscriberIndex(): SubscriberInfoIndex = WooCommerceSubscriberIndex()
+}
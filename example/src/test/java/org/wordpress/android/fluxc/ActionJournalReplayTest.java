@@ -0,0 +1,219 @@
+package org.wordpress.android.fluxc;
+
+import android.content.Context;
+
+import com.yarolegovich.wellsql.WellSql;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.generated.MediaActionBuilder;
+import org.wordpress.android.fluxc.generated.PostActionBuilder;
+import org.wordpress.android.fluxc.generated.SiteActionBuilder;
+import org.wordpress.android.fluxc.media.MediaTestUtils;
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.fluxc.model.PostModel;
+import org.wordpress.android.fluxc.model.PostsModel;
+import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.network.rest.wpcom.media.MediaRestClient;
+import org.wordpress.android.fluxc.network.rest.wpcom.post.PostRestClient;
+import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteRestClient;
+import org.wordpress.android.fluxc.network.xmlrpc.media.MediaXMLRPCClient;
+import org.wordpress.android.fluxc.network.xmlrpc.post.PostXMLRPCClient;
+import org.wordpress.android.fluxc.network.xmlrpc.site.SiteXMLRPCClient;
+import org.wordpress.android.fluxc.persistence.WellSqlConfig;
+import org.wordpress.android.fluxc.post.PostTestUtils;
+import org.wordpress.android.fluxc.site.SiteUtils;
+import org.wordpress.android.fluxc.store.MediaStore;
+import org.wordpress.android.fluxc.store.MediaStore.MediaPayload;
+import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostsResponsePayload;
+import org.wordpress.android.fluxc.store.SiteStore;
+import org.wordpress.android.fluxc.store.UploadStore;
+import org.wordpress.android.fluxc.tools.ActionJournalReader;
+import org.wordpress.android.fluxc.tools.ActionJournalReplayer;
+import org.wordpress.android.fluxc.tools.ActionJournalReplayer.ReplayStats;
+import org.wordpress.android.fluxc.tools.ActionJournalWriter;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays action journals against stores backed by a Robolectric database. The synthetic mix gives a deterministic
+ * throughput baseline, a journal recorded on a device can be replayed by passing its path in the
+ * {@value #JOURNAL_PATH_PROPERTY} system property.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ActionJournalReplayTest {
+    private static final String JOURNAL_PATH_PROPERTY = "fluxc.actionJournal";
+    private static final int SYNTHETIC_ACTION_COUNT = 500;
+    private static final int POSTS_PER_PAGE = 20;
+
+    private ActionJournalReplayer mReplayer;
+    private PostStore mPostStore;
+    private MediaStore mMediaStore;
+
+    @Before
+    public void setUp() {
+        Context appContext = RuntimeEnvironment.application.getApplicationContext();
+        WellSqlConfig config = new WellSqlConfig(appContext);
+        WellSql.init(config);
+        config.reset();
+
+        Dispatcher dispatcher = new Dispatcher();
+        mPostStore = new PostStore(dispatcher, Mockito.mock(PostRestClient.class),
+                Mockito.mock(PostXMLRPCClient.class));
+        mMediaStore = new MediaStore(dispatcher, Mockito.mock(MediaRestClient.class),
+                Mockito.mock(MediaXMLRPCClient.class));
+        SiteStore siteStore = new SiteStore(dispatcher, Mockito.mock(SiteRestClient.class),
+                Mockito.mock(SiteXMLRPCClient.class));
+        // UploadStore first, matching its dispatch priority
+        mReplayer = new ActionJournalReplayer(new UploadStore(dispatcher), mPostStore, mMediaStore, siteStore);
+    }
+
+    @Test
+    public void testJournalRoundTrip() throws IOException {
+        SiteModel site = SiteUtils.generateWPComSite();
+        site.setId(1);
+        List<PostModel> posts = new ArrayList<>();
+        posts.add(PostTestUtils.generateSampleUploadedPost());
+        List<Action> actions = new ArrayList<>();
+        actions.add(PostActionBuilder.newFetchedPostsAction(
+                new FetchPostsResponsePayload(new PostsModel(posts), site, false, false, true)));
+        actions.add(PostActionBuilder.newRemoveAllPostsAction());
+
+        ActionJournalReader reader = new ActionJournalReader(new ByteArrayInputStream(writeJournal(actions)));
+        ActionJournalReader.Entry entry = reader.next();
+        assertNotNull(entry);
+        assertTrue(entry.isComplete);
+        assertEquals(actions.get(0).getType(), entry.action.getType());
+        FetchPostsResponsePayload payload = (FetchPostsResponsePayload) entry.action.getPayload();
+        assertEquals(site.getSiteId(), payload.site.getSiteId());
+        assertEquals(1, payload.posts.getPosts().size());
+        assertEquals("A test post", payload.posts.getPosts().get(0).getTitle());
+        assertFalse(payload.isError());
+
+        entry = reader.next();
+        assertNotNull(entry);
+        assertEquals(actions.get(1).getType(), entry.action.getType());
+        assertNull(entry.action.getPayload());
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testJournalRecordsPayloadAsDispatched() throws IOException {
+        PostModel post = PostTestUtils.generateSampleUploadedPost();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ActionJournalWriter writer = new ActionJournalWriter(outputStream);
+
+        writer.record(PostActionBuilder.newUpdatePostAction(post));
+        // Changed by a store after the dispatch, before the journal is written
+        post.setTitle("Changed by a store");
+        writer.close();
+
+        ActionJournalReader reader = new ActionJournalReader(new ByteArrayInputStream(outputStream.toByteArray()));
+        ActionJournalReader.Entry entry = reader.next();
+        assertNotNull(entry);
+        assertTrue(entry.isComplete);
+        assertEquals("A test post", ((PostModel) entry.action.getPayload()).getTitle());
+        reader.close();
+    }
+
+    @Test
+    public void testSyntheticMixReplayThroughput() throws IOException {
+        SiteModel site = SiteUtils.generateWPComSite();
+        site.setId(1);
+        List<Action> actions = generateSyntheticMix(site, SYNTHETIC_ACTION_COUNT);
+        ActionJournalReader reader = new ActionJournalReader(new ByteArrayInputStream(writeJournal(actions)));
+
+        ReplayStats stats = mReplayer.replay(reader);
+        reader.close();
+
+        assertEquals(SYNTHETIC_ACTION_COUNT, stats.getReplayedCount());
+        assertEquals(0, stats.getSkippedCount());
+        assertTrue(mPostStore.getPostsCountForSite(site) > 0);
+        assertTrue(mMediaStore.getSiteMediaCount(site) > 0);
+        AppLog.i(T.TESTS, "Synthetic mix: " + stats + ", per action type: " + stats.getNanosPerActionType());
+    }
+
+    @Test
+    public void testRecordedJournalReplay() throws IOException {
+        String journalPath = System.getProperty(JOURNAL_PATH_PROPERTY);
+        Assume.assumeTrue(journalPath != null);
+
+        ActionJournalReader reader = ActionJournalReader.open(new File(journalPath));
+        ReplayStats stats = mReplayer.replay(reader);
+        reader.close();
+
+        AppLog.i(T.TESTS, journalPath + ": " + stats + ", per action type: " + stats.getNanosPerActionType());
+    }
+
+    private static byte[] writeJournal(List<Action> actions) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ActionJournalWriter writer = new ActionJournalWriter(outputStream);
+        for (Action action : actions) {
+            writer.record(action);
+        }
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Generates a repeatable mix of site updates, post list fetches and edits, and media fetches and edits.
+     */
+    private static List<Action> generateSyntheticMix(SiteModel site, int count) {
+        Random random = new Random(42);
+        List<Action> actions = new ArrayList<>();
+        actions.add(SiteActionBuilder.newUpdateSiteAction(site));
+        while (actions.size() < count) {
+            int roll = random.nextInt(10);
+            if (roll < 2) {
+                List<PostModel> posts = new ArrayList<>();
+                for (int i = 0; i < POSTS_PER_PAGE; i++) {
+                    PostModel post = PostTestUtils.generateSampleUploadedPost();
+                    post.setLocalSiteId(site.getId());
+                    post.setRemotePostId(random.nextInt(1000));
+                    posts.add(post);
+                }
+                actions.add(PostActionBuilder.newFetchedPostsAction(
+                        new FetchPostsResponsePayload(new PostsModel(posts), site, false, random.nextBoolean(), true)));
+            } else if (roll < 5) {
+                PostModel post = PostTestUtils.generateSampleLocallyChangedPost();
+                post.setLocalSiteId(site.getId());
+                post.setRemotePostId(random.nextInt(1000));
+                actions.add(PostActionBuilder.newUpdatePostAction(post));
+            } else if (roll < 7) {
+                MediaModel media = MediaTestUtils.generateRandomizedMedia(site.getId());
+                media.setMediaId(random.nextInt(1000));
+                actions.add(MediaActionBuilder.newFetchedMediaAction(new MediaPayload(site, media)));
+            } else if (roll < 9) {
+                MediaModel media = MediaTestUtils.generateRandomizedMedia(site.getId());
+                media.setMediaId(random.nextInt(1000));
+                actions.add(MediaActionBuilder.newUpdateMediaAction(media));
+            } else {
+                site.setName("Site " + random.nextInt(1000));
+                actions.add(SiteActionBuilder.newUpdateSiteAction(site));
+            }
+        }
+        return actions;
+    }
+}
@@ -0,0 +1,168 @@
+package org.wordpress.android.fluxc;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.generated.PostActionBuilder;
+import org.wordpress.android.fluxc.generated.ThemeActionBuilder;
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.fluxc.network.rest.wpcom.theme.ThemeRestClient;
+import org.wordpress.android.fluxc.store.MediaStore.OnMediaUploaded;
+import org.wordpress.android.fluxc.store.ThemeStore;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class DispatcherTest {
+    private static final int TEST_TIMEOUT_SECONDS = 2;
+
+    private Dispatcher mDispatcher;
+    private RecordingThemeStore mThemeStore;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new Dispatcher();
+        mThemeStore = new RecordingThemeStore(mDispatcher);
+    }
+
+    @Test
+    public void testActionIsRoutedToHandlingStore() throws InterruptedException {
+        mThemeStore.mCountDownLatch = new CountDownLatch(1);
+        mDispatcher.dispatch(ThemeActionBuilder.newFetchWpComThemesAction());
+
+        assertTrue(mThemeStore.mCountDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, mThemeStore.mReceivedActions.size());
+    }
+
+    @Test
+    public void testActionIsNotRoutedToOtherStores() throws InterruptedException {
+        ActionSubscriber subscriber = new ActionSubscriber();
+        mDispatcher.register(subscriber);
+
+        mThemeStore.mCountDownLatch = new CountDownLatch(1);
+        mDispatcher.dispatch(PostActionBuilder.newRemoveAllPostsAction());
+        mDispatcher.dispatch(ThemeActionBuilder.newFetchWpComThemesAction());
+
+        assertTrue(mThemeStore.mCountDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, mThemeStore.mReceivedActions.size());
+        // Non-store subscribers keep receiving every action through the bus
+        assertEquals(2, subscriber.mReceivedActions.size());
+    }
+
+    @Test
+    public void testUnregisteredStoreIsNotRouted() throws InterruptedException {
+        mDispatcher.unregister(mThemeStore);
+
+        mThemeStore.mCountDownLatch = new CountDownLatch(1);
+        mDispatcher.dispatch(ThemeActionBuilder.newFetchWpComThemesAction());
+
+        assertTrue(!mThemeStore.mCountDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(mThemeStore.mReceivedActions.isEmpty());
+    }
+
+    @Test
+    public void testActionMetricsAreRecorded() throws InterruptedException {
+        mThemeStore.mCountDownLatch = new CountDownLatch(1);
+        Action action = ThemeActionBuilder.newFetchWpComThemesAction();
+        mDispatcher.dispatch(action);
+
+        assertTrue(mThemeStore.mCountDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Metrics are recorded after onAction returns
+        Thread.sleep(100);
+        DispatcherMetrics.ActionMetrics actionMetrics = mDispatcher.getMetrics().getActionMetrics(action.getType());
+        assertEquals(1, actionMetrics.getQueueWait().getCount());
+        assertEquals(1, actionMetrics.getSubscriberTimes().get(RecordingThemeStore.class).getCount());
+        assertEquals(1, actionMetrics.getDispatchToEmitChange().getCount());
+    }
+
+    @Test
+    public void testProgressEventsAreCoalesced() throws InterruptedException {
+        MediaUploadedSubscriber subscriber = new MediaUploadedSubscriber();
+        mDispatcher.register(subscriber);
+        mDispatcher.setCoalescingWindow(OnMediaUploaded.class, 200);
+        MediaModel media = new MediaModel();
+        media.setId(1);
+
+        for (int i = 1; i <= 10; i++) {
+            mDispatcher.emitChange(new OnMediaUploaded(media, i / 10f, false, false));
+        }
+        Thread.sleep(400);
+
+        // The first progress is delivered right away, the others are merged into the latest one
+        assertEquals(2, subscriber.mReceivedEvents.size());
+        assertEquals(0.1f, subscriber.mReceivedEvents.get(0).progress, 0.001f);
+        assertEquals(1f, subscriber.mReceivedEvents.get(1).progress, 0.001f);
+    }
+
+    @Test
+    public void testTerminalEventsAreNeverDropped() throws InterruptedException {
+        MediaUploadedSubscriber subscriber = new MediaUploadedSubscriber();
+        mDispatcher.register(subscriber);
+        mDispatcher.setCoalescingWindow(OnMediaUploaded.class, 200);
+        MediaModel media = new MediaModel();
+        media.setId(1);
+        MediaModel otherMedia = new MediaModel();
+        otherMedia.setId(2);
+
+        mDispatcher.emitChange(new OnMediaUploaded(media, 0.1f, false, false));
+        mDispatcher.emitChange(new OnMediaUploaded(otherMedia, 0.1f, false, false));
+        mDispatcher.emitChange(new OnMediaUploaded(media, 0.5f, false, false));
+        mDispatcher.emitChange(new OnMediaUploaded(media, 1f, true, false));
+        mDispatcher.emitChange(new OnMediaUploaded(otherMedia, 0.5f, false, false));
+        mDispatcher.emitChange(new OnMediaUploaded(otherMedia, 0.5f, false, true));
+        Thread.sleep(400);
+
+        // Pending progress is superseded by the terminal events, which are delivered last
+        assertEquals(4, subscriber.mReceivedEvents.size());
+        assertTrue(subscriber.mReceivedEvents.get(2).completed);
+        assertTrue(subscriber.mReceivedEvents.get(3).canceled);
+        for (OnMediaUploaded event : subscriber.mReceivedEvents.subList(0, 2)) {
+            assertFalse(event.completed || event.canceled);
+        }
+    }
+
+    private static class RecordingThemeStore extends ThemeStore {
+        private final List<Action> mReceivedActions = new CopyOnWriteArrayList<>();
+        private CountDownLatch mCountDownLatch;
+
+        RecordingThemeStore(Dispatcher dispatcher) {
+            super(dispatcher, Mockito.mock(ThemeRestClient.class));
+        }
+
+        @Override
+        public void onAction(Action action) {
+            mReceivedActions.add(action);
+            emitChange(new OnChanged<OnChangedError>());
+            mCountDownLatch.countDown();
+        }
+    }
+
+    public static class MediaUploadedSubscriber {
+        private final List<OnMediaUploaded> mReceivedEvents = new CopyOnWriteArrayList<>();
+
+        @Subscribe
+        public void onMediaUploaded(OnMediaUploaded event) {
+            mReceivedEvents.add(event);
+        }
+    }
+
+    public static class ActionSubscriber {
+        private final List<Action> mReceivedActions = new CopyOnWriteArrayList<>();
+
+        @Subscribe
+        public void onAction(Action action) {
+            mReceivedActions.add(action);
+        }
+    }
+}
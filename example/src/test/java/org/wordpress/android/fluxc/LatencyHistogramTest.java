@@ -0,0 +1,59 @@
+package org.wordpress.android.fluxc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(99), 0);
+        assertEquals(0, histogram.getMeanMicros(), 0);
+    }
+
+    @Test
+    public void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i * 100);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(100000, histogram.getMaxMicros());
+        assertEquals(50050, histogram.getMeanMicros(), 0.001);
+        assertWithinPrecision(50000, histogram.getPercentileMicros(50));
+        assertWithinPrecision(99000, histogram.getPercentileMicros(99));
+        assertEquals(100000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(value <= LatencyHistogram.getBucketUpperBound(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.getBucketUpperBound(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(5000000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        // Buckets have a relative precision of 1/8
+        assertTrue("Expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 8);
+    }
+}
@@ -0,0 +1,169 @@
+package org.wordpress.android.fluxc;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.Store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class SerialLaneExecutorTest {
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void testTasksForAStoreRunInOrder() throws InterruptedException {
+        SerialLaneExecutor executor = new SerialLaneExecutor(4, SerialLaneExecutor.DEFAULT_LANE_CAPACITY);
+        Store store = Mockito.mock(Store.class);
+        final List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch countDownLatch = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            final int taskNumber = i;
+            executor.execute(store, new Runnable() {
+                @Override
+                public void run() {
+                    executionOrder.add(taskNumber);
+                    countDownLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(countDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) executionOrder.get(i));
+        }
+    }
+
+    @Test
+    public void testPoolSizeIsBounded() throws InterruptedException {
+        SerialLaneExecutor executor = new SerialLaneExecutor(2, SerialLaneExecutor.DEFAULT_LANE_CAPACITY);
+        final AtomicInteger runningTasks = new AtomicInteger();
+        final AtomicInteger maxRunningTasks = new AtomicInteger();
+        final CountDownLatch countDownLatch = new CountDownLatch(30);
+
+        for (int i = 0; i < 30; i++) {
+            // One lane per store, so up to 30 tasks could run concurrently without the pool bound
+            executor.execute(Mockito.mock(Store.class), new Runnable() {
+                @Override
+                public void run() {
+                    int running = runningTasks.incrementAndGet();
+                    maxRunningTasks.set(Math.max(maxRunningTasks.get(), running));
+                    sleep(10);
+                    runningTasks.decrementAndGet();
+                    countDownLatch.countDown();
+                }
+            });
+        }
+
+        assertTrue(countDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(maxRunningTasks.get() <= 2);
+    }
+
+    @Test
+    public void testQueueDepthAndBackPressure() throws InterruptedException {
+        final SerialLaneExecutor executor = new SerialLaneExecutor(1, 2);
+        final PostStore store = Mockito.mock(PostStore.class);
+        final CountDownLatch blockingTaskStartedLatch = new CountDownLatch(1);
+        final CountDownLatch blockingTaskLatch = new CountDownLatch(1);
+        final CountDownLatch producerDoneLatch = new CountDownLatch(1);
+        final Runnable noOpTask = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        // Occupy the lane, then fill it up to its capacity
+        executor.execute(store, new Runnable() {
+            @Override
+            public void run() {
+                blockingTaskStartedLatch.countDown();
+                await(blockingTaskLatch);
+            }
+        });
+        assertTrue(blockingTaskStartedLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        executor.execute(store, noOpTask);
+        executor.execute(store, noOpTask);
+        String laneName = store.getClass().getSimpleName();
+        assertEquals(2, (int) executor.getQueueDepths().get(laneName));
+
+        // A background producer must wait for the lane to drain
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(store, noOpTask);
+                producerDoneLatch.countDown();
+            }
+        }).start();
+        assertFalse(producerDoneLatch.await(200, TimeUnit.MILLISECONDS));
+
+        blockingTaskLatch.countDown();
+        assertTrue(producerDoneLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(executor.getMaxQueueDepths().get(laneName) <= 2);
+    }
+
+    @Test
+    public void testShutdownRunsPendingTasksAndRejectsNewOnes() throws InterruptedException {
+        SerialLaneExecutor executor = new SerialLaneExecutor(1, SerialLaneExecutor.DEFAULT_LANE_CAPACITY);
+        Store store = Mockito.mock(Store.class);
+        final CountDownLatch blockingTaskLatch = new CountDownLatch(1);
+        final CountDownLatch countDownLatch = new CountDownLatch(2);
+
+        executor.execute(store, new Runnable() {
+            @Override
+            public void run() {
+                await(blockingTaskLatch);
+                countDownLatch.countDown();
+            }
+        });
+        executor.execute(Mockito.mock(Store.class), new Runnable() {
+            @Override
+            public void run() {
+                countDownLatch.countDown();
+            }
+        });
+        executor.shutdown();
+        blockingTaskLatch.countDown();
+        assertTrue(countDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        try {
+            executor.execute(store, new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("Tasks executed after a shutdown must be rejected");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch countDownLatch) {
+        try {
+            countDownLatch.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.wordpress.android.fluxc.network;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response.Listener;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import org.apache.http.HttpResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.HostUnavailableException;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.State;
+import org.wordpress.android.fluxc.network.HostHealthMonitorTest.FakeClock;
+import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdaptiveRetryPolicyTest {
+    private FakeClock mClock;
+    private MockWebServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mClock = new FakeClock();
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testBackoffGrowsExponentiallyWithJitter() throws Exception {
+        AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(1000, 5, mClock, new Random(42));
+        for (int i = 0; i < 5; i++) {
+            policy.retry(new TimeoutError());
+        }
+
+        assertEquals(5, policy.getCurrentRetryCount());
+        long maxDelay = AdaptiveRetryPolicy.MAX_RETRY_DELAY_MS;
+        long[] maxDelays = {100, 200, 400, maxDelay, maxDelay};
+        for (int i = 0; i < maxDelays.length; i++) {
+            long delay = mClock.mSleeps.get(i);
+            assertTrue("Delay " + delay + " for retry " + i, delay >= maxDelays[i] / 2 && delay <= maxDelays[i]);
+        }
+    }
+
+    @Test
+    public void testRetriesAreLimited() throws Exception {
+        AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(1000, 1, mClock, new Random(42));
+        policy.retry(new TimeoutError());
+
+        TimeoutError error = new TimeoutError();
+        assertSame(error, retryAndGetError(policy, error));
+    }
+
+    @Test
+    public void testAuthenticationFailuresAreNotRetried() throws Exception {
+        AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(1000, 1, mClock, new Random(42));
+
+        AuthFailureError error = new AuthFailureError();
+        assertSame(error, retryAndGetError(policy, error));
+        assertTrue(mClock.mSleeps.isEmpty());
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() throws Exception {
+        AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(1000, 2, mClock, new Random(42));
+        policy.retry(newServerError(503, "0"));
+        assertEquals(Arrays.asList(0L), mClock.mSleeps);
+
+        // Too long to block a network thread for
+        ServerError error = newServerError(429, "1");
+        assertSame(error, retryAndGetError(policy, error));
+    }
+
+    @Test
+    public void testUnavailableResponseIsRetriedAfterTheGivenDelay() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        mServer.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        HostHealthMonitor monitor = new HostHealthMonitor(mClock);
+        OkHttpStack stack = new OkHttpStack(new OkHttpClient(), monitor);
+
+        HttpResponse response = stack.performRequest(newRequest(1), Collections.<String, String>emptyMap());
+
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(Arrays.asList(0L), mClock.mSleeps);
+        assertEquals(State.CLOSED, monitor.getState(mServer.getHostName()));
+    }
+
+    @Test
+    public void testRequestsToUnavailableHostFailRightAway() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "3600"));
+        HostHealthMonitor monitor = new HostHealthMonitor(mClock);
+        OkHttpStack stack = new OkHttpStack(new OkHttpClient(), monitor);
+
+        HttpResponse response = stack.performRequest(newRequest(1), Collections.<String, String>emptyMap());
+        assertEquals(503, response.getStatusLine().getStatusCode());
+        assertEquals(State.OPEN, monitor.getState(mServer.getHostName()));
+
+        try {
+            stack.performRequest(newRequest(1), Collections.<String, String>emptyMap());
+            fail("Request to an unavailable host must fail");
+        } catch (HostUnavailableException e) {
+            assertEquals(1, mServer.getRequestCount());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private WPComGsonRequest<Object> newRequest(int maxRetries) {
+        WPComGsonRequest<Object> request = WPComGsonRequest.buildGetRequest(mServer.url("/").toString(), null,
+                Object.class, Mockito.mock(Listener.class), Mockito.mock(BaseErrorListener.class));
+        request.setRetryPolicy(new AdaptiveRetryPolicy(1000, maxRetries, mClock, new Random(42)));
+        return request;
+    }
+
+    private static ServerError newServerError(int statusCode, String retryAfter) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Retry-After", retryAfter);
+        return new ServerError(new NetworkResponse(statusCode, null, headers, false));
+    }
+
+    private static VolleyError retryAndGetError(AdaptiveRetryPolicy policy, VolleyError error) {
+        try {
+            policy.retry(error);
+        } catch (VolleyError e) {
+            return e;
+        }
+        fail("The error must not be retried");
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package org.wordpress.android.fluxc.network;
+
+import android.content.Context;
+import android.util.Base64;
+
+import com.yarolegovich.wellsql.WellSql;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.wordpress.android.fluxc.persistence.WellSqlConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class HTTPAuthManagerTest {
+    private WellSqlConfig mConfig;
+
+    @Before
+    public void setUp() {
+        Context appContext = RuntimeEnvironment.application.getApplicationContext();
+
+        mConfig = new WellSqlConfig(appContext);
+        WellSql.init(mConfig);
+        mConfig.reset();
+    }
+
+    @Test
+    public void testCredentialsMatchUrlsUnderTheRootUrl() {
+        HTTPAuthManager httpAuthManager = new HTTPAuthManager();
+        httpAuthManager.addHTTPAuthCredentials("user", "pass", "https://example.com/blog/xmlrpc.php", null);
+
+        assertEquals("user", httpAuthManager.getHTTPAuthModel("https://example.com/blog/xmlrpc.php").getUsername());
+        // The xmlrpc.php file name is stripped to match the rest of the site
+        assertEquals("user", httpAuthManager.getHTTPAuthModel("https://example.com/blog/image.jpg").getUsername());
+        assertEquals(getBasicAuthHeader("user", "pass"),
+                httpAuthManager.getAuthorizationHeader("https://example.com/blog/wp-content/image.jpg"));
+        assertNull(httpAuthManager.getHTTPAuthModel("https://example.com/other/image.jpg"));
+        assertNull(httpAuthManager.getAuthorizationHeader("https://example.org/blog/"));
+    }
+
+    @Test
+    public void testMostSpecificCredentialsAreUsed() {
+        HTTPAuthManager httpAuthManager = new HTTPAuthManager();
+        httpAuthManager.addHTTPAuthCredentials("root", "pass", "https://example.com/", null);
+        httpAuthManager.addHTTPAuthCredentials("blog", "pass", "https://example.com/blog/", null);
+
+        assertEquals("blog", httpAuthManager.getHTTPAuthModel("https://example.com/blog/xmlrpc.php").getUsername());
+        assertEquals("root", httpAuthManager.getHTTPAuthModel("https://example.com/xmlrpc.php").getUsername());
+    }
+
+    @Test
+    public void testCredentialsAreUpdatedAndPersisted() {
+        HTTPAuthManager httpAuthManager = new HTTPAuthManager();
+        httpAuthManager.addHTTPAuthCredentials("user", "pass", "https://example.com/", null);
+        httpAuthManager.addHTTPAuthCredentials("user", "new-pass", "https://example.com/", null);
+
+        assertEquals(getBasicAuthHeader("user", "new-pass"),
+                httpAuthManager.getAuthorizationHeader("https://example.com/xmlrpc.php"));
+
+        // Another manager loads the credentials from the database
+        HTTPAuthModel httpAuthModel = new HTTPAuthManager().getHTTPAuthModel("https://example.com/xmlrpc.php");
+        assertEquals("new-pass", httpAuthModel.getPassword());
+    }
+
+    @Test
+    public void testCredentialsAreForgottenOnReset() {
+        HTTPAuthManager httpAuthManager = new HTTPAuthManager();
+        httpAuthManager.addHTTPAuthCredentials("user", "pass", "https://example.com/", null);
+        assertEquals("user", httpAuthManager.getHTTPAuthModel("https://example.com/xmlrpc.php").getUsername());
+
+        mConfig.reset();
+
+        assertNull(httpAuthManager.getAuthorizationHeader("https://example.com/xmlrpc.php"));
+    }
+
+    private static String getBasicAuthHeader(String username, String password) {
+        return "Basic " + Base64.encodeToString((username + ":" + password).getBytes(), Base64.NO_WRAP);
+    }
+}
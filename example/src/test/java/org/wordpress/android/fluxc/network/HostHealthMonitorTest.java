@@ -0,0 +1,168 @@
+package org.wordpress.android.fluxc.network;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.Clock;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class HostHealthMonitorTest {
+    private static final String HOST = "example.com";
+
+    static class FakeClock implements Clock {
+        long mNow = 1000;
+        final List<Long> mSleeps = new ArrayList<>();
+
+        @Override
+        public long elapsedRealtime() {
+            return mNow;
+        }
+
+        @Override
+        public void sleep(long ms) {
+            mSleeps.add(ms);
+            mNow += ms;
+        }
+    }
+
+    private FakeClock mClock;
+    private HostHealthMonitor mMonitor;
+
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mMonitor = new HostHealthMonitor(mClock);
+    }
+
+    @Test
+    public void testHostIsOpenAfterConsecutiveFailures() {
+        for (int i = 1; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            mMonitor.onFailure(HOST, 0);
+        }
+        assertEquals(State.CLOSED, mMonitor.getState(HOST));
+
+        mMonitor.onFailure(HOST, 0);
+        assertEquals(State.OPEN, mMonitor.getState(HOST));
+        assertFalse(mMonitor.allowRequest(HOST));
+        assertTrue(mMonitor.allowRequest("other.example.com"));
+        assertEquals(State.OPEN, mMonitor.getHostStates().get(HOST));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        for (int i = 1; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            mMonitor.onFailure(HOST, 0);
+        }
+        mMonitor.onSuccess(HOST);
+        mMonitor.onFailure(HOST, 0);
+
+        assertEquals(State.CLOSED, mMonitor.getState(HOST));
+    }
+
+    @Test
+    public void testHalfOpenHostAllowsASingleProbe() {
+        open();
+        mClock.mNow += HostHealthMonitor.MIN_OPEN_DURATION_MS;
+        assertEquals(State.HALF_OPEN, mMonitor.getState(HOST));
+
+        assertTrue(mMonitor.allowRequest(HOST));
+        assertFalse(mMonitor.allowRequest(HOST));
+
+        mMonitor.onSuccess(HOST);
+        assertEquals(State.CLOSED, mMonitor.getState(HOST));
+        assertTrue(mMonitor.allowRequest(HOST));
+        assertTrue(mMonitor.getHostStates().isEmpty());
+    }
+
+    @Test
+    public void testFailedProbeDoublesOpenDuration() {
+        open();
+        mClock.mNow += HostHealthMonitor.MIN_OPEN_DURATION_MS;
+        assertTrue(mMonitor.allowRequest(HOST));
+        mMonitor.onFailure(HOST, 0);
+
+        mClock.mNow += HostHealthMonitor.MIN_OPEN_DURATION_MS;
+        assertEquals(State.OPEN, mMonitor.getState(HOST));
+        mClock.mNow += HostHealthMonitor.MIN_OPEN_DURATION_MS;
+        assertEquals(State.HALF_OPEN, mMonitor.getState(HOST));
+    }
+
+    @Test
+    public void testProbeIsReleasedWhenItFailsForAnotherReason() {
+        open();
+        mClock.mNow += HostHealthMonitor.MIN_OPEN_DURATION_MS;
+        assertTrue(mMonitor.allowRequest(HOST));
+
+        mMonitor.onRequestFinished(HOST);
+        assertTrue(mMonitor.allowRequest(HOST));
+    }
+
+    @Test
+    public void testRetryAfterOpensHostUntilTheGivenTime() {
+        mMonitor.onFailure(HOST, 5000);
+        assertEquals(State.OPEN, mMonitor.getState(HOST));
+
+        mClock.mNow += 5000;
+        assertEquals(State.HALF_OPEN, mMonitor.getState(HOST));
+    }
+
+    @Test
+    public void testTimeoutsOnlyCountWhenOtherResponsesArrive() {
+        // Nothing else answers, the device's network is the likely culprit
+        for (int i = 0; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            mMonitor.onTimeout(HOST, mMonitor.getResponseCount());
+        }
+        assertEquals(State.CLOSED, mMonitor.getState(HOST));
+
+        for (int i = 0; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            long responseCount = mMonitor.getResponseCount();
+            mMonitor.onSuccess("other.example.com");
+            mMonitor.onTimeout(HOST, responseCount);
+        }
+        assertEquals(State.OPEN, mMonitor.getState(HOST));
+    }
+
+    @Test
+    public void testSharedApiHostIsTrackedPerPathPrefix() {
+        String sites = HostHealthMonitor.getScope(
+                HttpUrl.parse("https://public-api.wordpress.com/rest/v1.1/sites/123/posts/?number=20"));
+        String otherSite = HostHealthMonitor.getScope(
+                HttpUrl.parse("https://public-api.wordpress.com/rest/v1.1/sites/456/posts/"));
+        assertEquals("public-api.wordpress.com/rest/v1.1/sites/123", sites);
+        assertEquals("public-api.wordpress.com/rest/v1.1/me", HostHealthMonitor.getScope(
+                HttpUrl.parse("https://public-api.wordpress.com/rest/v1.1/me/")));
+        assertEquals(HOST, HostHealthMonitor.getScope(HttpUrl.parse("https://" + HOST + "/xmlrpc.php")));
+
+        for (int i = 0; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            mMonitor.onFailure(sites, 0);
+        }
+        assertFalse(mMonitor.allowRequest(sites));
+        assertTrue(mMonitor.allowRequest(otherSite));
+    }
+
+    @Test
+    public void testResetForgetsAllHosts() {
+        open();
+        mMonitor.reset();
+
+        assertEquals(State.CLOSED, mMonitor.getState(HOST));
+        assertTrue(mMonitor.allowRequest(HOST));
+    }
+
+    private void open() {
+        for (int i = 0; i < HostHealthMonitor.FAILURE_THRESHOLD; i++) {
+            mMonitor.onFailure(HOST, 0);
+        }
+    }
+}
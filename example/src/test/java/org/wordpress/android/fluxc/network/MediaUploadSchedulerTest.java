@@ -0,0 +1,111 @@
+package org.wordpress.android.fluxc.network;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler.Upload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MediaUploadSchedulerTest {
+    private MediaUploadScheduler mScheduler;
+    private List<String> mEvents;
+
+    @Before
+    public void setUp() {
+        mScheduler = new MediaUploadScheduler();
+        mEvents = new ArrayList<>();
+    }
+
+    @Test
+    public void testConcurrencyLimits() {
+        mScheduler.setMaxUploads(3, 2);
+        schedule(1, 1, 0);
+        schedule(2, 1, 0);
+        schedule(3, 1, 0);
+        schedule(4, 2, 0);
+        schedule(5, 2, 0);
+
+        assertEquals(Arrays.asList("start 1", "start 2", "start 4"), mEvents);
+        assertEquals(2, mScheduler.getWaitingUploadCount());
+
+        mEvents.clear();
+        mScheduler.onUploadFinished(1);
+        assertEquals(Arrays.asList("start 3"), mEvents);
+    }
+
+    @Test
+    public void testPostsAreServedInTurn() {
+        mScheduler.setMaxUploads(1, 1);
+        schedule(1, 1, 10);
+        schedule(2, 1, 10);
+        schedule(3, 1, 10);
+        schedule(4, 1, 20);
+        schedule(5, 1, 20);
+
+        for (int mediaId : new int[] {1, 4, 2, 5}) {
+            mScheduler.onUploadFinished(mediaId);
+        }
+
+        assertEquals(Arrays.asList("start 1", "start 4", "start 2", "start 5", "start 3"), mEvents);
+    }
+
+    @Test
+    public void testForegroundUploadsPauseBackgroundUploads() {
+        mScheduler.setMaxUploads(2, 2);
+        schedule(1, 1, 10);
+        schedule(2, 1, 10);
+        schedule(3, 1, 10);
+        mScheduler.setForegroundPost(20);
+        schedule(4, 1, 20);
+
+        // The most recently started background upload makes room for the foreground one
+        assertEquals(Arrays.asList("start 1", "start 2", "pause 2", "start 4"), mEvents);
+
+        // And is started again before the other background uploads
+        mEvents.clear();
+        mScheduler.onUploadFinished(4);
+        assertEquals(Arrays.asList("start 2"), mEvents);
+    }
+
+    @Test
+    public void testCancelWaitingUpload() {
+        mScheduler.setMaxUploads(1, 1);
+        schedule(1, 1, 0);
+        schedule(2, 1, 0);
+
+        assertFalse(mScheduler.cancel(1));
+        assertTrue(mScheduler.cancel(2));
+        assertEquals(0, mScheduler.getWaitingUploadCount());
+
+        mScheduler.onUploadFinished(1);
+        assertEquals(Arrays.asList("start 1"), mEvents);
+    }
+
+    private void schedule(final int mediaId, int siteId, int postId) {
+        MediaModel media = new MediaModel();
+        media.setId(mediaId);
+        media.setLocalSiteId(siteId);
+        media.setLocalPostId(postId);
+        mScheduler.schedule(media, new Upload() {
+            @Override
+            public void start() {
+                mEvents.add("start " + mediaId);
+            }
+
+            @Override
+            public void pause() {
+                mEvents.add("pause " + mediaId);
+            }
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package org.wordpress.android.fluxc.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.NetworkTimings.EndpointTimings;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkTimingRecorderTest {
+    private MockWebServer mServer;
+    private NetworkTimings mNetworkTimings;
+    private OkHttpClient mClient;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+        mNetworkTimings = new NetworkTimings();
+        mClient = new NetworkTimingRecorder(mNetworkTimings).instrument(new OkHttpClient.Builder()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testEndpointMatcher() {
+        EndpointMatcher matcher = new EndpointMatcher("/sites/$site/posts/", "/sites/$site/posts/$post_ID/",
+                "/sites/$site/posts/new/", "/sites/$site/stats/item:$item/", "/plugins/info/{version}/{slug}/");
+
+        assertEquals("/sites/$site/posts/$post_ID/", matcher.match("/sites/123/posts/456/"));
+        assertEquals("/sites/$site/posts/new/", matcher.match("/sites/123/posts/new"));
+        assertEquals("/sites/$site/posts/", matcher.match("/sites/example.com/posts/"));
+        assertEquals("/sites/$site/stats/item:$item/", matcher.match("/sites/123/stats/item:views/"));
+        assertEquals("/plugins/info/{version}/{slug}/", matcher.match("/plugins/info/1.0/akismet"));
+        assertNull(matcher.match("/sites/123/stats/views/"));
+        assertNull(matcher.match("/sites/123/posts/456/likes/"));
+    }
+
+    @Test
+    public void testEndpointNames() {
+        assertEquals("WPCOMREST /sites/$site/posts/$post_ID/",
+                getEndpointName("https://public-api.wordpress.com/rest/v1.1/sites/123/posts/456/?context=edit"));
+        assertEquals("WPCOMREST /me/sites/", getEndpointName("https://public-api.wordpress.com/rest/v1.2/me/sites/"));
+        assertEquals("WPAPI /posts/<id>/", getEndpointName("https://example.com/wp-json/wp/v2/posts/12/"));
+        assertEquals("WPAPI /posts/", getEndpointName("https://example.com/?rest_route=/wp/v2/posts/"));
+        assertEquals("WPORGAPI /plugins/info/{version}/{slug}/",
+                getEndpointName("https://api.wordpress.org/plugins/info/1.0/akismet.json"));
+        assertEquals("example.com", getEndpointName("https://example.com/xmlrpc.php"));
+    }
+
+    @Test
+    public void testCallsAreRecordedPerEndpoint() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("first"));
+        mServer.enqueue(new MockResponse().setBody("second response"));
+
+        String endpoint = "WPCOMREST /me/";
+        execute(new Request.Builder().url(mServer.url("/me/")).tag(endpoint).build());
+        execute(new Request.Builder().url(mServer.url("/me/")).tag(endpoint)
+                .post(RequestBody.create(MediaType.parse("text/plain"), "body")).build());
+
+        EndpointTimings timings = mNetworkTimings.getEndpointTimings(endpoint);
+        assertEquals(2, timings.getTotal().getCount());
+        assertEquals(2, timings.getTimeToFirstByte().getCount());
+        assertEquals(2, timings.getBodyTransfer().getCount());
+        // The second call reuses the connection of the first one
+        assertEquals(1, timings.getConnect().getCount());
+        assertEquals(1, timings.getDns().getCount());
+        // Not encrypted
+        assertEquals(0, timings.getTls().getCount());
+        assertEquals(4, timings.getBytesSent());
+        assertEquals("first".length() + "second response".length(), timings.getBytesReceived());
+        assertEquals(0, timings.getFailureCount());
+    }
+
+    @Test
+    public void testFailedCallsAreRecorded() throws Exception {
+        HttpUrl url = mServer.url("/me/");
+        mServer.shutdown();
+
+        try {
+            execute(new Request.Builder().url(url).tag("WPCOMREST /me/").build());
+        } catch (Exception e) {
+            // Expected
+        }
+
+        EndpointTimings timings = mNetworkTimings.getEndpointTimings("WPCOMREST /me/");
+        assertEquals(1, timings.getFailureCount());
+        assertEquals(0, timings.getTotal().getCount());
+    }
+
+    private void execute(Request request) throws Exception {
+        Response response = mClient.newCall(request).execute();
+        response.body().string();
+    }
+
+    private static String getEndpointName(String url) {
+        return NetworkTimingRecorder.getEndpointName(HttpUrl.parse(url));
+    }
+}
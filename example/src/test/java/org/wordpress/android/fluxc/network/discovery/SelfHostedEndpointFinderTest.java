@@ -0,0 +1,110 @@
+package org.wordpress.android.fluxc.network.discovery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.Dispatcher;
+import org.wordpress.android.fluxc.action.AuthenticationAction;
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.network.discovery.SelfHostedEndpointFinder.DiscoveryError;
+import org.wordpress.android.fluxc.network.discovery.SelfHostedEndpointFinder.DiscoveryException;
+import org.wordpress.android.fluxc.network.discovery.SelfHostedEndpointFinder.DiscoveryResultPayload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class SelfHostedEndpointFinderTest {
+    private static final Object[] VALID_METHODS = {"wp.getProfile", "wp.getUsersBlogs", "wp.getPage",
+            "wp.getCommentStatusList", "wp.newComment", "wp.editComment", "wp.deleteComment", "wp.getComments",
+            "wp.getComment", "wp.getOptions", "wp.uploadFile", "wp.newCategory", "wp.getTags", "wp.getCategories",
+            "wp.editPage", "wp.deletePage", "wp.newPage", "wp.getPages"};
+    private static final long PROBE_DELAY_MS = 300;
+
+    private Dispatcher mDispatcher;
+    private DiscoveryXMLRPCClient mXMLRPCClient;
+    private DiscoveryCache mDiscoveryCache;
+    private SelfHostedEndpointFinder mEndpointFinder;
+
+    @Before
+    public void setUp() {
+        mDispatcher = mock(Dispatcher.class);
+        mXMLRPCClient = mock(DiscoveryXMLRPCClient.class);
+        mDiscoveryCache = mock(DiscoveryCache.class);
+        mEndpointFinder = new SelfHostedEndpointFinder(mDispatcher, mXMLRPCClient,
+                mock(DiscoveryWPAPIRestClient.class), mDiscoveryCache);
+    }
+
+    @Test
+    public void testEndpointIsVerifiedByConcurrentProbes() throws DiscoveryException {
+        when(mXMLRPCClient.listMethods("https://example.com/xmlrpc.php")).thenAnswer(delayed(null));
+        when(mXMLRPCClient.listMethods("http://example.com/xmlrpc.php")).thenReturn(VALID_METHODS);
+
+        mEndpointFinder.findEndpoint("example.com");
+
+        DiscoveryResultPayload payload = getDiscoveryResult();
+        assertNull(payload.error);
+        assertEquals("http://example.com/xmlrpc.php", payload.xmlRpcEndpoint);
+        verify(mDiscoveryCache).put("example.com", "http://example.com/xmlrpc.php", "");
+    }
+
+    @Test
+    public void testErrorOfEarlierCandidateWins() throws DiscoveryException {
+        // The https endpoint requires HTTP auth, which takes precedence even though the http one answers first
+        when(mXMLRPCClient.listMethods("https://example.com/xmlrpc.php")).thenAnswer(
+                delayed(new DiscoveryException(DiscoveryError.HTTP_AUTH_REQUIRED, "https://example.com/xmlrpc.php")));
+        when(mXMLRPCClient.listMethods("http://example.com/xmlrpc.php")).thenReturn(VALID_METHODS);
+
+        mEndpointFinder.findEndpoint("example.com");
+
+        DiscoveryResultPayload payload = getDiscoveryResult();
+        assertEquals(DiscoveryError.HTTP_AUTH_REQUIRED, payload.error);
+        assertEquals("https://example.com/xmlrpc.php", payload.failedEndpoint);
+        verify(mDiscoveryCache, never()).put(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testCachedEndpointSkipsDiscovery() throws DiscoveryException {
+        when(mDiscoveryCache.getXMLRPCEndpoint("example.com")).thenReturn("https://example.com/wp/xmlrpc.php");
+        when(mDiscoveryCache.getWPAPIEndpoint("example.com")).thenReturn("");
+        when(mXMLRPCClient.listMethods("https://example.com/wp/xmlrpc.php")).thenReturn(VALID_METHODS);
+
+        mEndpointFinder.findEndpoint("https://example.com/wp-admin");
+
+        DiscoveryResultPayload payload = getDiscoveryResult();
+        assertEquals("https://example.com/wp/xmlrpc.php", payload.xmlRpcEndpoint);
+        verify(mXMLRPCClient, times(1)).listMethods(anyString());
+        verify(mXMLRPCClient, never()).getResponse(anyString());
+    }
+
+    private DiscoveryResultPayload getDiscoveryResult() {
+        ArgumentCaptor<Action> actionCaptor = ArgumentCaptor.forClass(Action.class);
+        verify(mDispatcher, timeout(5000)).dispatch(actionCaptor.capture());
+        assertEquals(AuthenticationAction.DISCOVERY_RESULT, actionCaptor.getValue().getType());
+        return (DiscoveryResultPayload) actionCaptor.getValue().getPayload();
+    }
+
+    private static Answer<Object[]> delayed(final Object result) {
+        return new Answer<Object[]>() {
+            @Override
+            public Object[] answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(PROBE_DELAY_MS);
+                if (result instanceof Throwable) {
+                    throw (Throwable) result;
+                }
+                return (Object[]) result;
+            }
+        };
+    }
+}
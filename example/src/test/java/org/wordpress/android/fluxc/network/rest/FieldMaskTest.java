@@ -0,0 +1,85 @@
+package org.wordpress.android.fluxc.network.rest;
+
+import com.google.gson.annotations.SerializedName;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.rest.wpcom.comment.CommentWPComRestResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.media.MediaWPComRestResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.post.PostWPComRestResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteWPComRestResponse;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class FieldMaskTest {
+    static class BaseResponse {
+        public long ID;
+    }
+
+    static class Response extends BaseResponse {
+        public static final String CONSTANT = "constant";
+
+        @SerializedName(value = "URL", alternate = {"url"})
+        public String link;
+        public String title;
+        public transient String cached;
+    }
+
+    @Test
+    public void testSiteMaskKeepsMappedMembers() {
+        // SiteRestClient.siteResponseToSiteModel()
+        assertMaskContains(SiteWPComRestResponse.class, "ID", "URL", "name", "description", "jetpack", "visible",
+                "is_private", "options", "plan", "capabilities", "quota", "icon", "meta");
+        // Sent as the "options" param of /me/sites
+        assertMaskContains(SiteWPComRestResponse.Options.class, "featured_images_enabled", "videopress_enabled",
+                "is_automated_transfer", "is_wpcom_store", "woocommerce_is_active", "admin_url", "login_url",
+                "gmt_offset", "frame_nonce", "unmapped_url", "jetpack_version", "software_version", "max_upload_size",
+                "wp_memory_limit", "wp_max_memory_limit");
+    }
+
+    @Test
+    public void testPostMaskKeepsMappedMembers() {
+        // PostRestClient.postResponseToPostModel()
+        assertMaskContains(PostWPComRestResponse.class, "ID", "site_ID", "URL", "date", "modified", "title",
+                "content", "excerpt", "slug", "status", "password", "type", "post_thumbnail", "format", "geo",
+                "categories", "tags", "capabilities", "parent");
+    }
+
+    @Test
+    public void testMediaMaskKeepsMappedMembers() {
+        // MediaRestClient.getMediaFromRestResponse()
+        assertMaskContains(MediaWPComRestResponse.class, "ID", "date", "post_ID", "author_ID", "URL", "guid", "file",
+                "extension", "mime_type", "title", "caption", "description", "alt", "thumbnails", "height", "width",
+                "length", "videopress_guid", "videopress_processing_done", "status");
+    }
+
+    @Test
+    public void testCommentMaskKeepsMappedMembers() {
+        // CommentRestClient.commentResponseToComment()
+        assertMaskContains(CommentWPComRestResponse.class, "ID", "status", "date", "content", "i_like", "author",
+                "post");
+    }
+
+    @Test
+    public void testMaskFollowsGsonNaming() {
+        assertEquals("ID,URL,title,url", FieldMask.of(Response.class));
+    }
+
+    /**
+     * The members are listed from the client mapper building the model from the response, not from the response
+     * class the mask is built from. Update the list when a mapper reads a new member.
+     */
+    private static void assertMaskContains(Class<?> responseClass, String... mappedMembers) {
+        List<String> mask = Arrays.asList(FieldMask.of(responseClass).split(","));
+        for (String member : mappedMembers) {
+            assertTrue(member + " is missing from the mask of " + responseClass.getSimpleName(),
+                    mask.contains(member));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.wordpress.android.fluxc.network.rest;
+
+import android.content.Context;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.android.volley.Response.Listener;
+import com.yarolegovich.wellsql.WellSql;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.wordpress.android.fluxc.SingleStoreWellSqlConfigForTests;
+import org.wordpress.android.fluxc.model.ResponseValidatorModel;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.rest.GsonRequest.ConditionalResponseListener;
+import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
+import org.wordpress.android.fluxc.persistence.ResponseValidatorSqlUtils;
+import org.wordpress.android.fluxc.persistence.WellSqlConfig;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class GsonRequestConditionalTest {
+    private static final String URL = "https://public-api.wordpress.com/rest/v1.1/me/sites/";
+    private static final String ETAG = "\"abc123\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    public static class TestResponse {
+        public String name;
+    }
+
+    private Listener<TestResponse> mListener;
+    private ConditionalResponseListener<TestResponse> mConditionalListener;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Context appContext = RuntimeEnvironment.application.getApplicationContext();
+        WellSqlConfig config = new SingleStoreWellSqlConfigForTests(appContext, ResponseValidatorModel.class);
+        WellSql.init(config);
+        config.reset();
+
+        mListener = Mockito.mock(Listener.class);
+        mConditionalListener = Mockito.mock(ConditionalResponseListener.class);
+    }
+
+    @Test
+    public void testValidatorsAreSentWithTheNextRequest() {
+        WPComGsonRequest<TestResponse> request = buildConditionalRequest();
+        assertFalse(request.getHeaders().containsKey("If-None-Match"));
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", ETAG);
+        headers.put("Last-Modified", LAST_MODIFIED);
+        byte[] body = "{\"name\":\"a\"}".getBytes(Charset.forName("UTF-8"));
+        Response<TestResponse> response = request.parseNetworkResponse(new NetworkResponse(200, body, headers, false));
+        assertTrue(response.isSuccess());
+        assertEquals("a", response.result.name);
+
+        // The validators are delivered with the response, and only saved once its data is stored
+        request.deliverResponse(response.result);
+        ArgumentCaptor<ResponseValidatorModel> validator = ArgumentCaptor.forClass(ResponseValidatorModel.class);
+        verify(mConditionalListener).onResponse(eq(response.result), validator.capture());
+        verify(mListener, never()).onResponse(any(TestResponse.class));
+        assertFalse(buildConditionalRequest().getHeaders().containsKey("If-None-Match"));
+        ResponseValidatorSqlUtils.insertOrUpdateValidator(validator.getValue());
+
+        Map<String, String> nextHeaders = buildConditionalRequest().getHeaders();
+        assertEquals(ETAG, nextHeaders.get("If-None-Match"));
+        assertEquals(LAST_MODIFIED, nextHeaders.get("If-Modified-Since"));
+    }
+
+    @Test
+    public void testNotModifiedResponseIsNotParsed() {
+        WPComGsonRequest<TestResponse> request = buildConditionalRequest();
+
+        Response<TestResponse> response = request.parseNetworkResponse(
+                new NetworkResponse(304, null, new HashMap<String, String>(), true));
+        assertTrue(response.isSuccess());
+        assertNull(response.result);
+
+        request.deliverResponse(response.result);
+        verify(mConditionalListener).onNotModified();
+        verify(mListener, never()).onResponse(any(TestResponse.class));
+    }
+
+    @Test
+    public void testValidatorsAreOnlySentWithConditionalRequests() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", ETAG);
+        byte[] body = "{\"name\":\"a\"}".getBytes(Charset.forName("UTF-8"));
+        WPComGsonRequest<TestResponse> conditionalRequest = buildConditionalRequest();
+        conditionalRequest.deliverResponse(conditionalRequest.parseNetworkResponse(
+                new NetworkResponse(200, body, headers, false)).result);
+        ArgumentCaptor<ResponseValidatorModel> validator = ArgumentCaptor.forClass(ResponseValidatorModel.class);
+        verify(mConditionalListener).onResponse(any(TestResponse.class), validator.capture());
+        ResponseValidatorSqlUtils.insertOrUpdateValidator(validator.getValue());
+
+        WPComGsonRequest<TestResponse> request = WPComGsonRequest.buildGetRequest(URL, null, TestResponse.class,
+                mListener, Mockito.mock(BaseErrorListener.class));
+        assertFalse(request.getHeaders().containsKey("If-None-Match"));
+    }
+
+    private WPComGsonRequest<TestResponse> buildConditionalRequest() {
+        WPComGsonRequest<TestResponse> request = WPComGsonRequest.buildGetRequest(URL, null, TestResponse.class,
+                mListener, Mockito.mock(BaseErrorListener.class));
+        request.enableConditionalRequest(mConditionalListener);
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+package org.wordpress.android.fluxc.network.rest;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.Response.Listener;
+
+import org.apache.http.HttpResponse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.OkHttpStack;
+import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class GsonRequestStreamingTest {
+    private static final String URL = "https://public-api.wordpress.com/rest/v1.1/me/sites/";
+
+    public static class TestResponse {
+        public List<String> names;
+    }
+
+    @Test
+    public void testStreamingResponseIsParsedFromTheNetworkStream() throws Exception {
+        OkHttpStack stack = new OkHttpStack(buildClientRespondingWith(200, "{\"names\":[\"a\",\"\\u00e9\"]}"));
+        WPComGsonRequest<TestResponse> request = buildRequest();
+        request.enableStreamingResponse();
+
+        HttpResponse httpResponse = stack.performRequest(request, Collections.<String, String>emptyMap());
+        // Volley gets an empty body, the response was already parsed
+        assertEquals(0, httpResponse.getEntity().getContentLength());
+
+        Response<TestResponse> response = request.parseNetworkResponse(new NetworkResponse(new byte[0]));
+        assertTrue(response.isSuccess());
+        assertEquals(2, response.result.names.size());
+        assertEquals("\u00e9", response.result.names.get(1));
+    }
+
+    @Test
+    public void testStreamingResponseParseError() throws Exception {
+        OkHttpStack stack = new OkHttpStack(buildClientRespondingWith(200, "{\"names\":{}}"));
+        WPComGsonRequest<TestResponse> request = buildRequest();
+        request.enableStreamingResponse();
+
+        stack.performRequest(request, Collections.<String, String>emptyMap());
+
+        Response<TestResponse> response = request.parseNetworkResponse(new NetworkResponse(new byte[0]));
+        assertTrue(response.error instanceof ParseError);
+    }
+
+    @Test
+    public void testStreamingResponseTruncatedBody() throws Exception {
+        OkHttpStack stack = new OkHttpStack(buildClientRespondingWith(200, "{\"names\":[\"a\",\"b\""));
+        WPComGsonRequest<TestResponse> request = buildRequest();
+        request.enableStreamingResponse();
+
+        try {
+            stack.performRequest(request, Collections.<String, String>emptyMap());
+            fail("A truncated body must fail like a network error");
+        } catch (EOFException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testStreamingResponseReaderFailure() {
+        WPComGsonRequest<TestResponse> request = buildRequest();
+        request.enableStreamingResponse();
+
+        final IOException connectionReset = new SocketException("Connection reset");
+        Reader failingReader = new Reader() {
+            private final Reader mReader = new StringReader("{\"names\":[\"a\",");
+
+            @Override
+            public int read(@NonNull char[] buffer, int offset, int length) throws IOException {
+                int read = mReader.read(buffer, offset, length);
+                if (read == -1) {
+                    throw connectionReset;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try {
+            request.parseResponseStream(failingReader);
+            fail("A failure of the reader must be rethrown");
+        } catch (IOException e) {
+            assertSame(connectionReset, e);
+        }
+    }
+
+    @Test
+    public void testErrorResponseIsNotStreamed() throws Exception {
+        String errorJson = "{\"error\":\"unknown_post\",\"message\":\"Unknown post\"}";
+        OkHttpStack stack = new OkHttpStack(buildClientRespondingWith(404, errorJson));
+        WPComGsonRequest<TestResponse> request = buildRequest();
+        request.enableStreamingResponse();
+
+        HttpResponse httpResponse = stack.performRequest(request, Collections.<String, String>emptyMap());
+        // Error bodies are still buffered by Volley, so that deliverBaseNetworkError() can read them
+        assertEquals(errorJson.length(), httpResponse.getEntity().getContentLength());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WPComGsonRequest<TestResponse> buildRequest() {
+        return WPComGsonRequest.buildGetRequest(URL, null, TestResponse.class,
+                Mockito.mock(Listener.class), Mockito.mock(BaseErrorListener.class));
+    }
+
+    private static OkHttpClient buildClientRespondingWith(final int code, final String body) {
+        return new OkHttpClient.Builder().addInterceptor(new Interceptor() {
+            @Override
+            public okhttp3.Response intercept(Chain chain) throws IOException {
+                return new okhttp3.Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(code)
+                        .message("")
+                        .body(ResponseBody.create(MediaType.parse("application/json; charset=utf-8"), body))
+                        .build();
+            }
+        }).build();
+    }
+}
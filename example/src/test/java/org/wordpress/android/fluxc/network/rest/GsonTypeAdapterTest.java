@@ -0,0 +1,156 @@
+package org.wordpress.android.fluxc.network.rest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.generated.MediaWPComRestResponseTypeAdapter;
+import org.wordpress.android.fluxc.generated.PostWPComRestResponseTypeAdapter;
+import org.wordpress.android.fluxc.generated.SiteWPComRestResponseTypeAdapter;
+import org.wordpress.android.fluxc.network.rest.wpcom.media.MediaWPComRestResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.post.PostWPComRestResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.post.PostWPComRestResponse.PostsResponse;
+import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteWPComRestResponse;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class GsonTypeAdapterTest {
+    private static final int POSTS_PER_RESPONSE = 20;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int BENCHMARK_ITERATIONS = 500;
+
+    private static final String POST_JSON = "{\"ID\":42,\"site_ID\":\"556\",\"date\":\"2018-03-08T11:38:21+00:00\","
+            + "\"title\":\"A post\",\"URL\":\"https://example.wordpress.com/2018/03/08/a-post/\","
+            + "\"content\":\"<p>Content<\\/p>\",\"status\":\"publish\",\"sticky\":true,\"password\":null,"
+            + "\"parent\":false,\"geo\":{\"latitude\":\"44.8378\",\"longitude\":\"-0.5792\"},"
+            + "\"post_thumbnail\":{\"ID\":7,\"URL\":\"https://example.files.wordpress.com/a.jpg\",\"width\":640},"
+            + "\"tags\":{\"news\":{\"ID\":3,\"name\":\"news\",\"slug\":\"news\"}},\"categories\":{},"
+            + "\"capabilities\":{\"publish_post\":true,\"edit_post\":true,\"delete_post\":false},"
+            + "\"unknown_field\":{\"nested\":[1,2,3]}}";
+
+    @Test
+    public void testGeneratedAdapterIsUsed() {
+        Gson gson = GsonRequest.createGson();
+
+        assertTrue(gson.getAdapter(SiteWPComRestResponse.class) instanceof SiteWPComRestResponseTypeAdapter);
+        assertTrue(gson.getAdapter(PostWPComRestResponse.class) instanceof PostWPComRestResponseTypeAdapter);
+        assertTrue(gson.getAdapter(MediaWPComRestResponse.class) instanceof MediaWPComRestResponseTypeAdapter);
+    }
+
+    @Test
+    public void testGeneratedAdapterMatchesReflectiveParsing() {
+        PostWPComRestResponse generated = GsonRequest.createGson().fromJson(POST_JSON, PostWPComRestResponse.class);
+        PostWPComRestResponse reflective = createReflectiveGson().fromJson(POST_JSON, PostWPComRestResponse.class);
+
+        assertEquals(reflective.ID, generated.ID);
+        assertEquals(556, generated.site_ID);
+        assertEquals(reflective.title, generated.title);
+        assertEquals(reflective.URL, generated.URL);
+        assertEquals(reflective.content, generated.content);
+        assertTrue(generated.sticky);
+        assertNull(generated.password);
+        // JsonObjectOrFalse fields still go through their deserializer
+        assertNull(generated.parent);
+        assertEquals(reflective.geo.latitude, generated.geo.latitude, 0);
+        assertEquals(640, generated.post_thumbnail.width);
+        assertEquals("news", generated.tags.get("news").name);
+        assertTrue(generated.categories.isEmpty());
+        assertFalse(generated.capabilities.delete_post);
+    }
+
+    @Test
+    public void testGeneratedAdapterRoundTrip() {
+        Gson gson = GsonRequest.createGson();
+        MediaWPComRestResponse media = new MediaWPComRestResponse();
+        media.ID = 12;
+        media.title = "A title";
+        media.videopress_processing_done = true;
+
+        String json = gson.toJson(media);
+        MediaWPComRestResponse parsed = gson.fromJson(json, MediaWPComRestResponse.class);
+
+        assertEquals(json, createReflectiveGson().toJson(media));
+        assertEquals(12, parsed.ID);
+        assertEquals("A title", parsed.title);
+        assertTrue(parsed.videopress_processing_done);
+        assertNull(parsed.caption);
+    }
+
+    @Test
+    public void testGeneratedAdapterParsesPostList() {
+        String postsJson = buildPostsResponse();
+        Gson gson = GsonRequest.createGson();
+
+        PostsResponse generated = gson.fromJson(postsJson, PostsResponse.class);
+        PostsResponse reflective = createReflectiveGson().fromJson(postsJson, PostsResponse.class);
+
+        assertEquals(POSTS_PER_RESPONSE, generated.posts.size());
+        for (int i = 0; i < POSTS_PER_RESPONSE; i++) {
+            assertEquals(reflective.posts.get(i).ID, generated.posts.get(i).ID);
+            assertEquals(reflective.posts.get(i).title, generated.posts.get(i).title);
+        }
+        // The list elements are parsed by the generated adapter, not by reflection
+        assertTrue(gson.getAdapter(PostWPComRestResponse.class) instanceof PostWPComRestResponseTypeAdapter);
+    }
+
+    /**
+     * Compares the parse cost of a post list with reflection and with the generated adapters, both with a shared
+     * Gson instance. Results are logged with the TESTS tag.
+     */
+    @Test
+    public void testParseCostBenchmark() {
+        String postsJson = buildPostsResponse();
+        Gson reflectiveGson = createReflectiveGson();
+        Gson generatedGson = GsonRequest.createGson();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            reflectiveGson.fromJson(postsJson, PostsResponse.class);
+            generatedGson.fromJson(postsJson, PostsResponse.class);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            assertEquals(POSTS_PER_RESPONSE, reflectiveGson.fromJson(postsJson, PostsResponse.class).posts.size());
+        }
+        long reflectiveNanos = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            assertEquals(POSTS_PER_RESPONSE, generatedGson.fromJson(postsJson, PostsResponse.class).posts.size());
+        }
+        long generatedNanos = (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+
+        AppLog.i(T.TESTS, "Parse cost of " + POSTS_PER_RESPONSE + " posts - reflection: "
+                + TimeUnit.NANOSECONDS.toMicros(reflectiveNanos) + "us, generated adapters: "
+                + TimeUnit.NANOSECONDS.toMicros(generatedNanos) + "us");
+    }
+
+    /**
+     * Same configuration as GsonRequest used before adapters were generated.
+     */
+    private static Gson createReflectiveGson() {
+        return new GsonBuilder()
+                .setLenient()
+                .registerTypeHierarchyAdapter(JsonObjectOrFalse.class, new JsonObjectOrFalseDeserializer())
+                .registerTypeHierarchyAdapter(JsonObjectOrEmptyArray.class, new JsonObjectOrEmptyArrayDeserializer())
+                .create();
+    }
+
+    private static String buildPostsResponse() {
+        StringBuilder json = new StringBuilder("{\"found\":" + POSTS_PER_RESPONSE + ",\"posts\":[");
+        for (int i = 0; i < POSTS_PER_RESPONSE; i++) {
+            json.append(i == 0 ? "" : ",").append(POST_JSON);
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,193 @@
+package org.wordpress.android.fluxc.network.rest.wpcom;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.android.volley.Response.Listener;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.BasicNetwork;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
+import org.wordpress.android.fluxc.network.BaseRequest.OnParseErrorListener;
+import org.wordpress.android.fluxc.network.HostHealthMonitor;
+import org.wordpress.android.fluxc.network.OkHttpStack;
+import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
+import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class WPComBatcherTest {
+    private static final long WINDOW_MS = 10;
+    private static final long TIMEOUT_MS = 1000;
+
+    static class SiteResponse {
+        public long ID;
+        public String name;
+    }
+
+    private final BlockingQueue<BaseRequest<?>> mSentRequests = new LinkedBlockingQueue<>();
+    private final List<Object> mResponses = new ArrayList<>();
+    private final List<BaseNetworkError> mErrors = new ArrayList<>();
+    private MockWebServer mServer;
+    private Network mNetwork;
+    private WPComBatcher mBatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+        mNetwork = new BasicNetwork(new OkHttpStack(new OkHttpClient(), new HostHealthMonitor()));
+        mBatcher = new WPComBatcher(new WPComBatcher.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                mSentRequests.add(request);
+            }
+        }, WINDOW_MS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testRequestsAreSentInOneBatch() throws Exception {
+        WPComGsonRequest<SiteResponse> site = newRequest("/rest/v1.1/sites/1/");
+        WPComGsonRequest<SiteResponse> otherSite = newRequest("/rest/v1.1/sites/2/");
+        WPComGsonRequest<SiteResponse> missingSite = newRequest("/rest/v1.1/sites/3/");
+        assertTrue(mBatcher.enqueue(site));
+        assertTrue(mBatcher.enqueue(otherSite));
+        assertTrue(mBatcher.enqueue(missingSite));
+
+        WPComBatchRequest batch = (WPComBatchRequest) mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(batch);
+        assertEquals(Arrays.asList(site, otherSite, missingSite), batch.getRequests());
+        assertNull(mSentRequests.poll(WINDOW_MS * 5, TimeUnit.MILLISECONDS));
+
+        mServer.enqueue(new MockResponse().setBody("{\"/sites/1/\": {\"ID\": 1, \"name\": \"A site\"},"
+                + "\"/sites/2/\": {\"ID\": 2, \"name\": \"Another site\"},"
+                + "\"/sites/3/\": {\"error\": \"unknown_blog\", \"message\": \"Unknown blog\"}}"));
+        perform(batch);
+
+        String path = mServer.takeRequest().getPath();
+        assertTrue(path, path.startsWith("/rest/v1.1/batch/?"));
+        assertTrue(path, path.contains("%2Fsites%2F1%2F"));
+        assertTrue(path, path.contains("%2Fsites%2F3%2F"));
+
+        // Each response is delivered to its own request, parsed into its type
+        assertEquals(2, mResponses.size());
+        assertEquals("A site", ((SiteResponse) mResponses.get(0)).name);
+        assertEquals(2, ((SiteResponse) mResponses.get(1)).ID);
+
+        // The request which failed in the batch is sent again on its own to get its error
+        assertSame(missingSite, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mErrors.isEmpty());
+    }
+
+    @Test
+    public void testRequestsToOtherApisAreSentApart() throws Exception {
+        WPComGsonRequest<SiteResponse> site = newRequest("/rest/v1.1/sites/1/");
+        WPComGsonRequest<SiteResponse> plugins = newRequest("/rest/v1.2/sites/1/plugins/");
+        assertTrue(mBatcher.enqueue(site));
+        assertTrue(mBatcher.enqueue(plugins));
+        assertFalse(mBatcher.enqueue(newRequest("/wpcom/v2/sites/1/rewind/")));
+        WPComGsonRequest<SiteResponse> post = WPComGsonRequest.buildPostRequest(
+                mServer.url("/rest/v1.1/sites/1/").toString(), null, SiteResponse.class, null, null);
+        assertFalse(mBatcher.enqueue(post));
+
+        // Alone in their batch, they are sent as is
+        List<BaseRequest<?>> sentRequests = Arrays.<BaseRequest<?>>asList(
+                mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS),
+                mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(sentRequests.contains(site));
+        assertTrue(sentRequests.contains(plugins));
+    }
+
+    @Test
+    public void testFallbackWhenBatchIsNotSupported() throws Exception {
+        WPComGsonRequest<SiteResponse> site = newRequest("/rest/v1.1/sites/1/");
+        WPComGsonRequest<SiteResponse> otherSite = newRequest("/rest/v1.1/sites/2/");
+        mBatcher.enqueue(site);
+        mBatcher.enqueue(otherSite);
+
+        WPComBatchRequest batch = (WPComBatchRequest) mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        mServer.enqueue(new MockResponse().setResponseCode(404).setBody("{\"error\": \"unknown_method\"}"));
+        perform(batch);
+
+        // The requests are sent again on their own, without reporting the batch error to them
+        assertSame(site, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertSame(otherSite, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mErrors.isEmpty());
+
+        // And the API isn't sent batches anymore
+        assertFalse(mBatcher.enqueue(newRequest("/rest/v1.1/sites/3/")));
+    }
+
+    private void perform(WPComBatchRequest batch) {
+        try {
+            NetworkResponse networkResponse = mNetwork.performRequest(batch);
+            Response<List<Object>> response = batch.parseNetworkResponse(networkResponse);
+            if (response.isSuccess()) {
+                batch.deliverResponse(response.result);
+            } else {
+                batch.deliverError(response.error);
+            }
+        } catch (VolleyError e) {
+            batch.deliverError(e);
+        }
+    }
+
+    private WPComGsonRequest<SiteResponse> newRequest(String path) {
+        WPComGsonRequest<SiteResponse> request = WPComGsonRequest.buildGetRequest(mServer.url(path).toString(), null,
+                SiteResponse.class, new Listener<SiteResponse>() {
+                    @Override
+                    public void onResponse(SiteResponse response) {
+                        mResponses.add(response);
+                    }
+                }, new BaseErrorListener() {
+                    @Override
+                    public void onErrorResponse(@NonNull BaseNetworkError error) {
+                        mErrors.add(error);
+                    }
+                });
+        request.setOnAuthFailedListener(new OnAuthFailedListener() {
+            @Override
+            public void onAuthFailed(AuthenticateErrorPayload errorType) {
+            }
+        });
+        request.setOnParseErrorListener(new OnParseErrorListener() {
+            @Override
+            public void onParseError(OnUnexpectedError event) {
+            }
+        });
+        request.setAccessToken("token");
+        return request;
+    }
+}
@@ -0,0 +1,260 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Response;
+import com.android.volley.Response.Listener;
+import com.android.volley.VolleyError;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.BaseRequest.GenericErrorType;
+import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
+import org.wordpress.android.fluxc.network.BaseRequest.OnParseErrorListener;
+import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
+import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class XMLRPCBatcherTest {
+    private static final String URL = "http://example.com/xmlrpc.php";
+    private static final long WINDOW_MS = 10;
+    private static final long TIMEOUT_MS = 1000;
+
+    private final BlockingQueue<BaseRequest<?>> mSentRequests = new LinkedBlockingQueue<>();
+    private final List<Object> mResponses = new ArrayList<>();
+    private final List<BaseNetworkError> mErrors = new ArrayList<>();
+    private XMLRPCBatcher mBatcher;
+
+    @Before
+    public void setUp() {
+        mBatcher = new XMLRPCBatcher(new XMLRPCBatcher.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                mSentRequests.add(request);
+            }
+        }, WINDOW_MS);
+    }
+
+    @Test
+    public void testRequestsAreSentInOneMulticall() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        XMLRPCRequest getPostFormats = newRequest(XMLRPC.GET_POST_FORMATS);
+        XMLRPCRequest getProfile = newRequest(XMLRPC.GET_PROFILE);
+        assertTrue(mBatcher.enqueue(getOptions));
+        assertTrue(mBatcher.enqueue(getPostFormats));
+        assertTrue(mBatcher.enqueue(getProfile));
+
+        XMLRPCMulticallRequest multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS,
+                TimeUnit.MILLISECONDS);
+        assertNotNull(multicall);
+        assertEquals(Arrays.asList(getOptions, getPostFormats, getProfile), multicall.getCalls());
+        assertNull(mSentRequests.poll(WINDOW_MS * 5, TimeUnit.MILLISECONDS));
+
+        String body = new String(multicall.getBody(), "UTF-8");
+        assertTrue(body.contains("<methodName>system.multicall</methodName>"));
+        assertTrue(body.contains("<string>wp.getOptions</string>"));
+        assertTrue(body.contains("<string>wp.getPostFormats</string>"));
+        assertTrue(body.contains("<string>wp.getProfile</string>"));
+
+        // Each result, or fault, is delivered to its own request
+        deliver(multicall, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param><value>"
+                + "<array><data>"
+                + "<value><array><data><value><struct><member><name>blog_title</name>"
+                + "<value><string>A blog</string></value></member></struct></value></data></array></value>"
+                + "<value><struct><member><name>faultCode</name><value><int>404</int></value></member>"
+                + "<member><name>faultString</name><value><string>Not found.</string></value></member>"
+                + "</struct></value>"
+                + "<value><array><data><value><string>profile</string></value></data></array></value>"
+                + "</data></array></value></param></params></methodResponse>");
+
+        assertEquals(2, mResponses.size());
+        assertEquals("A blog", ((Map<?, ?>) mResponses.get(0)).get("blog_title"));
+        assertEquals("profile", mResponses.get(1));
+        assertEquals(1, mErrors.size());
+        assertEquals(GenericErrorType.NOT_FOUND, mErrors.get(0).type);
+        assertEquals("Not found.", mErrors.get(0).message);
+    }
+
+    @Test
+    public void testSingleRequestIsSentAsIs() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        assertTrue(mBatcher.enqueue(getOptions));
+
+        assertSame(getOptions, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWriteRequestsAreNotBatched() {
+        assertFalse(mBatcher.enqueue(newRequest(XMLRPC.NEW_POST)));
+        assertFalse(mBatcher.enqueue(newRequest(XMLRPC.UPLOAD_FILE)));
+    }
+
+    @Test
+    public void testFallbackWhenMulticallIsNotSupported() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        XMLRPCRequest getProfile = newRequest(XMLRPC.GET_PROFILE);
+        mBatcher.enqueue(getOptions);
+        mBatcher.enqueue(getProfile);
+
+        XMLRPCMulticallRequest multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS,
+                TimeUnit.MILLISECONDS);
+        deliver(multicall, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><fault><value><struct>"
+                + "<member><name>faultCode</name><value><int>-32601</int></value></member>"
+                + "<member><name>faultString</name><value><string>server error. requested method "
+                + "system.multicall does not exist.</string></value></member>"
+                + "</struct></value></fault></methodResponse>");
+
+        // The calls are sent again on their own, without reporting the multicall fault to them
+        assertSame(getOptions, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertSame(getProfile, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mErrors.isEmpty());
+
+        // And the endpoint isn't sent multicalls anymore
+        assertFalse(mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS)));
+    }
+
+    @Test
+    public void testFallbackWhenMulticallIsRejected() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        XMLRPCRequest getProfile = newRequest(XMLRPC.GET_PROFILE);
+        mBatcher.enqueue(getOptions);
+        mBatcher.enqueue(getProfile);
+
+        // e.g. a firewall blocking system.multicall
+        XMLRPCMulticallRequest multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS,
+                TimeUnit.MILLISECONDS);
+        multicall.deliverError(newHttpError(405));
+
+        // The calls are sent again on their own, without reporting the multicall error to them
+        assertSame(getOptions, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertSame(getProfile, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mErrors.isEmpty());
+
+        // After a second failure in a row, the endpoint isn't sent multicalls anymore
+        mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS));
+        mBatcher.enqueue(newRequest(XMLRPC.GET_PROFILE));
+        multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        multicall.deliverError(newHttpError(405));
+
+        assertNotNull(mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertNotNull(mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertFalse(mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS)));
+    }
+
+    @Test
+    public void testTransientFaultKeepsMulticall() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        XMLRPCRequest getProfile = newRequest(XMLRPC.GET_PROFILE);
+        mBatcher.enqueue(getOptions);
+        mBatcher.enqueue(getProfile);
+
+        XMLRPCMulticallRequest multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS,
+                TimeUnit.MILLISECONDS);
+        deliver(multicall, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><fault><value><struct>"
+                + "<member><name>faultCode</name><value><int>-32500</int></value></member>"
+                + "<member><name>faultString</name><value><string>Application error.</string></value></member>"
+                + "</struct></value></fault></methodResponse>");
+
+        assertSame(getOptions, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertSame(getProfile, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mErrors.isEmpty());
+
+        // A single fault doesn't stop batching
+        assertTrue(mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS)));
+    }
+
+    @Test
+    public void testConnectivityErrorIsDeliveredToCalls() throws Exception {
+        mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS));
+        mBatcher.enqueue(newRequest(XMLRPC.GET_PROFILE));
+
+        XMLRPCMulticallRequest multicall = (XMLRPCMulticallRequest) mSentRequests.poll(TIMEOUT_MS,
+                TimeUnit.MILLISECONDS);
+        multicall.deliverError(new NoConnectionError());
+
+        // Sending the calls on their own wouldn't help
+        assertNull(mSentRequests.poll(WINDOW_MS * 5, TimeUnit.MILLISECONDS));
+        assertEquals(2, mErrors.size());
+        assertTrue(mBatcher.enqueue(newRequest(XMLRPC.GET_OPTIONS)));
+    }
+
+    @Test
+    public void testCanceledRequestsAreNotSent() throws Exception {
+        XMLRPCRequest getOptions = newRequest(XMLRPC.GET_OPTIONS);
+        XMLRPCRequest getProfile = newRequest(XMLRPC.GET_PROFILE);
+        mBatcher.enqueue(getOptions);
+        mBatcher.enqueue(getProfile);
+        getProfile.cancel();
+
+        assertSame(getOptions, mSentRequests.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertNull(mSentRequests.poll(WINDOW_MS * 5, TimeUnit.MILLISECONDS));
+    }
+
+    private void deliver(XMLRPCMulticallRequest multicall, String response) throws Exception {
+        NetworkResponse networkResponse = new NetworkResponse(response.getBytes("UTF-8"));
+        Response<List<Object>> parsed = multicall.parseNetworkResponse(networkResponse);
+        if (parsed.isSuccess()) {
+            multicall.deliverResponse(parsed.result);
+        } else {
+            multicall.deliverError(parsed.error);
+        }
+    }
+
+    private static VolleyError newHttpError(int statusCode) throws Exception {
+        return new VolleyError(new NetworkResponse(statusCode, "<html>Not allowed</html>".getBytes("UTF-8"),
+                Collections.<String, String>emptyMap(), false));
+    }
+
+    private XMLRPCRequest newRequest(XMLRPC method) {
+        List<Object> params = new ArrayList<>();
+        params.add(1L);
+        params.add("username");
+        params.add("password");
+        XMLRPCRequest request = new XMLRPCRequest(URL, method, params, new Listener<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                mResponses.add(response);
+            }
+        }, new BaseErrorListener() {
+            @Override
+            public void onErrorResponse(@NonNull BaseNetworkError error) {
+                mErrors.add(error);
+            }
+        });
+        request.setOnAuthFailedListener(new OnAuthFailedListener() {
+            @Override
+            public void onAuthFailed(AuthenticateErrorPayload errorType) {
+            }
+        });
+        request.setOnParseErrorListener(new OnParseErrorListener() {
+            @Override
+            public void onParseError(OnUnexpectedError event) {
+            }
+        });
+        return request;
+    }
+}
@@ -0,0 +1,151 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.Response.Listener;
+import com.android.volley.TimeoutError;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
+import org.wordpress.android.fluxc.network.RequestCoalescer;
+import org.wordpress.android.fluxc.network.RequestCoalescer.RequestSender;
+import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class XMLRPCRequestCoalescingTest {
+    private static final String URL = "http://example.com/xmlrpc.php";
+
+    private RequestSender mRequestSender;
+    private RequestCoalescer mCoalescer;
+    private List<String> mEvents;
+
+    @Before
+    public void setUp() {
+        mRequestSender = Mockito.mock(RequestSender.class);
+        mCoalescer = new RequestCoalescer(mRequestSender);
+        mEvents = new ArrayList<>();
+    }
+
+    @Test
+    public void testIdenticalRequestsGetTheSameResponse() {
+        XMLRPCRequest first = newRequest("first", XMLRPC.GET_OPTIONS, "password");
+        XMLRPCRequest second = newRequest("second", XMLRPC.GET_OPTIONS, "password");
+
+        assertFalse(mCoalescer.coalesce(first));
+        assertTrue(mCoalescer.coalesce(second));
+
+        first.deliverResponse("options");
+        assertEquals(Arrays.asList("first: options", "second: options"), mEvents);
+
+        // The first request isn't in flight anymore
+        assertFalse(mCoalescer.coalesce(newRequest("third", XMLRPC.GET_OPTIONS, "password")));
+    }
+
+    @Test
+    public void testDifferentRequestsAreNotCoalesced() {
+        assertFalse(mCoalescer.coalesce(newRequest("first", XMLRPC.GET_OPTIONS, "password")));
+        assertFalse(mCoalescer.coalesce(newRequest("second", XMLRPC.GET_OPTIONS, "other password")));
+        assertFalse(mCoalescer.coalesce(newRequest("third", XMLRPC.GET_PROFILE, "password")));
+        // Calls with side effects are always sent
+        assertFalse(mCoalescer.coalesce(newRequest("fourth", XMLRPC.NEW_POST, "password")));
+        assertFalse(mCoalescer.coalesce(newRequest("fifth", XMLRPC.NEW_POST, "password")));
+    }
+
+    @Test
+    public void testMapParamOrderDoesNotChangeTheKey() {
+        Map<String, Object> filter = new LinkedHashMap<>();
+        filter.put("post_type", "post");
+        filter.put("number", 20);
+        Map<String, Object> reorderedFilter = new LinkedHashMap<>();
+        reorderedFilter.put("number", 20);
+        reorderedFilter.put("post_type", "post");
+
+        assertEquals(newRequest("first", XMLRPC.GET_POSTS, "password", filter).getCoalescingKey(),
+                newRequest("second", XMLRPC.GET_POSTS, "password", reorderedFilter).getCoalescingKey());
+        // Same text, different XML-RPC types
+        reorderedFilter.put("number", "20");
+        assertNotEquals(newRequest("first", XMLRPC.GET_POSTS, "password", filter).getCoalescingKey(),
+                newRequest("second", XMLRPC.GET_POSTS, "password", reorderedFilter).getCoalescingKey());
+    }
+
+    @Test
+    public void testKeyDoesNotHoldTheCredentials() {
+        XMLRPCRequest request = newRequest("first", XMLRPC.GET_OPTIONS, "secret-password");
+        request.addHeader("Authorization", "Basic c2VjcmV0");
+
+        String key = request.getCoalescingKey();
+        assertFalse(key.contains("username"));
+        assertFalse(key.contains("secret-password"));
+        assertFalse(key.contains("c2VjcmV0"));
+    }
+
+    @Test
+    public void testIdenticalRequestsGetTheSameError() {
+        XMLRPCRequest first = newRequest("first", XMLRPC.GET_OPTIONS, "password");
+        XMLRPCRequest second = newRequest("second", XMLRPC.GET_OPTIONS, "password");
+        mCoalescer.coalesce(first);
+        mCoalescer.coalesce(second);
+
+        first.deliverError(new TimeoutError());
+        assertEquals(Arrays.asList("first: TIMEOUT", "second: TIMEOUT"), mEvents);
+    }
+
+    @Test
+    public void testAttachedRequestIsSentWhenTheSentRequestIsCanceled() {
+        XMLRPCRequest first = newRequest("first", XMLRPC.GET_OPTIONS, "password");
+        XMLRPCRequest second = newRequest("second", XMLRPC.GET_OPTIONS, "password");
+        mCoalescer.coalesce(first);
+        mCoalescer.coalesce(second);
+
+        first.cancel();
+        // Sent back through the client, so that it can still be batched
+        verify(mRequestSender).send(second);
+
+        second.deliverResponse("options");
+        assertEquals(Arrays.asList("second: options"), mEvents);
+    }
+
+    private XMLRPCRequest newRequest(final String name, XMLRPC method, String password, Object... extraParams) {
+        List<Object> params = new ArrayList<>();
+        params.add(1L);
+        params.add("username");
+        params.add(password);
+        params.addAll(Arrays.asList(extraParams));
+        XMLRPCRequest request = new XMLRPCRequest(URL, method, params, new Listener<Object>() {
+            @Override
+            public void onResponse(Object response) {
+                mEvents.add(name + ": " + response);
+            }
+        }, new BaseErrorListener() {
+            @Override
+            public void onErrorResponse(@NonNull BaseNetworkError error) {
+                mEvents.add(name + ": " + error.type);
+            }
+        });
+        request.setOnAuthFailedListener(new OnAuthFailedListener() {
+            @Override
+            public void onAuthFailed(AuthenticateErrorPayload errorType) {
+            }
+        });
+        return request;
+    }
+}
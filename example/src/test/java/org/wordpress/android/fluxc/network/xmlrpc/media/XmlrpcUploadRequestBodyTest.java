@@ -0,0 +1,71 @@
+package org.wordpress.android.fluxc.network.xmlrpc.media;
+
+import android.util.Base64;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.network.BaseUploadRequestBody.ProgressListener;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class XmlrpcUploadRequestBodyTest {
+    @Test
+    public void testEncodedSizeMatchesBase64Default() {
+        Random random = new Random(42);
+        for (int size = 0; size <= 500; size++) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            String expected = Base64.encodeToString(bytes, Base64.DEFAULT);
+
+            assertEquals(expected.length(), XmlrpcUploadRequestBody.getBase64EncodedSize(size));
+            byte[] encoded = new byte[expected.length()];
+            int length = XmlrpcUploadRequestBody.encodeBase64(bytes, size, encoded);
+            assertEquals(expected, new String(encoded, 0, length));
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        // Larger than a chunk, and not a multiple of a line
+        byte[] bytes = new byte[10000];
+        new Random(42).nextBytes(bytes);
+        File file = File.createTempFile("upload", ".jpg");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(bytes);
+        fos.close();
+
+        MediaModel media = new MediaModel();
+        media.setFilePath(file.getPath());
+        media.setFileName("café.jpg");
+        media.setMimeType("image/jpeg");
+        SiteModel site = new SiteModel();
+        site.setSelfHostedSiteId(1);
+        site.setUsername("username");
+        site.setPassword("password");
+        XmlrpcUploadRequestBody body = new XmlrpcUploadRequestBody(media, new ProgressListener() {
+            @Override
+            public void onProgress(MediaModel media, float progress) {
+            }
+        }, site);
+
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+
+        assertEquals(body.contentLength(), buffer.size());
+        String xml = buffer.readUtf8();
+        assertTrue(xml.contains("<string>café.jpg</string>"));
+        assertTrue(xml.contains("<base64>" + Base64.encodeToString(bytes, Base64.DEFAULT) + "</base64>"));
+    }
+}
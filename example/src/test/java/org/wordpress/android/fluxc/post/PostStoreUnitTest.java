@@ -1,27 +1,43 @@
 package org.wordpress.android.fluxc.post;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import com.yarolegovich.wellsql.WellSql;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.SingleStoreWellSqlConfigForTests;
+import org.wordpress.android.fluxc.action.PostAction;
+import org.wordpress.android.fluxc.generated.AccountActionBuilder;
+import org.wordpress.android.fluxc.generated.PostActionBuilder;
+import org.wordpress.android.fluxc.generated.SiteActionBuilder;
 import org.wordpress.android.fluxc.model.PostModel;
+import org.wordpress.android.fluxc.model.PostsModel;
 import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.model.post.PostListItem;
+import org.wordpress.android.fluxc.model.post.PostStatus;
 import org.wordpress.android.fluxc.network.rest.wpcom.post.PostRestClient;
 import org.wordpress.android.fluxc.network.xmlrpc.post.PostXMLRPCClient;
 import org.wordpress.android.fluxc.persistence.PostSqlUtils;
 import org.wordpress.android.fluxc.persistence.WellSqlConfig;
 import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostListResponsePayload;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostResponsePayload;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostsPayload;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostsResponsePayload;
+import org.wordpress.android.fluxc.store.PostStore.OnPostChanged;
 import org.wordpress.android.util.DateTimeUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -29,10 +45,22 @@ import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @RunWith(RobolectricTestRunner.class)
 public class PostStoreUnitTest {
-    private PostStore mPostStore = new PostStore(new Dispatcher(), Mockito.mock(PostRestClient.class),
+    private Dispatcher mDispatcher = Mockito.mock(Dispatcher.class);
+    private PostRestClient mPostRestClient = Mockito.mock(PostRestClient.class);
+    private PostStore mPostStore = new PostStore(mDispatcher, mPostRestClient,
             Mockito.mock(PostXMLRPCClient.class));
 
     @Before
@@ -355,4 +383,192 @@ public class PostStoreUnitTest {
         PostSqlUtils.deletePost(testPost);
         assertEquals(PostStore.getNumLocalChanges(), 0);
     }
+
+    @Test
+    public void testGetLastModifiedForSite() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+
+        assertNull(PostSqlUtils.getLastModifiedForSite(site, false));
+
+        insertUploadedPost(1, "2018-01-02T10:00:00Z", "2018-01-05T10:00:00Z");
+        insertUploadedPost(2, "2018-01-03T10:00:00Z", "2018-01-04T10:00:00Z");
+
+        PostModel localDraft = PostTestUtils.generateSampleLocalDraftPost();
+        localDraft.setLastModified("2018-01-06T10:00:00Z");
+        PostSqlUtils.insertPostForResult(localDraft);
+
+        assertEquals("2018-01-05T10:00:00Z", PostSqlUtils.getLastModifiedForSite(site, false));
+        assertNull(PostSqlUtils.getLastModifiedForSite(site, true));
+    }
+
+    @Test
+    public void testFetchPostsWithoutStoredPostsFetchesAllPosts() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+
+        verify(mPostRestClient).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0);
+        verify(mPostRestClient, never()).fetchPosts(any(SiteModel.class), anyBoolean(),
+                Mockito.<List<PostStatus>>any(), anyInt(), anyString());
+    }
+
+    @Test
+    public void testPostListSync() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+
+        insertUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-03T10:00:00Z");
+        insertUploadedPost(2, "2018-01-02T10:00:00Z", "2018-01-02T10:00:00Z");
+        insertUploadedPost(3, "2018-01-01T10:00:00Z", "2018-01-01T10:00:00Z");
+        PostModel locallyChangedPost = insertUploadedPost(4, "2018-01-02T12:00:00Z", "2018-01-02T12:00:00Z");
+        locallyChangedPost.setIsLocallyChanged(true);
+        PostSqlUtils.insertOrUpdatePostOverwritingLocalChanges(locallyChangedPost);
+
+        // Only the posts modified since the last sync are fetched
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        verify(mPostRestClient).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0,
+                "2018-01-03T10:00:00Z");
+
+        PostModel modifiedPost = newUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-04T10:00:00Z");
+        modifiedPost.setTitle("A modified post");
+        FetchPostsResponsePayload modifiedPayload = new FetchPostsResponsePayload(
+                new PostsModel(Collections.singletonList(modifiedPost)), site, false, false, false);
+        modifiedPayload.modifiedAfter = "2018-01-03T10:00:00Z";
+        mPostStore.onAction(PostActionBuilder.newFetchedPostsAction(modifiedPayload));
+
+        // Then the posts are listed to find the ones deleted on the server: post 2 is gone
+        verify(mPostRestClient).fetchPostList(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0);
+        List<PostListItem> items = Arrays.asList(
+                new PostListItem(1, "2018-01-03T10:00:00Z", "2018-01-04T10:00:00Z"),
+                new PostListItem(3, "2018-01-01T10:00:00Z", "2018-01-01T10:00:00Z"));
+        mPostStore.onAction(PostActionBuilder.newFetchedPostListAction(
+                new FetchPostListResponsePayload(items, site, false, 0, false)));
+
+        // The listed posts are up to date, none is refreshed
+        verify(mPostRestClient, never()).fetchPost(any(PostModel.class), any(SiteModel.class),
+                any(PostAction.class));
+
+        assertEquals(3, PostTestUtils.getPostsCount());
+        assertEquals("A modified post", mPostStore.getPostByRemotePostId(1, site).getTitle());
+        assertNull(mPostStore.getPostByRemotePostId(2, site));
+        // Posts with local changes are kept, even if they are missing from the list
+        assertNotNull(mPostStore.getPostByRemotePostId(4, site));
+    }
+
+    @Test
+    public void testPostListSyncEmitsASingleEventOnceRefreshesAreDone() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+
+        // Only the 2 most recent posts of the site are stored
+        insertUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-03T10:00:00Z");
+        insertUploadedPost(2, "2018-01-02T10:00:00Z", "2018-01-02T10:00:00Z");
+
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        FetchPostsResponsePayload modifiedPayload = new FetchPostsResponsePayload(
+                new PostsModel(Collections.<PostModel>emptyList()), site, false, false, false);
+        modifiedPayload.modifiedAfter = "2018-01-03T10:00:00Z";
+        mPostStore.onAction(PostActionBuilder.newFetchedPostsAction(modifiedPayload));
+
+        // The whole list fits in a page: post 1 was modified, post 3 was never fetched
+        List<PostListItem> items = Arrays.asList(
+                new PostListItem(1, "2018-01-03T10:00:00Z", "2018-01-04T10:00:00Z"),
+                new PostListItem(2, "2018-01-02T10:00:00Z", "2018-01-02T10:00:00Z"),
+                new PostListItem(3, "2018-01-01T10:00:00Z", "2018-01-01T10:00:00Z"));
+        mPostStore.onAction(PostActionBuilder.newFetchedPostListAction(
+                new FetchPostListResponsePayload(items, site, false, 0, false)));
+
+        ArgumentCaptor<PostModel> refreshedPost = ArgumentCaptor.forClass(PostModel.class);
+        verify(mPostRestClient).fetchPost(refreshedPost.capture(), eq(site), eq(PostAction.FETCH_POSTS));
+        assertEquals(1, refreshedPost.getValue().getRemotePostId());
+        // The sync isn't over until the refresh is done
+        verify(mDispatcher, never()).emitChange(any());
+
+        PostModel modifiedPost = newUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-04T10:00:00Z");
+        FetchPostResponsePayload refreshPayload = new FetchPostResponsePayload(modifiedPost, site);
+        refreshPayload.origin = PostAction.FETCH_POSTS;
+        mPostStore.onAction(PostActionBuilder.newFetchedPostAction(refreshPayload));
+
+        ArgumentCaptor<OnPostChanged> event = ArgumentCaptor.forClass(OnPostChanged.class);
+        verify(mDispatcher).emitChange(event.capture());
+        assertEquals(PostAction.FETCH_POSTS, event.getValue().causeOfChange);
+        assertEquals(1, event.getValue().rowsAffected);
+        // Post 3 is older than the stored posts, it's left for "load more"
+        assertTrue(event.getValue().canLoadMore);
+        assertNull(mPostStore.getPostByRemotePostId(3, site));
+    }
+
+    @Test
+    public void testStalledPostListSyncIsGivenUp() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+        insertUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-03T10:00:00Z");
+
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        // Already running
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        verify(mPostRestClient, times(1)).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0,
+                "2018-01-03T10:00:00Z");
+
+        // None of its requests reported back
+        SystemClock.sleep(PostStore.POST_LIST_SYNC_TIMEOUT_MS);
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        verify(mPostRestClient, times(2)).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0,
+                "2018-01-03T10:00:00Z");
+    }
+
+    @Test
+    public void testPostListSyncIsDroppedWithItsSite() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+        insertUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-03T10:00:00Z");
+
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        mPostStore.onAction(SiteActionBuilder.newRemoveSiteAction(site));
+
+        // A late response of the dropped sync is ignored
+        FetchPostsResponsePayload modifiedPayload = new FetchPostsResponsePayload(
+                new PostsModel(Collections.<PostModel>emptyList()), site, false, false, false);
+        modifiedPayload.modifiedAfter = "2018-01-03T10:00:00Z";
+        mPostStore.onAction(PostActionBuilder.newFetchedPostsAction(modifiedPayload));
+        verify(mPostRestClient, never()).fetchPostList(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0);
+
+        // And a new sync can start
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        verify(mPostRestClient, times(2)).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0,
+                "2018-01-03T10:00:00Z");
+    }
+
+    @Test
+    public void testWPComPostListSyncIsDroppedOnSignOut() {
+        SiteModel site = new SiteModel();
+        site.setId(6);
+        site.setIsWPCom(true);
+        insertUploadedPost(1, "2018-01-03T10:00:00Z", "2018-01-03T10:00:00Z");
+
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        mPostStore.onAction(AccountActionBuilder.newSignOutAction());
+        mPostStore.onAction(PostActionBuilder.newFetchPostsAction(new FetchPostsPayload(site)));
+        verify(mPostRestClient, times(2)).fetchPosts(site, false, PostStore.DEFAULT_POST_STATUS_LIST, 0,
+                "2018-01-03T10:00:00Z");
+    }
+
+    private static PostModel newUploadedPost(long remotePostId, String dateCreated, String lastModified) {
+        PostModel post = PostTestUtils.generateSampleUploadedPost();
+        post.setRemotePostId(remotePostId);
+        post.setDateCreated(dateCreated);
+        post.setLastModified(lastModified);
+        return post;
+    }
+
+    private static PostModel insertUploadedPost(long remotePostId, String dateCreated, String lastModified) {
+        return PostSqlUtils.insertPostForResult(newUploadedPost(remotePostId, dateCreated, lastModified));
+    }
 }
@@ -0,0 +1,51 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.Cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricTestRunner.class)
+public class FluxCImageRequestTest {
+    @Test
+    public void testSampleSizeKeepsImageLargerThanTarget() {
+        assertEquals(1, FluxCImageRequest.findBestSampleSize(400, 300, 300, 200));
+        assertEquals(4, FluxCImageRequest.findBestSampleSize(4000, 3000, 900, 600));
+        assertEquals(8, FluxCImageRequest.findBestSampleSize(4000, 3000, 300, 300));
+    }
+
+    @Test
+    public void testResizedDimensionKeepsAspectRatio() {
+        // 4000x3000 image in a 300x300 thumbnail
+        assertEquals(300, FluxCImageRequest.getResizedDimension(300, 300, 4000, 3000, ScaleType.CENTER_INSIDE));
+        assertEquals(225, FluxCImageRequest.getResizedDimension(300, 300, 3000, 4000, ScaleType.CENTER_INSIDE));
+        assertEquals(400, FluxCImageRequest.getResizedDimension(300, 300, 4000, 3000, ScaleType.CENTER_CROP));
+        assertEquals(4000, FluxCImageRequest.getResizedDimension(0, 0, 4000, 3000, ScaleType.CENTER_INSIDE));
+    }
+
+    @Test
+    public void testVariantsAreCachedApart() {
+        String url = "https://example.com/image.jpg";
+        String thumbnailKey = FluxCImageRequest.getVariantCacheKey(url, 300, 300, ScaleType.CENTER_CROP);
+        assertNotEquals(thumbnailKey, FluxCImageRequest.getVariantCacheKey(url, 600, 600, ScaleType.CENTER_CROP));
+
+        Cache cache = mock(Cache.class);
+        Cache imageCache = mock(Cache.class);
+        ImageVariantCache imageVariantCache = new ImageVariantCache(cache, imageCache);
+        imageVariantCache.get(thumbnailKey);
+        imageVariantCache.get(url);
+
+        verify(imageCache).get(thumbnailKey);
+        verify(cache, never()).get(thumbnailKey);
+        verify(cache).get(url);
+    }
+}
@@ -0,0 +1,141 @@
+package org.wordpress.android.fluxc.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.generated.MediaXMLRPCResponseStructReader;
+import org.wordpress.android.fluxc.generated.PostXMLRPCResponseStructReader;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCValueReaders;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLSerializerUtils;
+import org.wordpress.android.fluxc.network.xmlrpc.media.MediaXMLRPCResponse;
+import org.wordpress.android.fluxc.network.xmlrpc.post.PostXMLRPCResponse;
+import org.wordpress.android.util.MapUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+@RunWith(RobolectricTestRunner.class)
+public class XMLRPCStructReaderTest {
+    private static final String POST_STRUCT = "<value><struct>"
+            + "<member><name>post_id</name><value><string>42</string></value></member>"
+            + "<member><name>post_title</name><value><string>Café &amp; crème</string></value></member>"
+            + "<member><name>post_date_gmt</name><value><dateTime.iso8601>20180308T11:38:21</dateTime.iso8601>"
+            + "</value></member>"
+            + "<member><name>post_author</name><value><struct><member><name>unknown</name>"
+            + "<value><array><data><value><i4>1</i4></value></data></array></value></member></struct></value></member>"
+            + "<member><name>terms</name><value><array><data><value><struct>"
+            + "<member><name>term_id</name><value><string>3</string></value></member>"
+            + "<member><name>name</name><value><string>news</string></value></member>"
+            + "<member><name>taxonomy</name><value><string>post_tag</string></value></member>"
+            + "</struct></value></data></array></value></member>"
+            + "<member><name>custom_fields</name><value><array><data><value><struct>"
+            + "<member><name>key</name><value><string>geo_latitude</string></value></member>"
+            + "<member><name>value</name><value><string>44.8378</string></value></member>"
+            + "</struct></value></data></array></value></member>"
+            + "<member><name>post_status</name><value><string>publish</string></value></member>"
+            + "<member><name>wp_page_parent_id</name><value><string>0</string></value></member>"
+            + "<member><name>post_thumbnail</name><value><array><data></data></array></value></member>"
+            + "<member><name>post_format</name><value><string>standard</string></value></member>"
+            + "</struct></value>";
+
+    @Test
+    public void testReadPostList() throws Exception {
+        String response = methodResponse("<value><array><data>" + POST_STRUCT + POST_STRUCT
+                + "</data></array></value>");
+
+        @SuppressWarnings("unchecked")
+        List<PostXMLRPCResponse> posts = (List<PostXMLRPCResponse>) XMLSerializerUtils.deserialize(
+                toStream(response), "UTF-8", XMLRPCValueReaders.listOf(new PostXMLRPCResponseStructReader()));
+
+        Assert.assertEquals(2, posts.size());
+        PostXMLRPCResponse post = posts.get(1);
+        Assert.assertEquals("42", post.post_id);
+        Assert.assertEquals("Café & crème", post.post_title);
+        Assert.assertEquals("publish", post.post_status);
+        Assert.assertEquals("standard", post.post_format);
+        // Numeric strings are converted
+        Assert.assertEquals(0, post.wp_page_parent_id);
+        // An empty array in place of a struct is read as null
+        Assert.assertNull(post.post_thumbnail);
+        // Members missing from the response keep their default value
+        Assert.assertNull(post.post_content);
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+        calendar.setTime(post.post_date_gmt);
+        Assert.assertEquals(2018, calendar.get(Calendar.YEAR));
+        Assert.assertEquals(11, calendar.get(Calendar.HOUR_OF_DAY));
+
+        Assert.assertEquals(1, post.terms.size());
+        Assert.assertEquals("news", post.terms.get(0).name);
+        Assert.assertEquals("post_tag", post.terms.get(0).taxonomy);
+
+        // Untyped members are read into the same Object tree as the untyped deserialization
+        Map<?, ?> customField = (Map<?, ?>) post.custom_fields.get(0);
+        Assert.assertEquals("geo_latitude", customField.get("key"));
+    }
+
+    @Test
+    public void testTypedReadMatchesUntypedRead() throws Exception {
+        String response = methodResponse(POST_STRUCT);
+
+        PostXMLRPCResponse post = (PostXMLRPCResponse) XMLSerializerUtils.deserialize(toStream(response), "UTF-8",
+                new PostXMLRPCResponseStructReader());
+        Map<?, ?> postMap = (Map<?, ?>) XMLSerializerUtils.deserialize(toStream(response), "UTF-8");
+
+        Assert.assertEquals(MapUtils.getMapStr(postMap, "post_id"), post.post_id);
+        Assert.assertEquals(MapUtils.getMapStr(postMap, "post_title"), post.post_title);
+        Assert.assertEquals(MapUtils.getMapDate(postMap, "post_date_gmt"), post.post_date_gmt);
+        Assert.assertEquals(MapUtils.getMapLong(postMap, "wp_page_parent_id"), post.wp_page_parent_id);
+        Assert.assertEquals(MapUtils.getMapStr(postMap, "post_format"), post.post_format);
+    }
+
+    @Test
+    public void testReadNestedStructs() throws Exception {
+        String response = methodResponse("<value><struct>"
+                + "<member><name>attachment_id</name><value><int>12</int></value></member>"
+                + "<member><name>parent</name><value><string>not a number</string></value></member>"
+                + "<member><name>link</name><value><string>https://example.com/a.jpg</string></value></member>"
+                + "<member><name>metadata</name><value><struct>"
+                + "<member><name>width</name><value><double>640.0</double></value></member>"
+                + "<member><name>height</name><value><string>480</string></value></member>"
+                + "<member><name>sizes</name><value><struct><member><name>medium</name><value><struct>"
+                + "<member><name>file</name><value><string>a-300x225.jpg</string></value></member>"
+                + "</struct></value></member></struct></value></member>"
+                + "</struct></value></member>"
+                + "</struct></value>");
+
+        MediaXMLRPCResponse media = (MediaXMLRPCResponse) XMLSerializerUtils.deserialize(toStream(response), "UTF-8",
+                new MediaXMLRPCResponseStructReader());
+
+        Assert.assertEquals(12, media.attachment_id);
+        // Values that can't be converted are read as the default value
+        Assert.assertEquals(0, media.parent);
+        Assert.assertEquals(640, media.metadata.width);
+        Assert.assertEquals(480, media.metadata.height);
+        Assert.assertEquals("a-300x225.jpg", media.metadata.sizes.medium.file);
+        Assert.assertNull(media.metadata.sizes.large);
+    }
+
+    @Test
+    public void testReadUnexpectedType() throws Exception {
+        // A scalar in place of a struct, or of an array, is skipped
+        Assert.assertNull(XMLSerializerUtils.deserialize(toStream(methodResponse("<value><int>1</int></value>")),
+                "UTF-8", new PostXMLRPCResponseStructReader()));
+        Assert.assertNull(XMLSerializerUtils.deserialize(toStream(methodResponse("<value><int>1</int></value>")),
+                "UTF-8", XMLRPCValueReaders.listOf(new PostXMLRPCResponseStructReader())));
+    }
+
+    private static String methodResponse(String value) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodResponse><params><param>" + value
+                + "</param></params></methodResponse>";
+    }
+
+    private static InputStream toStream(String response) throws Exception {
+        return new ByteArrayInputStream(response.getBytes("UTF-8"));
+    }
+}
@@ -4,12 +4,18 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
+import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCSerializer;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLSerializerUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okio.Buffer;
 
 @RunWith(RobolectricTestRunner.class)
 public class XMLSerializerUtilsTest {
@@ -39,6 +45,46 @@ public class XMLSerializerUtilsTest {
         Assert.assertEquals(xml, result);
     }
 
+    @Test
+    public void testXmlRpcResponseBufferScrubWithJunk() throws IOException {
+        final String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><nothing></nothing>";
+        final String junk = "this is junk text 12345,./;'pp<<><><;;<?xm";
+        final InputStream resultStream = XMLSerializerUtils.scrubXmlResponse((junk + xml).getBytes("UTF-8"));
+        Assert.assertEquals(xml, readFully(resultStream));
+    }
+
+    @Test
+    public void testXmlRpcResponseBufferScrubWithoutDeclaration() throws IOException {
+        // Without an XML declaration to look for, the response is left as is
+        final String xml = "<methodResponse></methodResponse>";
+        final InputStream resultStream = XMLSerializerUtils.scrubXmlResponse(xml.getBytes("UTF-8"));
+        Assert.assertEquals(xml, readFully(resultStream));
+    }
+
+    @Test
+    public void testDeserializeScrubbedResponse() throws Exception {
+        final String response = "Notice: Undefined index\n<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<methodResponse><params><param><value><struct>"
+                + "<member><name>title</name><value><string>Caf\u00e9 &amp; cr\u00e8me</string></value></member>"
+                + "<member><name>bits</name><value><base64>SGVs\nbG8s\r\nIHdv\ncmxk</base64></value></member>"
+                + "</struct></value></param></params></methodResponse>";
+        final byte[] data = response.getBytes("UTF-8");
+
+        // Parse twice on the same thread, the second time with a reused parser
+        for (int i = 0; i < 2; i++) {
+            Map<?, ?> result = (Map<?, ?>) XMLSerializerUtils.deserialize(XMLSerializerUtils.scrubXmlResponse(data),
+                    null);
+            Assert.assertEquals("Caf\u00e9 & cr\u00e8me", result.get("title"));
+            Assert.assertEquals("Hello, world", new String((byte[]) result.get("bits"), "UTF-8"));
+        }
+    }
+
+    private String readFully(InputStream is) throws IOException {
+        byte[] bb = new byte[is.available()];
+        Assert.assertEquals(bb.length, is.read(bb));
+        return new String(bb, "UTF-8");
+    }
+
     private String scrub(String input, int xmlLength) {
         try {
             final InputStream is = new ByteArrayInputStream(input.getBytes("UTF-8"));
@@ -66,4 +112,35 @@ public class XMLSerializerUtilsTest {
         // If the input wasn't modified, it will fail during the XMLRPC serialization step
         Assert.assertNotEquals(inputString, serializeThis);
     }
+
+    @Test
+    public void testSerializeMethodCallToSink() throws IOException {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("post_title", "Fish & <chips>");
+        content.put("post_status", Arrays.asList("draft", 1, true));
+        Buffer sink = new Buffer();
+
+        XMLSerializerUtils.serialize(sink, XMLRPC.GET_POSTS, new Object[] {42, 7L, content});
+
+        Assert.assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><methodCall>"
+                + "<methodName>wp.getPosts</methodName><params>"
+                + "<param><value><i4>42</i4></value></param>"
+                + "<param><value><string>7</string></value></param>"
+                + "<param><value><struct>"
+                + "<member><name>post_title</name><value><string>Fish &amp; &lt;chips&gt;</string></value></member>"
+                + "<member><name>post_status</name><value><array><data>"
+                + "<value><string>draft</string></value><value><i4>1</i4></value>"
+                + "<value><boolean>1</boolean></value></data></array></value></member>"
+                + "</struct></value></param></params></methodCall>", sink.readUtf8());
+    }
+
+    @Test
+    public void testWriteTextEscapesAndDropsInvalidCharacters() throws IOException {
+        Buffer sink = new Buffer();
+
+        // Emoji (outside the BMP), unpaired surrogate, control character, and non-ASCII BMP characters
+        XMLRPCSerializer.writeText(sink, "a\uD83D\uDE00b\uD83Dc\u0007d\te\u00e9\u4e2d<");
+
+        Assert.assertEquals("a&#128512;bcd\te\u00e9\u4e2d&lt;", sink.readUtf8());
+    }
 }
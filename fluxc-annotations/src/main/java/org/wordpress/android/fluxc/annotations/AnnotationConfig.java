@@ -3,4 +3,17 @@ package org.wordpress.android.fluxc.annotations;
 public abstract class AnnotationConfig {
     public static final String PACKAGE = "org.wordpress.android.fluxc.generated";
     public static final String PACKAGE_ENDPOINTS = PACKAGE + ".endpoint";
+    public static final String ACTION_ROUTE_SUFFIX = "ActionRoute";
+    public static final String TYPE_ADAPTER_SUFFIX = "TypeAdapter";
+    public static final String TYPE_ADAPTER_FACTORY_NAME = "FluxCTypeAdapterFactory";
+    public static final String XMLRPC_STRUCT_READER_SUFFIX = "StructReader";
+
+    /**
+     * @param storeBinaryName binary name of a store class, e.g. {@code org.example.MyStore$Inner}
+     * @return the simple name of the action route generated for the store, in {@link #PACKAGE}. It's derived from the
+     * fully qualified name so that stores with the same simple name in different packages get different routes.
+     */
+    public static String getActionRouteClassName(String storeBinaryName) {
+        return storeBinaryName.replace('.', '_') + ACTION_ROUTE_SUFFIX;
+    }
 }
@@ -0,0 +1,13 @@
+package org.wordpress.android.fluxc.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a Gson TypeAdapter for a response class at compile time, so that parsing it doesn't rely on reflection.
+ * The annotated class must be public and top-level or static, with a public no-argument constructor and public
+ * serialized fields. Field values are still (de)serialized by the adapters Gson provides for their types.
+ */
+@Target(value = ElementType.TYPE)
+public @interface GenerateTypeAdapter {
+}
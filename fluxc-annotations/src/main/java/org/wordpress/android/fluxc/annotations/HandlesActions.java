@@ -0,0 +1,13 @@
+package org.wordpress.android.fluxc.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the {@link ActionEnum}-annotated enums a store handles. The Dispatcher uses the generated route to
+ * deliver actions of these types only to the stores that handle them, instead of broadcasting every action.
+ */
+@Target(value = ElementType.TYPE)
+public @interface HandlesActions {
+    Class<?>[] value();
+}
@@ -0,0 +1,14 @@
+package org.wordpress.android.fluxc.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Generates an XML-RPC struct reader for a response class at compile time, so that responses are read straight from
+ * the pull parser into it instead of going through generic Map/Object[] trees.
+ * Struct members are bound to the public fields with the same name, other members are skipped without being parsed
+ * into objects. The annotated class must be public and top-level or static, with a public no-argument constructor.
+ */
+@Target(value = ElementType.TYPE)
+public @interface XMLRPCStruct {
+}
@@ -0,0 +1,17 @@
+package org.wordpress.android.fluxc.annotations.action;
+
+/**
+ * Routing information generated for a {@link org.wordpress.android.fluxc.annotations.HandlesActions}-annotated
+ * store.
+ */
+public interface ActionRoute {
+    /**
+     * @return the {@link IAction} enum classes the store handles
+     */
+    Class<?>[] getActionTypes();
+
+    /**
+     * @return the priority of the store's onAction subscription, higher priorities are delivered first
+     */
+    int getPriority();
+}
@@ -1,20 +1,26 @@
 package org.wordpress.android.fluxc.processor;
 
 import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 
 import org.wordpress.android.fluxc.annotations.ActionEnum;
 import org.wordpress.android.fluxc.annotations.AnnotationConfig;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.ActionBuilder;
+import org.wordpress.android.fluxc.annotations.action.ActionRoute;
 import org.wordpress.android.fluxc.annotations.action.NoPayload;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -28,13 +34,14 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
 
-import static java.util.Collections.singleton;
 import static javax.lang.model.SourceVersion.latestSupported;
 
 @SuppressWarnings("unused")
-@SupportedAnnotationTypes("org.wordpress.android.fluxc.annotations.ActionEnum")
+@SupportedAnnotationTypes({"org.wordpress.android.fluxc.annotations.ActionEnum",
+        "org.wordpress.android.fluxc.annotations.HandlesActions"})
 @AutoService(Processor.class)
 public class ActionProcessor extends AbstractProcessor {
     private Filer mFiler;
@@ -49,7 +56,10 @@ public class ActionProcessor extends AbstractProcessor {
 
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return singleton(ActionEnum.class.getCanonicalName());
+        Set<String> annotations = new HashSet<>();
+        annotations.add(ActionEnum.class.getCanonicalName());
+        annotations.add(HandlesActions.class.getCanonicalName());
+        return annotations;
     }
 
     @Override
@@ -64,6 +74,12 @@ public class ActionProcessor extends AbstractProcessor {
             createActionBuilderClass(actionElement, annotatedActionEnum);
         }
 
+        for (Element storeElement : roundEnv.getElementsAnnotatedWith(HandlesActions.class)) {
+            AnnotatedActionHandler annotatedActionHandler = new AnnotatedActionHandler(storeElement,
+                    processingEnv.getElementUtils());
+            createActionRouteClass(annotatedActionHandler);
+        }
+
         return true;
     }
 
@@ -119,4 +135,49 @@ public class ActionProcessor extends AbstractProcessor {
 
         return AnnotationConfig.PACKAGE + "." + genClassName;
     }
+
+    private String createActionRouteClass(AnnotatedActionHandler annotatedActionHandler) {
+        String genClassName = AnnotationConfig.getActionRouteClassName(annotatedActionHandler.getStoreBinaryName());
+
+        List<TypeMirror> actionTypes = annotatedActionHandler.getActionTypes();
+        StringBuilder actionTypesFormat = new StringBuilder();
+        Object[] actionTypesArgs = new Object[actionTypes.size()];
+        for (int i = 0; i < actionTypes.size(); i++) {
+            actionTypesFormat.append(i == 0 ? "$T.class" : ", $T.class");
+            actionTypesArgs[i] = TypeName.get(actionTypes.get(i));
+        }
+
+        MethodSpec getActionTypesMethod = MethodSpec.methodBuilder("getActionTypes")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ArrayTypeName.of(ParameterizedTypeName.get(ClassName.get(Class.class),
+                        WildcardTypeName.subtypeOf(Object.class))))
+                .addStatement("return new Class<?>[] {" + actionTypesFormat + "}", actionTypesArgs)
+                .build();
+
+        MethodSpec getPriorityMethod = MethodSpec.methodBuilder("getPriority")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class)
+                .addStatement("return $L", annotatedActionHandler.getPriority())
+                .build();
+
+        TypeSpec routeClass = TypeSpec.classBuilder(genClassName)
+                .addModifiers(Modifier.FINAL, Modifier.PUBLIC)
+                .addSuperinterface(ActionRoute.class)
+                .addMethod(getActionTypesMethod)
+                .addMethod(getPriorityMethod)
+                .build();
+
+        JavaFile javaFile = JavaFile.builder(AnnotationConfig.PACKAGE, routeClass)
+                .build();
+
+        try {
+            javaFile.writeTo(mFiler);
+        } catch (IOException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, "Failed to create file: " + e.getMessage());
+        }
+
+        return AnnotationConfig.PACKAGE + "." + genClassName;
+    }
 }
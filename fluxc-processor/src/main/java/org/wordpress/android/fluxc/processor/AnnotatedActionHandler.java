@@ -0,0 +1,82 @@
+package org.wordpress.android.fluxc.processor;
+
+import org.wordpress.android.fluxc.annotations.HandlesActions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+
+/**
+ * Blueprint for a {@link HandlesActions}-annotated store after processing.
+ */
+public class AnnotatedActionHandler {
+    private static final String SUBSCRIBE_ANNOTATION = "org.greenrobot.eventbus.Subscribe";
+    private static final String ON_ACTION_METHOD = "onAction";
+
+    private String mStoreBinaryName;
+    private List<TypeMirror> mActionTypes = new ArrayList<>();
+    private int mPriority;
+
+    public AnnotatedActionHandler(Element typeElement, Elements elementUtils) {
+        mStoreBinaryName = elementUtils.getBinaryName((TypeElement) typeElement).toString();
+
+        HandlesActions handlesActionsAnnotation = typeElement.getAnnotation(HandlesActions.class);
+        try {
+            handlesActionsAnnotation.value();
+        } catch (MirroredTypesException e) {
+            mActionTypes.addAll(e.getTypeMirrors());
+        }
+
+        mPriority = readOnActionPriority((TypeElement) typeElement);
+    }
+
+    public String getStoreBinaryName() {
+        return mStoreBinaryName;
+    }
+
+    public List<TypeMirror> getActionTypes() {
+        return Collections.unmodifiableList(mActionTypes);
+    }
+
+    public int getPriority() {
+        return mPriority;
+    }
+
+    /**
+     * Reads the priority from the store's {@code @Subscribe onAction} method, so that routed delivery keeps the
+     * ordering the store already declares to EventBus. The annotation is matched by name since the processor doesn't
+     * depend on EventBus.
+     */
+    private static int readOnActionPriority(TypeElement typeElement) {
+        for (Element element : typeElement.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.METHOD
+                    || !element.getSimpleName().contentEquals(ON_ACTION_METHOD)) {
+                continue;
+            }
+            for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+                TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+                if (!annotationElement.getQualifiedName().contentEquals(SUBSCRIBE_ANNOTATION)) {
+                    continue;
+                }
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : annotationMirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("priority")) {
+                        return (Integer) entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,197 @@
+package org.wordpress.android.fluxc.processor;
+
+import org.wordpress.android.fluxc.annotations.AnnotationConfig;
+import org.wordpress.android.fluxc.annotations.GenerateTypeAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Blueprint for a {@link GenerateTypeAdapter}-annotated class after processing.
+ */
+public class AnnotatedTypeAdapter {
+    private static final String SERIALIZED_NAME_ANNOTATION = "com.google.gson.annotations.SerializedName";
+
+    public static class JsonField {
+        private final String mName;
+        private final List<String> mJsonNames;
+        private final TypeMirror mType;
+
+        JsonField(String name, List<String> jsonNames, TypeMirror type) {
+            mName = name;
+            mJsonNames = jsonNames;
+            mType = type;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * @return the name used when serializing the field, followed by the alternate names accepted when parsing it
+         */
+        public List<String> getJsonNames() {
+            return Collections.unmodifiableList(mJsonNames);
+        }
+
+        public TypeMirror getType() {
+            return mType;
+        }
+
+        public boolean isPrimitive() {
+            return mType.getKind().isPrimitive();
+        }
+    }
+
+    private final TypeElement mTypeElement;
+    private final String mAdapterName;
+    private final List<JsonField> mFields = new ArrayList<>();
+    private final List<String> mErrors = new ArrayList<>();
+
+    public AnnotatedTypeAdapter(TypeElement typeElement) {
+        mTypeElement = typeElement;
+
+        // Nested classes are named after their enclosing classes, e.g. Outer_InnerTypeAdapter
+        StringBuilder adapterName = new StringBuilder(typeElement.getSimpleName());
+        for (Element enclosing = typeElement.getEnclosingElement(); enclosing instanceof TypeElement;
+                enclosing = enclosing.getEnclosingElement()) {
+            adapterName.insert(0, enclosing.getSimpleName() + "_");
+        }
+        mAdapterName = adapterName.append(AnnotationConfig.TYPE_ADAPTER_SUFFIX).toString();
+
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            mErrors.add("only concrete classes are supported");
+        }
+        if (!typeElement.getTypeParameters().isEmpty()) {
+            mErrors.add("generic classes are not supported");
+        }
+        if (typeElement.getNestingKind() == NestingKind.MEMBER
+                && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+            mErrors.add("inner classes must be static");
+        }
+        // Adapters are generated in another package
+        for (Element element = typeElement; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                mErrors.add(element.getSimpleName() + " must be public");
+            }
+        }
+        if (!hasPublicNoArgConstructor(typeElement)) {
+            mErrors.add("a public no-argument constructor is required");
+        }
+
+        // Same fields as Gson's reflective adapter: every non-static, non-transient field, including inherited ones
+        for (TypeElement clazz = typeElement; clazz != null; clazz = getSuperclass(clazz)) {
+            for (Element element : clazz.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.FIELD
+                        || element.getModifiers().contains(Modifier.STATIC)
+                        || element.getModifiers().contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                    mErrors.add("field " + element.getSimpleName() + " must be public");
+                    continue;
+                }
+                VariableElement field = (VariableElement) element;
+                if (field.asType().getKind() == TypeKind.TYPEVAR) {
+                    mErrors.add("field " + field.getSimpleName() + " has a generic type");
+                    continue;
+                }
+                mFields.add(new JsonField(field.getSimpleName().toString(), readJsonNames(field), field.asType()));
+            }
+        }
+    }
+
+    public TypeElement getTypeElement() {
+        return mTypeElement;
+    }
+
+    public String getAdapterName() {
+        return mAdapterName;
+    }
+
+    public List<JsonField> getFields() {
+        return Collections.unmodifiableList(mFields);
+    }
+
+    /**
+     * @return the reasons an adapter can't be generated for this class, if any
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(mErrors);
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement typeElement) {
+        boolean hasConstructor = false;
+        for (Element element : typeElement.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.CONSTRUCTOR) {
+                continue;
+            }
+            hasConstructor = true;
+            if (((ExecutableElement) element).getParameters().isEmpty()
+                    && element.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        // The default constructor isn't always listed as an enclosed element
+        return !hasConstructor;
+    }
+
+    private static TypeElement getSuperclass(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        if (superElement.getQualifiedName().contentEquals(Object.class.getCanonicalName())) {
+            return null;
+        }
+        return superElement;
+    }
+
+    /**
+     * Reads the names from Gson's {@code @SerializedName}, which is matched by name since the processor doesn't depend
+     * on Gson.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> readJsonNames(VariableElement field) {
+        List<String> jsonNames = new ArrayList<>();
+        for (AnnotationMirror annotationMirror : field.getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (!annotationElement.getQualifiedName().contentEquals(SERIALIZED_NAME_ANNOTATION)) {
+                continue;
+            }
+            List<String> alternates = new ArrayList<>();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotationMirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if (key.equals("value")) {
+                    jsonNames.add((String) entry.getValue().getValue());
+                } else if (key.equals("alternate")) {
+                    for (AnnotationValue alternate : (List<? extends AnnotationValue>) entry.getValue().getValue()) {
+                        alternates.add((String) alternate.getValue());
+                    }
+                }
+            }
+            jsonNames.addAll(alternates);
+        }
+        if (jsonNames.isEmpty()) {
+            jsonNames.add(field.getSimpleName().toString());
+        }
+        return jsonNames;
+    }
+}
@@ -0,0 +1,137 @@
+package org.wordpress.android.fluxc.processor;
+
+import org.wordpress.android.fluxc.annotations.AnnotationConfig;
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Blueprint for a {@link XMLRPCStruct}-annotated class after processing.
+ */
+public class AnnotatedXMLRPCStruct {
+    private final TypeElement mTypeElement;
+    private final String mReaderName;
+    private final List<VariableElement> mFields = new ArrayList<>();
+    private final List<String> mErrors = new ArrayList<>();
+
+    public AnnotatedXMLRPCStruct(TypeElement typeElement) {
+        mTypeElement = typeElement;
+        mReaderName = getReaderName(typeElement);
+
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            mErrors.add("only concrete classes are supported");
+        }
+        if (!typeElement.getTypeParameters().isEmpty()) {
+            mErrors.add("generic classes are not supported");
+        }
+        if (typeElement.getNestingKind() == NestingKind.MEMBER
+                && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+            mErrors.add("inner classes must be static");
+        }
+        // Readers are generated in another package
+        for (Element element = typeElement; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                mErrors.add(element.getSimpleName() + " must be public");
+            }
+        }
+        if (!hasPublicNoArgConstructor(typeElement)) {
+            mErrors.add("a public no-argument constructor is required");
+        }
+
+        // Every public, non-static, non-final field is bound to the struct member with the same name
+        for (TypeElement clazz = typeElement; clazz != null; clazz = getSuperclass(clazz)) {
+            for (Element element : clazz.getEnclosedElements()) {
+                if (element.getKind() != ElementKind.FIELD
+                        || !element.getModifiers().contains(Modifier.PUBLIC)
+                        || element.getModifiers().contains(Modifier.STATIC)
+                        || element.getModifiers().contains(Modifier.FINAL)) {
+                    continue;
+                }
+                mFields.add((VariableElement) element);
+            }
+        }
+    }
+
+    public TypeElement getTypeElement() {
+        return mTypeElement;
+    }
+
+    public String getReaderName() {
+        return mReaderName;
+    }
+
+    public List<VariableElement> getFields() {
+        return Collections.unmodifiableList(mFields);
+    }
+
+    /**
+     * @return the reasons a reader can't be generated for this class, if any
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(mErrors);
+    }
+
+    /**
+     * Nested classes are named after their enclosing classes, e.g. Outer_InnerStructReader.
+     */
+    public static String getReaderName(TypeElement typeElement) {
+        StringBuilder readerName = new StringBuilder(typeElement.getSimpleName());
+        for (Element enclosing = typeElement.getEnclosingElement(); enclosing instanceof TypeElement;
+                enclosing = enclosing.getEnclosingElement()) {
+            readerName.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return readerName.append(AnnotationConfig.XMLRPC_STRUCT_READER_SUFFIX).toString();
+    }
+
+    /**
+     * @return the annotated class of the given type, or null if it's not a {@link XMLRPCStruct} class
+     */
+    public static TypeElement asStructElement(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        return element.getAnnotation(XMLRPCStruct.class) != null ? element : null;
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement typeElement) {
+        boolean hasConstructor = false;
+        for (Element element : typeElement.getEnclosedElements()) {
+            if (element.getKind() != ElementKind.CONSTRUCTOR) {
+                continue;
+            }
+            hasConstructor = true;
+            if (((ExecutableElement) element).getParameters().isEmpty()
+                    && element.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        // The default constructor isn't always listed as an enclosed element
+        return !hasConstructor;
+    }
+
+    private static TypeElement getSuperclass(TypeElement typeElement) {
+        TypeMirror superclass = typeElement.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        if (superElement.getQualifiedName().contentEquals(Object.class.getCanonicalName())) {
+            return null;
+        }
+        return superElement;
+    }
+}
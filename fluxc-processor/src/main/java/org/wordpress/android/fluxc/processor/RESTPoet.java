@@ -1,7 +1,9 @@
 package org.wordpress.android.fluxc.processor;
 
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
@@ -46,9 +48,41 @@ public class RESTPoet {
             addEndpointToBuilder(endpoint, wpcomRestBuilder);
         }
 
+        wpcomRestBuilder.addField(generateEndpointListField(rootNode));
+
         return wpcomRestBuilder.build();
     }
 
+    /**
+     * Lists the {@link Endpoint} value of every endpoint of the class, so that a URL can be mapped back to its endpoint
+     * at runtime (the annotation itself is not retained).
+     */
+    private static FieldSpec generateEndpointListField(EndpointNode rootNode) {
+        List<String> fullEndpoints = new ArrayList<>();
+        addFullEndpoints(rootNode, fullEndpoints);
+
+        CodeBlock.Builder initializer = CodeBlock.builder().add("{\n").indent();
+        for (int i = 0; i < fullEndpoints.size(); i++) {
+            initializer.add(i < fullEndpoints.size() - 1 ? "$S,\n" : "$S\n", fullEndpoints.get(i));
+        }
+        initializer.unindent().add("}");
+
+        return FieldSpec.builder(ArrayTypeName.of(String.class), "ENDPOINTS")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                .initializer(initializer.build())
+                .build();
+    }
+
+    private static void addFullEndpoints(EndpointNode endpointNode, List<String> fullEndpoints) {
+        if (!endpointNode.hasChildren()) {
+            return;
+        }
+        for (EndpointNode child : endpointNode.getChildren()) {
+            fullEndpoints.add(child.getFullEndpoint());
+            addFullEndpoints(child, fullEndpoints);
+        }
+    }
+
     private static void addEndpointToBuilder(EndpointNode endpointNode, TypeSpec.Builder classBuilder) {
         Matcher variableEndpointMatcher = sVariableEndpointPattern.matcher(endpointNode.getLocalEndpoint());
 
@@ -0,0 +1,255 @@
+package org.wordpress.android.fluxc.processor;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+
+import org.wordpress.android.fluxc.annotations.AnnotationConfig;
+import org.wordpress.android.fluxc.annotations.GenerateTypeAdapter;
+import org.wordpress.android.fluxc.processor.AnnotatedTypeAdapter.JsonField;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import static javax.lang.model.SourceVersion.latestSupported;
+
+/**
+ * Generates reflection-free Gson TypeAdapters for {@link GenerateTypeAdapter}-annotated classes, and a
+ * TypeAdapterFactory providing them. The processor doesn't depend on Gson, Gson types are referenced by name.
+ */
+@SuppressWarnings("unused")
+@AutoService(Processor.class)
+public class TypeAdapterProcessor extends AbstractProcessor {
+    private static final ClassName GSON = ClassName.get("com.google.gson", "Gson");
+    private static final ClassName TYPE_ADAPTER = ClassName.get("com.google.gson", "TypeAdapter");
+    private static final ClassName TYPE_ADAPTER_FACTORY = ClassName.get("com.google.gson", "TypeAdapterFactory");
+    private static final ClassName TYPE_TOKEN = ClassName.get("com.google.gson.reflect", "TypeToken");
+    private static final ClassName JSON_READER = ClassName.get("com.google.gson.stream", "JsonReader");
+    private static final ClassName JSON_WRITER = ClassName.get("com.google.gson.stream", "JsonWriter");
+    private static final ClassName JSON_TOKEN = ClassName.get("com.google.gson.stream", "JsonToken");
+
+    private Filer mFiler;
+    private Messager mMessager;
+    private boolean mFactoryCreated;
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GenerateTypeAdapter.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<AnnotatedTypeAdapter> typeAdapters = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateTypeAdapter.class)) {
+            AnnotatedTypeAdapter annotatedTypeAdapter = new AnnotatedTypeAdapter((TypeElement) element);
+            if (!annotatedTypeAdapter.getErrors().isEmpty()) {
+                for (String error : annotatedTypeAdapter.getErrors()) {
+                    mMessager.printMessage(Diagnostic.Kind.ERROR, "Can't generate a TypeAdapter: " + error, element);
+                }
+                continue;
+            }
+            createTypeAdapterClass(annotatedTypeAdapter);
+            typeAdapters.add(annotatedTypeAdapter);
+        }
+
+        // All the annotated classes are sources, so they are all part of the first round
+        if (!typeAdapters.isEmpty() && !mFactoryCreated) {
+            createTypeAdapterFactoryClass(typeAdapters);
+            mFactoryCreated = true;
+        }
+
+        return true;
+    }
+
+    private static boolean isGenericType(TypeName typeName) {
+        if (typeName instanceof ArrayTypeName) {
+            return isGenericType(((ArrayTypeName) typeName).componentType);
+        }
+        return typeName instanceof ParameterizedTypeName || typeName instanceof TypeVariableName
+                || typeName instanceof WildcardTypeName;
+    }
+
+    private void createTypeAdapterClass(AnnotatedTypeAdapter annotatedTypeAdapter) {
+        TypeName modelType = TypeName.get(annotatedTypeAdapter.getTypeElement().asType());
+
+        TypeSpec.Builder adapterClassBuilder = TypeSpec.classBuilder(annotatedTypeAdapter.getAdapterName())
+                .addModifiers(Modifier.FINAL, Modifier.PUBLIC)
+                .superclass(ParameterizedTypeName.get(TYPE_ADAPTER, modelType));
+
+        MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(GSON, "gson");
+        CodeBlock.Builder writeFieldsBuilder = CodeBlock.builder();
+        CodeBlock.Builder readFieldsBuilder = CodeBlock.builder();
+
+        for (JsonField field : annotatedTypeAdapter.getFields()) {
+            TypeName fieldType = TypeName.get(field.getType());
+            TypeName boxedFieldType = fieldType.box();
+            String adapterFieldName = field.getName() + "Adapter";
+
+            adapterClassBuilder.addField(FieldSpec.builder(ParameterizedTypeName.get(TYPE_ADAPTER, boxedFieldType),
+                    adapterFieldName, Modifier.PRIVATE, Modifier.FINAL).build());
+
+            // Adapters for the field types are looked up once, Gson handles cyclic references between them
+            if (isGenericType(fieldType)) {
+                // Generic types, including arrays of generic types, need a TypeToken
+                constructorBuilder.addStatement("$N = gson.getAdapter(new $T<$T>() {})", adapterFieldName,
+                        TYPE_TOKEN, fieldType);
+            } else {
+                constructorBuilder.addStatement("$N = gson.getAdapter($T.class)", adapterFieldName,
+                        fieldType);
+            }
+
+            writeFieldsBuilder.addStatement("out.name($S)", field.getJsonNames().get(0))
+                    .addStatement("$N.write(out, value.$N)", adapterFieldName, field.getName());
+
+            for (String jsonName : field.getJsonNames()) {
+                readFieldsBuilder.add("case $S:\n", jsonName);
+            }
+            readFieldsBuilder.indent();
+            if (field.isPrimitive()) {
+                // Like Gson, keep the default value of primitive fields for null values
+                readFieldsBuilder.add("{\n$>")
+                        .addStatement("$T fieldValue = $N.read(in)", boxedFieldType, adapterFieldName)
+                        .beginControlFlow("if (fieldValue != null)")
+                        .addStatement("value.$N = fieldValue", field.getName())
+                        .endControlFlow()
+                        .addStatement("break")
+                        .add("$<}\n");
+            } else {
+                readFieldsBuilder.addStatement("value.$N = $N.read(in)", field.getName(), adapterFieldName)
+                        .addStatement("break");
+            }
+            readFieldsBuilder.unindent();
+        }
+
+        MethodSpec writeMethod = MethodSpec.methodBuilder("write")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(JSON_WRITER, "out")
+                .addParameter(modelType, "value")
+                .addException(IOException.class)
+                .beginControlFlow("if (value == null)")
+                .addStatement("out.nullValue()")
+                .addStatement("return")
+                .endControlFlow()
+                .addStatement("out.beginObject()")
+                .addCode(writeFieldsBuilder.build())
+                .addStatement("out.endObject()")
+                .build();
+
+        MethodSpec readMethod = MethodSpec.methodBuilder("read")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(JSON_READER, "in")
+                .returns(modelType)
+                .addException(IOException.class)
+                .beginControlFlow("if (in.peek() == $T.NULL)", JSON_TOKEN)
+                .addStatement("in.nextNull()")
+                .addStatement("return null")
+                .endControlFlow()
+                .addStatement("$T value = new $T()", modelType, modelType)
+                .addStatement("in.beginObject()")
+                .beginControlFlow("while (in.hasNext())")
+                .beginControlFlow("switch (in.nextName())")
+                .addCode(readFieldsBuilder.build())
+                .addCode("default:\n$>")
+                .addStatement("in.skipValue()")
+                .addCode("$<")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("in.endObject()")
+                .addStatement("return value")
+                .build();
+
+        TypeSpec adapterClass = adapterClassBuilder
+                .addMethod(constructorBuilder.build())
+                .addMethod(writeMethod)
+                .addMethod(readMethod)
+                .build();
+
+        writeJavaFile(adapterClass);
+    }
+
+    private void createTypeAdapterFactoryClass(List<AnnotatedTypeAdapter> typeAdapters) {
+        TypeVariableName typeVariable = TypeVariableName.get("T");
+
+        MethodSpec.Builder createMethodBuilder = MethodSpec.methodBuilder("create")
+                .addAnnotation(Override.class)
+                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "$S", "unchecked")
+                        .build())
+                .addModifiers(Modifier.PUBLIC)
+                .addTypeVariable(typeVariable)
+                .returns(ParameterizedTypeName.get(TYPE_ADAPTER, typeVariable))
+                .addParameter(GSON, "gson")
+                .addParameter(ParameterizedTypeName.get(TYPE_TOKEN, typeVariable), "type")
+                .addStatement("$T<?> rawType = type.getRawType()", Class.class);
+
+        // Exact matches only, subclasses may declare more fields
+        for (AnnotatedTypeAdapter typeAdapter : typeAdapters) {
+            createMethodBuilder.beginControlFlow("if (rawType == $T.class)",
+                    TypeName.get(typeAdapter.getTypeElement().asType()))
+                    .addStatement("return ($T) new $T(gson)", ParameterizedTypeName.get(TYPE_ADAPTER, typeVariable),
+                            ClassName.get(AnnotationConfig.PACKAGE, typeAdapter.getAdapterName()))
+                    .endControlFlow();
+        }
+        createMethodBuilder.addStatement("return null");
+
+        TypeSpec factoryClass = TypeSpec.classBuilder(AnnotationConfig.TYPE_ADAPTER_FACTORY_NAME)
+                .addModifiers(Modifier.FINAL, Modifier.PUBLIC)
+                .addSuperinterface(TYPE_ADAPTER_FACTORY)
+                .addMethod(createMethodBuilder.build())
+                .build();
+
+        writeJavaFile(factoryClass);
+    }
+
+    private void writeJavaFile(TypeSpec typeSpec) {
+        JavaFile javaFile = JavaFile.builder(AnnotationConfig.PACKAGE, typeSpec)
+                .build();
+
+        try {
+            javaFile.writeTo(mFiler);
+        } catch (IOException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, "Failed to create file: " + e.getMessage());
+        }
+    }
+}
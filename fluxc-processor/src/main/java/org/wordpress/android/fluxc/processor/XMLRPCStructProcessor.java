@@ -0,0 +1,211 @@
+package org.wordpress.android.fluxc.processor;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import org.wordpress.android.fluxc.annotations.AnnotationConfig;
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import static javax.lang.model.SourceVersion.latestSupported;
+
+/**
+ * Generates an XMLRPCStructReader for each {@link XMLRPCStruct}-annotated class, reading struct members straight
+ * from the pull parser into the fields of the class. Runtime types are referenced by name.
+ */
+@SuppressWarnings("unused")
+@AutoService(Processor.class)
+public class XMLRPCStructProcessor extends AbstractProcessor {
+    private static final String XMLRPC_PACKAGE = "org.wordpress.android.fluxc.network.xmlrpc";
+    private static final ClassName STRUCT_READER = ClassName.get(XMLRPC_PACKAGE, "XMLRPCStructReader");
+    private static final ClassName VALUE_READERS = ClassName.get(XMLRPC_PACKAGE, "XMLRPCValueReaders");
+    private static final ClassName XML_PULL_PARSER = ClassName.get("org.xmlpull.v1", "XmlPullParser");
+    private static final ClassName XML_PULL_PARSER_EXCEPTION = ClassName.get("org.xmlpull.v1",
+            "XmlPullParserException");
+
+    private Filer mFiler;
+    private Messager mMessager;
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mFiler = processingEnv.getFiler();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(XMLRPCStruct.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(XMLRPCStruct.class)) {
+            AnnotatedXMLRPCStruct annotatedStruct = new AnnotatedXMLRPCStruct((TypeElement) element);
+            if (!annotatedStruct.getErrors().isEmpty()) {
+                for (String error : annotatedStruct.getErrors()) {
+                    mMessager.printMessage(Diagnostic.Kind.ERROR, "Can't generate an XML-RPC struct reader: " + error,
+                            element);
+                }
+                continue;
+            }
+            createStructReaderClass(annotatedStruct);
+        }
+        return true;
+    }
+
+    private void createStructReaderClass(AnnotatedXMLRPCStruct annotatedStruct) {
+        TypeName structType = TypeName.get(annotatedStruct.getTypeElement().asType());
+
+        CodeBlock.Builder readMembersBuilder = CodeBlock.builder();
+        for (VariableElement field : annotatedStruct.getFields()) {
+            CodeBlock readValue = readValueCode(field.asType());
+            if (readValue == null) {
+                mMessager.printMessage(Diagnostic.Kind.ERROR, "Can't generate an XML-RPC struct reader: unsupported "
+                        + "type " + field.asType() + " for field " + field.getSimpleName(), field);
+                return;
+            }
+            readMembersBuilder.add("case $S:\n", field.getSimpleName())
+                    .indent()
+                    .addStatement("struct.$N = $L", field.getSimpleName(), readValue)
+                    .addStatement("break")
+                    .unindent();
+        }
+
+        MethodSpec newStructMethod = MethodSpec.methodBuilder("newStruct")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(structType)
+                .addStatement("return new $T()", structType)
+                .build();
+
+        MethodSpec readMemberMethod = MethodSpec.methodBuilder("readMember")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .addParameter(structType, "struct")
+                .addParameter(String.class, "name")
+                .addParameter(XML_PULL_PARSER, "parser")
+                .addException(IOException.class)
+                .addException(XML_PULL_PARSER_EXCEPTION)
+                .beginControlFlow("switch (name)")
+                .addCode(readMembersBuilder.build())
+                .addCode("default:\n$>")
+                .addStatement("$T.skipValue(parser)", VALUE_READERS)
+                .addCode("$<")
+                .endControlFlow()
+                .build();
+
+        TypeSpec readerClass = TypeSpec.classBuilder(annotatedStruct.getReaderName())
+                .addModifiers(Modifier.FINAL, Modifier.PUBLIC)
+                .superclass(ParameterizedTypeName.get(STRUCT_READER, structType))
+                .addMethod(newStructMethod)
+                .addMethod(readMemberMethod)
+                .build();
+
+        JavaFile javaFile = JavaFile.builder(AnnotationConfig.PACKAGE, readerClass)
+                .build();
+
+        try {
+            javaFile.writeTo(mFiler);
+        } catch (IOException e) {
+            mMessager.printMessage(Diagnostic.Kind.ERROR, "Failed to create file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return an expression reading a value of the given type from the parser, or null if the type isn't supported
+     */
+    private static CodeBlock readValueCode(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return CodeBlock.of("$T.readInt(parser)", VALUE_READERS);
+            case LONG:
+                return CodeBlock.of("$T.readLong(parser)", VALUE_READERS);
+            case DOUBLE:
+                return CodeBlock.of("$T.readDouble(parser)", VALUE_READERS);
+            case BOOLEAN:
+                return CodeBlock.of("$T.readBoolean(parser)", VALUE_READERS);
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+
+        if (isClass(type, String.class)) {
+            return CodeBlock.of("$T.readString(parser)", VALUE_READERS);
+        } else if (isClass(type, Date.class)) {
+            return CodeBlock.of("$T.readDate(parser)", VALUE_READERS);
+        } else if (isClass(type, List.class)) {
+            List<? extends TypeMirror> typeArguments = ((DeclaredType) type).getTypeArguments();
+            CodeBlock elementReader = typeArguments.size() == 1 ? elementReaderCode(typeArguments.get(0)) : null;
+            return elementReader == null ? null
+                    : CodeBlock.of("$T.readList(parser, $L)", VALUE_READERS, elementReader);
+        }
+        CodeBlock valueReader = elementReaderCode(type);
+        return valueReader == null ? null : CodeBlock.of("$L.read(parser)", valueReader);
+    }
+
+    /**
+     * @return an expression creating an XMLRPCValueReader for the given type, or null if the type isn't supported
+     */
+    private static CodeBlock elementReaderCode(TypeMirror type) {
+        TypeElement structElement = AnnotatedXMLRPCStruct.asStructElement(type);
+        if (structElement != null) {
+            return CodeBlock.of("new $T()", ClassName.get(AnnotationConfig.PACKAGE,
+                    AnnotatedXMLRPCStruct.getReaderName(structElement)));
+        } else if (isClass(type, String.class)) {
+            return CodeBlock.of("$T.STRING", VALUE_READERS);
+        } else if (isClass(type, Long.class)) {
+            return CodeBlock.of("$T.LONG", VALUE_READERS);
+        } else if (isClass(type, Integer.class)) {
+            return CodeBlock.of("$T.INTEGER", VALUE_READERS);
+        } else if (isClass(type, Double.class)) {
+            return CodeBlock.of("$T.DOUBLE", VALUE_READERS);
+        } else if (isClass(type, Boolean.class)) {
+            return CodeBlock.of("$T.BOOLEAN", VALUE_READERS);
+        } else if (isClass(type, Date.class)) {
+            return CodeBlock.of("$T.DATE", VALUE_READERS);
+        } else if (isClass(type, Object.class)) {
+            // Generic Map/Object[] tree, for values that aren't worth binding
+            return CodeBlock.of("$T.OBJECT", VALUE_READERS);
+        }
+        return null;
+    }
+
+    private static boolean isClass(TypeMirror type, Class<?> clazz) {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement())
+                .getQualifiedName().contentEquals(clazz.getCanonicalName());
+    }
+}
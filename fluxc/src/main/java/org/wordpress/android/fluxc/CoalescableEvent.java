@@ -0,0 +1,18 @@
+package org.wordpress.android.fluxc;
+
+/**
+ * Change events which can be coalesced by {@link Dispatcher#emitChange}: within the coalescing window of the event
+ * class, only the latest event for a given key is delivered (e.g. the latest progress of a media upload).
+ */
+public interface CoalescableEvent {
+    /**
+     * @return the key identifying the events superseding each other (e.g. the media id)
+     */
+    Object getCoalescingKey();
+
+    /**
+     * @return false if the event must never be dropped (e.g. completion, error or cancellation). Such events are
+     * delivered right away, after discarding any pending event with the same key.
+     */
+    boolean isCoalescable();
+}
@@ -1,47 +1,274 @@
 package org.wordpress.android.fluxc;
 
+import android.support.annotation.Nullable;
+
 import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.EventBusBuilder;
+import org.greenrobot.eventbus.meta.SubscriberInfoIndex;
+import org.wordpress.android.fluxc.annotations.AnnotationConfig;
 import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.annotations.action.ActionRoute;
+import org.wordpress.android.fluxc.annotations.action.IAction;
+import org.wordpress.android.fluxc.generated.FluxCSubscriberIndex;
 import org.wordpress.android.fluxc.store.Store;
+import org.wordpress.android.fluxc.tools.ActionJournalWriter;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import javax.inject.Singleton;
 
 @Singleton
 public class Dispatcher {
+    public static final long DEFAULT_COALESCING_WINDOW_MS = 250;
+
     private final EventBus mBus;
+    private final StoreExecutor mStoreExecutor;
+    private final EventCoalescer mEventCoalescer;
+    private final DispatcherMetrics mMetrics = new DispatcherMetrics();
+
+    // Action being handled by a store on the current thread, used to attribute emitted changes to it
+    private final ThreadLocal<ActionRunnable> mCurrentAction = new ThreadLocal<>();
+
+    // Stores with a generated ActionRoute, keyed by the action enum class they handle
+    private final Map<Class<?>, List<RoutedStore>> mRoutes = new ConcurrentHashMap<>();
+    private final Map<Store, RoutedStore> mRoutedStores = new ConcurrentHashMap<>();
+
+    private volatile ActionJournalWriter mActionJournalWriter;
 
     public Dispatcher() {
-        mBus = EventBus.builder()
+        this(Collections.<SubscriberInfoIndex>emptySet());
+    }
+
+    public Dispatcher(Set<SubscriberInfoIndex> subscriberIndexes) {
+        this(subscriberIndexes, new SerialLaneExecutor());
+    }
+
+    /**
+     * @param subscriberIndexes EventBus subscriber indexes generated for the app and plugins, used in addition to the
+     *                          FluxC index so that registering subscribers doesn't need reflection
+     * @param storeExecutor executor running the onAction calls of the stores
+     */
+    public Dispatcher(Set<SubscriberInfoIndex> subscriberIndexes, StoreExecutor storeExecutor) {
+        mStoreExecutor = storeExecutor;
+        EventBusBuilder builder = EventBus.builder()
                 .logNoSubscriberMessages(true)
                 .sendNoSubscriberEvent(true)
                 .throwSubscriberException(true)
-                .build();
+                .addIndex(new FluxCSubscriberIndex());
+        for (SubscriberInfoIndex subscriberIndex : subscriberIndexes) {
+            builder.addIndex(subscriberIndex);
+        }
+        mBus = builder.build();
+        mEventCoalescer = new EventCoalescer(new EventCoalescer.EventPoster() {
+            @Override
+            public void post(Object event) {
+                mBus.post(event);
+            }
+        }, DEFAULT_COALESCING_WINDOW_MS);
     }
 
     public void register(final Object object) {
-        mBus.register(object);
         if (object instanceof Store) {
+            ActionRoute route = findActionRoute(object.getClass());
+            if (route != null) {
+                addRoute((Store) object, route);
+            } else {
+                mBus.register(object);
+            }
             ((Store) object).onRegister();
+        } else {
+            mBus.register(object);
         }
     }
 
     public void unregister(final Object object) {
-        mBus.unregister(object);
+        if (!(object instanceof Store) || !removeRoute((Store) object)) {
+            mBus.unregister(object);
+        }
     }
 
     public void dispatch(Action action) {
-        AppLog.d(T.API, "Dispatching action: " + action.getType().getClass().getSimpleName()
-                + "-" + action.getType().toString());
-        post(action);
+        long dispatchNanos = System.nanoTime();
+        ActionJournalWriter actionJournalWriter = mActionJournalWriter;
+        if (actionJournalWriter != null) {
+            actionJournalWriter.record(action);
+        }
+        List<RoutedStore> routedStores = mRoutes.get(getActionEnumClass(action.getType()));
+        boolean hasRoutedStores = routedStores != null && !routedStores.isEmpty();
+        if (hasRoutedStores) {
+            for (RoutedStore routedStore : routedStores) {
+                mStoreExecutor.execute(routedStore.mStore,
+                        new ActionRunnable(routedStore.mStore, action, dispatchNanos));
+            }
+        }
+        // Non-store subscribers (e.g. tests) still receive every action through the bus. If no one handles the
+        // action at all, post it anyway so EventBus reports it as a NoSubscriberEvent.
+        if (!hasRoutedStores || mBus.hasSubscriberForEvent(Action.class)) {
+            post(action);
+        }
     }
 
     public void emitChange(final Object changeEvent) {
-        mBus.post(changeEvent);
+        ActionRunnable currentAction = mCurrentAction.get();
+        if (currentAction != null) {
+            mMetrics.recordDispatchToEmitChange(currentAction.mAction.getType(),
+                    System.nanoTime() - currentAction.mDispatchNanos);
+        }
+        if (changeEvent instanceof CoalescableEvent) {
+            mEventCoalescer.emit((CoalescableEvent) changeEvent);
+        } else {
+            mBus.post(changeEvent);
+        }
+    }
+
+    /**
+     * Sets the window within which superseded events of the given class are coalesced. Defaults to
+     * {@link #DEFAULT_COALESCING_WINDOW_MS}, a window of 0 delivers every event.
+     */
+    public void setCoalescingWindow(Class<? extends CoalescableEvent> eventClass, long windowMs) {
+        mEventCoalescer.setWindow(eventClass, windowMs);
+    }
+
+    /**
+     * Records every dispatched action to the given journal, or stops recording if null. The caller owns the writer
+     * and is responsible for closing it.
+     */
+    public void setActionJournalWriter(@Nullable ActionJournalWriter actionJournalWriter) {
+        mActionJournalWriter = actionJournalWriter;
+    }
+
+    /**
+     * @return latency histograms per action type, see {@link DispatcherMetrics}
+     */
+    public DispatcherMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * @return the number of actions waiting to be handled by each store, keyed by store class name
+     */
+    public Map<String, Integer> getStoreQueueDepths() {
+        return mStoreExecutor.getQueueDepths();
+    }
+
+    /**
+     * Stops the threads running the stores' actions and the coalesced events, e.g. when a component is torn down in
+     * tests. The stores should be unregistered first, and the Dispatcher can't be used afterwards.
+     */
+    public void shutdown() {
+        mStoreExecutor.shutdown();
+        mEventCoalescer.shutdown();
     }
 
     private void post(final Object event) {
         mBus.post(event);
     }
+
+    private synchronized void addRoute(Store store, ActionRoute route) {
+        RoutedStore routedStore = new RoutedStore(store, route);
+        if (mRoutedStores.put(store, routedStore) != null) {
+            return;
+        }
+        for (Class<?> actionType : route.getActionTypes()) {
+            List<RoutedStore> routedStores = new ArrayList<>();
+            List<RoutedStore> currentRoutedStores = mRoutes.get(actionType);
+            if (currentRoutedStores != null) {
+                routedStores.addAll(currentRoutedStores);
+            }
+            routedStores.add(routedStore);
+            // Sort by descending priority, like EventBus does for subscriptions (the sort is stable, so stores with
+            // the same priority keep their registration order)
+            Collections.sort(routedStores);
+            mRoutes.put(actionType, new CopyOnWriteArrayList<>(routedStores));
+        }
+    }
+
+    private synchronized boolean removeRoute(Store store) {
+        RoutedStore routedStore = mRoutedStores.remove(store);
+        if (routedStore == null) {
+            return false;
+        }
+        for (Class<?> actionType : routedStore.mRoute.getActionTypes()) {
+            List<RoutedStore> routedStores = mRoutes.get(actionType);
+            if (routedStores != null) {
+                routedStores.remove(routedStore);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the {@link ActionRoute} generated for a {@link org.wordpress.android.fluxc.annotations.HandlesActions}
+     * store, walking up the class hierarchy so that subclasses (e.g. mocks) use the route of the store they extend.
+     */
+    private static ActionRoute findActionRoute(Class<?> storeClass) {
+        for (Class<?> clazz = storeClass; clazz != null && clazz != Store.class; clazz = clazz.getSuperclass()) {
+            String routeClassName = AnnotationConfig.PACKAGE + "."
+                    + AnnotationConfig.getActionRouteClassName(clazz.getName());
+            try {
+                return (ActionRoute) Class.forName(routeClassName).newInstance();
+            } catch (ClassNotFoundException e) {
+                // No route generated for this class, try its parent
+            } catch (InstantiationException | IllegalAccessException e) {
+                AppLog.e(T.API, "Unable to instantiate action route " + routeClassName + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> getActionEnumClass(IAction actionType) {
+        if (actionType instanceof Enum) {
+            return ((Enum) actionType).getDeclaringClass();
+        }
+        return actionType.getClass();
+    }
+
+    private static class RoutedStore implements Comparable<RoutedStore> {
+        private final Store mStore;
+        private final ActionRoute mRoute;
+
+        RoutedStore(Store store, ActionRoute route) {
+            mStore = store;
+            mRoute = route;
+        }
+
+        @Override
+        public int compareTo(RoutedStore other) {
+            return other.mRoute.getPriority() - mRoute.getPriority();
+        }
+    }
+
+    private class ActionRunnable implements Runnable {
+        private final Store mStore;
+        private final Action mAction;
+        private final long mDispatchNanos;
+
+        ActionRunnable(Store store, Action action, long dispatchNanos) {
+            mStore = store;
+            mAction = action;
+            mDispatchNanos = dispatchNanos;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            mMetrics.recordQueueWait(mAction.getType(), startNanos - mDispatchNanos);
+            mCurrentAction.set(this);
+            try {
+                mStore.onAction(mAction);
+            } finally {
+                mCurrentAction.remove();
+                mMetrics.recordSubscriberTime(mAction.getType(), mStore.getClass(), System.nanoTime() - startNanos);
+            }
+        }
+    }
 }
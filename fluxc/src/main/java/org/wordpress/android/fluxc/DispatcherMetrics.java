@@ -0,0 +1,94 @@
+package org.wordpress.android.fluxc;
+
+import org.wordpress.android.fluxc.annotations.action.IAction;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms recorded by the {@link Dispatcher}, per action type:
+ * - queue wait: time between {@link Dispatcher#dispatch} and the start of a store's onAction
+ * - subscriber time: duration of each store's onAction
+ * - dispatch to emitChange: time between {@link Dispatcher#dispatch} and each {@link Dispatcher#emitChange} called
+ * while handling the action. Changes emitted after a network call are attributed to the response action (e.g.
+ * FETCHED_POSTS), which is dispatched by the network client.
+ */
+public class DispatcherMetrics {
+    public static class ActionMetrics {
+        private final LatencyHistogram mQueueWait = new LatencyHistogram();
+        private final LatencyHistogram mDispatchToEmitChange = new LatencyHistogram();
+        private final ConcurrentHashMap<Class<?>, LatencyHistogram> mSubscriberTimes = new ConcurrentHashMap<>();
+
+        public LatencyHistogram getQueueWait() {
+            return mQueueWait;
+        }
+
+        public LatencyHistogram getDispatchToEmitChange() {
+            return mDispatchToEmitChange;
+        }
+
+        /**
+         * @return onAction durations, keyed by store class
+         */
+        public Map<Class<?>, LatencyHistogram> getSubscriberTimes() {
+            return Collections.unmodifiableMap(mSubscriberTimes);
+        }
+
+        private LatencyHistogram getSubscriberTime(Class<?> subscriberClass) {
+            LatencyHistogram histogram = mSubscriberTimes.get(subscriberClass);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                LatencyHistogram previous = mSubscriberTimes.putIfAbsent(subscriberClass, histogram);
+                if (previous != null) {
+                    histogram = previous;
+                }
+            }
+            return histogram;
+        }
+    }
+
+    private final ConcurrentHashMap<IAction, ActionMetrics> mActionMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return the metrics of every action type dispatched so far
+     */
+    public Map<IAction, ActionMetrics> getActionMetrics() {
+        return Collections.unmodifiableMap(mActionMetrics);
+    }
+
+    /**
+     * @return the metrics of the given action type, or null if it hasn't been dispatched
+     */
+    public ActionMetrics getActionMetrics(IAction actionType) {
+        return mActionMetrics.get(actionType);
+    }
+
+    public void reset() {
+        mActionMetrics.clear();
+    }
+
+    void recordQueueWait(IAction actionType, long nanos) {
+        getOrCreateActionMetrics(actionType).mQueueWait.recordNanos(nanos);
+    }
+
+    void recordSubscriberTime(IAction actionType, Class<?> subscriberClass, long nanos) {
+        getOrCreateActionMetrics(actionType).getSubscriberTime(subscriberClass).recordNanos(nanos);
+    }
+
+    void recordDispatchToEmitChange(IAction actionType, long nanos) {
+        getOrCreateActionMetrics(actionType).mDispatchToEmitChange.recordNanos(nanos);
+    }
+
+    private ActionMetrics getOrCreateActionMetrics(IAction actionType) {
+        ActionMetrics actionMetrics = mActionMetrics.get(actionType);
+        if (actionMetrics == null) {
+            actionMetrics = new ActionMetrics();
+            ActionMetrics previous = mActionMetrics.putIfAbsent(actionType, actionMetrics);
+            if (previous != null) {
+                actionMetrics = previous;
+            }
+        }
+        return actionMetrics;
+    }
+}
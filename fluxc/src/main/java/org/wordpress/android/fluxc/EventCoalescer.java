@@ -0,0 +1,142 @@
+package org.wordpress.android.fluxc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles {@link CoalescableEvent}s per key: the first event is delivered right away, the following ones are held
+ * until the end of the window and only the latest of them is delivered.
+ */
+class EventCoalescer {
+    interface EventPoster {
+        void post(Object event);
+    }
+
+    private final EventPoster mEventPoster;
+    private final long mDefaultWindowMs;
+    private final Map<Class<?>, Long> mWindowsMs = new ConcurrentHashMap<>();
+    private final Map<SlotKey, Slot> mSlots = new HashMap<>();
+    private ScheduledExecutorService mScheduler;
+
+    EventCoalescer(EventPoster eventPoster, long defaultWindowMs) {
+        mEventPoster = eventPoster;
+        mDefaultWindowMs = defaultWindowMs;
+    }
+
+    void setWindow(Class<? extends CoalescableEvent> eventClass, long windowMs) {
+        mWindowsMs.put(eventClass, windowMs);
+    }
+
+    // Events are posted while holding the lock, so that a pending event can't be delivered after the terminal event
+    // that superseded it
+    synchronized void emit(CoalescableEvent event) {
+        SlotKey slotKey = new SlotKey(event.getClass(), event.getCoalescingKey());
+        long windowMs = getWindowMs(event.getClass());
+        if (!event.isCoalescable() || windowMs <= 0) {
+            mSlots.remove(slotKey);
+            mEventPoster.post(event);
+            return;
+        }
+
+        Slot slot = mSlots.get(slotKey);
+        if (slot == null) {
+            slot = new Slot();
+            mSlots.put(slotKey, slot);
+        }
+        if (slot.mPendingEvent != null) {
+            // A flush is already scheduled, it will deliver this event instead of the superseded one
+            slot.mPendingEvent = event;
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - slot.mLastDeliveryNanos);
+        if (slot.mLastDeliveryNanos == 0 || elapsedMs >= windowMs) {
+            slot.mLastDeliveryNanos = System.nanoTime();
+            mEventPoster.post(event);
+        } else {
+            slot.mPendingEvent = event;
+            scheduleFlush(slotKey, slot, windowMs - elapsedMs);
+        }
+    }
+
+    // Pending events are dropped
+    synchronized void shutdown() {
+        mSlots.clear();
+        if (mScheduler != null) {
+            mScheduler.shutdownNow();
+            mScheduler = null;
+        }
+    }
+
+    private synchronized void flush(SlotKey slotKey, Slot slot) {
+        if (mSlots.get(slotKey) != slot || slot.mPendingEvent == null) {
+            // Discarded by a terminal event
+            return;
+        }
+        CoalescableEvent event = slot.mPendingEvent;
+        slot.mPendingEvent = null;
+        slot.mLastDeliveryNanos = System.nanoTime();
+        mEventPoster.post(event);
+    }
+
+    private long getWindowMs(Class<?> eventClass) {
+        Long windowMs = mWindowsMs.get(eventClass);
+        return windowMs != null ? windowMs : mDefaultWindowMs;
+    }
+
+    private void scheduleFlush(final SlotKey slotKey, final Slot slot, long delayMs) {
+        if (mScheduler == null) {
+            mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fluxc-event-coalescer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(slotKey, slot);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static class Slot {
+        private CoalescableEvent mPendingEvent;
+        private long mLastDeliveryNanos;
+    }
+
+    private static class SlotKey {
+        private final Class<?> mEventClass;
+        private final Object mKey;
+
+        SlotKey(Class<?> eventClass, Object key) {
+            mEventClass = eventClass;
+            mKey = key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SlotKey)) {
+                return false;
+            }
+            SlotKey otherKey = (SlotKey) other;
+            return mEventClass.equals(otherKey.mEventClass)
+                   && (mKey == null ? otherKey.mKey == null : mKey.equals(otherKey.mKey));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mEventClass.hashCode() + (mKey != null ? mKey.hashCode() : 0);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.wordpress.android.fluxc;
+
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.store.Store;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StoreExecutor} giving each store a serial lane: actions for a store run one at a time and in order, on a
+ * bounded pool shared by all the stores. Lanes take turns on the pool, so a burst of actions for one store (e.g. upload
+ * progress) doesn't starve the others.
+ *
+ * When a lane is full, background producers (e.g. network threads reporting progress) block until it drains. The main
+ * thread and the pool threads are never blocked, the latter to avoid deadlocks when a store dispatches an action from
+ * its onAction.
+ */
+public class SerialLaneExecutor implements StoreExecutor {
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_LANE_CAPACITY = 256;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor mThreadPool;
+    private final int mLaneCapacity;
+    private final Map<Store, Lane> mLanes = new ConcurrentHashMap<>();
+
+    public SerialLaneExecutor() {
+        this(DEFAULT_POOL_SIZE, DEFAULT_LANE_CAPACITY);
+    }
+
+    public SerialLaneExecutor(int poolSize, int laneCapacity) {
+        mLaneCapacity = laneCapacity;
+        mThreadPool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory());
+        mThreadPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Store store, Runnable task) {
+        getLane(store).enqueue(task, canBlockCurrentThread());
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> queueDepths = new HashMap<>();
+        for (Lane lane : mLanes.values()) {
+            queueDepths.put(lane.mName, lane.getDepth());
+        }
+        return queueDepths;
+    }
+
+    @Override
+    public void shutdown() {
+        mThreadPool.shutdown();
+    }
+
+    /**
+     * @return the highest number of pending actions seen for each store, keyed by store class name
+     */
+    public Map<String, Integer> getMaxQueueDepths() {
+        Map<String, Integer> maxQueueDepths = new HashMap<>();
+        for (Lane lane : mLanes.values()) {
+            maxQueueDepths.put(lane.mName, lane.getMaxDepth());
+        }
+        return maxQueueDepths;
+    }
+
+    private Lane getLane(Store store) {
+        Lane lane = mLanes.get(store);
+        if (lane == null) {
+            synchronized (mLanes) {
+                lane = mLanes.get(store);
+                if (lane == null) {
+                    lane = new Lane(store.getClass().getSimpleName());
+                    mLanes.put(store, lane);
+                }
+            }
+        }
+        return lane;
+    }
+
+    private boolean canBlockCurrentThread() {
+        Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof LaneThread && ((LaneThread) currentThread).mExecutor == this) {
+            return false;
+        }
+        return Looper.myLooper() != Looper.getMainLooper();
+    }
+
+    private class Lane implements Runnable {
+        private final String mName;
+        private final Queue<Runnable> mTasks = new ArrayDeque<>();
+        private boolean mScheduled;
+        private int mMaxDepth;
+
+        Lane(String name) {
+            mName = name;
+        }
+
+        synchronized void enqueue(Runnable task, boolean canBlock) {
+            while (canBlock && mTasks.size() >= mLaneCapacity) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            mTasks.add(task);
+            mMaxDepth = Math.max(mMaxDepth, mTasks.size());
+            if (!mScheduled) {
+                mScheduled = true;
+                mThreadPool.execute(this);
+            }
+        }
+
+        synchronized int getDepth() {
+            return mTasks.size();
+        }
+
+        synchronized int getMaxDepth() {
+            return mMaxDepth;
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            synchronized (this) {
+                task = mTasks.poll();
+                notifyAll();
+            }
+            try {
+                task.run();
+            } finally {
+                // Run a single task per turn and go to the back of the pool queue, so lanes share the pool fairly
+                synchronized (this) {
+                    if (mTasks.isEmpty()) {
+                        mScheduled = false;
+                    } else {
+                        mThreadPool.execute(this);
+                    }
+                }
+            }
+        }
+    }
+
+    private class LaneThreadFactory implements ThreadFactory {
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new LaneThread(SerialLaneExecutor.this, runnable,
+                    "fluxc-store-lane-" + mThreadCount.incrementAndGet());
+        }
+    }
+
+    private static class LaneThread extends Thread {
+        private final SerialLaneExecutor mExecutor;
+
+        LaneThread(SerialLaneExecutor executor, Runnable runnable, String name) {
+            super(runnable, name);
+            mExecutor = executor;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.wordpress.android.fluxc;
+
+import org.wordpress.android.fluxc.store.Store;
+
+import java.util.Map;
+
+/**
+ * Runs the {@link Store#onAction} calls routed by the {@link Dispatcher}.
+ */
+public interface StoreExecutor {
+    /**
+     * Schedules the delivery of an action to a store. Implementations must keep the order of the actions delivered
+     * to a given store.
+     */
+    void execute(Store store, Runnable task);
+
+    /**
+     * @return the number of pending actions for each store, keyed by store class name
+     */
+    Map<String, Integer> getQueueDepths();
+
+    /**
+     * Stops the threads running the actions. Pending actions are still run, new ones are rejected.
+     */
+    void shutdown();
+}
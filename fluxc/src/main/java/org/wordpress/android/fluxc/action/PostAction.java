@@ -4,6 +4,7 @@ import org.wordpress.android.fluxc.annotations.Action;
 import org.wordpress.android.fluxc.annotations.ActionEnum;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.model.PostModel;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostListResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostsPayload;
 import org.wordpress.android.fluxc.store.PostStore.SearchPostsPayload;
@@ -32,6 +33,8 @@ public enum PostAction implements IAction {
     // Remote responses
     @Action(payloadType = FetchPostsResponsePayload.class)
     FETCHED_POSTS,
+    @Action(payloadType = FetchPostListResponsePayload.class)
+    FETCHED_POST_LIST,
     @Action(payloadType = FetchPostResponsePayload.class)
     FETCHED_POST,
     @Action(payloadType = RemotePostPayload.class)
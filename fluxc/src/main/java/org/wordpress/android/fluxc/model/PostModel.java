@@ -36,6 +36,7 @@ public class PostModel extends Payload<BaseNetworkError> implements Cloneable, I
     @Column private String mTitle;
     @Column private String mContent;
     @Column private String mDateCreated; // ISO 8601-formatted date in UTC, e.g. 1955-11-05T14:15:00Z
+    @Column private String mLastModified; // ISO 8601-formatted date in UTC of the last change on the server
     @Column private String mCategoryIds;
     @Column private String mCustomFields;
     @Column private String mLink;
@@ -129,6 +130,14 @@ public class PostModel extends Payload<BaseNetworkError> implements Cloneable, I
         mDateCreated = dateCreated;
     }
 
+    public @NonNull String getLastModified() {
+        return StringUtils.notNullStr(mLastModified);
+    }
+
+    public void setLastModified(String lastModified) {
+        mLastModified = lastModified;
+    }
+
     public @NonNull String getCategoryIds() {
         return StringUtils.notNullStr(mCategoryIds);
     }
@@ -362,6 +371,7 @@ public class PostModel extends Payload<BaseNetworkError> implements Cloneable, I
                 && StringUtils.equals(getTitle(), otherPost.getTitle())
                 && StringUtils.equals(getContent(), otherPost.getContent())
                 && StringUtils.equals(getDateCreated(), otherPost.getDateCreated())
+                && StringUtils.equals(getLastModified(), otherPost.getLastModified())
                 && StringUtils.equals(getCategoryIds(), otherPost.getCategoryIds())
                 && StringUtils.equals(getCustomFields(), otherPost.getCustomFields())
                 && StringUtils.equals(getLink(), otherPost.getLink())
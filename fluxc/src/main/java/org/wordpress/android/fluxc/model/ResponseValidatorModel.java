@@ -0,0 +1,58 @@
+package org.wordpress.android.fluxc.model;
+
+import com.yarolegovich.wellsql.core.Identifiable;
+import com.yarolegovich.wellsql.core.annotation.Column;
+import com.yarolegovich.wellsql.core.annotation.PrimaryKey;
+import com.yarolegovich.wellsql.core.annotation.RawConstraints;
+import com.yarolegovich.wellsql.core.annotation.Table;
+
+/**
+ * Validators (ETag and Last-Modified headers) of the last response received for a URL, sent back with the next
+ * conditional request to that URL.
+ */
+@Table
+@RawConstraints({"UNIQUE (URL)"})
+public class ResponseValidatorModel implements Identifiable {
+    @PrimaryKey
+    @Column private int mId;
+    @Column private String mUrl;
+    @Column private String mEtag;
+    @Column private String mLastModified;
+
+    @Override
+    public int getId() {
+        return mId;
+    }
+
+    @Override
+    public void setId(int id) {
+        mId = id;
+    }
+
+    public ResponseValidatorModel() {
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    public void setUrl(String url) {
+        mUrl = url;
+    }
+
+    public String getEtag() {
+        return mEtag;
+    }
+
+    public void setEtag(String etag) {
+        mEtag = etag;
+    }
+
+    public String getLastModified() {
+        return mLastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        mLastModified = lastModified;
+    }
+}
@@ -1,6 +1,7 @@
 package org.wordpress.android.fluxc.model;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
@@ -10,6 +11,8 @@ import java.util.List;
 
 public class SitesModel extends Payload<BaseNetworkError> {
     private List<SiteModel> mSites;
+    private boolean mNotModified;
+    private ResponseValidatorModel mResponseValidator;
 
     public SitesModel() {
         mSites = new ArrayList<>();
@@ -26,4 +29,26 @@ public class SitesModel extends Payload<BaseNetworkError> {
     public void setSites(List<SiteModel> sites) {
         this.mSites = sites;
     }
+
+    /**
+     * @return true if the sites haven't changed since they were last fetched, in which case the list is empty
+     */
+    public boolean isNotModified() {
+        return mNotModified;
+    }
+
+    public void setNotModified(boolean notModified) {
+        mNotModified = notModified;
+    }
+
+    /**
+     * @return the validators of the response the sites come from, to be saved once the sites are stored
+     */
+    public @Nullable ResponseValidatorModel getResponseValidator() {
+        return mResponseValidator;
+    }
+
+    public void setResponseValidator(@Nullable ResponseValidatorModel responseValidator) {
+        mResponseValidator = responseValidator;
+    }
 }
@@ -0,0 +1,17 @@
+package org.wordpress.android.fluxc.model.post;
+
+/**
+ * Identity and dates of a post, without its content: what the post list reconciliation needs to find the posts
+ * deleted or changed on the server.
+ */
+public class PostListItem {
+    public final long remotePostId;
+    public final String dateCreated; // ISO 8601-formatted date in UTC, e.g. 1955-11-05T14:15:00Z
+    public final String lastModified; // ISO 8601-formatted date in UTC, e.g. 1955-11-05T14:15:00Z
+
+    public PostListItem(long remotePostId, String dateCreated, String lastModified) {
+        this.remotePostId = remotePostId;
+        this.dateCreated = dateCreated;
+        this.lastModified = lastModified;
+    }
+}
@@ -2,6 +2,8 @@ package org.wordpress.android.fluxc.module;
 
 import org.wordpress.android.fluxc.network.BaseRequest;
 import org.wordpress.android.fluxc.network.MemorizingTrustManager;
+import org.wordpress.android.fluxc.network.NetworkTimingRecorder;
+import org.wordpress.android.fluxc.network.NetworkTimings;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
@@ -18,22 +20,59 @@ import javax.net.ssl.TrustManager;
 
 import dagger.Module;
 import dagger.Provides;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 
 @Module
 public class DebugOkHttpClientModule {
+    // Shared by every client so that the Volley queues and media uploads reuse the same connections
+    @Singleton
+    @Provides
+    public ConnectionPool provideConnectionPool() {
+        return new ConnectionPool();
+    }
+
+    @Singleton
+    @Provides
+    public Dispatcher provideOkHttpDispatcher() {
+        return new Dispatcher();
+    }
+
+    @Singleton
+    @Provides
+    public NetworkTimings provideNetworkTimings() {
+        return new NetworkTimings();
+    }
+
+    @Singleton
+    @Provides
+    public NetworkTimingRecorder provideNetworkTimingRecorder(NetworkTimings networkTimings) {
+        return new NetworkTimingRecorder(networkTimings);
+    }
+
     @Provides
     @Named("regular")
-    public OkHttpClient.Builder provideOkHttpClientBuilder(Interceptor interceptor) {
-        return new OkHttpClient.Builder().addNetworkInterceptor(interceptor);
+    public OkHttpClient.Builder provideOkHttpClientBuilder(Interceptor interceptor, ConnectionPool connectionPool,
+                                                           Dispatcher dispatcher,
+                                                           NetworkTimingRecorder networkTimingRecorder) {
+        return networkTimingRecorder.instrument(new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher))
+                .addNetworkInterceptor(interceptor);
     }
 
     @Provides
     @Named("custom-ssl")
     public OkHttpClient.Builder provideOkHttpClientBuilderCustomSSL(MemorizingTrustManager memorizingTrustManager,
-                                                                    Interceptor interceptor) {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+                                                                    Interceptor interceptor,
+                                                                    ConnectionPool connectionPool,
+                                                                    Dispatcher dispatcher,
+                                                                    NetworkTimingRecorder networkTimingRecorder) {
+        OkHttpClient.Builder builder = networkTimingRecorder.instrument(new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher));
         try {
             final SSLContext sslContext = SSLContext.getInstance("TLS");
             sslContext.init(null, new TrustManager[]{memorizingTrustManager}, new SecureRandom());
@@ -1,17 +1,32 @@
 package org.wordpress.android.fluxc.module;
 
+import org.greenrobot.eventbus.meta.SubscriberInfoIndex;
 import org.wordpress.android.fluxc.Dispatcher;
 
+import java.util.Collections;
+import java.util.Set;
+
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import dagger.multibindings.ElementsIntoSet;
 
 @Module
 public class ReleaseBaseModule {
     @Singleton
     @Provides
-    public Dispatcher provideDispatcher() {
-        return new Dispatcher();
+    public Dispatcher provideDispatcher(Set<SubscriberInfoIndex> subscriberIndexes) {
+        return new Dispatcher(subscriberIndexes);
+    }
+
+    /**
+     * Declares the set of EventBus subscriber indexes passed to the {@link Dispatcher}. Apps (and plugins) can
+     * contribute their generated index with an {@link dagger.multibindings.IntoSet} binding.
+     */
+    @Provides
+    @ElementsIntoSet
+    public Set<SubscriberInfoIndex> provideDefaultSubscriberIndexes() {
+        return Collections.emptySet();
     }
 }
@@ -2,6 +2,7 @@ package org.wordpress.android.fluxc.module;
 
 import android.content.Context;
 
+import com.android.volley.Cache;
 import com.android.volley.Network;
 import com.android.volley.RequestQueue;
 import com.android.volley.toolbox.BasicNetwork;
@@ -9,12 +10,16 @@ import com.android.volley.toolbox.DiskBasedCache;
 
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
+import org.wordpress.android.fluxc.network.HostHealthMonitor;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler;
 import org.wordpress.android.fluxc.network.MemorizingTrustManager;
 import org.wordpress.android.fluxc.network.OkHttpStack;
 import org.wordpress.android.fluxc.network.UserAgent;
+import org.wordpress.android.fluxc.network.discovery.DiscoveryCache;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryWPAPIRestClient;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryXMLRPCClient;
 import org.wordpress.android.fluxc.network.discovery.SelfHostedEndpointFinder;
+import org.wordpress.android.fluxc.network.rest.wpcom.WPComBatcher;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequestBuilder;
 import org.wordpress.android.fluxc.network.rest.wpcom.account.AccountRestClient;
 import org.wordpress.android.fluxc.network.rest.wpcom.activity.ActivityLogRestClient;
@@ -30,11 +35,13 @@ import org.wordpress.android.fluxc.network.rest.wpcom.stockmedia.StockMediaRestC
 import org.wordpress.android.fluxc.network.rest.wpcom.taxonomy.TaxonomyRestClient;
 import org.wordpress.android.fluxc.network.rest.wpcom.theme.ThemeRestClient;
 import org.wordpress.android.fluxc.network.wporg.plugin.PluginWPOrgClient;
+import org.wordpress.android.fluxc.network.xmlrpc.BaseXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.comment.CommentXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.media.MediaXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.post.PostXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.site.SiteXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.taxonomy.TaxonomyXMLRPCClient;
+import org.wordpress.android.fluxc.tools.ImageVariantCache;
 
 import java.io.File;
 
@@ -48,12 +55,13 @@ import okhttp3.OkHttpClient;
 @Module
 public class ReleaseNetworkModule {
     private static final String DEFAULT_CACHE_DIR = "volley-fluxc";
+    private static final String IMAGE_CACHE_DIR = "volley-fluxc-images";
+    private static final int IMAGE_CACHE_MAX_BYTES = 20 * 1024 * 1024;
     private static final int NETWORK_THREAD_POOL_SIZE = 10;
 
-    private RequestQueue newRequestQueue(OkHttpClient.Builder okHttpClientBuilder, Context appContext) {
-        File cacheDir = new File(appContext.getCacheDir(), DEFAULT_CACHE_DIR);
-        Network network = new BasicNetwork(new OkHttpStack(okHttpClientBuilder));
-        RequestQueue queue = new RequestQueue(new DiskBasedCache(cacheDir), network, NETWORK_THREAD_POOL_SIZE);
+    private RequestQueue newRequestQueue(OkHttpClient okHttpClient, Cache cache, HostHealthMonitor hostHealthMonitor) {
+        Network network = new BasicNetwork(new OkHttpStack(okHttpClient, hostHealthMonitor));
+        RequestQueue queue = new RequestQueue(cache, network, NETWORK_THREAD_POOL_SIZE);
         queue.start();
         return queue;
     }
@@ -61,17 +69,29 @@ public class ReleaseNetworkModule {
     @Singleton
     @Named("regular")
     @Provides
-    public RequestQueue provideRequestQueue(@Named("regular") OkHttpClient.Builder okHttpClientBuilder,
-                                            Context appContext) {
-        return newRequestQueue(okHttpClientBuilder, appContext);
+    public RequestQueue provideRequestQueue(@Named("regular") OkHttpClient okHttpClient, Context appContext,
+                                            HostHealthMonitor hostHealthMonitor) {
+        Cache cache = new DiskBasedCache(new File(appContext.getCacheDir(), DEFAULT_CACHE_DIR));
+        return newRequestQueue(okHttpClient, cache, hostHealthMonitor);
     }
 
     @Singleton
     @Named("custom-ssl")
     @Provides
-    public RequestQueue provideRequestQueueCustomSSL(@Named("custom-ssl") OkHttpClient.Builder okHttpClientBuilder,
-                                                     Context appContext) {
-        return newRequestQueue(okHttpClientBuilder, appContext);
+    public RequestQueue provideRequestQueueCustomSSL(@Named("custom-ssl") OkHttpClient okHttpClient,
+                                                     Context appContext, HostHealthMonitor hostHealthMonitor) {
+        // Images are loaded through this queue, they get their own cache
+        Cache cache = new ImageVariantCache(new DiskBasedCache(new File(appContext.getCacheDir(), DEFAULT_CACHE_DIR)),
+                new DiskBasedCache(new File(appContext.getCacheDir(), IMAGE_CACHE_DIR), IMAGE_CACHE_MAX_BYTES));
+        return newRequestQueue(okHttpClient, cache, hostHealthMonitor);
+    }
+
+    @Singleton
+    @Provides
+    public HostHealthMonitor provideHostHealthMonitor(Context appContext) {
+        HostHealthMonitor hostHealthMonitor = new HostHealthMonitor();
+        hostHealthMonitor.resetOnConnectivityChange(appContext);
+        return hostHealthMonitor;
     }
 
     @Singleton
@@ -92,8 +112,11 @@ public class ReleaseNetworkModule {
     public SiteRestClient provideSiteRestClient(Context appContext, Dispatcher dispatcher,
                                                 @Named("regular") RequestQueue requestQueue,
                                                 AppSecrets appSecrets,
-                                                AccessToken token, UserAgent userAgent) {
-        return new SiteRestClient(appContext, dispatcher, requestQueue, appSecrets, token, userAgent);
+                                                AccessToken token, UserAgent userAgent, WPComBatcher batcher) {
+        SiteRestClient client = new SiteRestClient(appContext, dispatcher, requestQueue, appSecrets, token,
+                userAgent);
+        client.setBatcher(batcher);
+        return client;
     }
 
     @Singleton
@@ -101,7 +124,15 @@ public class ReleaseNetworkModule {
     public SiteXMLRPCClient provideSiteXMLRPCClient(Dispatcher dispatcher,
                                                     @Named("custom-ssl") RequestQueue requestQueue,
                                                     UserAgent userAgent, HTTPAuthManager httpAuthManager) {
-        return new SiteXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        SiteXMLRPCClient client = new SiteXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        client.setBatchingWindow(BaseXMLRPCClient.DEFAULT_BATCHING_WINDOW_MS);
+        return client;
+    }
+
+    @Singleton
+    @Provides
+    public MediaUploadScheduler provideMediaUploadScheduler() {
+        return new MediaUploadScheduler();
     }
 
     @Singleton
@@ -109,8 +140,12 @@ public class ReleaseNetworkModule {
     public MediaRestClient provideMediaRestClient(Context appContext, Dispatcher dispatcher,
                                                   @Named("regular") RequestQueue requestQueue,
                                                   @Named("regular") OkHttpClient okHttpClient,
-                                                  AccessToken token, UserAgent userAgent) {
-        return new MediaRestClient(appContext, dispatcher, requestQueue, okHttpClient, token, userAgent);
+                                                  AccessToken token, UserAgent userAgent,
+                                                  MediaUploadScheduler uploadScheduler) {
+        MediaRestClient client = new MediaRestClient(appContext, dispatcher, requestQueue, okHttpClient, token,
+                userAgent);
+        client.setUploadScheduler(uploadScheduler);
+        return client;
     }
 
     @Singleton
@@ -118,8 +153,13 @@ public class ReleaseNetworkModule {
     public MediaXMLRPCClient provideMediaXMLRPCClient(Dispatcher dispatcher,
                                                       @Named("custom-ssl") RequestQueue requestQueue,
                                                       @Named("custom-ssl") OkHttpClient okHttpClient,
-                                                      UserAgent userAgent, HTTPAuthManager httpAuthManager) {
-        return new MediaXMLRPCClient(dispatcher, requestQueue, okHttpClient, userAgent, httpAuthManager);
+                                                      UserAgent userAgent, HTTPAuthManager httpAuthManager,
+                                                      MediaUploadScheduler uploadScheduler) {
+        MediaXMLRPCClient client = new MediaXMLRPCClient(dispatcher, requestQueue, okHttpClient, userAgent,
+                httpAuthManager);
+        client.setBatchingWindow(BaseXMLRPCClient.DEFAULT_BATCHING_WINDOW_MS);
+        client.setUploadScheduler(uploadScheduler);
+        return client;
     }
 
     @Singleton
@@ -152,7 +192,9 @@ public class ReleaseNetworkModule {
     public PostXMLRPCClient providePostXMLRPCClient(Dispatcher dispatcher,
                                                     @Named("custom-ssl") RequestQueue requestQueue,
                                                     UserAgent userAgent, HTTPAuthManager httpAuthManager) {
-        return new PostXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        PostXMLRPCClient client = new PostXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        client.setBatchingWindow(BaseXMLRPCClient.DEFAULT_BATCHING_WINDOW_MS);
+        return client;
     }
 
     @Singleton
@@ -178,7 +220,9 @@ public class ReleaseNetworkModule {
     public CommentXMLRPCClient provideCommentXMLRPCClient(Dispatcher dispatcher,
                                                           @Named("custom-ssl") RequestQueue requestQueue,
                                                           UserAgent userAgent, HTTPAuthManager httpAuthManager) {
-        return new CommentXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        CommentXMLRPCClient client = new CommentXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        client.setBatchingWindow(BaseXMLRPCClient.DEFAULT_BATCHING_WINDOW_MS);
+        return client;
     }
 
     @Singleton
@@ -194,7 +238,9 @@ public class ReleaseNetworkModule {
     public TaxonomyXMLRPCClient provideTaxonomyXMLRPCClient(Dispatcher dispatcher,
                                                             @Named("custom-ssl") RequestQueue requestQueue,
                                                             UserAgent userAgent, HTTPAuthManager httpAuthManager) {
-        return new TaxonomyXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        TaxonomyXMLRPCClient client = new TaxonomyXMLRPCClient(dispatcher, requestQueue, userAgent, httpAuthManager);
+        client.setBatchingWindow(BaseXMLRPCClient.DEFAULT_BATCHING_WINDOW_MS);
+        return client;
     }
 
     @Singleton
@@ -217,16 +263,26 @@ public class ReleaseNetworkModule {
     @Provides
     public ThemeRestClient provideThemeRestClient(Context appContext, Dispatcher dispatcher,
                                                   @Named("regular") RequestQueue requestQueue,
-                                                  AccessToken token, UserAgent userAgent) {
-        return new ThemeRestClient(appContext, dispatcher, requestQueue, token, userAgent);
+                                                  AccessToken token, UserAgent userAgent, WPComBatcher batcher) {
+        ThemeRestClient client = new ThemeRestClient(appContext, dispatcher, requestQueue, token, userAgent);
+        client.setBatcher(batcher);
+        return client;
     }
 
     @Singleton
     @Provides
     public PluginRestClient providePluginRestClient(Context appContext, Dispatcher dispatcher,
                                                     @Named("regular") RequestQueue requestQueue,
-                                                    AccessToken token, UserAgent userAgent) {
-        return new PluginRestClient(appContext, dispatcher, requestQueue, token, userAgent);
+                                                    AccessToken token, UserAgent userAgent, WPComBatcher batcher) {
+        PluginRestClient client = new PluginRestClient(appContext, dispatcher, requestQueue, token, userAgent);
+        client.setBatcher(batcher);
+        return client;
+    }
+
+    @Singleton
+    @Provides
+    public WPComBatcher provideWPComBatcher(@Named("regular") RequestQueue requestQueue) {
+        return new WPComBatcher(requestQueue, WPComBatcher.DEFAULT_BATCHING_WINDOW_MS);
     }
 
     @Singleton
@@ -241,8 +297,16 @@ public class ReleaseNetworkModule {
     @Provides
     public SelfHostedEndpointFinder provideSelfHostedEndpointFinder(Dispatcher dispatcher,
                                                                     DiscoveryXMLRPCClient discoveryXMLRPCClient,
-                                                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient) {
-        return new SelfHostedEndpointFinder(dispatcher, discoveryXMLRPCClient, discoveryWPAPIRestClient);
+                                                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient,
+                                                                    DiscoveryCache discoveryCache) {
+        return new SelfHostedEndpointFinder(dispatcher, discoveryXMLRPCClient, discoveryWPAPIRestClient,
+                discoveryCache);
+    }
+
+    @Singleton
+    @Provides
+    public DiscoveryCache provideDiscoveryCache(Context appContext) {
+        return new DiscoveryCache(appContext);
     }
 
     @Singleton
@@ -0,0 +1,114 @@
+package org.wordpress.android.fluxc.network;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.RetryPolicy;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import org.wordpress.android.fluxc.network.HostHealthMonitor.Clock;
+
+import java.util.Random;
+
+/**
+ * Retry policy waiting before each retry, instead of retrying right away like
+ * {@link com.android.volley.DefaultRetryPolicy}: the delay grows exponentially with jitter, so that clients don't
+ * retry in lockstep, or is the one given by the {@code Retry-After} header of 429 and 503 responses.
+ *
+ * Volley calls {@link #retry(VolleyError)} on a network dispatcher thread, which is blocked while waiting, so delays
+ * are kept under {@link #MAX_RETRY_DELAY_MS}. Errors asking for a longer delay are not retried: the request fails, and
+ * the {@link HostHealthMonitor} fails the next requests to the host until the given time.
+ *
+ * Authentication failures are not retried, sending the same credentials again gives the same result. Requests to
+ * hosts which are known to be down fail right away, see {@link HostHealthMonitor}.
+ */
+public class AdaptiveRetryPolicy implements RetryPolicy {
+    public static final int DEFAULT_MAX_RETRIES = 1;
+
+    static final long BASE_BACKOFF_MS = 100;
+    static final long MAX_RETRY_DELAY_MS = 500;
+
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    private final int mTimeoutMs;
+    private final int mMaxRetries;
+    private final Clock mClock;
+    private final Random mRandom;
+    private int mRetryCount;
+
+    public AdaptiveRetryPolicy(int timeoutMs, int maxRetries) {
+        this(timeoutMs, maxRetries, HostHealthMonitor.SYSTEM_CLOCK, new Random());
+    }
+
+    AdaptiveRetryPolicy(int timeoutMs, int maxRetries, Clock clock, Random random) {
+        mTimeoutMs = timeoutMs;
+        mMaxRetries = maxRetries;
+        mClock = clock;
+        mRandom = random;
+    }
+
+    @Override
+    public int getCurrentTimeout() {
+        return mTimeoutMs;
+    }
+
+    @Override
+    public int getCurrentRetryCount() {
+        return mRetryCount;
+    }
+
+    @Override
+    public void retry(VolleyError error) throws VolleyError {
+        if (mRetryCount >= mMaxRetries || error instanceof AuthFailureError) {
+            throw error;
+        }
+        long delay = getRetryAfterMs(error.networkResponse);
+        if (delay > MAX_RETRY_DELAY_MS) {
+            throw error;
+        }
+        if (delay < 0) {
+            delay = getBackoffMs(mRetryCount);
+        }
+        mRetryCount++;
+        try {
+            mClock.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw error;
+        }
+    }
+
+    /**
+     * @return a random delay between half and all of the exponential backoff for the given retry
+     */
+    long getBackoffMs(int retryCount) {
+        long backoff = Math.min(MAX_RETRY_DELAY_MS, BASE_BACKOFF_MS << Math.min(retryCount, 16));
+        return backoff / 2 + (long) (mRandom.nextDouble() * (backoff / 2));
+    }
+
+    /**
+     * @return the delay given by the {@code Retry-After} header of a 429 or 503 response, or -1 if there is none
+     */
+    public static long getRetryAfterMs(NetworkResponse response) {
+        if (response == null || (response.statusCode != 429 && response.statusCode != 503)) {
+            return -1;
+        }
+        return parseRetryAfterMs(response.headers != null ? response.headers.get(HEADER_RETRY_AFTER) : null);
+    }
+
+    /**
+     * @return the delay given by a {@code Retry-After} header value (in seconds or as an HTTP date), or -1 if there is
+     * none
+     */
+    public static long parseRetryAfterMs(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            long date = HttpHeaderParser.parseDateAsEpoch(value);
+            return date > 0 ? Math.max(0, date - System.currentTimeMillis()) : -1;
+        }
+    }
+}
@@ -3,10 +3,8 @@ package org.wordpress.android.fluxc.network;
 import android.net.Uri;
 import android.net.Uri.Builder;
 import android.support.annotation.NonNull;
-import android.util.Base64;
 
 import com.android.volley.AuthFailureError;
-import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.NetworkError;
 import com.android.volley.NoConnectionError;
 import com.android.volley.ParseError;
@@ -15,11 +13,14 @@ import com.android.volley.TimeoutError;
 import com.android.volley.VolleyError;
 
 import org.wordpress.android.fluxc.FluxCError;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.HostUnavailableException;
 import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
 import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
 import org.wordpress.android.util.AppLog;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.net.ssl.SSLHandshakeException;
@@ -38,6 +39,9 @@ public abstract class BaseRequest<T> extends Request<T> {
     public interface OnParseErrorListener {
         void onParseError(OnUnexpectedError event);
     }
+    public interface OnCanceledListener {
+        void onCanceled();
+    }
 
     private static final String USER_AGENT_HEADER = "User-Agent";
 
@@ -45,6 +49,9 @@ public abstract class BaseRequest<T> extends Request<T> {
     protected OnParseErrorListener mOnParseErrorListener;
     protected final Map<String, String> mHeaders = new HashMap<>(2);
     private BaseErrorListener mErrorListener;
+    private OnCanceledListener mOnCanceledListener;
+    private RequestCoalescer mRequestCoalescer;
+    private String mCoalescingKey;
 
     public static class BaseNetworkError implements FluxCError {
         public GenericErrorType type;
@@ -117,8 +124,7 @@ public abstract class BaseRequest<T> extends Request<T> {
         mErrorListener = errorListener;
         // Make sure all our custom Requests are never cached.
         setShouldCache(false);
-        setRetryPolicy(new DefaultRetryPolicy(DEFAULT_REQUEST_TIMEOUT,
-                DefaultRetryPolicy.DEFAULT_MAX_RETRIES, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        setRetryPolicy(new AdaptiveRetryPolicy(DEFAULT_REQUEST_TIMEOUT, AdaptiveRetryPolicy.DEFAULT_MAX_RETRIES));
     }
 
     @Override
@@ -145,11 +151,9 @@ public abstract class BaseRequest<T> extends Request<T> {
     }
 
     public void setHTTPAuthHeaderOnMatchingURL(HTTPAuthManager httpAuthManager) {
-        HTTPAuthModel httpAuthModel = httpAuthManager.getHTTPAuthModel(getUrl());
-        if (httpAuthModel != null) {
-            String creds = String.format("%s:%s", httpAuthModel.getUsername(), httpAuthModel.getPassword());
-            String auth = "Basic " + Base64.encodeToString(creds.getBytes(), Base64.NO_WRAP);
-            mHeaders.put("Authorization", auth);
+        String authorizationHeader = httpAuthManager.getAuthorizationHeader(getUrl());
+        if (authorizationHeader != null) {
+            mHeaders.put("Authorization", authorizationHeader);
         }
     }
 
@@ -161,6 +165,13 @@ public abstract class BaseRequest<T> extends Request<T> {
         mOnParseErrorListener = onParseErrorListener;
     }
 
+    /**
+     * Volley delivers neither a response nor an error to a canceled request, the listener is called instead.
+     */
+    public void setOnCanceledListener(OnCanceledListener onCanceledListener) {
+        mOnCanceledListener = onCanceledListener;
+    }
+
     public void setUserAgent(String userAgent) {
         mHeaders.put(USER_AGENT_HEADER, userAgent);
     }
@@ -169,15 +180,67 @@ public abstract class BaseRequest<T> extends Request<T> {
         mHeaders.put(header, value);
     }
 
+    /**
+     * @return a key identifying the requests which would get the same response as this one, so that they can be
+     * coalesced by a {@link RequestCoalescer}, or null if this request must always be sent. Subclasses returning a key
+     * must deliver their response to the requests returned by {@link #takeCoalescedRequests()}.
+     */
+    protected String getCoalescingKey() {
+        return null;
+    }
+
+    /**
+     * @return the name network timings of this request are recorded under (see {@link NetworkTimingRecorder}), or
+     * null to use the endpoint its URL was built from
+     */
+    protected String getEndpointName() {
+        return null;
+    }
+
+    void setRequestCoalescer(RequestCoalescer requestCoalescer, String coalescingKey) {
+        mRequestCoalescer = requestCoalescer;
+        mCoalescingKey = coalescingKey;
+    }
+
+    /**
+     * @return the identical requests attached to this one while it was in flight, they must get the same response
+     */
+    @SuppressWarnings("unchecked")
+    protected List<BaseRequest<T>> takeCoalescedRequests() {
+        if (mRequestCoalescer == null) {
+            return Collections.emptyList();
+        }
+        // Attached requests have the same key, so the same type and response type
+        return (List<BaseRequest<T>>) (List<?>) mRequestCoalescer.takeAttachedRequests(this, mCoalescingKey);
+    }
+
+    @Override
+    public void cancel() {
+        boolean wasCanceled = isCanceled();
+        super.cancel();
+        if (mRequestCoalescer != null) {
+            mRequestCoalescer.onCanceled(this, mCoalescingKey);
+        }
+        if (!wasCanceled && mOnCanceledListener != null) {
+            mOnCanceledListener.onCanceled();
+        }
+    }
+
     /**
      * Convenience method for setting a {@link com.android.volley.RetryPolicy} with no retries.
      */
     public void disableRetries() {
-        setRetryPolicy(new DefaultRetryPolicy(DEFAULT_REQUEST_TIMEOUT, 0, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        setRetryPolicy(new AdaptiveRetryPolicy(DEFAULT_REQUEST_TIMEOUT, 0));
     }
 
     @NonNull
     private BaseNetworkError getBaseNetworkError(VolleyError volleyError) {
+        // Host known to be down, the request wasn't sent
+        if (volleyError.getCause() instanceof HostUnavailableException) {
+            return new BaseNetworkError(GenericErrorType.NETWORK_ERROR, volleyError.getCause().getMessage(),
+                    volleyError);
+        }
+
         // No connection
         if (volleyError.getCause() instanceof NoConnectionError) {
             return new BaseNetworkError(GenericErrorType.NO_CONNECTION, volleyError);
@@ -239,6 +302,15 @@ public abstract class BaseRequest<T> extends Request<T> {
             error.addExtra(OnUnexpectedError.KEY_URL, getUrl());
             mOnParseErrorListener.onParseError(error);
         }
+        deliverErrorToListener(volleyError);
+        for (BaseRequest<T> request : takeCoalescedRequests()) {
+            if (!request.isCanceled()) {
+                request.deliverErrorToListener(volleyError);
+            }
+        }
+    }
+
+    private void deliverErrorToListener(VolleyError volleyError) {
         BaseNetworkError baseNetworkError = getBaseNetworkError(volleyError);
         BaseNetworkError modifiedBaseNetworkError = deliverBaseNetworkError(baseNetworkError);
         mErrorListener.onErrorResponse(modifiedBaseNetworkError);
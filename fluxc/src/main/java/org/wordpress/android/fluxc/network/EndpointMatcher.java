@@ -0,0 +1,106 @@
+package org.wordpress.android.fluxc.network;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps request paths back to the endpoint they were built from, e.g. {@code /sites/123/posts/456/} to
+ * {@code /sites/$site/posts/$post_ID/}.
+ *
+ * Endpoints are given as the {@link org.wordpress.android.fluxc.annotations.Endpoint} values listed by the generated
+ * endpoint classes (e.g. {@code WPCOMREST.ENDPOINTS}). Variable segments ({@code $site}, {@code <id>},
+ * {@code {slug}}, or the mixed {@code item:$item}) match any value of a single path segment, and static segments
+ * take precedence over them. Trailing slashes are ignored.
+ */
+public class EndpointMatcher {
+    private static class Node {
+        private final Map<String, Node> mStaticChildren = new HashMap<>();
+        // Variable segments, keyed by their static prefix (empty unless the segment is mixed, e.g. 'item:$item')
+        private final Map<String, Node> mVariableChildren = new LinkedHashMap<>();
+        private String mEndpoint;
+    }
+
+    private final Node mRoot = new Node();
+
+    public EndpointMatcher(String... endpoints) {
+        for (String endpoint : endpoints) {
+            addEndpoint(endpoint);
+        }
+    }
+
+    /**
+     * @param path the path of the request, relative to the root of the API (e.g. without the '/rest/v1.1' prefix)
+     * @return the matching endpoint, or null if there is none
+     */
+    @Nullable
+    public String match(String path) {
+        return match(mRoot, splitPath(path), 0);
+    }
+
+    private void addEndpoint(String endpoint) {
+        Node node = mRoot;
+        for (String segment : splitPath(endpoint)) {
+            int variableStart = getVariableStart(segment);
+            Map<String, Node> children = variableStart < 0 ? node.mStaticChildren : node.mVariableChildren;
+            String key = variableStart < 0 ? segment : segment.substring(0, variableStart);
+            Node child = children.get(key);
+            if (child == null) {
+                child = new Node();
+                children.put(key, child);
+            }
+            node = child;
+        }
+        if (node.mEndpoint == null) {
+            node.mEndpoint = endpoint;
+        }
+    }
+
+    private static String match(Node node, List<String> segments, int index) {
+        if (index == segments.size()) {
+            return node.mEndpoint;
+        }
+        String segment = segments.get(index);
+        Node staticChild = node.mStaticChildren.get(segment);
+        if (staticChild != null) {
+            String endpoint = match(staticChild, segments, index + 1);
+            if (endpoint != null) {
+                return endpoint;
+            }
+        }
+        for (Map.Entry<String, Node> variableChild : node.mVariableChildren.entrySet()) {
+            String prefix = variableChild.getKey();
+            if (segment.length() > prefix.length() && segment.startsWith(prefix)) {
+                String endpoint = match(variableChild.getValue(), segments, index + 1);
+                if (endpoint != null) {
+                    return endpoint;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<String> splitPath(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static int getVariableStart(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '$' || c == '<' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -2,42 +2,119 @@ package org.wordpress.android.fluxc.network;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.Base64;
 
 import com.yarolegovich.wellsql.WellSql;
 
 import org.wordpress.android.fluxc.persistence.HTTPAuthSqlUtils;
 
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Keeps the HTTP auth credentials of self-hosted sites, and finds the ones to use for a URL.
+ *
+ * Credentials are read from the database, then kept in memory in a prefix tree of their root URLs. The tree is
+ * immutable and rebuilt after every write to the table (see {@link HTTPAuthSqlUtils#getTableVersion()}, this includes
+ * {@link org.wordpress.android.fluxc.persistence.WellSqlConfig#reset()}), so that lookups (made for every XML-RPC and
+ * image request) don't take any lock.
+ */
 public class HTTPAuthManager {
+    private static class Credentials {
+        private final HTTPAuthModel mModel;
+        private final String mAuthorizationHeader;
+
+        Credentials(HTTPAuthModel model) {
+            mModel = model;
+            String creds = String.format("%s:%s", model.getUsername(), model.getPassword());
+            mAuthorizationHeader = "Basic " + Base64.encodeToString(creds.getBytes(), Base64.NO_WRAP);
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> mChildren = new HashMap<>();
+        private Credentials mCredentials;
+    }
+
+    /**
+     * Immutable prefix tree of the root URLs of the credentials.
+     */
+    private static class CredentialIndex {
+        private final int mTableVersion;
+        private final Node mRoot = new Node();
+
+        CredentialIndex(int tableVersion, List<HTTPAuthModel> models) {
+            mTableVersion = tableVersion;
+            for (HTTPAuthModel model : models) {
+                Credentials credentials = new Credentials(model);
+                add(model.getRootUrl(), credentials);
+                // Also match the stored URL with the ending 'xmlrpc.php' (or other name) stripped
+                add(model.getRootUrl().replaceFirst("/[^/]*?.php$", ""), credentials);
+            }
+        }
+
+        private void add(String prefix, Credentials credentials) {
+            Node node = mRoot;
+            for (int i = 0; i < prefix.length(); i++) {
+                Node child = node.mChildren.get(prefix.charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.mChildren.put(prefix.charAt(i), child);
+                }
+                node = child;
+            }
+            if (node.mCredentials == null) {
+                node.mCredentials = credentials;
+            }
+        }
+
+        /**
+         * @return the credentials with the longest root URL the given url starts with, or null
+         */
+        @Nullable
+        Credentials find(String url) {
+            Credentials found = mRoot.mCredentials;
+            Node node = mRoot;
+            for (int i = 0; i < url.length(); i++) {
+                node = node.mChildren.get(url.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.mCredentials != null) {
+                    found = node.mCredentials;
+                }
+            }
+            return found;
+        }
+    }
+
+    private volatile CredentialIndex mCredentialIndex;
+
     public HTTPAuthManager() {}
 
     /**
      * Get an HTTPAuthModel containing username and password for the url parameter
-     * TODO: Use an in memory model (or caching) - because this SQL query is executed every time a request is sent
      *
      * @param url to test
      * @return null if url is not matching any known HTTP auth credentials
      */
     @Nullable
     public HTTPAuthModel getHTTPAuthModel(String url) {
-        List<HTTPAuthModel> authModels = WellSql.select(HTTPAuthModel.class).getAsModel();
-        if (authModels.isEmpty()) {
-            return null;
-        }
-        for (HTTPAuthModel authModel : authModels) {
-            if (url.startsWith(authModel.getRootUrl())) {
-                return authModel;
-            }
+        Credentials credentials = getCredentialIndex().find(url);
+        return credentials != null ? credentials.mModel : null;
+    }
 
-            // Also compare against the stored URL with the ending 'xmlrpc.php' (or other name) stripped
-            String xmlrpcStripped = authModel.getRootUrl().replaceFirst("/[^/]*?.php$", "");
-            if (url.startsWith(xmlrpcStripped)) {
-                return authModel;
-            }
-        }
-        return null;
+    /**
+     * @param url to test
+     * @return the value of the {@code Authorization} header to send with the request, or null if url is not matching
+     * any known HTTP auth credentials
+     */
+    @Nullable
+    public String getAuthorizationHeader(String url) {
+        Credentials credentials = getCredentialIndex().find(url);
+        return credentials != null ? credentials.mAuthorizationHeader : null;
     }
 
     public void addHTTPAuthCredentials(@NonNull String username, @NonNull String password,
@@ -51,6 +128,23 @@ public class HTTPAuthManager {
         HTTPAuthSqlUtils.insertOrUpdateModel(httpAuthModel);
     }
 
+    private CredentialIndex getCredentialIndex() {
+        CredentialIndex credentialIndex = mCredentialIndex;
+        if (credentialIndex == null || credentialIndex.mTableVersion != HTTPAuthSqlUtils.getTableVersion()) {
+            synchronized (this) {
+                credentialIndex = mCredentialIndex;
+                // Read before the table, a write made while reading it makes the index stale
+                int tableVersion = HTTPAuthSqlUtils.getTableVersion();
+                if (credentialIndex == null || credentialIndex.mTableVersion != tableVersion) {
+                    credentialIndex = new CredentialIndex(tableVersion,
+                            WellSql.select(HTTPAuthModel.class).getAsModel());
+                    mCredentialIndex = credentialIndex;
+                }
+            }
+        }
+        return credentialIndex;
+    }
+
     private String normalizeURL(String url) {
         try {
             URI uri = URI.create(url);
@@ -0,0 +1,271 @@
+package org.wordpress.android.fluxc.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Keeps track of the health of each host, and stops sending requests to hosts which are known to be down (circuit
+ * breaker), instead of having each request wait for its timeout.
+ *
+ * Hosts serving many unrelated endpoints (see {@link #SHARED_API_HOSTS}) are tracked per path prefix instead, so
+ * that a failing endpoint doesn't take the others down with it, see {@link #getScope(HttpUrl)}.
+ *
+ * <ul>
+ *     <li>A host is {@link State#OPEN} (requests fail right away) after {@link #FAILURE_THRESHOLD} consecutive
+ *     failures: 502, 503 and 504 responses, and timeouts if other responses were received while waiting (otherwise
+ *     the device's network is the likely culprit). Other errors (e.g. no network) don't say anything about the
+ *     host. A 429 or 503 response with a {@code Retry-After} header also opens it until the given time</li>
+ *     <li>When the open period is over, the host is {@link State#HALF_OPEN}: a single request is sent to probe it,
+ *     and the others fail right away. The host is {@link State#CLOSED} again if the probe succeeds, otherwise it's
+ *     open for twice as long (up to {@link #MAX_OPEN_DURATION_MS})</li>
+ * </ul>
+ *
+ * All hosts are forgotten when the network connection changes, see {@link #resetOnConnectivityChange(Context)}.
+ */
+public class HostHealthMonitor {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Thrown instead of sending a request to a host which is known to be down.
+     */
+    public static class HostUnavailableException extends IOException {
+        public HostUnavailableException(String host) {
+            super("Host " + host + " is unavailable, request not sent");
+        }
+    }
+
+    public interface Clock {
+        long elapsedRealtime();
+
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void sleep(long ms) throws InterruptedException {
+            Thread.sleep(ms);
+        }
+    };
+
+    static final int FAILURE_THRESHOLD = 3;
+    static final long MIN_OPEN_DURATION_MS = 30 * 1000;
+    static final long MAX_OPEN_DURATION_MS = 5 * 60 * 1000;
+
+    static final Set<String> SHARED_API_HOSTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "public-api.wordpress.com")));
+    // e.g. /rest/v1.1/sites/123 or /wpcom/v2/sites/123: each site (and each non-site endpoint) is tracked on its own
+    static final int SHARED_API_HOST_PATH_SEGMENTS = 4;
+
+    private static class HostHealth {
+        private int mConsecutiveFailures;
+        private long mOpenDuration;
+        // 0 if the host has never been open since its last success
+        private long mOpenUntil;
+        private boolean mProbeInFlight;
+    }
+
+    private final Clock mClock;
+    private final Map<String, HostHealth> mHosts = new HashMap<>();
+    private long mResponseCount;
+
+    public HostHealthMonitor() {
+        this(SYSTEM_CLOCK);
+    }
+
+    public HostHealthMonitor(Clock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * @return the key the health of the host of the given URL is tracked with: the host, followed by the first path
+     * segments for {@link #SHARED_API_HOSTS}
+     */
+    public static String getScope(HttpUrl url) {
+        String host = url.host();
+        if (!SHARED_API_HOSTS.contains(host)) {
+            return host;
+        }
+        StringBuilder scope = new StringBuilder(host);
+        List<String> segments = url.pathSegments();
+        for (int i = 0; i < segments.size() && i < SHARED_API_HOST_PATH_SEGMENTS; i++) {
+            if (!segments.get(i).isEmpty()) {
+                scope.append('/').append(segments.get(i));
+            }
+        }
+        return scope.toString();
+    }
+
+    /**
+     * Forgets all hosts each time the network connection changes: failures seen on the previous network don't say
+     * anything about the hosts on the new one.
+     */
+    public void resetOnConnectivityChange(Context context) {
+        context.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (!isInitialStickyBroadcast()) {
+                    reset();
+                }
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    /**
+     * @return false if the request must fail right away, true if it can be sent. The outcome of a sent request must
+     * be reported with {@link #onSuccess(String)}, {@link #onFailure(String, long)},
+     * {@link #onTimeout(String, long)} or {@link #onRequestFinished(String)}.
+     */
+    public synchronized boolean allowRequest(String host) {
+        HostHealth health = mHosts.get(host);
+        if (health == null) {
+            return true;
+        }
+        switch (getState(health)) {
+            case OPEN:
+                return false;
+            case HALF_OPEN:
+                if (health.mProbeInFlight) {
+                    return false;
+                }
+                health.mProbeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Reports a response showing that the host is up.
+     */
+    public synchronized void onSuccess(String host) {
+        mResponseCount++;
+        HostHealth health = mHosts.remove(host);
+        if (health != null && health.mOpenUntil > 0) {
+            AppLog.i(T.API, "Host " + host + " is available again");
+        }
+    }
+
+    /**
+     * Reports an unavailability response.
+     *
+     * @param retryAfterMs the delay given by the host before trying again, or 0 if there is none
+     */
+    public synchronized void onFailure(String host, long retryAfterMs) {
+        mResponseCount++;
+        recordFailure(host, retryAfterMs);
+    }
+
+    private void recordFailure(String host, long retryAfterMs) {
+        HostHealth health = mHosts.get(host);
+        if (health == null) {
+            health = new HostHealth();
+            mHosts.put(host, health);
+        }
+        long now = mClock.elapsedRealtime();
+        if (getState(health) == State.HALF_OPEN && health.mProbeInFlight) {
+            // The probe failed
+            long duration = Math.max(health.mOpenDuration * 2, MIN_OPEN_DURATION_MS);
+            open(host, health, Math.min(duration, MAX_OPEN_DURATION_MS), now);
+        } else if (++health.mConsecutiveFailures >= FAILURE_THRESHOLD && getState(health) == State.CLOSED) {
+            open(host, health, MIN_OPEN_DURATION_MS, now);
+        }
+        health.mProbeInFlight = false;
+        if (retryAfterMs > 0) {
+            health.mOpenUntil = Math.max(health.mOpenUntil, now + retryAfterMs);
+        }
+    }
+
+    /**
+     * @return the number of responses received so far, from any host
+     */
+    public synchronized long getResponseCount() {
+        return mResponseCount;
+    }
+
+    /**
+     * Reports a timeout. It's only counted as a failure of the host if other responses were received while waiting
+     * for it, a device on a slow or broken network times out on every host.
+     *
+     * @param responseCountBefore the value of {@link #getResponseCount()} when the request was sent
+     */
+    public synchronized void onTimeout(String host, long responseCountBefore) {
+        if (mResponseCount == responseCountBefore) {
+            onRequestFinished(host);
+            return;
+        }
+        recordFailure(host, 0);
+    }
+
+    /**
+     * Reports a request which failed for a reason unrelated to the health of the host.
+     */
+    public synchronized void onRequestFinished(String host) {
+        HostHealth health = mHosts.get(host);
+        if (health != null) {
+            health.mProbeInFlight = false;
+        }
+    }
+
+    public synchronized State getState(String host) {
+        HostHealth health = mHosts.get(host);
+        return health == null ? State.CLOSED : getState(health);
+    }
+
+    /**
+     * @return the state of the hosts which failed since their last success, the other hosts are {@link State#CLOSED}
+     */
+    public synchronized Map<String, State> getHostStates() {
+        Map<String, State> states = new HashMap<>(mHosts.size());
+        for (Map.Entry<String, HostHealth> entry : mHosts.entrySet()) {
+            states.put(entry.getKey(), getState(entry.getValue()));
+        }
+        return states;
+    }
+
+    /**
+     * Forgets the failures of all hosts, e.g. when the network connection changes.
+     */
+    public synchronized void reset() {
+        mHosts.clear();
+    }
+
+    private void open(String host, HostHealth health, long duration, long now) {
+        AppLog.w(T.API, "Host " + host + " is unavailable, failing requests for " + duration + " ms");
+        health.mOpenDuration = duration;
+        health.mOpenUntil = now + duration;
+    }
+
+    private State getState(HostHealth health) {
+        if (health.mOpenUntil == 0) {
+            return State.CLOSED;
+        }
+        return mClock.elapsedRealtime() < health.mOpenUntil ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,259 @@
+package org.wordpress.android.fluxc.network;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.model.MediaModel;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides when media uploads start, so that a large batch of media doesn't compete for bandwidth all at once (and
+ * starve the other requests to the same host).
+ *
+ * <ul>
+ *     <li>At most {@link #DEFAULT_MAX_UPLOADS} uploads run at the same time, and at most
+ *     {@link #DEFAULT_MAX_UPLOADS_PER_SITE} for a given site</li>
+ *     <li>Waiting uploads are queued per post (media without a post share one queue per site), and the least
+ *     recently served queue goes first, so that a post with many media doesn't hold back the others</li>
+ *     <li>Uploads for the foreground post (see {@link #setForegroundPost(int)}) are started first, and pause running
+ *     background uploads if there is no free slot for them. Paused uploads are started again from the beginning
+ *     when a slot is free</li>
+ * </ul>
+ */
+public class MediaUploadScheduler {
+    public static final int DEFAULT_MAX_UPLOADS = 3;
+    public static final int DEFAULT_MAX_UPLOADS_PER_SITE = 2;
+
+    public interface Upload {
+        /**
+         * Starts the upload. The scheduler must be told when it's over with {@link #onUploadFinished(int)}.
+         */
+        void start();
+
+        /**
+         * Stops the upload so that it can be started again later, without reporting it as failed or canceled.
+         */
+        void pause();
+    }
+
+    private static class ScheduledUpload {
+        private final int mMediaId;
+        private final PostQueue mQueue;
+        private final Upload mUpload;
+
+        ScheduledUpload(int mediaId, PostQueue queue, Upload upload) {
+            mMediaId = mediaId;
+            mQueue = queue;
+            mUpload = upload;
+        }
+    }
+
+    private static class PostQueue {
+        private final int mSiteId;
+        private final int mPostId;
+        private final ArrayDeque<ScheduledUpload> mUploads = new ArrayDeque<>();
+        private int mRunningUploadCount;
+        // 0 if an upload of this queue has never been started, or if it has been paused
+        private long mLastServed;
+
+        PostQueue(int siteId, int postId) {
+            mSiteId = siteId;
+            mPostId = postId;
+        }
+    }
+
+    private int mMaxUploads = DEFAULT_MAX_UPLOADS;
+    private int mMaxUploadsPerSite = DEFAULT_MAX_UPLOADS_PER_SITE;
+    private int mForegroundPostId;
+    private long mServeCount;
+
+    // Queues with waiting or running uploads
+    private final List<PostQueue> mQueues = new ArrayList<>();
+    // Running uploads, by media id, in the order they were started
+    private final Map<Integer, ScheduledUpload> mRunningUploads = new LinkedHashMap<>();
+
+    public synchronized void setMaxUploads(int maxUploads, int maxUploadsPerSite) {
+        mMaxUploads = Math.max(1, maxUploads);
+        mMaxUploadsPerSite = Math.max(1, maxUploadsPerSite);
+    }
+
+    /**
+     * Gives priority to the uploads of media attached to the given post (e.g. the one being edited).
+     *
+     * @param localPostId the local id of the post, or 0 if there is no foreground post anymore
+     */
+    public void setForegroundPost(int localPostId) {
+        synchronized (this) {
+            mForegroundPostId = localPostId;
+        }
+        update();
+    }
+
+    /**
+     * Queues an upload, which is started as soon as there is a free slot for it (possibly right away).
+     */
+    public void schedule(@NonNull MediaModel media, @NonNull Upload upload) {
+        synchronized (this) {
+            PostQueue queue = getQueue(media.getLocalSiteId(), media.getLocalPostId());
+            queue.mUploads.addLast(new ScheduledUpload(media.getId(), queue, upload));
+        }
+        update();
+    }
+
+    /**
+     * Removes a waiting (or paused) upload from the queue.
+     *
+     * @return true if the upload was waiting, false if it's running or unknown
+     */
+    public synchronized boolean cancel(int mediaId) {
+        return removeWaitingUpload(mediaId);
+    }
+
+    /**
+     * Frees the slot of a finished (or canceled) upload, to start the next one.
+     */
+    public void onUploadFinished(int mediaId) {
+        synchronized (this) {
+            ScheduledUpload upload = mRunningUploads.remove(mediaId);
+            if (upload == null) {
+                removeWaitingUpload(mediaId);
+                return;
+            }
+            upload.mQueue.mRunningUploadCount--;
+            removeIfIdle(upload.mQueue);
+        }
+        update();
+    }
+
+    synchronized int getWaitingUploadCount() {
+        int count = 0;
+        for (PostQueue queue : mQueues) {
+            count += queue.mUploads.size();
+        }
+        return count;
+    }
+
+    private void update() {
+        List<ScheduledUpload> toPause = new ArrayList<>();
+        List<ScheduledUpload> toStart = new ArrayList<>();
+        synchronized (this) {
+            PostQueue queue;
+            while ((queue = nextQueue(toPause)) != null) {
+                ScheduledUpload upload = queue.mUploads.poll();
+                queue.mRunningUploadCount++;
+                queue.mLastServed = ++mServeCount;
+                mRunningUploads.put(upload.mMediaId, upload);
+                toStart.add(upload);
+            }
+        }
+
+        // Call the uploads outside of the lock, they may call back into the scheduler
+        for (ScheduledUpload upload : toPause) {
+            AppLog.d(T.MEDIA, "Pausing upload of media " + upload.mMediaId + " for a foreground upload");
+            upload.mUpload.pause();
+        }
+        for (ScheduledUpload upload : toStart) {
+            upload.mUpload.start();
+        }
+    }
+
+    /**
+     * @return the queue of the next upload to start, or null if there is none or no free slot for it
+     */
+    private PostQueue nextQueue(List<ScheduledUpload> pausedUploads) {
+        // Foreground uploads first, making room for them if needed
+        for (PostQueue queue : mQueues) {
+            if (!queue.mUploads.isEmpty() && isForeground(queue)
+                    && (hasFreeSlot(queue.mSiteId) || pauseUploadFor(queue, pausedUploads))) {
+                return queue;
+            }
+        }
+        PostQueue next = null;
+        for (PostQueue queue : mQueues) {
+            if (!queue.mUploads.isEmpty() && hasFreeSlot(queue.mSiteId)
+                    && (next == null || queue.mLastServed < next.mLastServed)) {
+                next = queue;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Pauses the most recently started background upload which holds a slot the given queue needs.
+     *
+     * @return true if an upload was paused
+     */
+    private boolean pauseUploadFor(PostQueue queue, List<ScheduledUpload> pausedUploads) {
+        boolean siteIsFull = countRunningUploads(queue.mSiteId) >= mMaxUploadsPerSite;
+        ScheduledUpload victim = null;
+        for (ScheduledUpload running : mRunningUploads.values()) {
+            if (!isForeground(running.mQueue) && (!siteIsFull || running.mQueue.mSiteId == queue.mSiteId)) {
+                victim = running;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        mRunningUploads.remove(victim.mMediaId);
+        // Paused uploads start again before the other background uploads
+        victim.mQueue.mRunningUploadCount--;
+        victim.mQueue.mUploads.addFirst(victim);
+        victim.mQueue.mLastServed = 0;
+        pausedUploads.add(victim);
+        return true;
+    }
+
+    private PostQueue getQueue(int siteId, int postId) {
+        for (PostQueue queue : mQueues) {
+            if (queue.mSiteId == siteId && queue.mPostId == postId) {
+                return queue;
+            }
+        }
+        PostQueue queue = new PostQueue(siteId, postId);
+        mQueues.add(queue);
+        return queue;
+    }
+
+    private boolean removeWaitingUpload(int mediaId) {
+        for (PostQueue queue : mQueues) {
+            for (ScheduledUpload upload : queue.mUploads) {
+                if (upload.mMediaId == mediaId) {
+                    queue.mUploads.remove(upload);
+                    removeIfIdle(queue);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void removeIfIdle(PostQueue queue) {
+        if (queue.mUploads.isEmpty() && queue.mRunningUploadCount == 0) {
+            mQueues.remove(queue);
+        }
+    }
+
+    private boolean isForeground(PostQueue queue) {
+        return mForegroundPostId > 0 && queue.mPostId == mForegroundPostId;
+    }
+
+    private boolean hasFreeSlot(int siteId) {
+        return mRunningUploads.size() < mMaxUploads && countRunningUploads(siteId) < mMaxUploadsPerSite;
+    }
+
+    private int countRunningUploads(int siteId) {
+        int count = 0;
+        for (ScheduledUpload running : mRunningUploads.values()) {
+            if (running.mQueue.mSiteId == siteId) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
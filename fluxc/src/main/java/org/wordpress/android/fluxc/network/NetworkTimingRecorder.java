@@ -0,0 +1,381 @@
+package org.wordpress.android.fluxc.network;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.generated.endpoint.WPAPI;
+import org.wordpress.android.fluxc.generated.endpoint.WPCOMREST;
+import org.wordpress.android.fluxc.generated.endpoint.WPCOMV2;
+import org.wordpress.android.fluxc.generated.endpoint.WPORGAPI;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.SocketFactory;
+
+import okhttp3.Connection;
+import okhttp3.Dns;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Records the timings of the calls made by OkHttp clients into {@link NetworkTimings}.
+ *
+ * OkHttp's EventListener is not public in the version we use, so the phases of a call are measured with the public
+ * extension points instead: DNS lookups and socket connections are timed by the {@link Dns} and {@link SocketFactory}
+ * of the client, which OkHttp calls on the thread running the call. TLS is the rest of the time spent before the
+ * request is sent on a new connection, time to first byte is measured by a network interceptor, and body transfer by
+ * wrapping the response body.
+ *
+ * Calls are recorded under the endpoint they were built from, e.g. {@code WPCOMREST /sites/$site/posts/}. Requests
+ * tagged with a String (e.g. XML-RPC calls, which all share the same URL) are recorded under that name instead.
+ */
+public class NetworkTimingRecorder {
+    private static final String WPCOM_HOST = "public-api.wordpress.com";
+    private static final String WPORG_API_HOST = "api.wordpress.org";
+    private static final Pattern WPCOM_REST_PATH = Pattern.compile("^/rest/v1(\\.\\d+)?(/.*)$");
+    private static final String WPCOM_V2_PATH_PREFIX = "/wpcom/v2/";
+    private static final String WPAPI_ROUTE_PREFIX = "/wp/v2/";
+    private static final String WPAPI_ROUTE_PARAMETER = "rest_route";
+    private static final String JSON_EXTENSION = ".json";
+    private static final String UNKNOWN_ENDPOINT = "<unknown>";
+
+    private static final EndpointMatcher WPCOM_REST_ENDPOINTS = new EndpointMatcher(WPCOMREST.ENDPOINTS);
+    private static final EndpointMatcher WPCOM_V2_ENDPOINTS = new EndpointMatcher(WPCOMV2.ENDPOINTS);
+    private static final EndpointMatcher WPAPI_ENDPOINTS = new EndpointMatcher(WPAPI.ENDPOINTS);
+    private static final EndpointMatcher WPORG_API_ENDPOINTS = new EndpointMatcher(WPORGAPI.ENDPOINTS);
+
+    private static class CallTiming {
+        private final String mEndpoint;
+        private final long mStartNanos;
+        private long mDnsNanos;
+        private long mConnectNanos;
+        private boolean mConnected;
+        // Time between the start of the call and the request being sent on a connection, for the first network call
+        private long mConnectionSetupNanos = -1;
+        private boolean mEncrypted;
+        private long mTimeToFirstByteNanos;
+        private long mBodyStartNanos;
+        private long mBytesSent;
+        private long mBytesReceived;
+        private boolean mRecorded;
+
+        CallTiming(String endpoint, long startNanos) {
+            mEndpoint = endpoint;
+            mStartNanos = startNanos;
+        }
+    }
+
+    private final NetworkTimings mNetworkTimings;
+    // Call being run on the current thread, for the Dns and SocketFactory
+    private final ThreadLocal<CallTiming> mCurrentCall = new ThreadLocal<>();
+
+    public NetworkTimingRecorder(NetworkTimings networkTimings) {
+        mNetworkTimings = networkTimings;
+    }
+
+    /**
+     * Records the calls of the clients built by the given builder (and by builders derived from those clients).
+     */
+    public OkHttpClient.Builder instrument(OkHttpClient.Builder builder) {
+        return builder
+                .dns(new TimedDns())
+                .socketFactory(new TimedSocketFactory())
+                .addInterceptor(new CallInterceptor())
+                .addNetworkInterceptor(new NetworkInterceptor());
+    }
+
+    /**
+     * @return the name of the endpoint the given URL was built from, e.g. {@code WPCOMREST /sites/$site/posts/}, or
+     * the host of the URL if it doesn't belong to a known API
+     */
+    static String getEndpointName(HttpUrl url) {
+        String host = url.host();
+        String path = url.encodedPath();
+        if (WPCOM_HOST.equals(host)) {
+            Matcher restPathMatcher = WPCOM_REST_PATH.matcher(path);
+            if (restPathMatcher.matches()) {
+                return getEndpointName("WPCOMREST", WPCOM_REST_ENDPOINTS, restPathMatcher.group(2));
+            }
+            if (path.startsWith(WPCOM_V2_PATH_PREFIX)) {
+                return getEndpointName("WPCOMV2", WPCOM_V2_ENDPOINTS,
+                        path.substring(WPCOM_V2_PATH_PREFIX.length() - 1));
+            }
+        } else if (WPORG_API_HOST.equals(host)) {
+            if (path.endsWith(JSON_EXTENSION)) {
+                path = path.substring(0, path.length() - JSON_EXTENSION.length());
+            }
+            return getEndpointName("WPORGAPI", WPORG_API_ENDPOINTS, path);
+        } else {
+            // Self-hosted sites expose the WP-API either under /wp-json/ or through the rest_route parameter
+            String route = url.queryParameter(WPAPI_ROUTE_PARAMETER);
+            if (route == null) {
+                route = path;
+            }
+            int wpApiStart = route.indexOf(WPAPI_ROUTE_PREFIX);
+            if (wpApiStart >= 0) {
+                return getEndpointName("WPAPI", WPAPI_ENDPOINTS,
+                        route.substring(wpApiStart + WPAPI_ROUTE_PREFIX.length() - 1));
+            }
+        }
+        return host;
+    }
+
+    private static String getEndpointName(String api, EndpointMatcher endpointMatcher, String path) {
+        String endpoint = endpointMatcher.match(path);
+        return api + " " + (endpoint != null ? endpoint : UNKNOWN_ENDPOINT);
+    }
+
+    private void recordConnection(CallTiming call) {
+        if (!call.mConnected) {
+            // The call reused a pooled connection
+            return;
+        }
+        long tlsNanos = -1;
+        if (call.mEncrypted && call.mConnectionSetupNanos >= 0) {
+            tlsNanos = Math.max(0, call.mConnectionSetupNanos - call.mDnsNanos - call.mConnectNanos);
+        }
+        mNetworkTimings.recordConnection(call.mEndpoint, call.mDnsNanos, call.mConnectNanos, tlsNanos);
+    }
+
+    private void recordResponse(CallTiming call) {
+        if (call.mRecorded) {
+            return;
+        }
+        call.mRecorded = true;
+        long now = System.nanoTime();
+        long bodyTransferNanos = call.mBodyStartNanos > 0 ? now - call.mBodyStartNanos : 0;
+        recordConnection(call);
+        mNetworkTimings.recordResponse(call.mEndpoint, call.mTimeToFirstByteNanos, bodyTransferNanos,
+                now - call.mStartNanos, call.mBytesSent, call.mBytesReceived);
+    }
+
+    private class CallInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String endpoint = request.tag() instanceof String
+                    ? (String) request.tag() : getEndpointName(request.url());
+            final CallTiming call = new CallTiming(endpoint, System.nanoTime());
+
+            CallTiming outerCall = mCurrentCall.get();
+            mCurrentCall.set(call);
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException | RuntimeException e) {
+                recordConnection(call);
+                mNetworkTimings.recordFailure(call.mEndpoint, call.mBytesSent);
+                throw e;
+            } finally {
+                mCurrentCall.set(outerCall);
+            }
+
+            if (response.body() == null) {
+                recordResponse(call);
+                return response;
+            }
+            return response.newBuilder()
+                    .body(new ObservedResponseBody(response.body()) {
+                        @Override
+                        void onRead(long byteCount) {
+                            if (call.mBodyStartNanos == 0) {
+                                call.mBodyStartNanos = System.nanoTime();
+                            }
+                        }
+
+                        @Override
+                        void onEnd() {
+                            recordResponse(call);
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    private class NetworkInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final CallTiming call = mCurrentCall.get();
+            if (call == null) {
+                return chain.proceed(chain.request());
+            }
+
+            long sendStartNanos = System.nanoTime();
+            if (call.mConnectionSetupNanos < 0) {
+                call.mConnectionSetupNanos = sendStartNanos - call.mStartNanos;
+                Connection connection = chain.connection();
+                call.mEncrypted = connection != null && connection.handshake() != null;
+            }
+            RequestBody requestBody = chain.request().body();
+            if (requestBody != null && requestBody.contentLength() > 0) {
+                call.mBytesSent += requestBody.contentLength();
+            }
+
+            Response response = chain.proceed(chain.request());
+            // Redirects and retries go through here again, the last network call is the one that counts
+            call.mTimeToFirstByteNanos = System.nanoTime() - sendStartNanos;
+
+            if (response.body() == null) {
+                return response;
+            }
+            // Bytes are counted here rather than in the call interceptor, before the body is decompressed
+            return response.newBuilder()
+                    .body(new ObservedResponseBody(response.body()) {
+                        @Override
+                        void onRead(long byteCount) {
+                            call.mBytesReceived += byteCount;
+                        }
+
+                        @Override
+                        void onEnd() {
+                        }
+                    })
+                    .build();
+        }
+    }
+
+    private class TimedDns implements Dns {
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            long startNanos = System.nanoTime();
+            try {
+                return Dns.SYSTEM.lookup(hostname);
+            } finally {
+                CallTiming call = mCurrentCall.get();
+                if (call != null) {
+                    call.mDnsNanos += System.nanoTime() - startNanos;
+                }
+            }
+        }
+    }
+
+    private class TimedSocketFactory extends SocketFactory {
+        @Override
+        public Socket createSocket() {
+            return new TimedSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            Socket socket = createSocket();
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            Socket socket = createSocket();
+            socket.bind(new InetSocketAddress(localHost, localPort));
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            Socket socket = createSocket();
+            socket.connect(new InetSocketAddress(host, port));
+            return socket;
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+                throws IOException {
+            Socket socket = createSocket();
+            socket.bind(new InetSocketAddress(localAddress, localPort));
+            socket.connect(new InetSocketAddress(address, port));
+            return socket;
+        }
+    }
+
+    private class TimedSocket extends Socket {
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            long startNanos = System.nanoTime();
+            try {
+                super.connect(endpoint, timeout);
+            } finally {
+                CallTiming call = mCurrentCall.get();
+                if (call != null) {
+                    call.mConnectNanos += System.nanoTime() - startNanos;
+                    call.mConnected = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Response body reporting reads and its end (exhausted or closed, whichever comes first).
+     */
+    private abstract static class ObservedResponseBody extends ResponseBody {
+        private final ResponseBody mDelegate;
+        private BufferedSource mSource;
+        private boolean mEnded;
+
+        ObservedResponseBody(ResponseBody delegate) {
+            mDelegate = delegate;
+        }
+
+        abstract void onRead(long byteCount);
+
+        abstract void onEnd();
+
+        @Override
+        public MediaType contentType() {
+            return mDelegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mDelegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            if (mSource == null) {
+                mSource = Okio.buffer(new ForwardingSource(mDelegate.source()) {
+                    @Override
+                    public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read >= 0) {
+                            onRead(read);
+                        } else {
+                            end();
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        end();
+                        super.close();
+                    }
+                });
+            }
+            return mSource;
+        }
+
+        private void end() {
+            if (!mEnded) {
+                mEnded = true;
+                onEnd();
+            }
+        }
+    }
+}
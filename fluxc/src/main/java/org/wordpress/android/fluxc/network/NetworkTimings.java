@@ -0,0 +1,196 @@
+package org.wordpress.android.fluxc.network;
+
+import org.wordpress.android.fluxc.LatencyHistogram;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Network timings recorded by {@link NetworkTimingRecorder}, per endpoint (e.g.
+ * {@code WPCOMREST /sites/$site/posts/} or {@code XMLRPC wp.getPosts}):
+ * - DNS, connect and TLS: time spent opening a connection, only recorded for calls which didn't reuse one
+ * - time to first byte: time between sending the request and receiving the response headers
+ * - body transfer: time between the first read of the response body and its end
+ * - total: time between the start of the call and the end of the response body
+ */
+public class NetworkTimings {
+    public static class EndpointTimings {
+        private final LatencyHistogram mDns = new LatencyHistogram();
+        private final LatencyHistogram mConnect = new LatencyHistogram();
+        private final LatencyHistogram mTls = new LatencyHistogram();
+        private final LatencyHistogram mTimeToFirstByte = new LatencyHistogram();
+        private final LatencyHistogram mBodyTransfer = new LatencyHistogram();
+        private final LatencyHistogram mTotal = new LatencyHistogram();
+        private final AtomicLong mBytesSent = new AtomicLong();
+        private final AtomicLong mBytesReceived = new AtomicLong();
+        private final AtomicLong mFailureCount = new AtomicLong();
+
+        public LatencyHistogram getDns() {
+            return mDns;
+        }
+
+        public LatencyHistogram getConnect() {
+            return mConnect;
+        }
+
+        public LatencyHistogram getTls() {
+            return mTls;
+        }
+
+        public LatencyHistogram getTimeToFirstByte() {
+            return mTimeToFirstByte;
+        }
+
+        public LatencyHistogram getBodyTransfer() {
+            return mBodyTransfer;
+        }
+
+        public LatencyHistogram getTotal() {
+            return mTotal;
+        }
+
+        /**
+         * @return request body bytes sent
+         */
+        public long getBytesSent() {
+            return mBytesSent.get();
+        }
+
+        /**
+         * @return response body bytes received, as sent by the server (i.e. before decompression)
+         */
+        public long getBytesReceived() {
+            return mBytesReceived.get();
+        }
+
+        /**
+         * @return calls which failed without a response (e.g. timeouts or connection errors)
+         */
+        public long getFailureCount() {
+            return mFailureCount.get();
+        }
+    }
+
+    private final ConcurrentHashMap<String, EndpointTimings> mEndpointTimings = new ConcurrentHashMap<>();
+    private ScheduledExecutorService mDumpScheduler;
+
+    /**
+     * @return the timings of every endpoint called so far
+     */
+    public Map<String, EndpointTimings> getEndpointTimings() {
+        return Collections.unmodifiableMap(mEndpointTimings);
+    }
+
+    /**
+     * @return the timings of the given endpoint, or null if it hasn't been called
+     */
+    public EndpointTimings getEndpointTimings(String endpoint) {
+        return mEndpointTimings.get(endpoint);
+    }
+
+    public void reset() {
+        mEndpointTimings.clear();
+    }
+
+    /**
+     * Logs a summary of the timings of every endpoint.
+     */
+    public void dump() {
+        for (Map.Entry<String, EndpointTimings> entry : new TreeMap<>(mEndpointTimings).entrySet()) {
+            EndpointTimings timings = entry.getValue();
+            AppLog.i(T.API, String.format(Locale.US, "%s: %d calls, %d failures, %d B sent, %d B received"
+                            + " | dns %s | connect %s | tls %s | ttfb %s | body %s | total %s",
+                    entry.getKey(), timings.mTotal.getCount(), timings.getFailureCount(), timings.getBytesSent(),
+                    timings.getBytesReceived(), summarize(timings.mDns), summarize(timings.mConnect),
+                    summarize(timings.mTls), summarize(timings.mTimeToFirstByte), summarize(timings.mBodyTransfer),
+                    summarize(timings.mTotal)));
+        }
+    }
+
+    /**
+     * Calls {@link #dump()} every {@code periodMs}, until {@link #stopPeriodicDump()} is called.
+     */
+    public synchronized void startPeriodicDump(long periodMs) {
+        stopPeriodicDump();
+        mDumpScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "fluxc-network-timings");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mDumpScheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                dump();
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (mDumpScheduler != null) {
+            mDumpScheduler.shutdownNow();
+            mDumpScheduler = null;
+        }
+    }
+
+    /**
+     * @param tlsNanos TLS handshake duration, or a negative value if the connection is not encrypted
+     */
+    void recordConnection(String endpoint, long dnsNanos, long connectNanos, long tlsNanos) {
+        EndpointTimings timings = getOrCreateEndpointTimings(endpoint);
+        timings.mDns.recordNanos(dnsNanos);
+        timings.mConnect.recordNanos(connectNanos);
+        if (tlsNanos >= 0) {
+            timings.mTls.recordNanos(tlsNanos);
+        }
+    }
+
+    void recordResponse(String endpoint, long timeToFirstByteNanos, long bodyTransferNanos, long totalNanos,
+                        long bytesSent, long bytesReceived) {
+        EndpointTimings timings = getOrCreateEndpointTimings(endpoint);
+        timings.mTimeToFirstByte.recordNanos(timeToFirstByteNanos);
+        timings.mBodyTransfer.recordNanos(bodyTransferNanos);
+        timings.mTotal.recordNanos(totalNanos);
+        timings.mBytesSent.addAndGet(bytesSent);
+        timings.mBytesReceived.addAndGet(bytesReceived);
+    }
+
+    void recordFailure(String endpoint, long bytesSent) {
+        EndpointTimings timings = getOrCreateEndpointTimings(endpoint);
+        timings.mFailureCount.incrementAndGet();
+        timings.mBytesSent.addAndGet(bytesSent);
+    }
+
+    private EndpointTimings getOrCreateEndpointTimings(String endpoint) {
+        EndpointTimings timings = mEndpointTimings.get(endpoint);
+        if (timings == null) {
+            timings = new EndpointTimings();
+            EndpointTimings previous = mEndpointTimings.putIfAbsent(endpoint, timings);
+            if (previous != null) {
+                timings = previous;
+            }
+        }
+        return timings;
+    }
+
+    private static String summarize(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "-";
+        }
+        return String.format(Locale.US, "p50 %.1f ms, p95 %.1f ms, max %.1f ms",
+                histogram.getPercentileMicros(50) / 1000f, histogram.getPercentileMicros(95) / 1000f,
+                histogram.getMaxMicros() / 1000f);
+    }
+}
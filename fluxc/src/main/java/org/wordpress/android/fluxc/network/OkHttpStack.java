@@ -1,7 +1,10 @@
 package org.wordpress.android.fluxc.network;
 
 import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
+import com.android.volley.ServerError;
+import com.android.volley.VolleyError;
 import com.android.volley.toolbox.HttpStack;
 
 import org.apache.http.HttpEntity;
@@ -12,12 +15,17 @@ import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.HostUnavailableException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
-import okhttp3.Call;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -25,28 +33,44 @@ import okhttp3.Protocol;
 import okhttp3.Request.Builder;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
 
 /**
  * Modified version of https://gist.github.com/alashow/c96c09320899e4caa06b
  *
  * OkHttp backed {@link HttpStack HttpStack} that does not
  * use okhttp-urlconnection
+ *
+ * All requests go through clones of the given client, so they share its connection pool and dispatcher. A clone is
+ * created (and cached) for each distinct request timeout.
  */
 public class OkHttpStack implements HttpStack {
-    private final OkHttpClient.Builder mClientBuilder;
+    // Volley timeouts only vary with the retry policy, this is an upper bound in case a caller uses many values
+    private static final int MAX_CACHED_CLIENTS = 16;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    private final OkHttpClient mClient;
+    private final HostHealthMonitor mHostHealthMonitor;
+    private final Map<Integer, OkHttpClient> mClientsByTimeout = new ConcurrentHashMap<>();
+
+    public OkHttpStack(OkHttpClient client) {
+        this(client, null);
+    }
 
-    public OkHttpStack(OkHttpClient.Builder clientBuilder) {
-        this.mClientBuilder = clientBuilder;
+    /**
+     * @param hostHealthMonitor keeps track of the health of each host, requests to hosts which are known to be down
+     *                          fail right away with a {@link HostUnavailableException}
+     */
+    public OkHttpStack(OkHttpClient client, HostHealthMonitor hostHealthMonitor) {
+        this.mClient = client;
+        mHostHealthMonitor = hostHealthMonitor;
     }
 
     @Override
     public HttpResponse performRequest(Request<?> request, Map<String, String> additionalHeaders)
             throws IOException, AuthFailureError {
-        int timeoutMs = request.getTimeoutMs();
-        mClientBuilder.connectTimeout(timeoutMs, TimeUnit.MILLISECONDS);
-        mClientBuilder.readTimeout(timeoutMs, TimeUnit.MILLISECONDS);
-        mClientBuilder.writeTimeout(timeoutMs, TimeUnit.MILLISECONDS);
-
         Builder okHttpRequestBuilder = new okhttp3.Request.Builder();
         okHttpRequestBuilder.url(request.getUrl());
 
@@ -60,15 +84,27 @@ public class OkHttpStack implements HttpStack {
 
         setConnectionParametersForRequest(okHttpRequestBuilder, request);
 
-        OkHttpClient client = mClientBuilder.build();
+        if (request instanceof BaseRequest && ((BaseRequest<?>) request).getEndpointName() != null) {
+            // Read by the NetworkTimingRecorder
+            okHttpRequestBuilder.tag(((BaseRequest<?>) request).getEndpointName());
+        }
+
+        OkHttpClient client = getClientForTimeout(request.getTimeoutMs());
         okhttp3.Request okHttpRequest = okHttpRequestBuilder.build();
-        Call okHttpCall = client.newCall(okHttpRequest);
-        okhttp3.Response okHttpResponse = okHttpCall.execute();
+        okhttp3.Response okHttpResponse = execute(client, okHttpRequest);
+        while (shouldRetry(request, okHttpResponse)) {
+            okHttpResponse.close();
+            okHttpResponse = execute(client, okHttpRequest);
+        }
 
         StatusLine responseStatus = new BasicStatusLine(parseProtocol(okHttpResponse.protocol()),
                 okHttpResponse.code(), okHttpResponse.message());
         BasicHttpResponse response = new BasicHttpResponse(responseStatus);
-        response.setEntity(entityFromOkHttpResponse(okHttpResponse));
+        if (isStreamingResponse(request, okHttpResponse)) {
+            response.setEntity(streamOkHttpResponse((StreamingResponseRequest) request, okHttpResponse));
+        } else {
+            response.setEntity(entityFromOkHttpResponse(okHttpResponse));
+        }
 
         Headers responseHeaders = okHttpResponse.headers();
         for (int i = 0, len = responseHeaders.size(); i < len; i++) {
@@ -81,6 +117,109 @@ public class OkHttpStack implements HttpStack {
         return response;
     }
 
+    private okhttp3.Response execute(OkHttpClient client, okhttp3.Request request) throws IOException {
+        if (mHostHealthMonitor == null) {
+            return client.newCall(request).execute();
+        }
+        String host = HostHealthMonitor.getScope(request.url());
+        if (!mHostHealthMonitor.allowRequest(host)) {
+            throw new HostUnavailableException(host);
+        }
+        long responseCount = mHostHealthMonitor.getResponseCount();
+        okhttp3.Response response;
+        try {
+            response = client.newCall(request).execute();
+        } catch (SocketTimeoutException e) {
+            mHostHealthMonitor.onTimeout(host, responseCount);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // e.g. no network, that's not the host's fault
+            mHostHealthMonitor.onRequestFinished(host);
+            throw e;
+        }
+        switch (response.code()) {
+            case HTTP_TOO_MANY_REQUESTS:
+            case HttpURLConnection.HTTP_UNAVAILABLE:
+                long retryAfterMs = AdaptiveRetryPolicy.parseRetryAfterMs(response.header(HEADER_RETRY_AFTER));
+                mHostHealthMonitor.onFailure(host, Math.max(0, retryAfterMs));
+                break;
+            case HttpURLConnection.HTTP_BAD_GATEWAY:
+            case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+                mHostHealthMonitor.onFailure(host, 0);
+                break;
+            default:
+                mHostHealthMonitor.onSuccess(host);
+                break;
+        }
+        return response;
+    }
+
+    /**
+     * Volley only retries timeouts, 429 and 503 responses are retried here if the retry policy of the request allows
+     * it (after the delay given by their {@code Retry-After} header).
+     */
+    private static boolean shouldRetry(Request<?> request, okhttp3.Response response) {
+        if ((response.code() != HTTP_TOO_MANY_REQUESTS && response.code() != HttpURLConnection.HTTP_UNAVAILABLE)
+                || !(request.getRetryPolicy() instanceof AdaptiveRetryPolicy)) {
+            return false;
+        }
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String retryAfter = response.header(HEADER_RETRY_AFTER);
+        if (retryAfter != null) {
+            headers.put(HEADER_RETRY_AFTER, retryAfter);
+        }
+        try {
+            request.getRetryPolicy().retry(new ServerError(new NetworkResponse(response.code(), null, headers, false)));
+            return true;
+        } catch (VolleyError e) {
+            return false;
+        }
+    }
+
+    private OkHttpClient getClientForTimeout(int timeoutMs) {
+        OkHttpClient client = mClientsByTimeout.get(timeoutMs);
+        if (client == null) {
+            // newBuilder() keeps the connection pool and dispatcher of the original client
+            client = mClient.newBuilder()
+                    .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .writeTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .build();
+            if (mClientsByTimeout.size() < MAX_CACHED_CLIENTS) {
+                // Concurrent misses may build the same client twice, that's harmless since they share everything
+                mClientsByTimeout.put(timeoutMs, client);
+            }
+        }
+        return client;
+    }
+
+    private static boolean isStreamingResponse(Request<?> request, okhttp3.Response r) {
+        return request instanceof StreamingResponseRequest
+                && ((StreamingResponseRequest) request).isStreamingResponse()
+                && r.isSuccessful()
+                && r.code() != HttpURLConnection.HTTP_NO_CONTENT;
+    }
+
+    /**
+     * Hands the response body to the request, and returns an empty entity for Volley so that the body is never
+     * buffered in memory.
+     */
+    private static HttpEntity streamOkHttpResponse(StreamingResponseRequest request, okhttp3.Response r)
+            throws IOException {
+        ResponseBody body = r.body();
+        try {
+            // Decodes using the charset from the Content-Type header, or UTF-8
+            request.parseResponseStream(body.charStream());
+        } finally {
+            body.close();
+        }
+
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(new ByteArrayInputStream(new byte[0]));
+        entity.setContentLength(0);
+        return entity;
+    }
+
     private static HttpEntity entityFromOkHttpResponse(okhttp3.Response r) throws IOException {
         BasicHttpEntity entity = new BasicHttpEntity();
         ResponseBody body = r.body();
@@ -150,7 +289,14 @@ public class OkHttpStack implements HttpStack {
         throw new IllegalAccessError("Unkwown protocol");
     }
 
-    private static RequestBody createRequestBody(Request r) throws AuthFailureError {
+    private static RequestBody createRequestBody(Request r) throws IOException, AuthFailureError {
+        if (r instanceof StreamingBodyRequest) {
+            // The body is written once to a segmented buffer rather than streamed, so that the Content-Length is
+            // known: some hosts reject chunked request bodies
+            Buffer body = new Buffer();
+            ((StreamingBodyRequest) r).writeBody(body);
+            return new BufferRequestBody(MediaType.parse(r.getBodyContentType()), body);
+        }
         byte[] body = r.getBody();
         if (body == null) {
             // Use the empty body when we get the null body
@@ -158,4 +304,30 @@ public class OkHttpStack implements HttpStack {
         }
         return RequestBody.create(MediaType.parse(r.getBodyContentType()), body);
     }
+
+    private static class BufferRequestBody extends RequestBody {
+        private final MediaType mContentType;
+        private final Buffer mBody;
+
+        BufferRequestBody(MediaType contentType, Buffer body) {
+            mContentType = contentType;
+            mBody = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mContentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return mBody.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // The body may be written more than once (e.g. on redirects), clones share the buffer segments
+            sink.write(mBody.clone(), mBody.size());
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package org.wordpress.android.fluxc.network;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attaches requests to an identical request already in flight (same type, method, URL, parameters and credentials,
+ * see {@link BaseRequest#getCoalescingKey()}) instead of sending them again. The attached requests get the response
+ * or the error of the request that was sent.
+ *
+ * If the sent request is canceled, the first attached request which isn't is sent in its place, through the
+ * {@link RequestSender} of the client owning the coalescer.
+ */
+public class RequestCoalescer {
+    public interface RequestSender {
+        /**
+         * Sends a request which was attached to a canceled request, the same way the client sends any request it
+         * doesn't coalesce (batching included).
+         */
+        void send(BaseRequest<?> request);
+    }
+
+    private static class InFlightRequest {
+        private BaseRequest<?> mSentRequest;
+        private final List<BaseRequest<?>> mAttachedRequests = new ArrayList<>();
+
+        InFlightRequest(BaseRequest<?> sentRequest) {
+            mSentRequest = sentRequest;
+        }
+    }
+
+    private final RequestSender mRequestSender;
+    private final Map<String, InFlightRequest> mInFlightRequests = new HashMap<>();
+
+    public RequestCoalescer(RequestSender requestSender) {
+        mRequestSender = requestSender;
+    }
+
+    /**
+     * @return true if the request was attached to an identical request in flight, in which case it must not be sent
+     */
+    public boolean coalesce(BaseRequest<?> request) {
+        String key = request.getCoalescingKey();
+        if (key == null) {
+            return false;
+        }
+        synchronized (this) {
+            request.setRequestCoalescer(this, key);
+            InFlightRequest inFlight = mInFlightRequests.get(key);
+            if (inFlight == null) {
+                mInFlightRequests.put(key, new InFlightRequest(request));
+                return false;
+            }
+            AppLog.d(T.API, "Attaching request to an identical request in flight: " + request.getUrl());
+            inFlight.mAttachedRequests.add(request);
+            return true;
+        }
+    }
+
+    /**
+     * Called when the response or error of a request is delivered.
+     *
+     * @return the requests attached to the given one if it was sent, which must get the same response or error
+     */
+    synchronized List<BaseRequest<?>> takeAttachedRequests(BaseRequest<?> request, String key) {
+        InFlightRequest inFlight = mInFlightRequests.get(key);
+        if (inFlight == null || inFlight.mSentRequest != request) {
+            return Collections.emptyList();
+        }
+        mInFlightRequests.remove(key);
+        return inFlight.mAttachedRequests;
+    }
+
+    void onCanceled(BaseRequest<?> request, String key) {
+        BaseRequest<?> replacement = null;
+        synchronized (this) {
+            InFlightRequest inFlight = mInFlightRequests.get(key);
+            if (inFlight == null) {
+                return;
+            }
+            if (inFlight.mSentRequest != request) {
+                inFlight.mAttachedRequests.remove(request);
+                return;
+            }
+            Iterator<BaseRequest<?>> iterator = inFlight.mAttachedRequests.iterator();
+            while (iterator.hasNext() && replacement == null) {
+                BaseRequest<?> attached = iterator.next();
+                iterator.remove();
+                if (!attached.isCanceled()) {
+                    replacement = attached;
+                }
+            }
+            if (replacement == null) {
+                mInFlightRequests.remove(key);
+                return;
+            }
+            inFlight.mSentRequest = replacement;
+        }
+        mRequestSender.send(replacement);
+    }
+}
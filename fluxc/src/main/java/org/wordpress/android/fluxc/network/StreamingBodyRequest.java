@@ -0,0 +1,17 @@
+package org.wordpress.android.fluxc.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import okio.BufferedSink;
+
+/**
+ * Implemented by requests able to write their body straight to an Okio sink.
+ *
+ * {@link OkHttpStack} calls {@link #writeBody(BufferedSink)} instead of {@code getBody()}, so that the body is never
+ * built as a String or a byte array. The request must still implement {@code getBody()} for other HTTP stacks.
+ */
+public interface StreamingBodyRequest {
+    void writeBody(@NonNull BufferedSink sink) throws IOException;
+}
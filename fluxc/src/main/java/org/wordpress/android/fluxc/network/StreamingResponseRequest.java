@@ -0,0 +1,22 @@
+package org.wordpress.android.fluxc.network;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Implemented by requests able to parse their response straight from the network stream.
+ *
+ * When {@link #isStreamingResponse()} returns true, {@link OkHttpStack} passes successful response bodies to
+ * {@link #parseResponseStream(Reader)} on the network thread, and Volley receives an empty body instead. The request
+ * is expected to keep the parsed result and return it from {@code parseNetworkResponse}.
+ */
+public interface StreamingResponseRequest {
+    boolean isStreamingResponse();
+
+    /**
+     * @throws IOException if the body couldn't be read, in which case the request fails with a network error
+     */
+    void parseResponseStream(@NonNull Reader reader) throws IOException;
+}
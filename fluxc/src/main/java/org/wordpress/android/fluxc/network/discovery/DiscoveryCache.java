@@ -0,0 +1,58 @@
+package org.wordpress.android.fluxc.network.discovery;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import javax.inject.Singleton;
+
+/**
+ * Persists the endpoints found by {@link SelfHostedEndpointFinder}, keyed by normalized site URL, so that signing in
+ * to a known site again doesn't go through the whole discovery process.
+ */
+@Singleton
+public class DiscoveryCache {
+    private static final String PREFS_NAME = "fluxc-discovery-cache";
+    private static final String XMLRPC_ENDPOINT_KEY_PREFIX = "xmlrpc:";
+    private static final String WPAPI_ENDPOINT_KEY_PREFIX = "wpapi:";
+
+    private final SharedPreferences mPreferences;
+
+    public DiscoveryCache(Context appContext) {
+        mPreferences = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return the XML-RPC endpoint found for the site, or null if the site wasn't discovered before
+     */
+    @Nullable
+    public String getXMLRPCEndpoint(String siteKey) {
+        return mPreferences.getString(XMLRPC_ENDPOINT_KEY_PREFIX + siteKey, null);
+    }
+
+    /**
+     * @return the WP-API endpoint found for the site, or an empty string if there is none
+     */
+    public String getWPAPIEndpoint(String siteKey) {
+        return mPreferences.getString(WPAPI_ENDPOINT_KEY_PREFIX + siteKey, "");
+    }
+
+    public void put(String siteKey, String xmlRpcEndpoint, @Nullable String wpApiEndpoint) {
+        mPreferences.edit()
+                .putString(XMLRPC_ENDPOINT_KEY_PREFIX + siteKey, xmlRpcEndpoint)
+                .putString(WPAPI_ENDPOINT_KEY_PREFIX + siteKey, TextUtils.isEmpty(wpApiEndpoint) ? "" : wpApiEndpoint)
+                .apply();
+    }
+
+    public void remove(String siteKey) {
+        mPreferences.edit()
+                .remove(XMLRPC_ENDPOINT_KEY_PREFIX + siteKey)
+                .remove(WPAPI_ENDPOINT_KEY_PREFIX + siteKey)
+                .apply();
+    }
+
+    public void clear() {
+        mPreferences.edit().clear().apply();
+    }
+}
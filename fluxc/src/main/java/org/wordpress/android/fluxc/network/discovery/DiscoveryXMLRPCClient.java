@@ -45,6 +45,8 @@ public class DiscoveryXMLRPCClient extends BaseXMLRPCClient {
         try {
             return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | TimeoutException e) {
+            // Also happens when the probe was canceled because another candidate URL won
+            request.cancel();
             AppLog.e(AppLog.T.API, "Couldn't get XML-RPC response");
         } catch (ExecutionException e) {
             if (e.getCause() instanceof AuthFailureError) {
@@ -86,6 +88,7 @@ public class DiscoveryXMLRPCClient extends BaseXMLRPCClient {
         try {
             return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | TimeoutException e) {
+            request.cancel();
             AppLog.e(AppLog.T.API, "Couldn't get XML-RPC response.");
         } catch (ExecutionException e) {
             if (e.getCause() instanceof AuthFailureError) {
@@ -14,17 +14,37 @@ import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.UrlUtils;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SelfHostedEndpointFinder {
     public static final int TIMEOUT_MS = 60000;
 
+    // Maximum number of candidate URLs probed at the same time
+    private static final int MAX_PARALLEL_PROBES = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
     private final Dispatcher mDispatcher;
     private final DiscoveryXMLRPCClient mDiscoveryXMLRPCClient;
     private final DiscoveryWPAPIRestClient mDiscoveryWPAPIRestClient;
+    private final DiscoveryCache mDiscoveryCache;
+    private final ExecutorService mDiscoveryExecutor;
+    private final ThreadPoolExecutor mProbeExecutor;
 
     public enum DiscoveryError implements OnChangedError {
         INVALID_URL,
@@ -65,24 +85,33 @@ public class SelfHostedEndpointFinder {
     }
 
     public SelfHostedEndpointFinder(Dispatcher dispatcher, DiscoveryXMLRPCClient discoveryXMLRPCClient,
-                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient) {
+                                    DiscoveryWPAPIRestClient discoveryWPAPIRestClient, DiscoveryCache discoveryCache) {
         mDispatcher = dispatcher;
         mDiscoveryXMLRPCClient = discoveryXMLRPCClient;
         mDiscoveryWPAPIRestClient = discoveryWPAPIRestClient;
+        mDiscoveryCache = discoveryCache;
+        mDiscoveryExecutor = Executors.newCachedThreadPool(new DiscoveryThreadFactory("fluxc-discovery-"));
+        mProbeExecutor = new ThreadPoolExecutor(MAX_PARALLEL_PROBES, MAX_PARALLEL_PROBES, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DiscoveryThreadFactory("fluxc-probe-"));
+        mProbeExecutor.allowCoreThreadTimeOut(true);
     }
 
     public void findEndpoint(final String url) {
-        new Thread(new Runnable() {
+        mDiscoveryExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 try {
-                    String wpRestEndpoint = "";
-                    if (BuildConfig.ENABLE_WPAPI) {
-                        wpRestEndpoint = discoverWPRESTEndpoint(url);
+                    DiscoveryResultPayload payload = getCachedResult(url);
+                    if (payload == null) {
+                        String wpRestEndpoint = "";
+                        if (BuildConfig.ENABLE_WPAPI) {
+                            wpRestEndpoint = discoverWPRESTEndpoint(url);
+                        }
+                        // TODO: Eventually make the XML-RPC discovery only run if WP-API discovery fails
+                        String xmlRpcEndpoint = verifyOrDiscoverXMLRPCEndpoint(url);
+                        payload = new DiscoveryResultPayload(xmlRpcEndpoint, wpRestEndpoint);
+                        mDiscoveryCache.put(getCacheKey(url), xmlRpcEndpoint, wpRestEndpoint);
                     }
-                    // TODO: Eventually make the XML-RPC discovery only run if WP-API discovery fails
-                    String xmlRpcEndpoint = verifyOrDiscoverXMLRPCEndpoint(url);
-                    DiscoveryResultPayload payload = new DiscoveryResultPayload(xmlRpcEndpoint, wpRestEndpoint);
                     mDispatcher.dispatch(AuthenticationActionBuilder.newDiscoveryResultAction(payload));
                 } catch (DiscoveryException e) {
                     // TODO: Handle tracking of XMLRPCDiscoveryException
@@ -94,7 +123,47 @@ public class SelfHostedEndpointFinder {
                     mDispatcher.dispatch(AuthenticationActionBuilder.newDiscoveryResultAction(payload));
                 }
             }
-        }).start();
+        });
+    }
+
+    /**
+     * @return the endpoints found the last time the site was discovered, if they still work, or null
+     */
+    private DiscoveryResultPayload getCachedResult(String siteUrl) throws DiscoveryException {
+        if (TextUtils.isEmpty(siteUrl)) {
+            return null;
+        }
+        String cacheKey = getCacheKey(siteUrl);
+        String xmlRpcEndpoint = mDiscoveryCache.getXMLRPCEndpoint(cacheKey);
+        if (xmlRpcEndpoint == null) {
+            return null;
+        }
+
+        // The site may have moved since, check the endpoint with a single call instead of discovering it again
+        AppLog.i(T.NUX, "Verifying the XML-RPC endpoint found before for " + siteUrl + ": " + xmlRpcEndpoint);
+        try {
+            if (checkXMLRPCEndpointValidity(xmlRpcEndpoint)) {
+                return new DiscoveryResultPayload(xmlRpcEndpoint, mDiscoveryCache.getWPAPIEndpoint(cacheKey));
+            }
+        } catch (DiscoveryException e) {
+            // The endpoint is still right, but the user has to do something about these errors
+            if (e.discoveryError == DiscoveryError.ERRONEOUS_SSL_CERTIFICATE
+                || e.discoveryError == DiscoveryError.HTTP_AUTH_REQUIRED) {
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            AppLog.e(T.NUX, "Couldn't verify the XML-RPC endpoint found before", e);
+        }
+        AppLog.w(T.NUX, "The XML-RPC endpoint found before doesn't work anymore, discovering it again");
+        mDiscoveryCache.remove(cacheKey);
+        return null;
+    }
+
+    /**
+     * The same site is cached once, whichever scheme or known path (xmlrpc.php, wp-admin...) was entered.
+     */
+    private String getCacheKey(String siteUrl) throws DiscoveryException {
+        return UrlUtils.removeScheme(sanitizeSiteUrl(siteUrl, false)).toLowerCase(Locale.US);
     }
 
     private String verifyOrDiscoverXMLRPCEndpoint(final String siteUrl) throws DiscoveryException {
@@ -106,12 +175,25 @@ public class SelfHostedEndpointFinder {
             throw new DiscoveryException(DiscoveryError.WORDPRESS_COM_SITE, siteUrl);
         }
 
-        String xmlrpcUrl = verifyXMLRPCUrl(siteUrl);
+        List<Future<String>> verifyProbes = startVerifyProbes(siteUrl);
+        // Start the RSD discovery as well, it only runs once the verification probes leave room for it, and is
+        // canceled if one of them succeeds
+        List<Future<String>> discoveryProbes = startDiscoveryProbes(siteUrl);
+
+        String xmlrpcUrl;
+        try {
+            xmlrpcUrl = getFirstResult(verifyProbes);
+        } catch (DiscoveryException e) {
+            cancel(discoveryProbes);
+            throw e;
+        }
 
         if (xmlrpcUrl == null) {
             AppLog.w(T.NUX, "The XML-RPC endpoint was not found by using our 'smart' cleaning approach. "
                             + "Time to start the Endpoint discovery process");
-            xmlrpcUrl = discoverXMLRPCEndpoint(siteUrl);
+            xmlrpcUrl = discoverXMLRPCEndpoint(discoveryProbes);
+        } else {
+            cancel(discoveryProbes);
         }
 
         // Validate the XML-RPC URL we've found before. This check prevents a crash that can occur
@@ -153,39 +235,108 @@ public class SelfHostedEndpointFinder {
         return urlsToTry;
     }
 
-    private String verifyXMLRPCUrl(@NonNull final String siteUrl) throws DiscoveryException {
+    /**
+     * Starts calling system.listMethods on the URLs which could be the XML-RPC endpoint, each probe returns the URL
+     * if it's verified to be working, or null.
+     */
+    private List<Future<String>> startVerifyProbes(@NonNull final String siteUrl) throws DiscoveryException {
         // Ordered set of Strings that contains the URLs we want to try
         final LinkedHashSet<String> urlsToTry = getOrderedVerifyUrlsToTry(siteUrl);
 
         AppLog.i(T.NUX, "Calling system.listMethods on the following URLs: " + urlsToTry);
-        for (String url : urlsToTry) {
-            try {
-                if (checkXMLRPCEndpointValidity(url)) {
-                    // Endpoint found and works fine.
-                    return url;
+        List<Future<String>> probes = new ArrayList<>();
+        for (final String url : urlsToTry) {
+            probes.add(mProbeExecutor.submit(new Callable<String>() {
+                @Override
+                public String call() throws DiscoveryException {
+                    try {
+                        if (checkXMLRPCEndpointValidity(url)) {
+                            // Endpoint found and works fine.
+                            return url;
+                        }
+                    } catch (DiscoveryException e) {
+                        // Stop execution for errors requiring user interaction
+                        if (e.discoveryError == DiscoveryError.ERRONEOUS_SSL_CERTIFICATE
+                            || e.discoveryError == DiscoveryError.HTTP_AUTH_REQUIRED
+                            || e.discoveryError == DiscoveryError.MISSING_XMLRPC_METHOD
+                            || e.discoveryError == DiscoveryError.XMLRPC_BLOCKED) {
+                            throw e;
+                        }
+                        // Otherwise. swallow the error since we are just verifying various URLs
+                    } catch (RuntimeException re) {
+                        // Depending how corrupt the user entered URL is, it can generate several kinds of runtime
+                        // exceptions, ignore them
+                    }
+                    return null;
                 }
-            } catch (DiscoveryException e) {
-                // Stop execution for errors requiring user interaction
-                if (e.discoveryError == DiscoveryError.ERRONEOUS_SSL_CERTIFICATE
-                    || e.discoveryError == DiscoveryError.HTTP_AUTH_REQUIRED
-                    || e.discoveryError == DiscoveryError.MISSING_XMLRPC_METHOD
-                    || e.discoveryError == DiscoveryError.XMLRPC_BLOCKED) {
-                    throw e;
+            }));
+        }
+        return probes;
+    }
+
+    /**
+     * Waits for the probes in order, as if they had been run one after the other: returns the result of the first
+     * probe which found something, or throws the error of the first probe which failed, unless an earlier probe found
+     * something. Since the probes run concurrently, this only waits for the slowest of the probes up to that one.
+     * The other probes are canceled.
+     *
+     * @return the first non null result, or null if no probe found anything
+     */
+    private String getFirstResult(List<Future<String>> probes) throws DiscoveryException {
+        try {
+            for (Future<String> probe : probes) {
+                try {
+                    String result = probe.get();
+                    if (result != null) {
+                        return result;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof DiscoveryException) {
+                        throw (DiscoveryException) e.getCause();
+                    }
+                    AppLog.e(T.NUX, "Discovery probe failed", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
                 }
-                // Otherwise. swallow the error since we are just verifying various URLs
-            } catch (RuntimeException re) {
-                // Depending how corrupt the user entered URL is, it can generate several kinds of runtime exceptions,
-                // ignore them
             }
+            return null;
+        } finally {
+            cancel(probes);
+        }
+    }
+
+    private static void cancel(List<Future<String>> probes) {
+        for (Future<String> probe : probes) {
+            // Interrupting the probe cancels its network request
+            probe.cancel(true);
         }
-        // Input url was not verified to be working
-        return null;
     }
 
     // Attempts to retrieve the XML-RPC url for a self-hosted site.
     // See diagrams here https://github.com/wordpress-mobile/WordPress-Android/issues/3805 for details about the
     // whole process.
-    private String discoverXMLRPCEndpoint(String siteUrl) throws DiscoveryException {
+    private String discoverXMLRPCEndpoint(List<Future<String>> discoveryProbes) throws DiscoveryException {
+        String xmlrpcUrl = getFirstResult(discoveryProbes);
+        if (xmlrpcUrl != null) {
+            AppLog.i(AppLog.T.NUX, "Found the XML-RPC endpoint in the HTML document");
+        }
+
+        if (URLUtil.isValidUrl(xmlrpcUrl)) {
+            if (checkXMLRPCEndpointValidity(xmlrpcUrl)) {
+                // Endpoint found and works fine.
+                return xmlrpcUrl;
+            }
+        }
+
+        throw new DiscoveryException(DiscoveryError.NO_SITE_ERROR, xmlrpcUrl);
+    }
+
+    /**
+     * Starts looking for the XML-RPC endpoint in the RSD document, or the pingback and apiLink tags, of the HTML
+     * pages of the site. Each probe returns the XML-RPC URL found in its page, or null.
+     */
+    private List<Future<String>> startDiscoveryProbes(String siteUrl) throws DiscoveryException {
         // Ordered set of Strings that contains the URLs we want to try
         final Set<String> urlsToTry = new LinkedHashSet<>();
 
@@ -203,61 +354,61 @@ public class SelfHostedEndpointFinder {
 
         AppLog.i(AppLog.T.NUX, "Running RSD discovery process on the following URLs: " + urlsToTry);
 
-        String xmlrpcUrl = null;
-        for (String currentURL : urlsToTry) {
+        List<Future<String>> probes = new ArrayList<>();
+        for (final String currentURL : urlsToTry) {
             if (!URLUtil.isValidUrl(currentURL)) {
                 continue;
             }
-            // Download the HTML content
-            AppLog.i(AppLog.T.NUX, "Downloading the HTML content at the following URL: " + currentURL);
-            String responseHTML = mDiscoveryXMLRPCClient.getResponse(currentURL);
-            if (TextUtils.isEmpty(responseHTML)) {
-                AppLog.w(AppLog.T.NUX, "Content downloaded but it's empty or null. Skipping this URL");
-                continue;
-            }
-
-            // Try to find the RSD tag with a regex
-            String rsdUrl = getRSDMetaTagHrefRegEx(responseHTML);
-            rsdUrl = UrlUtils.addUrlSchemeIfNeeded(rsdUrl, false);
-
-            // If the RSD URL is empty here, try to see if the pingback or Apilink are in the doc, as the user
-            // could have inserted a direct link to the XML-RPC endpoint
-            if (rsdUrl == null) {
-                AppLog.i(AppLog.T.NUX, "Can't find the RSD endpoint in the HTML document. Try to check the "
-                                       + "pingback tag, and the apiLink tag.");
-                xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCPingback(responseHTML), false);
-                if (xmlrpcUrl == null) {
-                    xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCApiLink(responseHTML), false);
+            probes.add(mProbeExecutor.submit(new Callable<String>() {
+                @Override
+                public String call() throws DiscoveryException {
+                    return findXMLRPCEndpointInPage(currentURL);
                 }
-            } else {
-                AppLog.i(AppLog.T.NUX, "RSD endpoint found at the following address: " + rsdUrl);
-                AppLog.i(AppLog.T.NUX, "Downloading the RSD document...");
-                String rsdEndpointDocument = mDiscoveryXMLRPCClient.getResponse(rsdUrl);
-                if (TextUtils.isEmpty(rsdEndpointDocument)) {
-                    AppLog.w(AppLog.T.NUX, "Content downloaded but it's empty or null. Skipping this RSD document"
-                                           + " URL.");
-                    continue;
-                }
-                AppLog.i(AppLog.T.NUX, "Extracting the XML-RPC Endpoint address from the RSD document");
-                xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCApiLink(rsdEndpointDocument),
-                        false);
-            }
-            if (xmlrpcUrl != null) {
-                AppLog.i(AppLog.T.NUX, "Found the XML-RPC endpoint in the HTML document");
-                break;
-            } else {
-                AppLog.i(AppLog.T.NUX, "XML-RPC endpoint not found");
-            }
+            }));
         }
+        return probes;
+    }
 
-        if (URLUtil.isValidUrl(xmlrpcUrl)) {
-            if (checkXMLRPCEndpointValidity(xmlrpcUrl)) {
-                // Endpoint found and works fine.
-                return xmlrpcUrl;
-            }
+    private String findXMLRPCEndpointInPage(String currentURL) throws DiscoveryException {
+        // Download the HTML content
+        AppLog.i(AppLog.T.NUX, "Downloading the HTML content at the following URL: " + currentURL);
+        String responseHTML = mDiscoveryXMLRPCClient.getResponse(currentURL);
+        if (TextUtils.isEmpty(responseHTML)) {
+            AppLog.w(AppLog.T.NUX, "Content downloaded but it's empty or null. Skipping this URL");
+            return null;
         }
 
-        throw new DiscoveryException(DiscoveryError.NO_SITE_ERROR, xmlrpcUrl);
+        // Try to find the RSD tag with a regex
+        String rsdUrl = getRSDMetaTagHrefRegEx(responseHTML);
+        rsdUrl = UrlUtils.addUrlSchemeIfNeeded(rsdUrl, false);
+
+        String xmlrpcUrl;
+        // If the RSD URL is empty here, try to see if the pingback or Apilink are in the doc, as the user
+        // could have inserted a direct link to the XML-RPC endpoint
+        if (rsdUrl == null) {
+            AppLog.i(AppLog.T.NUX, "Can't find the RSD endpoint in the HTML document. Try to check the "
+                                   + "pingback tag, and the apiLink tag.");
+            xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCPingback(responseHTML), false);
+            if (xmlrpcUrl == null) {
+                xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCApiLink(responseHTML), false);
+            }
+        } else {
+            AppLog.i(AppLog.T.NUX, "RSD endpoint found at the following address: " + rsdUrl);
+            AppLog.i(AppLog.T.NUX, "Downloading the RSD document...");
+            String rsdEndpointDocument = mDiscoveryXMLRPCClient.getResponse(rsdUrl);
+            if (TextUtils.isEmpty(rsdEndpointDocument)) {
+                AppLog.w(AppLog.T.NUX, "Content downloaded but it's empty or null. Skipping this RSD document"
+                                       + " URL.");
+                return null;
+            }
+            AppLog.i(AppLog.T.NUX, "Extracting the XML-RPC Endpoint address from the RSD document");
+            xmlrpcUrl = UrlUtils.addUrlSchemeIfNeeded(DiscoveryUtils.getXMLRPCApiLink(rsdEndpointDocument),
+                    false);
+        }
+        if (xmlrpcUrl == null) {
+            AppLog.i(AppLog.T.NUX, "XML-RPC endpoint not found in " + currentURL);
+        }
+        return xmlrpcUrl;
     }
 
     /**
@@ -365,4 +516,18 @@ public class SelfHostedEndpointFinder {
         }
         return null;
     }
+
+    private static class DiscoveryThreadFactory implements ThreadFactory {
+        private final String mNamePrefix;
+        private final AtomicInteger mThreadCount = new AtomicInteger();
+
+        DiscoveryThreadFactory(String namePrefix) {
+            mNamePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(runnable, mNamePrefix + mThreadCount.incrementAndGet());
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package org.wordpress.android.fluxc.network.rest;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the list of JSON members a response class maps, to be sent as a projection parameter (e.g. {@code fields} on
+ * the WP.com REST API) so that the server leaves out the members the response class would drop anyway.
+ *
+ * The response class is the declaration of the mask: its serialized fields, including the ones it inherits, are the
+ * members of the mask. Nested objects are sent whole, only the members of the top-level object are listed.
+ */
+public final class FieldMask {
+    public static final String WPCOM_FIELDS_PARAM = "fields";
+
+    private static final Map<Class<?>, String> MASKS = new ConcurrentHashMap<>();
+
+    private FieldMask() {
+    }
+
+    /**
+     * @return the comma-separated JSON names of the serialized fields of the class, sorted so that the URLs of
+     * identical requests stay identical (e.g. for conditional requests and coalescing)
+     */
+    public static String of(Class<?> responseClass) {
+        String mask = MASKS.get(responseClass);
+        if (mask == null) {
+            StringBuilder builder = new StringBuilder();
+            for (String name : getJsonNames(responseClass)) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(name);
+            }
+            mask = builder.toString();
+            MASKS.put(responseClass, mask);
+        }
+        return mask;
+    }
+
+    static Set<String> getJsonNames(Class<?> responseClass) {
+        Set<String> names = new TreeSet<>();
+        for (Class<?> type = responseClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                // Same exclusions as Gson
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                SerializedName serializedName = field.getAnnotation(SerializedName.class);
+                if (serializedName == null) {
+                    names.add(field.getName());
+                } else {
+                    names.add(serializedName.value());
+                    Collections.addAll(names, serializedName.alternate());
+                }
+            }
+        }
+        return names;
+    }
+}
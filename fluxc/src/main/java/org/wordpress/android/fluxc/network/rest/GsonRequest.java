@@ -1,5 +1,7 @@
 package org.wordpress.android.fluxc.network.rest;
 
+import android.support.annotation.NonNull;
+
 import com.android.volley.AuthFailureError;
 import com.android.volley.NetworkResponse;
 import com.android.volley.ParseError;
@@ -8,20 +10,52 @@ import com.android.volley.Response.Listener;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 
+import org.wordpress.android.fluxc.generated.FluxCTypeAdapterFactory;
+import org.wordpress.android.fluxc.model.ResponseValidatorModel;
 import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.StreamingResponseRequest;
+import org.wordpress.android.fluxc.persistence.ResponseValidatorSqlUtils;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
-public abstract class GsonRequest<T> extends BaseRequest<T> {
+public abstract class GsonRequest<T> extends BaseRequest<T> implements StreamingResponseRequest {
     private static final String PROTOCOL_CHARSET = "utf-8";
     private static final String PROTOCOL_CONTENT_TYPE = String.format("application/json; charset=%s", PROTOCOL_CHARSET);
 
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    public interface OnNotModifiedListener {
+        void onNotModified();
+    }
+
+    /**
+     * Listener of a conditional request. A 304 Not Modified response goes to {@link #onNotModified()}, other
+     * responses come with their validators, which are to be saved with
+     * {@link ResponseValidatorSqlUtils#insertOrUpdateValidator} once the data of the response is stored: saving them
+     * earlier would let a later 304 vouch for data that was never stored.
+     */
+    public interface ConditionalResponseListener<T> extends OnNotModifiedListener {
+        void onResponse(T response, @NonNull ResponseValidatorModel validator);
+    }
+
+    // Gson instances are thread-safe, and cache the adapters they create for each type
+    private static final Gson SHARED_GSON = createGson();
+
     private final Gson mGson;
     private final Class<T> mClass;
     private final Type mType;
@@ -29,6 +63,14 @@ public abstract class GsonRequest<T> extends BaseRequest<T> {
     private final Map<String, String> mParams;
     private final Map<String, Object> mBody;
 
+    private boolean mStreamingResponse;
+    private T mStreamedResponse;
+    private JsonSyntaxException mStreamedResponseError;
+
+    private ConditionalResponseListener<T> mConditionalListener;
+    private boolean mNotModified;
+    private ResponseValidatorModel mResponseValidator;
+
     protected GsonRequest(int method, Map<String, String> params, Map<String, Object> body, String url, Class<T> clazz,
                        Type type, Listener<T> listener, BaseErrorListener errorListener) {
         super(method, url, errorListener);
@@ -40,14 +82,110 @@ public abstract class GsonRequest<T> extends BaseRequest<T> {
         mClass = clazz;
         mType = type;
         mListener = listener;
-        mGson = setupGsonBuilder().create();
+        mGson = SHARED_GSON;
         mParams = params;
         mBody = body;
     }
 
+    /**
+     * Parses the response with Gson directly from the network stream, instead of buffering it in a byte array and a
+     * String first. Meant for requests with large responses, such as lists.
+     */
+    public void enableStreamingResponse() {
+        mStreamingResponse = true;
+    }
+
+    /**
+     * Makes this GET request conditional: it's sent with the validators (ETag, Last-Modified) of the last response
+     * received for the same URL. Responses are delivered to the given listener instead of the response listener, and
+     * a 304 Not Modified response is delivered without parsing anything.
+     *
+     * Only enable this when the data of the last response is still stored locally, since a 304 has no body.
+     */
+    public void enableConditionalRequest(@NonNull ConditionalResponseListener<T> listener) {
+        mConditionalListener = listener;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        // Called on the network thread, right before the request is sent
+        if (mConditionalListener != null) {
+            ResponseValidatorModel validator = ResponseValidatorSqlUtils.getValidatorForUrl(getUrl());
+            if (validator != null) {
+                if (validator.getEtag() != null) {
+                    addHeader(HEADER_IF_NONE_MATCH, validator.getEtag());
+                }
+                if (validator.getLastModified() != null) {
+                    addHeader(HEADER_IF_MODIFIED_SINCE, validator.getLastModified());
+                }
+            }
+        }
+        return super.getHeaders();
+    }
+
+    @Override
+    public boolean isStreamingResponse() {
+        return mStreamingResponse;
+    }
+
+    protected boolean isConditionalRequest() {
+        return mConditionalListener != null;
+    }
+
+    @Override
+    public void parseResponseStream(@NonNull Reader reader) throws IOException {
+        mStreamedResponse = null;
+        mStreamedResponseError = null;
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+            if (mClass == null) {
+                mStreamedResponse = mGson.fromJson(jsonReader, mType);
+            } else {
+                mStreamedResponse = mGson.fromJson(jsonReader, mClass);
+            }
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e);
+        } catch (JsonSyntaxException e) {
+            // Gson reports the failures of the reader (e.g. a dropped connection, or a truncated body) as syntax
+            // errors, they are rethrown so that they are handled as network errors
+            if (e.getCause() instanceof IOException && !(e.getCause() instanceof MalformedJsonException)) {
+                throw (IOException) e.getCause();
+            }
+            mStreamedResponseError = e;
+        }
+    }
+
     @Override
     protected void deliverResponse(T response) {
-        mListener.onResponse(response);
+        if (mNotModified) {
+            mConditionalListener.onNotModified();
+        } else if (mConditionalListener != null) {
+            mConditionalListener.onResponse(response, mResponseValidator);
+        } else {
+            mListener.onResponse(response);
+        }
+        for (BaseRequest<T> request : takeCoalescedRequests()) {
+            GsonRequest<T> coalescedRequest = (GsonRequest<T>) request;
+            if (!coalescedRequest.isCanceled()) {
+                coalescedRequest.mNotModified = mNotModified;
+                coalescedRequest.mResponseValidator = mResponseValidator;
+                coalescedRequest.deliverResponse(response);
+            }
+        }
+    }
+
+    @Override
+    protected String getCoalescingKey() {
+        // Only GETs can be coalesced, their parameters are part of the URL
+        if (getMethod() != Method.GET) {
+            return null;
+        }
+        return getClass().getName() + " " + (mClass != null ? mClass.getName() : mType) + " " + getUrl() + " "
+               + new TreeMap<>(mHeaders) + (mConditionalListener != null ? " conditional" : "");
     }
 
     @Override
@@ -71,6 +209,29 @@ public abstract class GsonRequest<T> extends BaseRequest<T> {
 
     @Override
     protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        if (mConditionalListener != null) {
+            if (response.notModified) {
+                // Nothing to parse, the data stored from the last response is still valid
+                mNotModified = true;
+                return Response.success(null, null);
+            }
+            Response<T> result = parseResponse(response);
+            if (result.isSuccess()) {
+                mResponseValidator = getResponseValidator(response);
+            }
+            return result;
+        }
+        return parseResponse(response);
+    }
+
+    private Response<T> parseResponse(NetworkResponse response) {
+        if (mStreamingResponse) {
+            // The body was already parsed by parseResponseStream(), response.data is empty
+            if (mStreamedResponseError != null) {
+                return Response.error(new ParseError(mStreamedResponseError));
+            }
+            return Response.success(mStreamedResponse, HttpHeaderParser.parseCacheHeaders(response));
+        }
         try {
             String json = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
             T res;
@@ -87,12 +248,24 @@ public abstract class GsonRequest<T> extends BaseRequest<T> {
         }
     }
 
-    private GsonBuilder setupGsonBuilder() {
+    private ResponseValidatorModel getResponseValidator(NetworkResponse response) {
+        String etag = response.headers != null ? response.headers.get(HEADER_ETAG) : null;
+        String lastModified = response.headers != null ? response.headers.get(HEADER_LAST_MODIFIED) : null;
+        ResponseValidatorModel validator = new ResponseValidatorModel();
+        validator.setUrl(getUrl());
+        validator.setEtag(etag);
+        validator.setLastModified(lastModified);
+        return validator;
+    }
+
+    static Gson createGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.setLenient();
+        // Reflection-free adapters generated for @GenerateTypeAdapter response classes
+        gsonBuilder.registerTypeAdapterFactory(new FluxCTypeAdapterFactory());
         gsonBuilder.registerTypeHierarchyAdapter(JsonObjectOrFalse.class, new JsonObjectOrFalseDeserializer());
         gsonBuilder.registerTypeHierarchyAdapter(JsonObjectOrEmptyArray.class,
                 new JsonObjectOrEmptyArrayDeserializer());
-        return gsonBuilder;
+        return gsonBuilder.create();
     }
 }
@@ -15,11 +15,13 @@ import java.lang.reflect.Type;
  * MyServerResponse if the server response was [].
  */
 public class JsonObjectOrEmptyArrayDeserializer implements JsonDeserializer<JsonObjectOrEmptyArray> {
+    private static final Gson GSON = new Gson();
+
     @Override
     public JsonObjectOrEmptyArray deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
             throws JsonParseException {
         if (json.isJsonObject()) {
-            return new Gson().fromJson(json, typeOfT);
+            return GSON.fromJson(json, typeOfT);
         }
         return null;
     }
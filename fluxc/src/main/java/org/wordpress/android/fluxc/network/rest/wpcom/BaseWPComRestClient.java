@@ -7,8 +7,10 @@ import com.android.volley.RequestQueue;
 
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.AuthenticationActionBuilder;
+import org.wordpress.android.fluxc.network.BaseRequest;
 import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
 import org.wordpress.android.fluxc.network.BaseRequest.OnParseErrorListener;
+import org.wordpress.android.fluxc.network.RequestCoalescer;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.rest.wpcom.account.AccountSocialRequest;
 import org.wordpress.android.fluxc.network.rest.wpcom.auth.AccessToken;
@@ -19,6 +21,7 @@ import org.wordpress.android.util.LanguageUtils;
 public abstract class BaseWPComRestClient {
     private AccessToken mAccessToken;
     private final RequestQueue mRequestQueue;
+    private final RequestCoalescer mRequestCoalescer;
 
     protected final Context mAppContext;
     protected final Dispatcher mDispatcher;
@@ -27,9 +30,17 @@ public abstract class BaseWPComRestClient {
     private OnAuthFailedListener mOnAuthFailedListener;
     private OnParseErrorListener mOnParseErrorListener;
 
+    private WPComBatcher mBatcher;
+
     public BaseWPComRestClient(Context appContext, Dispatcher dispatcher, RequestQueue requestQueue,
                                AccessToken accessToken, UserAgent userAgent) {
         mRequestQueue = requestQueue;
+        mRequestCoalescer = new RequestCoalescer(new RequestCoalescer.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                sendOrBatch((WPComGsonRequest) request);
+            }
+        });
         mDispatcher = dispatcher;
         mAccessToken = accessToken;
         mUserAgent = userAgent;
@@ -48,6 +59,15 @@ public abstract class BaseWPComRestClient {
         };
     }
 
+    /**
+     * Enables batching: GET requests sent within the batching window of the given batcher, by this client or any
+     * other client sharing the batcher, are sent together through the WP.com {@code /batch} endpoint. Each request
+     * still gets its own response or error. Without a batcher (the default), every request is sent on its own.
+     */
+    public void setBatcher(WPComBatcher batcher) {
+        mBatcher = batcher;
+    }
+
     protected Request add(WPComGsonRequest request) {
         // Add "locale=xx_XX" query parameter to all request by default
         return add(request, true);
@@ -58,7 +78,7 @@ public abstract class BaseWPComRestClient {
             request.addQueryParameter("locale", LanguageUtils.getPatchedCurrentDeviceLanguage(mAppContext));
         }
         // TODO: If !mAccountToken.exists() then trigger the mOnAuthFailedListener
-        return mRequestQueue.add(setRequestAuthParams(request, true));
+        return addOrCoalesce(setRequestAuthParams(request, true));
     }
 
     protected Request addUnauthedRequest(AccountSocialRequest request) {
@@ -84,13 +104,28 @@ public abstract class BaseWPComRestClient {
         if (addLocaleParameter) {
             request.addQueryParameter("locale", LanguageUtils.getPatchedCurrentDeviceLanguage(mAppContext));
         }
-        return mRequestQueue.add(setRequestAuthParams(request, false));
+        return addOrCoalesce(setRequestAuthParams(request, false));
     }
 
     protected AccessToken getAccessToken() {
         return mAccessToken;
     }
 
+    private Request addOrCoalesce(WPComGsonRequest request) {
+        if (mRequestCoalescer.coalesce(request)) {
+            return request;
+        }
+        return sendOrBatch(request);
+    }
+
+    private Request sendOrBatch(WPComGsonRequest request) {
+        WPComBatcher batcher = mBatcher;
+        if (batcher != null && batcher.enqueue(request)) {
+            return request;
+        }
+        return mRequestQueue.add(request);
+    }
+
     private WPComGsonRequest setRequestAuthParams(WPComGsonRequest request, boolean shouldAuth) {
         request.setOnAuthFailedListener(mOnAuthFailedListener);
         request.setOnParseErrorListener(mOnParseErrorListener);
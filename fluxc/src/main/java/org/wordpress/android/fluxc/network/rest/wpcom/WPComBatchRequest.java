@@ -0,0 +1,142 @@
+package org.wordpress.android.fluxc.network.rest.wpcom;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends several GET {@link WPComGsonRequest}s in a single request to the WP.com {@code /batch} endpoint, and delivers
+ * each response to the request it belongs to, parsed by that request as if it had been sent on its own.
+ *
+ * The batch response holds the response of each URL, or its error. Requests which got an error, or no response, are
+ * sent again on their own, so that their error goes through the usual WP.com error handling (e.g. auth errors).
+ * Errors of the batch request itself are delivered to the error listener.
+ */
+class WPComBatchRequest extends BaseRequest<List<Object>> {
+    private static final String URLS_PARAMETER = "urls[]";
+    private static final String ERROR_MEMBER = "error";
+    private static final String MESSAGE_MEMBER = "message";
+    private static final Map<String, String> RESPONSE_HEADERS =
+            Collections.singletonMap("Content-Type", "application/json; charset=utf-8");
+
+    private final List<WPComGsonRequest<?>> mRequests;
+    private final List<String> mPaths;
+    private final WPComBatcher.RequestSender mRequestSender;
+
+    /**
+     * @param paths the path of each request, relative to the API URL the batch URL is part of
+     * @param requestSender sends the requests which didn't get a response in the batch
+     */
+    WPComBatchRequest(String url, List<WPComGsonRequest<?>> requests, List<String> paths,
+                      WPComBatcher.RequestSender requestSender, BaseErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        mRequests = Collections.unmodifiableList(new ArrayList<>(requests));
+        mPaths = Collections.unmodifiableList(new ArrayList<>(paths));
+        mRequestSender = requestSender;
+        for (String path : mPaths) {
+            addQueryParameter(URLS_PARAMETER, path);
+        }
+        // The requests of a batch share the same headers (user agent, credentials)
+        mHeaders.putAll(requests.get(0).getHeaders());
+        setOnParseErrorListener(new OnParseErrorListener() {
+            @Override
+            public void onParseError(OnUnexpectedError event) {
+                // The requests are sent again, they report their own parse errors
+                AppLog.w(T.API, "Can't parse the batch response, " + event.exception);
+            }
+        });
+    }
+
+    List<WPComGsonRequest<?>> getRequests() {
+        return mRequests;
+    }
+
+    @Override
+    protected Response<List<Object>> parseNetworkResponse(NetworkResponse response) {
+        JsonObject responses;
+        try {
+            String json = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
+            JsonElement root = new JsonParser().parse(json);
+            if (!root.isJsonObject()) {
+                return Response.error(new ParseError(new JsonParseException("Batch response is not an object")));
+            }
+            responses = root.getAsJsonObject();
+        } catch (UnsupportedEncodingException | JsonParseException e) {
+            return Response.error(new ParseError(e));
+        }
+
+        // Parse the response of each request here, on the network thread, like it would be if it was sent alone.
+        // A null result means that the request has to be sent again.
+        List<Object> results = new ArrayList<>(mRequests.size());
+        for (int i = 0; i < mRequests.size(); i++) {
+            JsonElement result = responses.get(mPaths.get(i));
+            if (result == null || isError(result)) {
+                results.add(null);
+                continue;
+            }
+            byte[] data = result.toString().getBytes(Charset.forName("UTF-8"));
+            results.add(mRequests.get(i).parseBatchedResponse(
+                    new NetworkResponse(200, data, new HashMap<>(RESPONSE_HEADERS), false)));
+        }
+        return Response.success(results, null);
+    }
+
+    @Override
+    protected void deliverResponse(List<Object> results) {
+        List<WPComGsonRequest<?>> failedRequests = new ArrayList<>();
+        for (int i = 0; i < mRequests.size(); i++) {
+            WPComGsonRequest<?> request = mRequests.get(i);
+            if (request.isCanceled()) {
+                continue;
+            }
+            Response<?> result = (Response<?>) results.get(i);
+            if (result == null) {
+                failedRequests.add(request);
+            } else if (result.isSuccess()) {
+                request.deliverBatchedResponse(result.result);
+            } else {
+                request.deliverError(result.error);
+            }
+        }
+        if (!failedRequests.isEmpty()) {
+            AppLog.i(T.API, "Sending " + failedRequests.size() + " requests which failed in a batch on their own");
+            for (WPComGsonRequest<?> request : failedRequests) {
+                mRequestSender.send(request);
+            }
+        }
+    }
+
+    @Override
+    public BaseNetworkError deliverBaseNetworkError(@NonNull BaseNetworkError error) {
+        // The requests are sent again on their own, and handle their own errors
+        return error;
+    }
+
+    private static boolean isError(JsonElement result) {
+        if (!result.isJsonObject()) {
+            return false;
+        }
+        JsonObject object = result.getAsJsonObject();
+        return object.has(ERROR_MEMBER) && object.get(ERROR_MEMBER).isJsonPrimitive() && object.has(MESSAGE_MEMBER);
+    }
+}
@@ -0,0 +1,174 @@
+package org.wordpress.android.fluxc.network.rest.wpcom;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.RequestQueue;
+
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Groups the GET {@link WPComGsonRequest}s sent within a short window into a single request to the WP.com
+ * {@code /batch} endpoint, whichever client they come from. The window starts with the first request, a request sent
+ * alone is sent as is.
+ *
+ * Requests are grouped by REST API version and credentials. Only the v1.x REST API offers {@code /batch}, requests to
+ * other APIs (e.g. wpcom/v2) are always sent on their own.
+ *
+ * If the batch request fails, its requests are sent again one by one. When it fails because the API doesn't offer
+ * {@code /batch}, the following requests to that API are sent one by one as well.
+ */
+public class WPComBatcher {
+    interface RequestSender {
+        void send(BaseRequest<?> request);
+    }
+
+    public static final long DEFAULT_BATCHING_WINDOW_MS = 20;
+
+    static final int MAX_BATCH_SIZE = 10;
+    static final String BATCH_PATH = "/batch/";
+
+    // Base URL of the REST API version, and path of the request relative to it
+    private static final Pattern REST_URL = Pattern.compile("^(.*/rest/v1(?:\\.\\d+)?)(/.*)$");
+
+    private final RequestSender mRequestSender;
+    private final long mWindowMs;
+    private final Map<String, List<WPComGsonRequest<?>>> mPendingRequests = new HashMap<>();
+    private final Set<String> mUnsupportedApis = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private ScheduledExecutorService mScheduler;
+
+    public WPComBatcher(final RequestQueue requestQueue, long windowMs) {
+        this(new RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                requestQueue.add(request);
+            }
+        }, windowMs);
+    }
+
+    WPComBatcher(RequestSender requestSender, long windowMs) {
+        mRequestSender = requestSender;
+        mWindowMs = windowMs;
+    }
+
+    /**
+     * @param request a request with its auth params already set
+     * @return true if the request will be sent as part of a batch, false if it must be sent on its own
+     */
+    synchronized boolean enqueue(WPComGsonRequest<?> request) {
+        if (!request.isBatchable()) {
+            return false;
+        }
+        Matcher matcher = REST_URL.matcher(request.getUrl());
+        if (!matcher.matches() || mUnsupportedApis.contains(matcher.group(1))) {
+            return false;
+        }
+
+        // Requests of a batch are sent with the same headers
+        final String key = matcher.group(1) + " " + new TreeMap<>(request.getHeaders());
+        List<WPComGsonRequest<?>> pendingRequests = mPendingRequests.get(key);
+        if (pendingRequests == null) {
+            pendingRequests = new ArrayList<>();
+            mPendingRequests.put(key, pendingRequests);
+            scheduleFlush(key, pendingRequests);
+        }
+        pendingRequests.add(request);
+        if (pendingRequests.size() >= MAX_BATCH_SIZE) {
+            flush(key, pendingRequests);
+        }
+        return true;
+    }
+
+    private synchronized void flush(String key, List<WPComGsonRequest<?>> pendingRequests) {
+        if (mPendingRequests.get(key) != pendingRequests) {
+            // Already sent because the batch was full
+            return;
+        }
+        mPendingRequests.remove(key);
+
+        final List<WPComGsonRequest<?>> requests = new ArrayList<>(pendingRequests.size());
+        for (WPComGsonRequest<?> request : pendingRequests) {
+            if (!request.isCanceled()) {
+                requests.add(request);
+            }
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        final String apiUrl = getApiUrl(requests.get(0));
+        if (requests.size() == 1 || mUnsupportedApis.contains(apiUrl)) {
+            sendOneByOne(requests);
+            return;
+        }
+
+        List<String> paths = new ArrayList<>(requests.size());
+        for (WPComGsonRequest<?> request : requests) {
+            paths.add(request.getUrl().substring(apiUrl.length()));
+        }
+        mRequestSender.send(new WPComBatchRequest(apiUrl + BATCH_PATH, requests, paths, mRequestSender,
+                new BaseErrorListener() {
+                    @Override
+                    public void onErrorResponse(@NonNull BaseNetworkError error) {
+                        if (error.hasVolleyError() && error.volleyError.networkResponse != null
+                                && (error.volleyError.networkResponse.statusCode == 400
+                                    || error.volleyError.networkResponse.statusCode == 404)) {
+                            AppLog.w(T.API, "Batch requests are not supported by " + apiUrl);
+                            mUnsupportedApis.add(apiUrl);
+                        }
+                        // The requests get their own response or error when they are sent on their own
+                        AppLog.w(T.API, "Batch request failed, sending its requests one by one");
+                        sendOneByOne(requests);
+                    }
+                }));
+    }
+
+    private void sendOneByOne(List<WPComGsonRequest<?>> requests) {
+        for (WPComGsonRequest<?> request : requests) {
+            if (!request.isCanceled()) {
+                mRequestSender.send(request);
+            }
+        }
+    }
+
+    private static String getApiUrl(WPComGsonRequest<?> request) {
+        Matcher matcher = REST_URL.matcher(request.getUrl());
+        return matcher.matches() ? matcher.group(1) : "";
+    }
+
+    private void scheduleFlush(final String key, final List<WPComGsonRequest<?>> pendingRequests) {
+        if (mScheduler == null) {
+            mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fluxc-wpcom-batcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(key, pendingRequests);
+            }
+        }, mWindowMs, TimeUnit.MILLISECONDS);
+    }
+}
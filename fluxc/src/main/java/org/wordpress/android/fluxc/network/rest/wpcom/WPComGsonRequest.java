@@ -3,6 +3,8 @@ package org.wordpress.android.fluxc.network.rest.wpcom;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
 import com.android.volley.Response.Listener;
 import com.android.volley.toolbox.HttpHeaderParser;
 
@@ -85,6 +87,25 @@ public class WPComGsonRequest<T> extends GsonRequest<T> {
             mHeaders.put(REST_AUTHORIZATION_HEADER, String.format(REST_AUTHORIZATION_FORMAT, token));
         }
     }
+
+    /**
+     * @return true if this request can be sent as part of a {@link WPComBatchRequest}
+     */
+    boolean isBatchable() {
+        // Subclasses may handle their response differently, conditional and streamed responses can't be batched
+        return getClass() == WPComGsonRequest.class && getMethod() == Method.GET && !isStreamingResponse()
+               && !isConditionalRequest();
+    }
+
+    Response<T> parseBatchedResponse(NetworkResponse response) {
+        return parseNetworkResponse(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    void deliverBatchedResponse(Object response) {
+        deliverResponse((T) response);
+    }
+
     @Override
     public BaseNetworkError deliverBaseNetworkError(@NonNull BaseNetworkError error) {
         WPComGsonNetworkError returnedError = new WPComGsonNetworkError(error);
@@ -27,7 +27,10 @@ import org.wordpress.android.fluxc.network.BaseRequest;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
 import org.wordpress.android.fluxc.network.BaseUploadRequestBody.ProgressListener;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler.Upload;
 import org.wordpress.android.fluxc.network.UserAgent;
+import org.wordpress.android.fluxc.network.rest.FieldMask;
 import org.wordpress.android.fluxc.network.rest.wpcom.BaseWPComRestClient;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
 import org.wordpress.android.fluxc.network.rest.wpcom.auth.AccessToken;
@@ -83,6 +86,7 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
     // this will hold which media is being uploaded by which call, in order to be able
     // to monitor multiple uploads
     private ConcurrentHashMap<Integer, Call> mCurrentUploadCalls = new ConcurrentHashMap<>();
+    private MediaUploadScheduler mUploadScheduler;
 
     public MediaRestClient(Context appContext, Dispatcher dispatcher, RequestQueue requestQueue,
                            OkHttpClient okHttpClient, AccessToken accessToken, UserAgent userAgent) {
@@ -97,6 +101,13 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
         }
     }
 
+    /**
+     * Sets the scheduler deciding when uploads start. Without a scheduler, uploads start right away.
+     */
+    public void setUploadScheduler(MediaUploadScheduler uploadScheduler) {
+        mUploadScheduler = uploadScheduler;
+    }
+
     public void pushMedia(final SiteModel site, final MediaModel media) {
         if (media == null) {
             // caller may be expecting a notification
@@ -182,18 +193,14 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
 
         String authHeader = String.format(WPComGsonRequest.REST_AUTHORIZATION_FORMAT, getAccessToken().get());
 
-        Request request = new Request.Builder()
+        final Request request = new Request.Builder()
                 .addHeader(WPComGsonRequest.REST_AUTHORIZATION_HEADER, authHeader)
                 .addHeader("User-Agent", mUserAgent.toString())
                 .url(url)
                 .post(body)
                 .build();
 
-        Call call = mOkHttpClient.newCall(request);
-        mCurrentUploadCalls.put(media.getId(), call);
-
-        AppLog.d(T.MEDIA, "starting upload for: " + media.getId());
-        call.enqueue(new Callback() {
+        final Callback callback = new Callback() {
             @Override
             public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
                 if (response.isSuccessful()) {
@@ -232,18 +239,48 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 AppLog.w(T.MEDIA, "media upload failed: " + e);
-                if (!mCurrentUploadCalls.containsKey(media.getId())) {
+                if (mCurrentUploadCalls.get(media.getId()) != call) {
                     // This call has already been removed from the in-progress list - probably because it was cancelled
-                    // In that case this has already been handled and there's nothing to do
+                    // or paused. In that case this has already been handled and there's nothing to do
                     return;
                 }
 
                 MediaError error = MediaError.fromIOException(e);
                 notifyMediaUploaded(media, error);
             }
+        };
+
+        if (mUploadScheduler == null) {
+            startUpload(media, request, callback);
+            return;
+        }
+        AppLog.d(T.MEDIA, "scheduling upload for: " + media.getId());
+        mUploadScheduler.schedule(media, new Upload() {
+            @Override
+            public void start() {
+                startUpload(media, request, callback);
+            }
+
+            @Override
+            public void pause() {
+                // Removing the call first tells its callback that the failure isn't an error
+                Call call = mCurrentUploadCalls.remove(media.getId());
+                if (call != null) {
+                    AppLog.d(T.MEDIA, "pausing upload for: " + media.getId());
+                    call.cancel();
+                }
+            }
         });
     }
 
+    private void startUpload(MediaModel media, Request request, Callback callback) {
+        Call call = mOkHttpClient.newCall(request);
+        mCurrentUploadCalls.put(media.getId(), call);
+
+        AppLog.d(T.MEDIA, "starting upload for: " + media.getId());
+        call.enqueue(callback);
+    }
+
     /**
      * Gets a list of media items given the offset on a WP.com site.
      *
@@ -253,6 +290,7 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
     public void fetchMediaList(final SiteModel site, final int number, final int offset, final String mimeType) {
         final Map<String, String> params = new HashMap<>();
         params.put("number", String.valueOf(number));
+        params.put(FieldMask.WPCOM_FIELDS_PARAM, FieldMask.of(MediaWPComRestResponse.class));
         if (offset > 0) {
             params.put("offset", String.valueOf(offset));
         }
@@ -260,7 +298,8 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
             params.put("mime_type", mimeType);
         }
         String url = WPCOMREST.sites.site(site.getSiteId()).media.getUrlV1_1();
-        add(WPComGsonRequest.buildGetRequest(url, params, MultipleMediaResponse.class,
+        final WPComGsonRequest<MultipleMediaResponse> request = WPComGsonRequest.buildGetRequest(url, params,
+                MultipleMediaResponse.class,
                 new Listener<MultipleMediaResponse>() {
                     @Override
                     public void onResponse(MultipleMediaResponse response) {
@@ -283,7 +322,9 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
                         notifyMediaListFetched(site, mediaError, mimeType);
                     }
                 }
-        ));
+        );
+        request.enableStreamingResponse();
+        add(request);
     }
 
     /**
@@ -371,6 +412,13 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
             return;
         }
 
+        // cancel queued upload if necessary
+        if (mUploadScheduler != null && mUploadScheduler.cancel(media.getId())) {
+            AppLog.d(T.MEDIA, "Canceled queued upload: " + media.getFileName());
+            notifyMediaUploadCanceled(media);
+            return;
+        }
+
         // cancel in-progress upload if necessary
         Call correspondingCall = mCurrentUploadCalls.get(media.getId());
         if (correspondingCall != null && correspondingCall.isExecuted() && !correspondingCall.isCanceled()) {
@@ -385,6 +433,9 @@ public class MediaRestClient extends BaseWPComRestClient implements ProgressList
 
     private void removeCallFromCurrentUploadsMap(int id) {
         mCurrentUploadCalls.remove(id);
+        if (mUploadScheduler != null) {
+            mUploadScheduler.onUploadFinished(id);
+        }
         AppLog.d(T.MEDIA, "mediaRestClient: removed id: " + id + " from current uploads, remaining: "
                 + mCurrentUploadCalls.size());
     }
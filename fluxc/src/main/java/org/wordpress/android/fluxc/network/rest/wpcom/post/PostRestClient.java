@@ -2,23 +2,28 @@ package org.wordpress.android.fluxc.network.rest.wpcom.post;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.android.volley.RequestQueue;
 import com.android.volley.Response.Listener;
 
 import org.wordpress.android.fluxc.Dispatcher;
+import org.wordpress.android.fluxc.action.PostAction;
 import org.wordpress.android.fluxc.generated.PostActionBuilder;
 import org.wordpress.android.fluxc.generated.UploadActionBuilder;
 import org.wordpress.android.fluxc.generated.endpoint.WPCOMREST;
 import org.wordpress.android.fluxc.model.PostModel;
 import org.wordpress.android.fluxc.model.PostsModel;
 import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.model.post.PostListItem;
 import org.wordpress.android.fluxc.model.post.PostLocation;
 import org.wordpress.android.fluxc.model.post.PostStatus;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.BaseRequest.OnCanceledListener;
 import org.wordpress.android.fluxc.network.UserAgent;
+import org.wordpress.android.fluxc.network.rest.FieldMask;
 import org.wordpress.android.fluxc.network.rest.wpcom.BaseWPComRestClient;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest.WPComGsonNetworkError;
@@ -26,14 +31,18 @@ import org.wordpress.android.fluxc.network.rest.wpcom.auth.AccessToken;
 import org.wordpress.android.fluxc.network.rest.wpcom.post.PostWPComRestResponse.PostsResponse;
 import org.wordpress.android.fluxc.network.rest.wpcom.taxonomy.TermWPComRestResponse;
 import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostListResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostsResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.PostError;
+import org.wordpress.android.fluxc.store.PostStore.PostErrorType;
 import org.wordpress.android.fluxc.store.PostStore.RemotePostPayload;
 import org.wordpress.android.fluxc.store.PostStore.SearchPostsResponsePayload;
+import org.wordpress.android.util.DateTimeUtils;
 import org.wordpress.android.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,12 +51,18 @@ import javax.inject.Singleton;
 
 @Singleton
 public class PostRestClient extends BaseWPComRestClient {
+    private static final String POST_LIST_ITEM_FIELDS = "ID,date,modified";
+
     public PostRestClient(Context appContext, Dispatcher dispatcher, RequestQueue requestQueue, AccessToken accessToken,
                           UserAgent userAgent) {
         super(appContext, dispatcher, requestQueue, accessToken, userAgent);
     }
 
     public void fetchPost(final PostModel post, final SiteModel site) {
+        fetchPost(post, site, PostAction.FETCH_POST);
+    }
+
+    public void fetchPost(final PostModel post, final SiteModel site, final PostAction origin) {
         String url = WPCOMREST.sites.site(site.getSiteId()).posts.post(post.getRemotePostId()).getUrlV1_1();
 
         Map<String, String> params = new HashMap<>();
@@ -59,12 +74,17 @@ public class PostRestClient extends BaseWPComRestClient {
                 new Listener<PostWPComRestResponse>() {
                     @Override
                     public void onResponse(PostWPComRestResponse response) {
-                        PostModel fetchedPost = postResponseToPostModel(response);
-                        fetchedPost.setId(post.getId());
-                        fetchedPost.setLocalSiteId(site.getId());
-
-                        FetchPostResponsePayload payload = new FetchPostResponsePayload(fetchedPost, site);
-                        payload.post = fetchedPost;
+                        FetchPostResponsePayload payload;
+                        if (response != null) {
+                            PostModel fetchedPost = postResponseToPostModel(response);
+                            fetchedPost.setId(post.getId());
+                            fetchedPost.setLocalSiteId(site.getId());
+                            payload = new FetchPostResponsePayload(fetchedPost, site);
+                        } else {
+                            payload = new FetchPostResponsePayload(post, site);
+                            payload.error = new PostError(PostErrorType.INVALID_RESPONSE);
+                        }
+                        payload.origin = origin;
 
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
                     }
@@ -75,21 +95,47 @@ public class PostRestClient extends BaseWPComRestClient {
                         // Possible non-generic errors: 404 unknown_post (invalid post ID)
                         FetchPostResponsePayload payload = new FetchPostResponsePayload(post, site);
                         payload.error = new PostError(((WPComGsonNetworkError) error).apiError, error.message);
+                        payload.origin = origin;
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
                     }
                 }
         );
+        // The fetch always reports back, e.g. to the post list sync waiting for it
+        request.setOnCanceledListener(new OnCanceledListener() {
+            @Override
+            public void onCanceled() {
+                FetchPostResponsePayload payload = new FetchPostResponsePayload(post, site);
+                payload.error = new PostError(PostErrorType.GENERIC_ERROR, "Request canceled");
+                payload.origin = origin;
+                mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
+            }
+        });
         add(request);
     }
 
     public void fetchPosts(final SiteModel site, final boolean getPages, final List<PostStatus> statusList,
                            final int offset) {
+        fetchPosts(site, getPages, statusList, offset, null);
+    }
+
+    /**
+     * @param modifiedAfter if not null, only the posts modified on the server after that date are fetched, most
+     *                      recently modified first
+     */
+    public void fetchPosts(final SiteModel site, final boolean getPages, final List<PostStatus> statusList,
+                           final int offset, @Nullable final String modifiedAfter) {
         String url = WPCOMREST.sites.site(site.getSiteId()).posts.getUrlV1_1();
 
         Map<String, String> params = new HashMap<>();
 
         params.put("context", "edit");
         params.put("number", String.valueOf(PostStore.NUM_POSTS_PER_FETCH));
+        params.put(FieldMask.WPCOM_FIELDS_PARAM, FieldMask.of(PostWPComRestResponse.class));
+
+        if (modifiedAfter != null) {
+            params.put("modified_after", modifiedAfter);
+            params.put("order_by", "modified");
+        }
 
         if (getPages) {
             params.put("type", "page");
@@ -120,6 +166,8 @@ public class PostRestClient extends BaseWPComRestClient {
 
                         FetchPostsResponsePayload payload = new FetchPostsResponsePayload(new PostsModel(postArray),
                                 site, getPages, offset > 0, canLoadMore);
+                        payload.offset = offset;
+                        payload.modifiedAfter = modifiedAfter;
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostsAction(payload));
                     }
                 },
@@ -129,10 +177,70 @@ public class PostRestClient extends BaseWPComRestClient {
                         // Possible non-generic errors: 404 unknown_post_type (invalid post type, shouldn't happen)
                         PostError postError = new PostError(((WPComGsonNetworkError) error).apiError, error.message);
                         FetchPostsResponsePayload payload = new FetchPostsResponsePayload(postError);
+                        payload.site = site;
+                        payload.isPages = getPages;
+                        payload.modifiedAfter = modifiedAfter;
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostsAction(payload));
                     }
                 }
         );
+        request.enableStreamingResponse();
+        add(request);
+    }
+
+    /**
+     * Fetches the ID and dates of the posts of the site, most recent first, to find the posts deleted or changed on
+     * the server without fetching their content.
+     */
+    public void fetchPostList(final SiteModel site, final boolean getPages, final List<PostStatus> statusList,
+                              final int offset) {
+        String url = WPCOMREST.sites.site(site.getSiteId()).posts.getUrlV1_1();
+
+        Map<String, String> params = new HashMap<>();
+
+        params.put("number", String.valueOf(PostStore.NUM_POST_LIST_ITEMS_PER_FETCH));
+        params.put(FieldMask.WPCOM_FIELDS_PARAM, POST_LIST_ITEM_FIELDS);
+
+        if (getPages) {
+            params.put("type", "page");
+        }
+
+        if (statusList.size() > 0) {
+            params.put("status", PostStatus.postStatusListToString(statusList));
+        }
+
+        if (offset > 0) {
+            params.put("offset", String.valueOf(offset));
+        }
+
+        final WPComGsonRequest<PostsResponse> request = WPComGsonRequest.buildGetRequest(url, params,
+                PostsResponse.class,
+                new Listener<PostsResponse>() {
+                    @Override
+                    public void onResponse(PostsResponse response) {
+                        List<PostListItem> items = new ArrayList<>();
+                        for (PostWPComRestResponse postResponse : response.posts) {
+                            items.add(new PostListItem(postResponse.ID, postResponse.date,
+                                    toUTCIso8601(postResponse.modified)));
+                        }
+
+                        boolean canLoadMore = items.size() == PostStore.NUM_POST_LIST_ITEMS_PER_FETCH;
+
+                        FetchPostListResponsePayload payload = new FetchPostListResponsePayload(items, site, getPages,
+                                offset, canLoadMore);
+                        mDispatcher.dispatch(PostActionBuilder.newFetchedPostListAction(payload));
+                    }
+                },
+                new BaseErrorListener() {
+                    @Override
+                    public void onErrorResponse(@NonNull BaseNetworkError error) {
+                        PostError postError = new PostError(((WPComGsonNetworkError) error).apiError, error.message);
+                        FetchPostListResponsePayload payload = new FetchPostListResponsePayload(site, getPages,
+                                postError);
+                        mDispatcher.dispatch(PostActionBuilder.newFetchedPostListAction(payload));
+                    }
+                }
+        );
         add(request);
     }
 
@@ -270,6 +378,7 @@ public class PostRestClient extends BaseWPComRestClient {
         post.setRemoteSiteId(from.site_ID);
         post.setLink(from.URL); // Is this right?
         post.setDateCreated(from.date);
+        post.setLastModified(toUTCIso8601(from.modified));
         post.setTitle(from.title);
         post.setContent(from.content);
         post.setExcerpt(from.excerpt);
@@ -317,6 +426,18 @@ public class PostRestClient extends BaseWPComRestClient {
         return post;
     }
 
+    /**
+     * Dates are sent with the offset of the site timezone, which can change (e.g. with DST). Modification dates are
+     * compared with each other, they are converted to UTC.
+     */
+    private static String toUTCIso8601(String date) {
+        if (TextUtils.isEmpty(date)) {
+            return null;
+        }
+        Date utcDate = DateTimeUtils.dateUTCFromIso8601(date);
+        return utcDate == null ? date : DateTimeUtils.iso8601UTCFromDate(utcDate);
+    }
+
     private Map<String, Object> postModelToParams(PostModel post) {
         Map<String, Object> params = new HashMap<>();
 
@@ -1,11 +1,13 @@
 package org.wordpress.android.fluxc.network.rest.wpcom.post;
 
+import org.wordpress.android.fluxc.annotations.GenerateTypeAdapter;
 import org.wordpress.android.fluxc.network.Response;
 import org.wordpress.android.fluxc.network.rest.wpcom.taxonomy.TermWPComRestResponse;
 
 import java.util.List;
 import java.util.Map;
 
+@GenerateTypeAdapter
 public class PostWPComRestResponse implements Response {
     public class PostsResponse {
         public List<PostWPComRestResponse> posts;
@@ -2,6 +2,7 @@ package org.wordpress.android.fluxc.network.rest.wpcom.site;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.RequestQueue;
@@ -17,6 +18,7 @@ import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.generated.SiteActionBuilder;
 import org.wordpress.android.fluxc.generated.endpoint.WPCOMREST;
 import org.wordpress.android.fluxc.model.PostFormatModel;
+import org.wordpress.android.fluxc.model.ResponseValidatorModel;
 import org.wordpress.android.fluxc.model.RoleModel;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.fluxc.model.SitesModel;
@@ -24,6 +26,8 @@ import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
 import org.wordpress.android.fluxc.network.BaseRequest.GenericErrorType;
 import org.wordpress.android.fluxc.network.UserAgent;
+import org.wordpress.android.fluxc.network.rest.FieldMask;
+import org.wordpress.android.fluxc.network.rest.GsonRequest.ConditionalResponseListener;
 import org.wordpress.android.fluxc.network.rest.wpcom.BaseWPComRestClient;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest;
 import org.wordpress.android.fluxc.network.rest.wpcom.WPComGsonRequest.WPComGsonNetworkError;
@@ -105,26 +109,22 @@ public class SiteRestClient extends BaseWPComRestClient {
         mAppSecrets = appSecrets;
     }
 
-    public void fetchSites() {
+    /**
+     * @param conditional if true, the sites are only sent if they changed since they were last fetched, otherwise
+     *                    the dispatched payload is flagged as not modified
+     */
+    public void fetchSites(boolean conditional) {
         String url = WPCOMREST.me.sites.getUrlV1_1();
-        final WPComGsonRequest<SitesResponse> request = WPComGsonRequest.buildGetRequest(url, null,
+        // Only request the site members and options SiteModel is built from, the full sites can weigh megabytes
+        Map<String, String> params = new HashMap<>();
+        params.put(FieldMask.WPCOM_FIELDS_PARAM, FieldMask.of(SiteWPComRestResponse.class));
+        params.put("options", FieldMask.of(SiteWPComRestResponse.Options.class));
+        final WPComGsonRequest<SitesResponse> request = WPComGsonRequest.buildGetRequest(url, params,
                 SitesResponse.class,
                 new Listener<SitesResponse>() {
                     @Override
                     public void onResponse(SitesResponse response) {
-                        if (response != null) {
-                            List<SiteModel> siteArray = new ArrayList<>();
-
-                            for (SiteWPComRestResponse siteResponse : response.sites) {
-                                siteArray.add(siteResponseToSiteModel(siteResponse));
-                            }
-                            mDispatcher.dispatch(SiteActionBuilder.newFetchedSitesAction(new SitesModel(siteArray)));
-                        } else {
-                            AppLog.e(T.API, "Received empty response to /me/sites/");
-                            SitesModel payload = new SitesModel(Collections.<SiteModel>emptyList());
-                            payload.error = new BaseNetworkError(GenericErrorType.INVALID_RESPONSE);
-                            mDispatcher.dispatch(SiteActionBuilder.newFetchedSitesAction(payload));
-                        }
+                        dispatchFetchedSites(response, null);
                     }
                 },
                 new BaseErrorListener() {
@@ -136,9 +136,44 @@ public class SiteRestClient extends BaseWPComRestClient {
                     }
                 }
         );
+        request.enableStreamingResponse();
+        if (conditional) {
+            request.enableConditionalRequest(new ConditionalResponseListener<SitesResponse>() {
+                @Override
+                public void onResponse(SitesResponse response, @NonNull ResponseValidatorModel validator) {
+                    // The validators are saved by the store, once the sites are stored
+                    dispatchFetchedSites(response, validator);
+                }
+
+                @Override
+                public void onNotModified() {
+                    SitesModel payload = new SitesModel();
+                    payload.setNotModified(true);
+                    mDispatcher.dispatch(SiteActionBuilder.newFetchedSitesAction(payload));
+                }
+            });
+        }
         add(request);
     }
 
+    private void dispatchFetchedSites(SitesResponse response, @Nullable ResponseValidatorModel validator) {
+        if (response != null) {
+            List<SiteModel> siteArray = new ArrayList<>();
+
+            for (SiteWPComRestResponse siteResponse : response.sites) {
+                siteArray.add(siteResponseToSiteModel(siteResponse));
+            }
+            SitesModel payload = new SitesModel(siteArray);
+            payload.setResponseValidator(validator);
+            mDispatcher.dispatch(SiteActionBuilder.newFetchedSitesAction(payload));
+        } else {
+            AppLog.e(T.API, "Received empty response to /me/sites/");
+            SitesModel payload = new SitesModel(Collections.<SiteModel>emptyList());
+            payload.error = new BaseNetworkError(GenericErrorType.INVALID_RESPONSE);
+            mDispatcher.dispatch(SiteActionBuilder.newFetchedSitesAction(payload));
+        }
+    }
+
     public void fetchSite(final SiteModel site) {
         String url = WPCOMREST.sites.getUrlV1_1() + site.getSiteId();
         final WPComGsonRequest<SiteWPComRestResponse> request = WPComGsonRequest.buildGetRequest(url, null,
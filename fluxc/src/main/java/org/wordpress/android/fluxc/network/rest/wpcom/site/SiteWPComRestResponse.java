@@ -1,9 +1,11 @@
 package org.wordpress.android.fluxc.network.rest.wpcom.site;
 
+import org.wordpress.android.fluxc.annotations.GenerateTypeAdapter;
 import org.wordpress.android.fluxc.network.Response;
 
 import java.util.List;
 
+@GenerateTypeAdapter
 public class SiteWPComRestResponse implements Response {
     public class SitesResponse {
         public List<SiteWPComRestResponse> sites;
@@ -7,11 +7,13 @@ import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.AuthenticationActionBuilder;
 import org.wordpress.android.fluxc.network.BaseRequest;
 import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
+import org.wordpress.android.fluxc.network.RequestCoalescer;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
 
 public abstract class BaseWPOrgAPIClient {
     private final RequestQueue mRequestQueue;
+    private final RequestCoalescer mRequestCoalescer;
     private final Dispatcher mDispatcher;
     private UserAgent mUserAgent;
 
@@ -21,6 +23,12 @@ public abstract class BaseWPOrgAPIClient {
                               UserAgent userAgent) {
         mDispatcher = dispatcher;
         mRequestQueue = requestQueue;
+        mRequestCoalescer = new RequestCoalescer(new RequestCoalescer.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                mRequestQueue.add(request);
+            }
+        });
         mUserAgent = userAgent;
         mOnAuthFailedListener = new OnAuthFailedListener() {
             @Override
@@ -31,7 +39,11 @@ public abstract class BaseWPOrgAPIClient {
     }
 
     protected Request add(WPOrgAPIGsonRequest request) {
-        return mRequestQueue.add(setRequestAuthParams(request));
+        setRequestAuthParams(request);
+        if (mRequestCoalescer.coalesce(request)) {
+            return request;
+        }
+        return mRequestQueue.add(request);
     }
 
     private BaseRequest setRequestAuthParams(BaseRequest request) {
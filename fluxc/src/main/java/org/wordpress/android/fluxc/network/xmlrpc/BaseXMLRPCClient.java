@@ -9,6 +9,7 @@ import org.wordpress.android.fluxc.network.BaseRequest;
 import org.wordpress.android.fluxc.network.BaseRequest.OnAuthFailedListener;
 import org.wordpress.android.fluxc.network.BaseRequest.OnParseErrorListener;
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
+import org.wordpress.android.fluxc.network.RequestCoalescer;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryRequest;
 import org.wordpress.android.fluxc.network.discovery.DiscoveryXMLRPCRequest;
@@ -16,7 +17,10 @@ import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
 import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
 
 public abstract class BaseXMLRPCClient {
+    public static final long DEFAULT_BATCHING_WINDOW_MS = 20;
+
     private final RequestQueue mRequestQueue;
+    private final RequestCoalescer mRequestCoalescer;
     protected final Dispatcher mDispatcher;
     protected UserAgent mUserAgent;
     protected HTTPAuthManager mHTTPAuthManager;
@@ -24,9 +28,17 @@ public abstract class BaseXMLRPCClient {
     protected OnAuthFailedListener mOnAuthFailedListener;
     protected OnParseErrorListener mOnParseErrorListener;
 
+    private XMLRPCBatcher mBatcher;
+
     public BaseXMLRPCClient(Dispatcher dispatcher, RequestQueue requestQueue, UserAgent userAgent,
                             HTTPAuthManager httpAuthManager) {
         mRequestQueue = requestQueue;
+        mRequestCoalescer = new RequestCoalescer(new RequestCoalescer.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                sendOrBatch((XMLRPCRequest) request);
+            }
+        });
         mDispatcher = dispatcher;
         mUserAgent = userAgent;
         mHTTPAuthManager = httpAuthManager;
@@ -44,8 +56,35 @@ public abstract class BaseXMLRPCClient {
         };
     }
 
+    /**
+     * Enables batching: read-only requests sent to the same endpoint within the given window are sent together in a
+     * single {@code system.multicall}, each request still gets its own response or error. A window of 0 (the
+     * default) sends every request on its own.
+     */
+    public void setBatchingWindow(long windowMs) {
+        mBatcher = windowMs > 0 ? new XMLRPCBatcher(new XMLRPCBatcher.RequestSender() {
+            @Override
+            public void send(BaseRequest<?> request) {
+                // Calls sent one by one already have their auth params, the multicall request gets the same ones
+                mRequestQueue.add(setRequestAuthParams(request));
+            }
+        }, windowMs) : null;
+    }
+
     protected Request add(XMLRPCRequest request) {
-        return mRequestQueue.add(setRequestAuthParams(request));
+        setRequestAuthParams(request);
+        if (mRequestCoalescer.coalesce(request)) {
+            return request;
+        }
+        return sendOrBatch(request);
+    }
+
+    private Request sendOrBatch(XMLRPCRequest request) {
+        XMLRPCBatcher batcher = mBatcher;
+        if (batcher != null && batcher.enqueue(request)) {
+            return request;
+        }
+        return mRequestQueue.add(request);
     }
 
     protected Request add(DiscoveryRequest request) {
@@ -0,0 +1,176 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.NetworkError;
+import com.android.volley.Response.Listener;
+import com.android.volley.TimeoutError;
+
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
+import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.HostHealthMonitor.HostUnavailableException;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the read-only {@link XMLRPCRequest}s sent to the same endpoint within a short window into a single
+ * {@link XMLRPCMulticallRequest}. The window starts with the first request, a request sent alone is sent as is.
+ *
+ * When the multicall fails for another reason than connectivity (e.g. a fault, or an HTTP error from a firewall
+ * rejecting it), its calls are sent again one by one. Endpoints answering that {@code system.multicall} doesn't exist,
+ * or failing several multicalls in a row, aren't sent multicalls anymore.
+ */
+class XMLRPCBatcher {
+    interface RequestSender {
+        void send(BaseRequest<?> request);
+    }
+
+    static final int MAX_BATCH_SIZE = 10;
+    static final int MAX_CONSECUTIVE_FAILURES = 2;
+    static final int FAULT_METHOD_NOT_FOUND = -32601;
+
+    private final RequestSender mRequestSender;
+    private final long mWindowMs;
+    private final Map<String, List<XMLRPCRequest>> mPendingCalls = new HashMap<>();
+    private final Set<String> mUnsupportedEndpoints =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Map<String, Integer> mConsecutiveFailures = new ConcurrentHashMap<>();
+    private ScheduledExecutorService mScheduler;
+
+    XMLRPCBatcher(RequestSender requestSender, long windowMs) {
+        mRequestSender = requestSender;
+        mWindowMs = windowMs;
+    }
+
+    /**
+     * @return true if the request will be sent as part of a batch, false if it must be sent on its own
+     */
+    synchronized boolean enqueue(XMLRPCRequest request) {
+        final String url = request.getUrl();
+        // Subclasses may handle their response or errors differently. Only calls without side effects are batched,
+        // so that a failed multicall can be retried call by call.
+        if (request.getClass() != XMLRPCRequest.class || !request.isReadOnly()
+                || mUnsupportedEndpoints.contains(url)) {
+            return false;
+        }
+
+        List<XMLRPCRequest> pendingCalls = mPendingCalls.get(url);
+        if (pendingCalls == null) {
+            pendingCalls = new ArrayList<>();
+            mPendingCalls.put(url, pendingCalls);
+            scheduleFlush(url, pendingCalls);
+        }
+        pendingCalls.add(request);
+        if (pendingCalls.size() >= MAX_BATCH_SIZE) {
+            flush(url, pendingCalls);
+        }
+        return true;
+    }
+
+    private synchronized void flush(final String url, List<XMLRPCRequest> pendingCalls) {
+        if (mPendingCalls.get(url) != pendingCalls) {
+            // Already sent because the batch was full
+            return;
+        }
+        mPendingCalls.remove(url);
+
+        final List<XMLRPCRequest> calls = new ArrayList<>(pendingCalls.size());
+        for (XMLRPCRequest call : pendingCalls) {
+            if (!call.isCanceled()) {
+                calls.add(call);
+            }
+        }
+        if (calls.size() <= 1 || mUnsupportedEndpoints.contains(url)) {
+            sendOneByOne(calls);
+            return;
+        }
+
+        mRequestSender.send(new XMLRPCMulticallRequest(url, calls, new Listener<List<Object>>() {
+            @Override
+            public void onResponse(List<Object> results) {
+                mConsecutiveFailures.remove(url);
+            }
+        }, new BaseErrorListener() {
+            @Override
+            public void onErrorResponse(@NonNull BaseNetworkError error) {
+                if (isConnectivityError(error)) {
+                    // The calls would fail the same way on their own
+                    for (XMLRPCRequest call : calls) {
+                        if (!call.isCanceled()) {
+                            call.deliverError(error.volleyError);
+                        }
+                    }
+                    return;
+                }
+                onMulticallFailed(url, error);
+                // The calls get their own response or error when they are sent on their own
+                sendOneByOne(calls);
+            }
+        }));
+    }
+
+    private static boolean isConnectivityError(BaseNetworkError error) {
+        // NoConnectionError is a NetworkError
+        return error.volleyError instanceof NetworkError || error.volleyError instanceof TimeoutError
+                || (error.hasVolleyError() && error.volleyError.getCause() instanceof HostUnavailableException);
+    }
+
+    private void onMulticallFailed(String url, BaseNetworkError error) {
+        if (error.hasVolleyError() && error.volleyError.getCause() instanceof XMLRPCFault
+                && ((XMLRPCFault) error.volleyError.getCause()).getFaultCode() == FAULT_METHOD_NOT_FOUND) {
+            AppLog.w(T.API, "system.multicall is not supported by " + url + ", sending calls one by one");
+            mUnsupportedEndpoints.add(url);
+            return;
+        }
+        Integer failures = mConsecutiveFailures.get(url);
+        failures = failures == null ? 1 : failures + 1;
+        if (failures >= MAX_CONSECUTIVE_FAILURES) {
+            AppLog.w(T.API, "system.multicall keeps failing on " + url + ", sending calls one by one");
+            mConsecutiveFailures.remove(url);
+            mUnsupportedEndpoints.add(url);
+        } else {
+            AppLog.w(T.API, "system.multicall failed on " + url + ", sending its calls one by one");
+            mConsecutiveFailures.put(url, failures);
+        }
+    }
+
+    private void sendOneByOne(List<XMLRPCRequest> calls) {
+        for (XMLRPCRequest call : calls) {
+            if (!call.isCanceled()) {
+                mRequestSender.send(call);
+            }
+        }
+    }
+
+    private void scheduleFlush(final String url, final List<XMLRPCRequest> pendingCalls) {
+        if (mScheduler == null) {
+            mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "fluxc-xmlrpc-batcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        mScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(url, pendingCalls);
+            }
+        }, mWindowMs, TimeUnit.MILLISECONDS);
+    }
+}
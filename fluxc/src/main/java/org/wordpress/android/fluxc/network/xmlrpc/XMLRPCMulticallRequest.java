@@ -0,0 +1,219 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import android.support.annotation.NonNull;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.Response.Listener;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
+import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.StreamingBodyRequest;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okio.Buffer;
+import okio.BufferedSink;
+
+/**
+ * Sends several {@link XMLRPCRequest}s to the same endpoint in a single {@code system.multicall}, and delivers each
+ * result or fault to the request it belongs to, as if it had been sent on its own.
+ *
+ * Errors of the multicall itself (e.g. a fault on sites where {@code system.multicall} is disabled, or an HTTP error)
+ * are delivered to the error listener only, so that the calls can be sent again one by one.
+ */
+class XMLRPCMulticallRequest extends BaseRequest<List<Object>> implements StreamingBodyRequest {
+    private static final String PROTOCOL_CONTENT_TYPE = "text/xml; charset=utf-8";
+    private static final String MEMBER_METHOD_NAME = "methodName";
+    private static final String MEMBER_PARAMS = "params";
+    private static final String MEMBER_FAULT_CODE = "faultCode";
+    private static final String MEMBER_FAULT_STRING = "faultString";
+
+    private final List<XMLRPCRequest> mCalls;
+    private final Listener<List<Object>> mListener;
+
+    XMLRPCMulticallRequest(String url, List<XMLRPCRequest> calls, Listener<List<Object>> listener,
+                           BaseErrorListener errorListener) {
+        super(Method.POST, url, errorListener);
+        mCalls = Collections.unmodifiableList(new ArrayList<>(calls));
+        mListener = listener;
+    }
+
+    List<XMLRPCRequest> getCalls() {
+        return mCalls;
+    }
+
+    @Override
+    protected String getEndpointName() {
+        return "XMLRPC " + XMLRPC.MULTICALL;
+    }
+
+    @Override
+    protected Response<List<Object>> parseNetworkResponse(NetworkResponse response) {
+        try {
+            InputStream is = XMLSerializerUtils.scrubXmlResponse(response.data);
+            List<Object> results = readResults(is, HttpHeaderParser.parseCharset(response.headers, null));
+            return Response.success(results, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (XMLRPCFault e) {
+            return Response.error(new VolleyError(e));
+        } catch (IOException | XmlPullParserException | XMLRPCException e) {
+            AppLog.e(T.API, "Can't deserialize XMLRPC multicall response", e);
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    @Override
+    protected void deliverResponse(List<Object> results) {
+        mListener.onResponse(results);
+        for (int i = 0; i < mCalls.size(); i++) {
+            XMLRPCRequest call = mCalls.get(i);
+            if (call.isCanceled()) {
+                continue;
+            }
+            if (results == null || i >= results.size()) {
+                call.deliverError(new ParseError(new XMLRPCException("Missing result in multicall response")));
+            } else if (results.get(i) instanceof XMLRPCFault) {
+                call.deliverError(new VolleyError((XMLRPCFault) results.get(i)));
+            } else {
+                call.deliverResponse(results.get(i));
+            }
+        }
+    }
+
+    @Override
+    public BaseNetworkError deliverBaseNetworkError(@NonNull BaseNetworkError error) {
+        // Errors are handled by each call when they are delivered to them
+        return error;
+    }
+
+    @Override
+    public String getBodyContentType() {
+        return PROTOCOL_CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] getBody() throws AuthFailureError {
+        try {
+            Buffer body = new Buffer();
+            writeBody(body);
+            return body.readByteArray();
+        } catch (IOException e) {
+            AppLog.e(T.API, "Can't serialize XMLRPC multicall request", e);
+        }
+        return null;
+    }
+
+    @Override
+    public void writeBody(@NonNull BufferedSink sink) throws IOException {
+        List<Map<String, Object>> calls = new ArrayList<>(mCalls.size());
+        for (XMLRPCRequest call : mCalls) {
+            Map<String, Object> callStruct = new LinkedHashMap<>(2);
+            callStruct.put(MEMBER_METHOD_NAME, call.getXMLRPCMethod().toString());
+            Object[] params = call.getXMLRPCParams();
+            callStruct.put(MEMBER_PARAMS, params != null ? params : new Object[0]);
+            calls.add(callStruct);
+        }
+        XMLSerializerUtils.serialize(sink, XMLRPC.MULTICALL, new Object[] {calls});
+    }
+
+    /**
+     * @return the result of each call, read with the reader of the call, or an {@link XMLRPCFault} for failed calls
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> readResults(InputStream is, String encoding)
+            throws IOException, XmlPullParserException, XMLRPCException {
+        return (List<Object>) XMLSerializerUtils.deserialize(is, encoding, new XMLRPCValueReader<List<Object>>() {
+            @Override
+            public List<Object> read(XmlPullParser parser) throws IOException, XmlPullParserException {
+                List<Object> results = new ArrayList<>(mCalls.size());
+                parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+                parser.nextTag(); // TYPE_ARRAY (<array>)
+                parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TYPE_ARRAY);
+                parser.nextTag(); // TAG_DATA (<data>)
+                parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_DATA);
+                parser.nextTag();
+                while (parser.getEventType() == XmlPullParser.START_TAG
+                       && XMLRPCSerializer.TAG_VALUE.equals(parser.getName())) {
+                    XMLRPCValueReader<?> resultReader = results.size() < mCalls.size()
+                            ? mCalls.get(results.size()).getResultReader() : null;
+                    results.add(readResult(parser, resultReader));
+                    parser.nextTag();
+                }
+                parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_DATA);
+                parser.nextTag(); // TYPE_ARRAY (</array>)
+                parser.nextTag(); // TAG_VALUE (</value>)
+                parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_VALUE);
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Reads the result of a call, which is either an array holding the result, or a fault struct.
+     */
+    private static Object readResult(XmlPullParser parser, XMLRPCValueReader<?> resultReader)
+            throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        parser.nextTag();
+        Object result;
+        if (XMLRPCSerializer.TYPE_STRUCT.equals(parser.getName())) {
+            result = readFault(parser);
+        } else {
+            parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TYPE_ARRAY);
+            parser.nextTag(); // TAG_DATA (<data>)
+            parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_DATA);
+            parser.nextTag(); // TAG_VALUE (<value>)
+            if (resultReader != null) {
+                result = resultReader.read(parser);
+            } else {
+                result = XMLRPCSerializer.deserialize(parser);
+            }
+            parser.nextTag(); // TAG_DATA (</data>)
+            parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_DATA);
+            parser.nextTag(); // TYPE_ARRAY (</array>)
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        return result;
+    }
+
+    private static XMLRPCFault readFault(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String faultString = "";
+        int faultCode = 0;
+        parser.nextTag();
+        while (parser.getEventType() == XmlPullParser.START_TAG
+               && XMLRPCSerializer.TAG_MEMBER.equals(parser.getName())) {
+            parser.nextTag(); // TAG_NAME (<name>)
+            parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_NAME);
+            String name = parser.nextText();
+            parser.nextTag(); // TAG_VALUE (<value>)
+            if (MEMBER_FAULT_CODE.equals(name)) {
+                faultCode = XMLRPCValueReaders.readInt(parser);
+            } else if (MEMBER_FAULT_STRING.equals(name)) {
+                String text = XMLRPCValueReaders.readString(parser);
+                faultString = text != null ? text : "";
+            } else {
+                XMLRPCValueReaders.skipValue(parser);
+            }
+            parser.nextTag(); // TAG_MEMBER (</member>)
+            parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_MEMBER);
+            parser.nextTag();
+        }
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TYPE_STRUCT);
+        return new XMLRPCFault(faultString, faultCode);
+    }
+}
@@ -1,7 +1,6 @@
 package org.wordpress.android.fluxc.network.xmlrpc;
 
 import android.support.annotation.NonNull;
-import android.util.Xml;
 
 import com.android.volley.AuthFailureError;
 import com.android.volley.NetworkResponse;
@@ -13,36 +12,56 @@ import com.android.volley.toolbox.HttpHeaderParser;
 
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.network.BaseRequest;
+import org.wordpress.android.fluxc.network.StreamingBodyRequest;
 import org.wordpress.android.fluxc.store.AccountStore.AuthenticateErrorPayload;
 import org.wordpress.android.fluxc.store.AccountStore.AuthenticationErrorType;
 import org.wordpress.android.fluxc.utils.ErrorUtils.OnUnexpectedError;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlSerializer;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
 
 // TODO: Would be great to use generics / return POJO or model direclty (see GSON code?)
-public class XMLRPCRequest extends BaseRequest<Object> {
+public class XMLRPCRequest extends BaseRequest<Object> implements StreamingBodyRequest {
     private static final String PROTOCOL_CHARSET = "utf-8";
     private static final String PROTOCOL_CONTENT_TYPE = String.format("text/xml; charset=%s", PROTOCOL_CHARSET);
 
-    private final Listener<? super Object[]> mListener;
+    private static final Set<XMLRPC> READ_ONLY_METHODS = EnumSet.of(XMLRPC.GET_PROFILE, XMLRPC.GET_OPTIONS,
+            XMLRPC.GET_POST_FORMATS, XMLRPC.GET_MEDIA_LIBRARY, XMLRPC.GET_MEDIA_ITEM, XMLRPC.GET_POST,
+            XMLRPC.GET_POSTS, XMLRPC.GET_TERM, XMLRPC.GET_TERMS, XMLRPC.GET_COMMENT, XMLRPC.GET_COMMENTS);
+
+    private final Listener<?> mListener;
+    private final XMLRPCValueReader<?> mResultReader;
     private final XMLRPC mMethod;
     private final Object[] mParams;
-    private final XmlSerializer mSerializer = Xml.newSerializer();
 
     public XMLRPCRequest(String url, XMLRPC method, List<Object> params, Listener<? super Object[]> listener,
                          BaseErrorListener errorListener) {
+        this(url, method, params, (XMLRPCValueReader<Object[]>) null, listener, errorListener);
+    }
+
+    /**
+     * Typed version of the request: the result is read straight from the response by the given reader (e.g. one
+     * generated for an {@link org.wordpress.android.fluxc.annotations.XMLRPCStruct} class), instead of going through
+     * a generic Map/Object[] tree.
+     */
+    public <T> XMLRPCRequest(String url, XMLRPC method, List<Object> params, XMLRPCValueReader<T> resultReader,
+                             Listener<? super T> listener, BaseErrorListener errorListener) {
         super(Method.POST, url, errorListener);
         mListener = listener;
+        mResultReader = resultReader;
         mMethod = method;
         // First params are always username/password
         mParams = (params == null ? null : params.toArray());
@@ -51,19 +70,80 @@ public class XMLRPCRequest extends BaseRequest<Object> {
     @Override
     protected void deliverResponse(Object response) {
         deliverResponse(mListener, response);
+        for (BaseRequest<Object> request : takeCoalescedRequests()) {
+            if (!request.isCanceled()) {
+                ((XMLRPCRequest) request).deliverResponse(response);
+            }
+        }
+    }
+
+    @Override
+    protected String getCoalescingKey() {
+        // XML-RPC calls are all POSTs, only the ones without side effects can be coalesced
+        if (getClass() != XMLRPCRequest.class || !isReadOnly()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        key.append(mMethod).append(' ').append(getUrl()).append(' ');
+        appendCanonicalValue(key, mParams);
+        key.append(' ').append(mResultReader != null ? mResultReader.getClass().getName() : "").append(' ');
+        appendCanonicalValue(key, mHeaders);
+        // The params and headers hold the credentials, only keep a digest of them in memory
+        return ByteString.encodeUtf8(key.toString()).sha256().hex();
+    }
+
+    /**
+     * Appends a serialization of an XML-RPC value that doesn't depend on the iteration order of its maps.
+     */
+    private static void appendCanonicalValue(StringBuilder builder, Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sortedMap = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                sortedMap.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+            builder.append('{');
+            for (Map.Entry<String, Object> entry : sortedMap.entrySet()) {
+                appendCanonicalValue(builder, entry.getKey());
+                builder.append(':');
+                appendCanonicalValue(builder, entry.getValue());
+                builder.append(',');
+            }
+            builder.append('}');
+        } else if (value instanceof Object[] || value instanceof List) {
+            List<?> list = value instanceof List ? (List<?>) value : Arrays.asList((Object[]) value);
+            builder.append('[');
+            for (Object item : list) {
+                appendCanonicalValue(builder, item);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (value instanceof String) {
+            builder.append('"').append(((String) value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        } else if (value instanceof byte[]) {
+            builder.append(ByteString.of((byte[]) value).base64());
+        } else {
+            // Keep the type, e.g. 1 and "1" are different XML-RPC values
+            builder.append(value != null ? value.getClass().getSimpleName() + ":" + value : "null");
+        }
+    }
+
+    @Override
+    protected String getEndpointName() {
+        // All calls share the same URL
+        return "XMLRPC " + mMethod;
     }
 
     @Override
     protected Response<Object> parseNetworkResponse(NetworkResponse response) {
         try {
-            String data = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
-            InputStream is = new ByteArrayInputStream(data.getBytes(Charset.forName("UTF-8")));
-            Object obj = XMLSerializerUtils.deserialize(XMLSerializerUtils.scrubXmlResponse(is));
+            // Parse the response bytes in place, without decoding them to a String first. Without a charset in the
+            // Content-Type header, the parser uses the XML declaration (or UTF-8, the XML default).
+            InputStream is = XMLSerializerUtils.scrubXmlResponse(response.data);
+            Object obj = XMLSerializerUtils.deserialize(is, HttpHeaderParser.parseCharset(response.headers, null),
+                    mResultReader);
             return Response.success(obj, HttpHeaderParser.parseCacheHeaders(response));
         } catch (XMLRPCFault e) {
             return Response.error(new VolleyError(e));
-        } catch (UnsupportedEncodingException e) {
-            return Response.error(new ParseError(e));
         } catch (IOException e) {
             AppLog.e(T.API, "Can't deserialize XMLRPC response", e);
             return Response.error(new ParseError(e));
@@ -84,16 +164,36 @@ public class XMLRPCRequest extends BaseRequest<Object> {
     @Override
     public byte[] getBody() throws AuthFailureError {
         try {
-            StringWriter stringWriter = XMLSerializerUtils.serialize(mSerializer, mMethod, mParams);
-            return stringWriter.toString().getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            AppLog.e(T.API, "Can't encode XMLRPC request", e);
+            Buffer body = new Buffer();
+            writeBody(body);
+            return body.readByteArray();
         } catch (IOException e) {
             AppLog.e(T.API, "Can't serialize XMLRPC request", e);
         }
         return null;
     }
 
+    @Override
+    public void writeBody(@NonNull BufferedSink sink) throws IOException {
+        XMLSerializerUtils.serialize(sink, mMethod, mParams);
+    }
+
+    boolean isReadOnly() {
+        return READ_ONLY_METHODS.contains(mMethod);
+    }
+
+    XMLRPC getXMLRPCMethod() {
+        return mMethod;
+    }
+
+    Object[] getXMLRPCParams() {
+        return mParams;
+    }
+
+    XMLRPCValueReader<?> getResultReader() {
+        return mResultReader;
+    }
+
     @Override
     public BaseNetworkError deliverBaseNetworkError(@NonNull BaseNetworkError error) {
         AuthenticateErrorPayload payload = new AuthenticateErrorPayload(AuthenticationErrorType.GENERIC_ERROR);
@@ -143,6 +243,7 @@ public class XMLRPCRequest extends BaseRequest<Object> {
         // a 'safe' type - but it's still up to the client to know if an Object or an Object[] is the expected response.
         // So, we're matching the parsed response to the Listener parameter we were given, trusting that the network
         // client knows what it's doing
+        // Typed requests are parameterized with the type returned by their result reader, so the cast is always safe.
         @SuppressWarnings("unchecked") K response = (K) rawResponse;
         try {
             listener.onResponse(response);
@@ -2,7 +2,6 @@ package org.wordpress.android.fluxc.network.xmlrpc;
 
 import android.text.TextUtils;
 import android.util.Base64;
-import android.util.Xml;
 
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
@@ -11,10 +10,7 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlSerializer;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.StringReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -28,14 +24,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SimpleTimeZone;
 
-public class XMLRPCSerializer {
-    // Writes to /dev/null
-    private static class NullOutputStream extends OutputStream {
-        @Override
-        public void write(int b) throws IOException {
-        }
-    }
+import okio.BufferedSink;
 
+public class XMLRPCSerializer {
     public static final String TAG_NAME = "name";
     public static final String TAG_MEMBER = "member";
     public static final String TAG_VALUE = "value";
@@ -55,20 +46,8 @@ public class XMLRPCSerializer {
     static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss", Locale.US);
     static Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
 
-    private static final XmlSerializer SERIALIZE_TESTER;
-
-    static {
-        SERIALIZE_TESTER = Xml.newSerializer();
-        try {
-            SERIALIZE_TESTER.setOutput(new NullOutputStream(), "UTF-8");
-        } catch (IllegalArgumentException e) {
-            AppLog.e(T.API, "IllegalArgumentException setting test serializer output stream", e);
-        } catch (IllegalStateException e) {
-            AppLog.e(T.API, "IllegalStateException setting test serializer output stream", e);
-        } catch (IOException e) {
-            AppLog.e(T.API, "IOException setting test serializer output stream", e);
-        }
-    }
+    // Base64.DEFAULT wraps lines every 76 characters, i.e. every 57 bytes, so chunks end on a full line
+    private static final int BASE64_CHUNK_SIZE = 57 * 64;
 
     @SuppressWarnings("unchecked")
     public static void serialize(XmlSerializer serializer, Object object) throws IOException {
@@ -160,41 +139,138 @@ public class XMLRPCSerializer {
         }
     }
 
+    /**
+     * Writes the XML-RPC representation of the given object straight to the sink, with the same types as
+     * {@link #serialize(XmlSerializer, Object)}. Strings are validated and escaped in a single pass, see
+     * {@link #writeText(BufferedSink, String)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static void serialize(BufferedSink sink, Object object) throws IOException {
+        if (object instanceof Integer || object instanceof Short || object instanceof Byte) {
+            writeElement(sink, TYPE_I4, object.toString());
+        } else if (object instanceof Long) {
+            // See serialize(XmlSerializer, Object): <i8> isn't supported by the WordPress end point
+            writeElement(sink, TYPE_STRING, object.toString());
+            AppLog.w(T.API, "long type could be misinterpreted when sent to the WordPress XMLRPC end point");
+        } else if (object instanceof Double || object instanceof Float) {
+            writeElement(sink, TYPE_DOUBLE, object.toString());
+        } else if (object instanceof Boolean) {
+            writeElement(sink, TYPE_BOOLEAN, ((Boolean) object) ? "1" : "0");
+        } else if (object instanceof String) {
+            writeStartTag(sink, TYPE_STRING);
+            writeText(sink, (String) object);
+            writeEndTag(sink, TYPE_STRING);
+        } else if (object instanceof Date || object instanceof Calendar) {
+            Date date = object instanceof Calendar ? ((Calendar) object).getTime() : (Date) object;
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss", Locale.US);
+            simpleDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+            writeElement(sink, TYPE_DATE_TIME_ISO8601, simpleDateFormat.format(date));
+        } else if (object instanceof byte[]) {
+            byte[] bytes = (byte[]) object;
+            writeStartTag(sink, TYPE_BASE64);
+            for (int offset = 0; offset < bytes.length; offset += BASE64_CHUNK_SIZE) {
+                sink.write(Base64.encode(bytes, offset, Math.min(BASE64_CHUNK_SIZE, bytes.length - offset),
+                        Base64.DEFAULT));
+            }
+            writeEndTag(sink, TYPE_BASE64);
+        } else if (object instanceof List<?>) {
+            writeStartTag(sink, TYPE_ARRAY);
+            writeStartTag(sink, TAG_DATA);
+            for (Object o : (List<Object>) object) {
+                writeStartTag(sink, TAG_VALUE);
+                serialize(sink, o);
+                writeEndTag(sink, TAG_VALUE);
+            }
+            writeEndTag(sink, TAG_DATA);
+            writeEndTag(sink, TYPE_ARRAY);
+        } else if (object instanceof Object[]) {
+            writeStartTag(sink, TYPE_ARRAY);
+            writeStartTag(sink, TAG_DATA);
+            for (Object o : (Object[]) object) {
+                writeStartTag(sink, TAG_VALUE);
+                serialize(sink, o);
+                writeEndTag(sink, TAG_VALUE);
+            }
+            writeEndTag(sink, TAG_DATA);
+            writeEndTag(sink, TYPE_ARRAY);
+        } else if (object instanceof Map) {
+            writeStartTag(sink, TYPE_STRUCT);
+            for (Entry<String, Object> entry : ((Map<String, Object>) object).entrySet()) {
+                writeStartTag(sink, TAG_MEMBER);
+                writeStartTag(sink, TAG_NAME);
+                writeText(sink, entry.getKey());
+                writeEndTag(sink, TAG_NAME);
+                writeStartTag(sink, TAG_VALUE);
+                serialize(sink, entry.getValue());
+                writeEndTag(sink, TAG_VALUE);
+                writeEndTag(sink, TAG_MEMBER);
+            }
+            writeEndTag(sink, TYPE_STRUCT);
+        } else {
+            throw new IOException("Cannot serialize " + object);
+        }
+    }
+
+    /**
+     * Writes the given text as XML character data, in a single pass:
+     * - markup characters are escaped
+     * - characters outside the BMP are written as character references, like the Android XmlSerializer does
+     * - characters outside the XML unicode charset as specified by the XML 1.0 standard (control characters, unpaired
+     * surrogates...) are dropped, see http://www.w3.org/TR/2000/REC-xml-20001006#NT-Char
+     */
+    public static void writeText(BufferedSink sink, String text) throws IOException {
+        int length = text.length();
+        // Start of the run of characters that can be written as is
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c <= 0xd7ff && c != '&' && c != '<' && c != '>') {
+                continue;
+            }
+            if (c == '\t' || c == '\n' || c == '\r' || (c >= 0xe000 && c <= 0xfffd)) {
+                continue;
+            }
+
+            sink.writeUtf8(text, runStart, i);
+            runStart = i + 1;
+            if (c == '&') {
+                sink.writeUtf8("&amp;");
+            } else if (c == '<') {
+                sink.writeUtf8("&lt;");
+            } else if (c == '>') {
+                sink.writeUtf8("&gt;");
+            } else if (isSurrogatePair(text, i)) {
+                sink.writeUtf8("&#").writeDecimalLong(Character.toCodePoint(c, text.charAt(i + 1))).writeByte(';');
+                runStart = ++i + 1;
+            }
+            // Any other character is not valid XML and is dropped
+        }
+        sink.writeUtf8(text, runStart, length);
+    }
+
     public static String makeValidInputString(final String input) throws IOException {
         if (TextUtils.isEmpty(input)) {
             return "";
         }
 
-        if (SERIALIZE_TESTER == null) {
+        // 99.9% of the time the string is OK as is
+        if (isValidXmlString(input)) {
             return input;
         }
 
-        try {
-            // try to encode the string as-is, 99.9% of the time it's OK
-            SERIALIZE_TESTER.text(input);
-            return input;
-        } catch (IllegalArgumentException e) {
-            // There are characters outside the XML unicode charset as specified by the XML 1.0 standard
-            // See http://www.w3.org/TR/2000/REC-xml-20001006#NT-Char
-            AppLog.d(T.API, "There are characters outside the XML unicode charset as specified"
-                    + " by the XML 1.0 standard");
-        }
-
+        // There are characters outside the XML unicode charset as specified by the XML 1.0 standard
+        // See http://www.w3.org/TR/2000/REC-xml-20001006#NT-Char
         // We need to do the following things:
         // 1. Replace surrogates with HTML Entity.
         // 2. Replace emoji with their textual versions (if available on WP)
-        // 3. Try to serialize the resulting string.
-        // 4. If it fails again, strip characters that are not allowed in XML 1.0
-
+        // 3. Strip characters that are not allowed in XML 1.0
         final String noEmojiString = StringUtils.replaceUnicodeSurrogateBlocksWithHTMLEntities(input);
-        try {
-            SERIALIZE_TESTER.text(noEmojiString);
+        if (isValidXmlString(noEmojiString)) {
             return noEmojiString;
-        } catch (IllegalArgumentException e) {
-            AppLog.w(T.API, "noEmojiString still contains characters outside the XML unicode charset as specified"
-                    + " by the XML 1.0 standard");
-            return StringUtils.stripNonValidXMLCharacters(noEmojiString);
         }
+        AppLog.w(T.API, "noEmojiString still contains characters outside the XML unicode charset as specified"
+                + " by the XML 1.0 standard");
+        return StringUtils.stripNonValidXMLCharacters(noEmojiString);
     }
 
     public static Object deserialize(XmlPullParser parser) throws XmlPullParserException, IOException,
@@ -234,14 +310,8 @@ public class XMLRPCSerializer {
                 obj = value;
             }
         } else if (typeNodeName.equals(TYPE_BASE64)) {
-            String value = parser.nextText();
-            BufferedReader reader = new BufferedReader(new StringReader(value));
-            String line;
-            StringBuffer sb = new StringBuffer();
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-            obj = Base64.decode(sb.toString(), Base64.DEFAULT);
+            // The decoder skips line breaks and other whitespace, no need to join the lines first
+            obj = Base64.decode(parser.nextText(), Base64.DEFAULT);
         } else if (typeNodeName.equals(TYPE_ARRAY)) {
             parser.nextTag(); // TAG_DATA (<data>)
             parser.require(XmlPullParser.START_TAG, null, TAG_DATA);
@@ -288,4 +358,37 @@ public class XMLRPCSerializer {
         parser.require(XmlPullParser.END_TAG, null, TAG_VALUE);
         return obj;
     }
+
+    private static boolean isValidXmlString(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c > 0xd7ff && c < 0xe000 && isSurrogatePair(input, i)) {
+                i++;
+            } else if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || (c > 0xd7ff && c < 0xe000)
+                    || c > 0xfffd) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSurrogatePair(String text, int index) {
+        return Character.isHighSurrogate(text.charAt(index)) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1));
+    }
+
+    private static void writeElement(BufferedSink sink, String tag, String text) throws IOException {
+        // Only used for values that never need to be escaped
+        writeStartTag(sink, tag);
+        sink.writeUtf8(text);
+        writeEndTag(sink, tag);
+    }
+
+    private static void writeStartTag(BufferedSink sink, String tag) throws IOException {
+        sink.writeByte('<').writeUtf8(tag).writeByte('>');
+    }
+
+    private static void writeEndTag(BufferedSink sink, String tag) throws IOException {
+        sink.writeUtf8("</").writeUtf8(tag).writeByte('>');
+    }
 }
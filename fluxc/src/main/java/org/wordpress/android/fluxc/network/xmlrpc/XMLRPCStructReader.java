@@ -0,0 +1,65 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Reads an XML-RPC struct into an object, member by member. Subclasses are generated for
+ * {@link org.wordpress.android.fluxc.annotations.XMLRPCStruct}-annotated classes.
+ */
+public abstract class XMLRPCStructReader<T> implements XMLRPCValueReader<T> {
+    protected abstract T newStruct();
+
+    /**
+     * Reads the value of the given member into the struct, or skips it if it's not bound to a field. Called with the
+     * parser on the {@code <value>} start tag, must return with the parser on the {@code </value>} end tag.
+     */
+    protected abstract void readMember(T struct, String name, XmlPullParser parser)
+            throws IOException, XmlPullParserException;
+
+    /**
+     * @return the struct, or null if the value is not a struct (e.g. the empty array WordPress returns for some
+     * missing structs)
+     */
+    @Override
+    public T read(XmlPullParser parser) throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        parser.nextTag();
+        T struct = null;
+        if (XMLRPCSerializer.TYPE_STRUCT.equals(parser.getName())) {
+            struct = newStruct();
+            parser.nextTag();
+            while (parser.getEventType() == XmlPullParser.START_TAG
+                   && XMLRPCSerializer.TAG_MEMBER.equals(parser.getName())) {
+                readMember(struct, parser);
+                parser.nextTag();
+            }
+            parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TYPE_STRUCT);
+        } else {
+            XMLRPCValueReaders.skipElement(parser);
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        return struct;
+    }
+
+    private void readMember(T struct, XmlPullParser parser) throws IOException, XmlPullParserException {
+        String memberName = null;
+        parser.nextTag();
+        while (parser.getEventType() == XmlPullParser.START_TAG) {
+            String tag = parser.getName();
+            if (XMLRPCSerializer.TAG_NAME.equals(tag)) {
+                memberName = parser.nextText();
+            } else if (XMLRPCSerializer.TAG_VALUE.equals(tag) && memberName != null) {
+                readMember(struct, memberName, parser);
+            } else {
+                // WordPress always sends the member name first, values before their name can't be bound
+                XMLRPCValueReaders.skipElement(parser);
+            }
+            parser.nextTag();
+        }
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_MEMBER);
+    }
+}
@@ -0,0 +1,17 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+
+/**
+ * Reads an XML-RPC value into a typed object, see {@link XMLRPCValueReaders} and {@link XMLRPCStructReader}.
+ */
+public interface XMLRPCValueReader<T> {
+    /**
+     * Called with the parser on the {@code <value>} start tag, returns with the parser on the {@code </value>} end tag
+     * (like {@link XMLRPCSerializer#deserialize(XmlPullParser)}).
+     */
+    T read(XmlPullParser parser) throws IOException, XmlPullParserException;
+}
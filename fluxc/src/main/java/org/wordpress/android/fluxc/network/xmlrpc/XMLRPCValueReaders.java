@@ -0,0 +1,233 @@
+package org.wordpress.android.fluxc.network.xmlrpc;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+
+/**
+ * Typed readers for XML-RPC values, used by the generated {@link XMLRPCStructReader}s.
+ *
+ * Scalars are converted the same way {@link org.wordpress.android.util.MapUtils} converts deserialized values, e.g.
+ * a string member read as a long is parsed, and a value that can't be converted is read as the default value of the
+ * type (0, false or null). Structs and arrays read as scalars are skipped.
+ */
+public class XMLRPCValueReaders {
+    public static final XMLRPCValueReader<String> STRING = new XMLRPCValueReader<String>() {
+        @Override
+        public String read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readString(parser);
+        }
+    };
+
+    public static final XMLRPCValueReader<Long> LONG = new XMLRPCValueReader<Long>() {
+        @Override
+        public Long read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readLong(parser);
+        }
+    };
+
+    public static final XMLRPCValueReader<Integer> INTEGER = new XMLRPCValueReader<Integer>() {
+        @Override
+        public Integer read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readInt(parser);
+        }
+    };
+
+    public static final XMLRPCValueReader<Double> DOUBLE = new XMLRPCValueReader<Double>() {
+        @Override
+        public Double read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readDouble(parser);
+        }
+    };
+
+    public static final XMLRPCValueReader<Boolean> BOOLEAN = new XMLRPCValueReader<Boolean>() {
+        @Override
+        public Boolean read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readBoolean(parser);
+        }
+    };
+
+    public static final XMLRPCValueReader<Date> DATE = new XMLRPCValueReader<Date>() {
+        @Override
+        public Date read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return readDate(parser);
+        }
+    };
+
+    /**
+     * Reads any value into the same Object tree as {@link XMLRPCSerializer#deserialize(XmlPullParser)}.
+     */
+    public static final XMLRPCValueReader<Object> OBJECT = new XMLRPCValueReader<Object>() {
+        @Override
+        public Object read(XmlPullParser parser) throws IOException, XmlPullParserException {
+            return XMLRPCSerializer.deserialize(parser);
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss", Locale.US);
+            dateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+            return dateFormat;
+        }
+    };
+
+    /**
+     * @return the text of a scalar value, booleans are read as "1" or "0"
+     */
+    public static String readString(XmlPullParser parser) throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        parser.nextTag();
+        String text = null;
+        String type = parser.getName();
+        if (XMLRPCSerializer.TYPE_STRUCT.equals(type) || XMLRPCSerializer.TYPE_ARRAY.equals(type)) {
+            skipElement(parser);
+        } else {
+            text = parser.nextText();
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        return text;
+    }
+
+    public static long readLong(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = readString(parser);
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return (long) parseDouble(text);
+        }
+    }
+
+    public static int readInt(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = readString(parser);
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return (int) parseDouble(text);
+        }
+    }
+
+    public static double readDouble(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = readString(parser);
+        return text == null ? 0 : parseDouble(text);
+    }
+
+    public static boolean readBoolean(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = readString(parser);
+        if (text == null) {
+            return false;
+        }
+        text = text.trim();
+        return !text.isEmpty() && !text.startsWith("0") && !text.equalsIgnoreCase("false");
+    }
+
+    public static Date readDate(XmlPullParser parser) throws IOException, XmlPullParserException {
+        String text = readString(parser);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return DATE_FORMAT.get().parse(text.trim());
+        } catch (ParseException e) {
+            AppLog.e(T.API, "Can't parse Date:" + text, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the elements of an array read with the given reader, or null if the value is not an array
+     */
+    public static <E> List<E> readList(XmlPullParser parser, XMLRPCValueReader<E> elementReader)
+            throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        parser.nextTag();
+        List<E> list = null;
+        if (XMLRPCSerializer.TYPE_ARRAY.equals(parser.getName())) {
+            list = new ArrayList<>();
+            parser.nextTag(); // TAG_DATA (<data>)
+            parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_DATA);
+            parser.nextTag();
+            while (parser.getEventType() == XmlPullParser.START_TAG
+                   && XMLRPCSerializer.TAG_VALUE.equals(parser.getName())) {
+                list.add(elementReader.read(parser));
+                parser.nextTag();
+            }
+            parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_DATA);
+            parser.nextTag(); // TAG_ARRAY (</array>)
+            parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TYPE_ARRAY);
+        } else {
+            skipElement(parser);
+        }
+        parser.nextTag(); // TAG_VALUE (</value>)
+        parser.require(XmlPullParser.END_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        return list;
+    }
+
+    /**
+     * @return a reader for arrays, e.g. to read a response made of a list of structs
+     */
+    public static <E> XMLRPCValueReader<List<E>> listOf(final XMLRPCValueReader<E> elementReader) {
+        return new XMLRPCValueReader<List<E>>() {
+            @Override
+            public List<E> read(XmlPullParser parser) throws IOException, XmlPullParserException {
+                return readList(parser, elementReader);
+            }
+        };
+    }
+
+    /**
+     * Skips a value without parsing its content into objects.
+     */
+    public static void skipValue(XmlPullParser parser) throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, XMLRPCSerializer.TAG_VALUE);
+        skipElement(parser);
+    }
+
+    /**
+     * Skips the element starting at the current start tag, leaving the parser on its end tag.
+     */
+    static void skipElement(XmlPullParser parser) throws IOException, XmlPullParserException {
+        parser.require(XmlPullParser.START_TAG, null, null);
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    throw new XmlPullParserException("Unexpected end of document", parser, null);
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
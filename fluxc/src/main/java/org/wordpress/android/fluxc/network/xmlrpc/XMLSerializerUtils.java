@@ -1,21 +1,24 @@
 package org.wordpress.android.fluxc.network.xmlrpc;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 import org.xmlpull.v1.XmlPullParserFactory;
 import org.xmlpull.v1.XmlSerializer;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
+import java.io.Reader;
 import java.io.StringWriter;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
+import okio.BufferedSink;
+
 public class XMLSerializerUtils {
     private static final String TAG_METHOD_CALL = "methodCall";
     private static final String TAG_METHOD_NAME = "methodName";
@@ -27,6 +30,10 @@ public class XMLSerializerUtils {
     private static final String TAG_FAULT_STRING = "faultString";
 
     private static final int MAX_SCRUB_CHARACTERS = 5000;
+    private static final byte[] XML_DECLARATION_START = {'<', '?', 'x', 'm', 'l'};
+
+    // Creating a parser goes through a factory lookup, so each thread keeps its own parser and resets its input
+    private static final ThreadLocal<XmlPullParser> PULL_PARSER = new ThreadLocal<>();
 
     public static StringWriter serialize(XmlSerializer serializer, XMLRPC method, Object[] params)
             throws IOException {
@@ -53,12 +60,61 @@ public class XMLSerializerUtils {
         return bodyWriter;
     }
 
+    /**
+     * Writes the method call straight to the sink, see {@link XMLRPCSerializer#serialize(BufferedSink, Object)}.
+     */
+    public static void serialize(BufferedSink sink, XMLRPC method, Object[] params) throws IOException {
+        sink.writeUtf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sink.writeUtf8("<" + TAG_METHOD_CALL + ">");
+        // set method name
+        sink.writeUtf8("<" + TAG_METHOD_NAME + ">");
+        XMLRPCSerializer.writeText(sink, method.toString());
+        sink.writeUtf8("</" + TAG_METHOD_NAME + ">");
+        if (params != null && params.length != 0) {
+            // set method params
+            sink.writeUtf8("<" + TAG_PARAMS + ">");
+            for (Object param : params) {
+                sink.writeUtf8("<" + TAG_PARAM + "><" + XMLRPCSerializer.TAG_VALUE + ">");
+                XMLRPCSerializer.serialize(sink, param);
+                sink.writeUtf8("</" + XMLRPCSerializer.TAG_VALUE + "></" + TAG_PARAM + ">");
+            }
+            sink.writeUtf8("</" + TAG_PARAMS + ">");
+        }
+        sink.writeUtf8("</" + TAG_METHOD_CALL + ">");
+    }
+
     public static Object deserialize(InputStream is)
             throws IOException, XmlPullParserException, XMLRPCException {
-        // setup pull parser
-        XmlPullParser pullParser = XmlPullParserFactory.newInstance().newPullParser();
-        pullParser.setInput(is, "UTF-8");
+        return deserialize(is, "UTF-8");
+    }
+
+    /**
+     * @param encoding encoding of the response, or null to let the parser detect it from the XML declaration
+     */
+    public static Object deserialize(InputStream is, @Nullable String encoding)
+            throws IOException, XmlPullParserException, XMLRPCException {
+        return deserialize(is, encoding, null);
+    }
+
+    /**
+     * @param encoding encoding of the response, or null to let the parser detect it from the XML declaration
+     * @param resultReader typed reader for the result, or null to read it as a generic Map/Object[] tree
+     */
+    public static Object deserialize(InputStream is, @Nullable String encoding,
+                                     @Nullable XMLRPCValueReader<?> resultReader)
+            throws IOException, XmlPullParserException, XMLRPCException {
+        XmlPullParser pullParser = getPullParser();
+        pullParser.setInput(is, encoding);
+        try {
+            return deserialize(pullParser, resultReader);
+        } finally {
+            // Don't keep a reference to the response until the next one is parsed on this thread
+            pullParser.setInput((Reader) null);
+        }
+    }
 
+    private static Object deserialize(XmlPullParser pullParser, @Nullable XMLRPCValueReader<?> resultReader)
+            throws IOException, XmlPullParserException, XMLRPCException {
         // lets start pulling...
         pullParser.nextTag();
         pullParser.require(XmlPullParser.START_TAG, null, TAG_METHOD_RESPONSE);
@@ -72,6 +128,9 @@ public class XMLSerializerUtils {
             pullParser.nextTag(); // TAG_VALUE (<value>)
             // no parser.require() here since its called in XMLRPCSerializer.deserialize() below
             // deserialize result
+            if (resultReader != null) {
+                return resultReader.read(pullParser);
+            }
             return XMLRPCSerializer.deserialize(pullParser);
         } else if (tag.equals(TAG_FAULT)) {
             // fault response
@@ -87,36 +146,72 @@ public class XMLSerializerUtils {
         }
     }
 
+    /**
+     * Many WordPress configs can output junk before the xml response (php warnings for example), this skips it.
+     *
+     * @return a stream over the response starting at the XML declaration, sharing the given buffer
+     */
+    public static InputStream scrubXmlResponse(@NonNull byte[] data) {
+        int xmlStart = findXmlStart(data, 0, data.length);
+        return new ByteArrayInputStream(data, xmlStart, data.length - xmlStart);
+    }
+
+    /**
+     * Stream version of {@link #scrubXmlResponse(byte[])}, only the first {@code MAX_SCRUB_CHARACTERS} bytes are
+     * buffered while looking for the XML declaration.
+     */
     public static InputStream scrubXmlResponse(InputStream is) throws IOException {
-        // Many WordPress configs can output junk before the xml response (php warnings for example), this cleans it.
-        int bomCheck = -1;
-        int stopper = 0;
-        while ((bomCheck = is.read()) != -1 && stopper <= MAX_SCRUB_CHARACTERS) {
-            stopper++;
-            String snippet = "";
-            // 60 == '<' character
-            if (bomCheck == 60) {
-                for (int i = 0; i < 4; i++) {
-                    byte[] chunk = new byte[1];
-                    int numRead = is.read(chunk);
-                    if (numRead > 0) {
-                        snippet += new String(chunk, "UTF-8");
-                    }
-                }
-                if (snippet.equals("?xml")) {
-                    // it's all good, add xml tag back and start parsing
-                    String start = "<" + snippet;
-                    List<InputStream> streams = Arrays.asList(new ByteArrayInputStream(start.getBytes()), is);
-                    is = new SequenceInputStream(Collections.enumeration(streams));
-                    break;
-                } else {
-                    // keep searching...
-                    List<InputStream> streams = Arrays.asList(new ByteArrayInputStream(snippet.getBytes()), is);
-                    is = new SequenceInputStream(Collections.enumeration(streams));
-                }
-            }
+        if (!is.markSupported()) {
+            is = new BufferedInputStream(is);
         }
+        byte[] head = new byte[MAX_SCRUB_CHARACTERS + XML_DECLARATION_START.length];
+        is.mark(head.length);
+        int headLength = 0;
+        int numRead;
+        while (headLength < head.length && (numRead = is.read(head, headLength, head.length - headLength)) != -1) {
+            headLength += numRead;
+        }
+        is.reset();
 
+        long toSkip = findXmlStart(head, 0, headLength);
+        while (toSkip > 0) {
+            long skipped = is.skip(toSkip);
+            if (skipped <= 0) {
+                break;
+            }
+            toSkip -= skipped;
+        }
         return is;
     }
+
+    /**
+     * @return the index of the XML declaration if it starts within the first {@code MAX_SCRUB_CHARACTERS} bytes,
+     * otherwise {@code offset} so that the parser reports what's wrong with the response
+     */
+    static int findXmlStart(byte[] data, int offset, int length) {
+        int end = offset + length - XML_DECLARATION_START.length;
+        int scrubEnd = Math.min(end, offset + MAX_SCRUB_CHARACTERS);
+        for (int i = offset; i <= scrubEnd; i++) {
+            if (data[i] != '<') {
+                continue;
+            }
+            int j = 1;
+            while (j < XML_DECLARATION_START.length && data[i + j] == XML_DECLARATION_START[j]) {
+                j++;
+            }
+            if (j == XML_DECLARATION_START.length) {
+                return i;
+            }
+        }
+        return offset;
+    }
+
+    private static XmlPullParser getPullParser() throws XmlPullParserException {
+        XmlPullParser pullParser = PULL_PARSER.get();
+        if (pullParser == null) {
+            pullParser = XmlPullParserFactory.newInstance().newPullParser();
+            PULL_PARSER.set(pullParser);
+        }
+        return pullParser;
+    }
 }
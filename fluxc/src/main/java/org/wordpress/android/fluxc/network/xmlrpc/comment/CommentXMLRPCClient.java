@@ -9,6 +9,7 @@ import com.android.volley.Response.Listener;
 import org.apache.commons.text.StringEscapeUtils;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.CommentActionBuilder;
+import org.wordpress.android.fluxc.generated.CommentXMLRPCResponseStructReader;
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.model.CommentModel;
 import org.wordpress.android.fluxc.model.CommentStatus;
@@ -20,13 +21,14 @@ import org.wordpress.android.fluxc.network.HTTPAuthManager;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.xmlrpc.BaseXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCRequest;
-import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCUtils;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCValueReaders;
 import org.wordpress.android.fluxc.store.CommentStore.CommentError;
 import org.wordpress.android.fluxc.store.CommentStore.CommentErrorType;
 import org.wordpress.android.fluxc.store.CommentStore.FetchCommentsResponsePayload;
 import org.wordpress.android.fluxc.store.CommentStore.RemoteCommentResponsePayload;
 import org.wordpress.android.fluxc.utils.CommentErrorUtils;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -58,9 +60,10 @@ public class CommentXMLRPCClient extends BaseXMLRPCClient {
         params.add(commentParams);
         final XMLRPCRequest request = new XMLRPCRequest(
                 site.getXmlRpcUrl(), XMLRPC.GET_COMMENTS, params,
-                new Listener<Object>() {
+                XMLRPCValueReaders.listOf(new CommentXMLRPCResponseStructReader()),
+                new Listener<List<CommentXMLRPCResponse>>() {
                     @Override
-                    public void onResponse(Object response) {
+                    public void onResponse(List<CommentXMLRPCResponse> response) {
                         List<CommentModel> comments = commentsResponseToCommentList(response, site);
                         FetchCommentsResponsePayload payload = new FetchCommentsResponsePayload(comments, site, number,
                                 offset);
@@ -124,9 +127,9 @@ public class CommentXMLRPCClient extends BaseXMLRPCClient {
         params.add(remoteCommentId);
         final XMLRPCRequest request = new XMLRPCRequest(
                 site.getXmlRpcUrl(), XMLRPC.GET_COMMENT, params,
-                new Listener<Object>() {
+                new CommentXMLRPCResponseStructReader(), new Listener<CommentXMLRPCResponse>() {
                     @Override
-                    public void onResponse(Object response) {
+                    public void onResponse(CommentXMLRPCResponse response) {
                         CommentModel updatedComment = commentResponseToComment(response, site);
                         RemoteCommentResponsePayload payload = new RemoteCommentResponsePayload(updatedComment);
                         mDispatcher.dispatch(CommentActionBuilder.newFetchedCommentAction(payload));
@@ -304,14 +307,14 @@ public class CommentXMLRPCClient extends BaseXMLRPCClient {
         return status;
     }
 
-    private List<CommentModel> commentsResponseToCommentList(Object response, SiteModel site) {
+    private List<CommentModel> commentsResponseToCommentList(List<CommentXMLRPCResponse> response,
+                                                             SiteModel site) {
         List<CommentModel> comments = new ArrayList<>();
-        if (!(response instanceof Object[])) {
+        if (response == null) {
             return comments;
         }
-        Object[] responseArray = (Object[]) response;
-        for (Object commentObject : responseArray) {
-            CommentModel commentModel = commentResponseToComment(commentObject, site);
+        for (CommentXMLRPCResponse commentResponse : response) {
+            CommentModel commentModel = commentResponseToComment(commentResponse, site);
             if (commentModel != null) {
                 comments.add(commentModel);
             }
@@ -319,33 +322,31 @@ public class CommentXMLRPCClient extends BaseXMLRPCClient {
         return comments;
     }
 
-    private CommentModel commentResponseToComment(Object commentObject, SiteModel site) {
-        if (!(commentObject instanceof HashMap)) {
+    private CommentModel commentResponseToComment(CommentXMLRPCResponse commentResponse, SiteModel site) {
+        if (commentResponse == null) {
             return null;
         }
-        HashMap<?, ?> commentMap = (HashMap<?, ?>) commentObject;
         CommentModel comment = new CommentModel();
 
-        comment.setRemoteCommentId(XMLRPCUtils.safeGetMapValue(commentMap, "comment_id", 0L));
+        comment.setRemoteCommentId(commentResponse.comment_id);
         comment.setLocalSiteId(site.getId());
         comment.setRemoteSiteId(site.getSelfHostedSiteId());
-        String stringStatus = XMLRPCUtils.safeGetMapValue(commentMap, "status", "approve");
+        String stringStatus = commentResponse.status != null ? commentResponse.status : "approve";
         comment.setStatus(getCommentStatusFromXMLRPCStatusString(stringStatus).toString());
-        Date datePublished = XMLRPCUtils.safeGetMapValue(commentMap, "date_created_gmt", new Date());
+        Date datePublished = commentResponse.date_created_gmt != null ? commentResponse.date_created_gmt : new Date();
         comment.setDatePublished(DateTimeUtils.iso8601UTCFromDate(datePublished));
-        comment.setContent(XMLRPCUtils.safeGetMapValue(commentMap, "content", ""));
-        comment.setRemoteParentCommentId(XMLRPCUtils.safeGetMapValue(commentMap, "parent", 0L));
+        comment.setContent(StringUtils.notNullStr(commentResponse.content));
+        comment.setRemoteParentCommentId(commentResponse.parent);
 
         // Author
-        comment.setAuthorUrl(XMLRPCUtils.safeGetMapValue(commentMap, "author_url", ""));
-        comment.setAuthorName(StringEscapeUtils.unescapeHtml4(XMLRPCUtils.safeGetMapValue(commentMap, "author", "")));
-        comment.setAuthorEmail(XMLRPCUtils.safeGetMapValue(commentMap, "author_email", ""));
+        comment.setAuthorUrl(StringUtils.notNullStr(commentResponse.author_url));
+        comment.setAuthorName(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(commentResponse.author)));
+        comment.setAuthorEmail(StringUtils.notNullStr(commentResponse.author_email));
         // TODO: comment.setAuthorProfileImageUrl(); - get the hash from the email address?
 
         // Post
-        comment.setRemotePostId(XMLRPCUtils.safeGetMapValue(commentMap, "post_id", 0L));
-        comment.setPostTitle(StringEscapeUtils.unescapeHtml4(XMLRPCUtils.safeGetMapValue(commentMap,
-                "post_title", "")));
+        comment.setRemotePostId(commentResponse.post_id);
+        comment.setPostTitle(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(commentResponse.post_title)));
 
         return comment;
     }
@@ -0,0 +1,22 @@
+package org.wordpress.android.fluxc.network.xmlrpc.comment;
+
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+import java.util.Date;
+
+/**
+ * Members of the wp.getComment(s) comment struct used by {@link CommentXMLRPCClient}, other members are skipped.
+ */
+@XMLRPCStruct
+public class CommentXMLRPCResponse {
+    public long comment_id;
+    public long parent;
+    public String status;
+    public Date date_created_gmt;
+    public String content;
+    public String author;
+    public String author_url;
+    public String author_email;
+    public long post_id;
+    public String post_title;
+}
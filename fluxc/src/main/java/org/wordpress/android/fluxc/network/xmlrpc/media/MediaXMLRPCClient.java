@@ -2,7 +2,6 @@ package org.wordpress.android.fluxc.network.xmlrpc.media;
 
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
-import android.util.Base64;
 
 import com.android.volley.RequestQueue;
 import com.android.volley.Response.Listener;
@@ -11,6 +10,7 @@ import com.android.volley.VolleyError;
 import org.apache.commons.text.StringEscapeUtils;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.generated.MediaActionBuilder;
+import org.wordpress.android.fluxc.generated.MediaXMLRPCResponseStructReader;
 import org.wordpress.android.fluxc.generated.UploadActionBuilder;
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.model.MediaModel;
@@ -21,12 +21,14 @@ import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
 import org.wordpress.android.fluxc.network.BaseUploadRequestBody.ProgressListener;
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
-import org.wordpress.android.fluxc.network.HTTPAuthModel;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler.Upload;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.xmlrpc.BaseXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCException;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCFault;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCRequest;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCValueReaders;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLSerializerUtils;
 import org.wordpress.android.fluxc.store.MediaStore.FetchMediaListResponsePayload;
 import org.wordpress.android.fluxc.store.MediaStore.MediaError;
@@ -37,19 +39,15 @@ import org.wordpress.android.fluxc.utils.MediaUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
-import org.wordpress.android.util.MapUtils;
+import org.wordpress.android.util.StringUtils;
 import org.xmlpull.v1.XmlPullParserException;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -68,13 +66,11 @@ import okhttp3.ResponseBody;
 
 @Singleton
 public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListener {
-    private static final String[] REQUIRED_UPLOAD_RESPONSE_FIELDS = {
-            "attachment_id", "parent", "title", "caption", "description", "thumbnail", "date_created_gmt", "link"};
-
     private OkHttpClient mOkHttpClient;
     // this will hold which media is being uploaded by which call, in order to be able
     // to monitor multiple uploads
     private ConcurrentHashMap<Integer, Call> mCurrentUploadCalls = new ConcurrentHashMap<>();
+    private MediaUploadScheduler mUploadScheduler;
 
     public MediaXMLRPCClient(Dispatcher dispatcher, RequestQueue requestQueue, OkHttpClient okHttpClient,
                              UserAgent userAgent, HTTPAuthManager httpAuthManager) {
@@ -89,6 +85,13 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         }
     }
 
+    /**
+     * Sets the scheduler deciding when uploads start. Without a scheduler, uploads start right away.
+     */
+    public void setUploadScheduler(MediaUploadScheduler uploadScheduler) {
+        mUploadScheduler = uploadScheduler;
+    }
+
     public void pushMedia(final SiteModel site, final MediaModel media) {
         List<Object> params = getBasicParams(site, media);
         params.add(getEditMediaFields(media));
@@ -162,12 +165,7 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         HttpUrl url = urlBuilder.build();
 
         // Use the HTTP Auth Manager to check if we need HTTP Auth for this url
-        HTTPAuthModel httpAuthModel = mHTTPAuthManager.getHTTPAuthModel(xmlrpcUrl.toString());
-        String authString = null;
-        if (httpAuthModel != null) {
-            String creds = String.format("%s:%s", httpAuthModel.getUsername(), httpAuthModel.getPassword());
-            authString = "Basic " + Base64.encodeToString(creds.getBytes(), Base64.NO_WRAP);
-        }
+        String authString = mHTTPAuthManager.getAuthorizationHeader(xmlrpcUrl.toString());
 
         Builder builder = new Request.Builder()
                 .url(url)
@@ -178,31 +176,26 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
             // Add the authorization header
             builder.addHeader("Authorization", authString);
         }
-        Request request = builder.build();
-
-        Call call = mOkHttpClient.newCall(request);
-        mCurrentUploadCalls.put(media.getId(), call);
-
-        AppLog.d(T.MEDIA, "starting upload for: " + media.getId());
-        call.enqueue(new Callback() {
+        final Request request = builder.build();
+        final Callback callback = new Callback() {
             @Override
             public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
                 if (response.code() == HttpURLConnection.HTTP_OK) {
                     // HTTP_OK code doesn't mean the upload is successful, XML-RPC API returns code 200 with an
                     // xml field "faultCode" on error.
                     try {
-                        Map responseMap = getMapFromUploadResponse(response);
-                        if (responseMap != null) {
+                        MediaXMLRPCResponse uploadResponse = getUploadResponse(response);
+                        if (uploadResponse != null) {
                             AppLog.d(T.MEDIA, "media upload successful, local id=" + media.getId());
-                            if (isDeprecatedUploadResponse(responseMap)) {
-                                media.setMediaId(MapUtils.getMapLong(responseMap, "id"));
+                            if (isDeprecatedUploadResponse(uploadResponse)) {
+                                media.setMediaId(uploadResponse.id);
                                 // Upload media response only has `type, id, file, url` fields whereas we need
                                 // `parent, title, caption, description, videopress_shortcode, thumbnail,
                                 // date_created_gmt, link, width, height` fields, so we need to make a fetch for them
                                 // This only applies to WordPress sites running versions older than WordPress 4.4
                                 fetchMedia(site, media, true);
                             } else {
-                                MediaModel responseMedia = getMediaFromXmlrpcResponse(responseMap);
+                                MediaModel responseMedia = getMediaFromXmlrpcResponse(uploadResponse);
                                 // Retain local IDs
                                 responseMedia.setId(media.getId());
                                 responseMedia.setLocalSiteId(site.getId());
@@ -231,18 +224,48 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
             @Override
             public void onFailure(@NonNull Call call, @NonNull IOException e) {
                 AppLog.w(T.MEDIA, "media upload failed: " + e);
-                if (!mCurrentUploadCalls.containsKey(media.getId())) {
+                if (mCurrentUploadCalls.get(media.getId()) != call) {
                     // This call has already been removed from the in-progress list - probably because it was cancelled
-                    // In that case this has already been handled and there's nothing to do
+                    // or paused. In that case this has already been handled and there's nothing to do
                     return;
                 }
 
                 MediaError error = MediaError.fromIOException(e);
                 notifyMediaUploaded(media, error);
             }
+        };
+
+        if (mUploadScheduler == null) {
+            startUpload(media, request, callback);
+            return;
+        }
+        AppLog.d(T.MEDIA, "scheduling upload for: " + media.getId());
+        mUploadScheduler.schedule(media, new Upload() {
+            @Override
+            public void start() {
+                startUpload(media, request, callback);
+            }
+
+            @Override
+            public void pause() {
+                // Removing the call first tells its callback that the failure isn't an error
+                Call call = mCurrentUploadCalls.remove(media.getId());
+                if (call != null) {
+                    AppLog.d(T.MEDIA, "pausing upload for: " + media.getId());
+                    call.cancel();
+                }
+            }
         });
     }
 
+    private void startUpload(MediaModel media, Request request, Callback callback) {
+        Call call = mOkHttpClient.newCall(request);
+        mCurrentUploadCalls.put(media.getId(), call);
+
+        AppLog.d(T.MEDIA, "starting upload for: " + media.getId());
+        call.enqueue(callback);
+    }
+
     /**
      * ref: https://codex.wordpress.org/XML-RPC_WordPress_API/Media#wp.getMediaLibrary
      */
@@ -259,17 +282,17 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         params.add(queryParams);
 
         add(new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_MEDIA_LIBRARY, params,
-                new Listener<Object[]>() {
+                XMLRPCValueReaders.listOf(new MediaXMLRPCResponseStructReader()),
+                new Listener<List<MediaXMLRPCResponse>>() {
                     @Override
-                    public void onResponse(Object[] response) {
+                    public void onResponse(List<MediaXMLRPCResponse> response) {
                         List<MediaModel> mediaList = getMediaListFromXmlrpcResponse(response, site.getId());
                         if (mediaList != null) {
                             AppLog.v(T.MEDIA, "Fetched media list for site via XMLRPC.GET_MEDIA_LIBRARY");
                             boolean canLoadMore = mediaList.size() == number;
                             notifyMediaListFetched(site, mediaList, offset > 0, canLoadMore, mimeType);
                         } else {
-                            AppLog.w(T.MEDIA, "could not parse XMLRPC.GET_MEDIA_LIBRARY response: "
-                                    + Arrays.toString(response));
+                            AppLog.w(T.MEDIA, "could not parse XMLRPC.GET_MEDIA_LIBRARY response");
                             MediaError error = new MediaError(MediaErrorType.PARSE_ERROR);
                             notifyMediaListFetched(site, error, mimeType);
                         }
@@ -306,11 +329,11 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
 
         List<Object> params = getBasicParams(site, media);
         add(new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_MEDIA_ITEM, params,
-                new Listener<Object>() {
+                new MediaXMLRPCResponseStructReader(), new Listener<MediaXMLRPCResponse>() {
                     @Override
-                    public void onResponse(Object response) {
+                    public void onResponse(MediaXMLRPCResponse response) {
                         AppLog.v(T.MEDIA, "Fetched media for site via XMLRPC.GET_MEDIA_ITEM");
-                        MediaModel responseMedia = getMediaFromXmlrpcResponse((HashMap) response);
+                        MediaModel responseMedia = getMediaFromXmlrpcResponse(response);
                         if (responseMedia != null) {
                             AppLog.v(T.MEDIA, "Fetched media with remoteId= " + media.getMediaId()
                                               + " localId=" + media.getId());
@@ -393,6 +416,13 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
             return;
         }
 
+        // cancel queued upload if necessary
+        if (mUploadScheduler != null && mUploadScheduler.cancel(media.getId())) {
+            AppLog.d(T.MEDIA, "Canceled queued upload: " + media.getFileName());
+            notifyMediaUploadCanceled(media);
+            return;
+        }
+
         // cancel in-progress upload if necessary
         Call correspondingCall = mCurrentUploadCalls.get(media.getId());
         if (correspondingCall != null && correspondingCall.isExecuted() && !correspondingCall.isCanceled()) {
@@ -407,6 +437,9 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
 
     private void removeCallFromCurrentUploadsMap(int id) {
         mCurrentUploadCalls.remove(id);
+        if (mUploadScheduler != null) {
+            mUploadScheduler.onUploadFinished(id);
+        }
         AppLog.d(T.MEDIA, "mediaXMLRPCClient: removed id: " + id + " from current uploads, remaining: "
                 + mCurrentUploadCalls.size());
     }
@@ -469,14 +502,12 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
     // Utility methods
     //
 
-    // media list responses should be of type Object[] with each media item in the array represented by a HashMap
-    private List<MediaModel> getMediaListFromXmlrpcResponse(Object[] response, int localSiteId) {
+    private List<MediaModel> getMediaListFromXmlrpcResponse(List<MediaXMLRPCResponse> response, int localSiteId) {
         if (response == null) return null;
 
         List<MediaModel> responseMedia = new ArrayList<>();
-        for (Object mediaObject : response) {
-            if (!(mediaObject instanceof HashMap)) continue;
-            MediaModel media = getMediaFromXmlrpcResponse((HashMap) mediaObject);
+        for (MediaXMLRPCResponse mediaResponse : response) {
+            MediaModel media = getMediaFromXmlrpcResponse(mediaResponse);
             if (media != null) {
                 media.setLocalSiteId(localSiteId);
                 responseMedia.add(media);
@@ -486,46 +517,47 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         return responseMedia;
     }
 
-    private MediaModel getMediaFromXmlrpcResponse(Map response) {
-        if (response == null || response.isEmpty()) return null;
+    private MediaModel getMediaFromXmlrpcResponse(MediaXMLRPCResponse response) {
+        if (response == null) return null;
 
         MediaModel media = new MediaModel();
-        media.setMediaId(MapUtils.getMapLong(response, "attachment_id"));
-        media.setPostId(MapUtils.getMapLong(response, "parent"));
-        media.setTitle(StringEscapeUtils.unescapeHtml4(MapUtils.getMapStr(response, "title")));
-        media.setCaption(StringEscapeUtils.unescapeHtml4(MapUtils.getMapStr(response, "caption")));
-        media.setDescription(StringEscapeUtils.unescapeHtml4(MapUtils.getMapStr(response, "description")));
-        media.setVideoPressGuid(MapUtils.getMapStr(response, "videopress_shortcode"));
-        media.setThumbnailUrl(MapUtils.getMapStr(response, "thumbnail"));
-        Date uploadDate = MapUtils.getMapDate(response, "date_created_gmt");
-        media.setUploadDate(DateTimeUtils.iso8601UTCFromDate(uploadDate));
-        String link = MapUtils.getMapStr(response, "link");
+        media.setMediaId(response.attachment_id);
+        media.setPostId(response.parent);
+        media.setTitle(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(response.title)));
+        media.setCaption(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(response.caption)));
+        media.setDescription(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(response.description)));
+        media.setVideoPressGuid(StringUtils.notNullStr(response.videopress_shortcode));
+        media.setThumbnailUrl(StringUtils.notNullStr(response.thumbnail));
+        media.setUploadDate(DateTimeUtils.iso8601UTCFromDate(response.date_created_gmt));
+        String link = StringUtils.notNullStr(response.link);
         String fileExtension = MediaUtils.getExtension(link);
         media.setUrl(link);
         media.setFileName(MediaUtils.getFileName(link));
         media.setFileExtension(fileExtension);
         media.setMimeType(MediaUtils.getMimeTypeForExtension(fileExtension));
 
-        Object metadataObject = response.get("metadata");
-        if (metadataObject instanceof Map) {
-            Map metadataMap = (Map) metadataObject;
-            media.setWidth(MapUtils.getMapInt(metadataMap, "width"));
-            media.setHeight(MapUtils.getMapInt(metadataMap, "height"));
-            media.setFileUrlMediumSize(getFileUrlForSize(link, metadataMap, "medium"));
-            media.setFileUrlMediumLargeSize(getFileUrlForSize(link, metadataMap, "medium_large"));
-            media.setFileUrlLargeSize(getFileUrlForSize(link, metadataMap, "large"));
+        MediaXMLRPCResponse.Metadata metadata = response.metadata;
+        if (metadata != null) {
+            media.setWidth(metadata.width);
+            media.setHeight(metadata.height);
+            MediaXMLRPCResponse.Sizes sizes = metadata.sizes;
+            if (sizes != null) {
+                media.setFileUrlMediumSize(getFileUrlForSize(link, sizes.medium));
+                media.setFileUrlMediumLargeSize(getFileUrlForSize(link, sizes.medium_large));
+                media.setFileUrlLargeSize(getFileUrlForSize(link, sizes.large));
+            }
         }
 
         media.setUploadState(MediaUploadState.UPLOADED);
         return media;
     }
 
-    private String getFileUrlForSize(String mediaUrl, Map metadataMap, String size) {
-        if (metadataMap == null || TextUtils.isEmpty(mediaUrl) || !mediaUrl.contains("/")) {
+    private String getFileUrlForSize(String mediaUrl, MediaXMLRPCResponse.Size size) {
+        if (size == null || TextUtils.isEmpty(mediaUrl) || !mediaUrl.contains("/")) {
             return null;
         }
 
-        String fileName = getFileForSize(metadataMap, size);
+        String fileName = size.file;
         if (TextUtils.isEmpty(fileName)) {
             return null;
         }
@@ -537,22 +569,6 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         return baseURL + fileName;
     }
 
-    private String getFileForSize(Map metadataMap, String size) {
-        if (metadataMap == null) {
-            return null;
-        }
-        Object sizesObject = metadataMap.get("sizes");
-        if (sizesObject instanceof Map) {
-            Map sizesMap = (Map) sizesObject;
-            Object requestedSizeObject = sizesMap.get(size);
-            if (requestedSizeObject instanceof Map) {
-                Map requestedSizeMap = (Map) requestedSizeObject;
-                return MapUtils.getMapStr(requestedSizeMap, "file");
-            }
-        }
-        return null;
-    }
-
     private MediaError getMediaErrorFromXMLRPCException(XMLRPCException exception) {
         MediaError mediaError = new MediaError(MediaErrorType.GENERIC_ERROR);
         mediaError.message = exception.getLocalizedMessage();
@@ -569,33 +585,31 @@ public class MediaXMLRPCClient extends BaseXMLRPCClient implements ProgressListe
         return mediaError;
     }
 
-    private static Map getMapFromUploadResponse(Response response) throws XMLRPCException {
+    private static MediaXMLRPCResponse getUploadResponse(Response response) throws XMLRPCException {
         try {
             ResponseBody responseBody = response.body();
             if (responseBody == null) {
                 AppLog.e(T.MEDIA, "Failed to parse XMLRPC.wpUploadFile response - body was empty: " + response);
                 return null;
             }
-            String data = new String(responseBody.bytes(), "UTF-8");
-            InputStream is = new ByteArrayInputStream(data.getBytes(Charset.forName("UTF-8")));
-            Object responseObject = XMLSerializerUtils.deserialize(XMLSerializerUtils.scrubXmlResponse(is));
-            if (responseObject instanceof Map) {
-                return (Map) responseObject;
-            }
+            InputStream is = XMLSerializerUtils.scrubXmlResponse(responseBody.bytes());
+            return (MediaXMLRPCResponse) XMLSerializerUtils.deserialize(is, "UTF-8",
+                    new MediaXMLRPCResponseStructReader());
         } catch (IOException | XmlPullParserException e) {
             AppLog.e(T.MEDIA, "Failed to parse XMLRPC.wpUploadFile response: " + response);
             return null;
         }
-        return null;
     }
 
-    private static boolean isDeprecatedUploadResponse(Map responseMap) {
-        for (String requiredResponseField : REQUIRED_UPLOAD_RESPONSE_FIELDS) {
-            if (!responseMap.containsKey(requiredResponseField)) {
-                return true;
-            }
-        }
-        return false;
+    private static boolean isDeprecatedUploadResponse(MediaXMLRPCResponse uploadResponse) {
+        // Members missing from the struct are left to their default value
+        return uploadResponse.attachment_id == 0
+               || uploadResponse.title == null
+               || uploadResponse.caption == null
+               || uploadResponse.description == null
+               || uploadResponse.thumbnail == null
+               || uploadResponse.date_created_gmt == null
+               || uploadResponse.link == null;
     }
 
     private Map<String, Object> getEditMediaFields(final MediaModel media) {
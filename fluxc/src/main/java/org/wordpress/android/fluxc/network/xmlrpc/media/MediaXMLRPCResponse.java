@@ -0,0 +1,45 @@
+package org.wordpress.android.fluxc.network.xmlrpc.media;
+
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+import java.util.Date;
+
+/**
+ * Members of the media item struct (wp.getMediaItem, wp.getMediaLibrary and wp.uploadFile) used by
+ * {@link MediaXMLRPCClient}, other members are skipped.
+ */
+@XMLRPCStruct
+public class MediaXMLRPCResponse {
+    @XMLRPCStruct
+    public static class Metadata {
+        public int width;
+        public int height;
+        public Sizes sizes;
+    }
+
+    @XMLRPCStruct
+    public static class Sizes {
+        public Size medium;
+        public Size medium_large;
+        public Size large;
+    }
+
+    @XMLRPCStruct
+    public static class Size {
+        public String file;
+    }
+
+    // Only returned by wp.uploadFile on WordPress versions older than 4.4, instead of the media item struct
+    public long id;
+
+    public long attachment_id;
+    public long parent;
+    public String title;
+    public String caption;
+    public String description;
+    public String videopress_shortcode;
+    public String thumbnail;
+    public Date date_created_gmt;
+    public String link;
+    public Metadata metadata;
+}
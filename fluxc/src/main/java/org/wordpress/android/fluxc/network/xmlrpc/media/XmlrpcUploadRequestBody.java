@@ -1,20 +1,22 @@
 package org.wordpress.android.fluxc.network.xmlrpc.media;
 
 import android.support.annotation.NonNull;
-import android.util.Base64;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.wordpress.android.fluxc.model.MediaModel;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.fluxc.network.BaseUploadRequestBody;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Locale;
 
 import okhttp3.MediaType;
 import okio.BufferedSink;
 import okio.Okio;
+import okio.Utf8;
 
 public class XmlrpcUploadRequestBody extends BaseUploadRequestBody {
     private static final MediaType MEDIA_TYPE = MediaType.parse("text/xml; charset=utf-8");
@@ -37,6 +39,18 @@ public class XmlrpcUploadRequestBody extends BaseUploadRequestBody {
     private static final String APPEND_XML =
             "</base64></value></member></struct></value></param></params></methodCall>";
 
+    /**
+     * The file is encoded the same way as {@code Base64.encode(bytes, Base64.DEFAULT)}: padded, with a '\n' after
+     * every 76 characters (19 groups of 3 bytes) and after the last line.
+     */
+    private static final byte[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+    private static final int BASE64_LINE_GROUPS = 19;
+    private static final int BASE64_LINE_INPUT_SIZE = BASE64_LINE_GROUPS * 3;
+    private static final int BASE64_LINE_OUTPUT_SIZE = BASE64_LINE_GROUPS * 4 + 1;
+    // Whole lines only, so that each chunk can be encoded on its own
+    private static final int CHUNK_LINES = 64;
+
     private final String mPrependString;
     private long mMediaSize;
     private long mContentSize = -1;
@@ -75,28 +89,25 @@ public class XmlrpcUploadRequestBody extends BaseUploadRequestBody {
     @Override
     public long contentLength() throws IOException {
         if (mContentSize == -1) {
-            mContentSize = getMediaBase64EncodedSize() + mPrependString.length() + APPEND_XML.length();
+            mContentSize = getBase64EncodedSize(new File(getMedia().getFilePath()).length())
+                    + Utf8.size(mPrependString) + Utf8.size(APPEND_XML);
         }
         return mContentSize;
     }
 
-    private long getMediaBase64EncodedSize() throws IOException {
-        FileInputStream fis = new FileInputStream(getMedia().getFilePath());
-        int totalSize = 0;
-        try {
-            byte[] buffer = new byte[3600];
-            int length;
-            while ((length = fis.read(buffer)) > 0) {
-                totalSize += Base64.encodeToString(buffer, 0, length, Base64.DEFAULT).length();
-            }
-        } finally {
-            fis.close();
-        }
-        return totalSize;
+    /**
+     * @return the length of {@code size} bytes encoded in Base64 with the {@code Base64.DEFAULT} flags
+     */
+    static long getBase64EncodedSize(long size) {
+        long groups = (size + 2) / 3;
+        long lines = (groups + BASE64_LINE_GROUPS - 1) / BASE64_LINE_GROUPS;
+        return groups * 4 + lines;
     }
 
     @Override
     public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        // The body is written again when a paused upload is started again
+        mMediaBytesWritten = 0;
         CountingSink countingSink = new CountingSink(sink);
         BufferedSink bufferedSink = Okio.buffer(countingSink);
 
@@ -104,16 +115,15 @@ public class XmlrpcUploadRequestBody extends BaseUploadRequestBody {
         bufferedSink.writeUtf8(mPrependString);
 
         // write file to xml
-
         FileInputStream fis = new FileInputStream(getMedia().getFilePath());
         try {
-            byte[] buffer = new byte[3600]; // you must use a 24bit multiple
+            byte[] buffer = new byte[CHUNK_LINES * BASE64_LINE_INPUT_SIZE];
+            byte[] encoded = new byte[CHUNK_LINES * BASE64_LINE_OUTPUT_SIZE];
             int length;
-            String chunk;
-            while ((length = fis.read(buffer)) > 0) {
-                chunk = Base64.encodeToString(buffer, 0, length, Base64.DEFAULT);
+            while ((length = readFully(fis, buffer)) > 0) {
+                int encodedLength = encodeBase64(buffer, length, encoded);
                 mMediaBytesWritten += length;
-                bufferedSink.writeUtf8(chunk);
+                bufferedSink.write(encoded, 0, encodedLength);
             }
         } finally {
             fis.close();
@@ -124,4 +134,53 @@ public class XmlrpcUploadRequestBody extends BaseUploadRequestBody {
 
         bufferedSink.flush();
     }
+
+    /**
+     * Fills the buffer, unless the end of the stream is reached, so that only the last chunk can end with a partial
+     * line.
+     *
+     * @return the number of bytes read, 0 at the end of the stream
+     */
+    private static int readFully(InputStream is, byte[] buffer) throws IOException {
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = is.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * Encodes the first {@code length} bytes of {@code input} into {@code output}.
+     *
+     * @return the number of bytes written to {@code output}
+     */
+    static int encodeBase64(byte[] input, int length, byte[] output) {
+        int ip = 0;
+        int op = 0;
+        int groups = 0;
+        while (length - ip >= 3) {
+            int bits = (input[ip++] & 0xff) << 16 | (input[ip++] & 0xff) << 8 | (input[ip++] & 0xff);
+            output[op++] = BASE64_ALPHABET[(bits >> 18) & 0x3f];
+            output[op++] = BASE64_ALPHABET[(bits >> 12) & 0x3f];
+            output[op++] = BASE64_ALPHABET[(bits >> 6) & 0x3f];
+            output[op++] = BASE64_ALPHABET[bits & 0x3f];
+            if (++groups == BASE64_LINE_GROUPS) {
+                output[op++] = '\n';
+                groups = 0;
+            }
+        }
+        if (length - ip > 0) {
+            int bits = (input[ip++] & 0xff) << 16 | (ip < length ? (input[ip++] & 0xff) << 8 : 0);
+            output[op++] = BASE64_ALPHABET[(bits >> 18) & 0x3f];
+            output[op++] = BASE64_ALPHABET[(bits >> 12) & 0x3f];
+            output[op++] = length % 3 == 2 ? BASE64_ALPHABET[(bits >> 6) & 0x3f] : (byte) '=';
+            output[op++] = '=';
+            groups++;
+        }
+        if (groups > 0) {
+            output[op++] = '\n';
+        }
+        return op;
+    }
 }
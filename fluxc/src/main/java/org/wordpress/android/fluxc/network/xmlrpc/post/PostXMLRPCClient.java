@@ -1,6 +1,7 @@
 package org.wordpress.android.fluxc.network.xmlrpc.post;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.android.volley.RequestQueue;
@@ -12,21 +13,26 @@ import org.json.JSONObject;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.action.PostAction;
 import org.wordpress.android.fluxc.generated.PostActionBuilder;
+import org.wordpress.android.fluxc.generated.PostXMLRPCResponseStructReader;
 import org.wordpress.android.fluxc.generated.UploadActionBuilder;
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.model.PostModel;
 import org.wordpress.android.fluxc.model.PostsModel;
 import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.model.post.PostListItem;
 import org.wordpress.android.fluxc.model.post.PostLocation;
 import org.wordpress.android.fluxc.model.post.PostStatus;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseErrorListener;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.BaseRequest.OnCanceledListener;
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.xmlrpc.BaseXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCRequest;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCUtils;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCValueReaders;
 import org.wordpress.android.fluxc.store.PostStore;
+import org.wordpress.android.fluxc.store.PostStore.FetchPostListResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.FetchPostsResponsePayload;
 import org.wordpress.android.fluxc.store.PostStore.PostError;
@@ -35,9 +41,10 @@ import org.wordpress.android.fluxc.store.PostStore.RemotePostPayload;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 import org.wordpress.android.util.DateTimeUtils;
-import org.wordpress.android.util.MapUtils;
+import org.wordpress.android.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -47,6 +54,9 @@ import javax.inject.Singleton;
 
 @Singleton
 public class PostXMLRPCClient extends BaseXMLRPCClient {
+    // The post ID is always returned
+    private static final List<String> POST_LIST_ITEM_FIELDS = Arrays.asList("post_date_gmt", "post_modified_gmt");
+
     public PostXMLRPCClient(Dispatcher dispatcher, RequestQueue requestQueue, UserAgent userAgent,
                             HTTPAuthManager httpAuthManager) {
         super(dispatcher, requestQueue, userAgent, httpAuthManager);
@@ -64,25 +74,23 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         params.add(post.getRemotePostId());
 
         final XMLRPCRequest request = new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_POST, params,
-                new Listener<Object>() {
+                new PostXMLRPCResponseStructReader(), new Listener<PostXMLRPCResponse>() {
                     @Override
-                    public void onResponse(Object response) {
-                        if (response != null && response instanceof Map) {
-                            PostModel postModel = postResponseObjectToPostModel(response, site);
-                            FetchPostResponsePayload payload;
-                            if (postModel != null) {
-                                if (origin == PostAction.PUSH_POST) {
-                                    postModel.setId(post.getId());
-                                }
-                                payload = new FetchPostResponsePayload(postModel, site);
-                            } else {
-                                payload = new FetchPostResponsePayload(post, site);
-                                payload.error = new PostError(PostErrorType.INVALID_RESPONSE);
+                    public void onResponse(PostXMLRPCResponse response) {
+                        PostModel postModel = response != null ? postResponseToPostModel(response, site) : null;
+                        FetchPostResponsePayload payload;
+                        if (postModel != null) {
+                            if (origin == PostAction.PUSH_POST) {
+                                postModel.setId(post.getId());
                             }
-                            payload.origin = origin;
-
-                            mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
+                            payload = new FetchPostResponsePayload(postModel, site);
+                        } else {
+                            payload = new FetchPostResponsePayload(post, site);
+                            payload.error = new PostError(PostErrorType.INVALID_RESPONSE);
                         }
+                        payload.origin = origin;
+
+                        mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
                     }
                 }, new BaseErrorListener() {
                     @Override
@@ -105,11 +113,30 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
                     }
                 });
+        // The fetch always reports back, e.g. to the post list sync waiting for it
+        request.setOnCanceledListener(new OnCanceledListener() {
+            @Override
+            public void onCanceled() {
+                FetchPostResponsePayload payload = new FetchPostResponsePayload(post, site);
+                payload.error = new PostError(PostErrorType.GENERIC_ERROR, "Request canceled");
+                payload.origin = origin;
+                mDispatcher.dispatch(PostActionBuilder.newFetchedPostAction(payload));
+            }
+        });
 
         add(request);
     }
 
     public void fetchPosts(final SiteModel site, final boolean getPages, final int offset) {
+        fetchPosts(site, getPages, offset, null);
+    }
+
+    /**
+     * @param modifiedAfter if not null, the posts are fetched most recently modified first, for the caller to stop
+     *                      at the first post modified at or before that date (XML-RPC can't filter on it)
+     */
+    public void fetchPosts(final SiteModel site, final boolean getPages, final int offset,
+                           @Nullable final String modifiedAfter) {
         Map<String, Object> contentStruct = new HashMap<>();
 
         contentStruct.put("number", PostStore.NUM_POSTS_PER_FETCH);
@@ -119,6 +146,11 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
             contentStruct.put("post_type", "page");
         }
 
+        if (modifiedAfter != null) {
+            contentStruct.put("orderby", "modified");
+            contentStruct.put("order", "DESC");
+        }
+
         List<Object> params = new ArrayList<>(4);
         params.add(site.getSelfHostedSiteId());
         params.add(site.getUsername());
@@ -126,18 +158,25 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         params.add(contentStruct);
 
         final XMLRPCRequest request = new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_POSTS, params,
-                new Listener<Object[]>() {
+                XMLRPCValueReaders.listOf(new PostXMLRPCResponseStructReader()),
+                new Listener<List<PostXMLRPCResponse>>() {
                     @Override
-                    public void onResponse(Object[] response) {
+                    public void onResponse(List<PostXMLRPCResponse> response) {
                         boolean canLoadMore = false;
-                        if (response != null && response.length == PostStore.NUM_POSTS_PER_FETCH) {
+                        if (response != null && response.size() == PostStore.NUM_POSTS_PER_FETCH) {
                             canLoadMore = true;
                         }
 
                         PostsModel posts = postsResponseToPostsModel(response, site);
+                        if (posts == null && response != null && modifiedAfter != null) {
+                            // No post was modified, not an error for a sync
+                            posts = new PostsModel(new ArrayList<PostModel>());
+                        }
 
                         FetchPostsResponsePayload payload = new FetchPostsResponsePayload(posts, site, getPages,
                                 offset > 0, canLoadMore);
+                        payload.offset = offset;
+                        payload.modifiedAfter = modifiedAfter;
 
                         if (posts != null) {
                             mDispatcher.dispatch(PostActionBuilder.newFetchedPostsAction(payload));
@@ -163,6 +202,9 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
                                 postError = new PostError(PostErrorType.GENERIC_ERROR, error.message);
                         }
                         FetchPostsResponsePayload payload = new FetchPostsResponsePayload(postError);
+                        payload.site = site;
+                        payload.isPages = getPages;
+                        payload.modifiedAfter = modifiedAfter;
                         mDispatcher.dispatch(PostActionBuilder.newFetchedPostsAction(payload));
                     }
                 }
@@ -171,6 +213,73 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         add(request);
     }
 
+    /**
+     * Fetches the ID and dates of the posts of the site, most recent first, to find the posts deleted or changed on
+     * the server without fetching their content.
+     */
+    public void fetchPostList(final SiteModel site, final boolean getPages, final int offset) {
+        Map<String, Object> contentStruct = new HashMap<>();
+
+        contentStruct.put("number", PostStore.NUM_POST_LIST_ITEMS_PER_FETCH);
+        contentStruct.put("offset", offset);
+
+        if (getPages) {
+            contentStruct.put("post_type", "page");
+        }
+
+        List<Object> params = new ArrayList<>(5);
+        params.add(site.getSelfHostedSiteId());
+        params.add(site.getUsername());
+        params.add(site.getPassword());
+        params.add(contentStruct);
+        params.add(POST_LIST_ITEM_FIELDS);
+
+        final XMLRPCRequest request = new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_POSTS, params,
+                XMLRPCValueReaders.listOf(new PostXMLRPCResponseStructReader()),
+                new Listener<List<PostXMLRPCResponse>>() {
+                    @Override
+                    public void onResponse(List<PostXMLRPCResponse> response) {
+                        List<PostListItem> items = new ArrayList<>();
+                        if (response != null) {
+                            for (PostXMLRPCResponse postResponse : response) {
+                                if (TextUtils.isEmpty(postResponse.post_id)) {
+                                    continue;
+                                }
+                                items.add(new PostListItem(Long.valueOf(postResponse.post_id),
+                                        toIso8601(postResponse.post_date_gmt),
+                                        toIso8601(postResponse.post_modified_gmt)));
+                            }
+                        }
+
+                        boolean canLoadMore = response != null
+                                && response.size() == PostStore.NUM_POST_LIST_ITEMS_PER_FETCH;
+
+                        FetchPostListResponsePayload payload = new FetchPostListResponsePayload(items, site, getPages,
+                                offset, canLoadMore);
+                        mDispatcher.dispatch(PostActionBuilder.newFetchedPostListAction(payload));
+                    }
+                },
+                new BaseErrorListener() {
+                    @Override
+                    public void onErrorResponse(@NonNull BaseNetworkError error) {
+                        PostError postError;
+                        switch (error.type) {
+                            case AUTHORIZATION_REQUIRED:
+                                postError = new PostError(PostErrorType.UNAUTHORIZED, error.message);
+                                break;
+                            default:
+                                postError = new PostError(PostErrorType.GENERIC_ERROR, error.message);
+                        }
+                        FetchPostListResponsePayload payload = new FetchPostListResponsePayload(site, getPages,
+                                postError);
+                        mDispatcher.dispatch(PostActionBuilder.newFetchedPostListAction(payload));
+                    }
+                }
+        );
+
+        add(request);
+    }
+
     public void pushPost(final PostModel post, final SiteModel site) {
         if (TextUtils.isEmpty(post.getStatus())) {
             post.setStatus(PostStatus.PUBLISHED.toString());
@@ -277,18 +386,16 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         add(request);
     }
 
-    private PostsModel postsResponseToPostsModel(Object[] response, SiteModel site) {
-        List<Map<?, ?>> postsList = new ArrayList<>();
-        for (Object responseObject : response) {
-            Map<?, ?> postMap = (Map<?, ?>) responseObject;
-            postsList.add(postMap);
+    private PostsModel postsResponseToPostsModel(List<PostXMLRPCResponse> response, SiteModel site) {
+        if (response == null) {
+            return null;
         }
 
         List<PostModel> postArray = new ArrayList<>();
         PostModel post;
 
-        for (Object postObject : postsList) {
-            post = postResponseObjectToPostModel(postObject, site);
+        for (PostXMLRPCResponse postResponse : response) {
+            post = postResponseToPostModel(postResponse, site);
             if (post != null) {
                 postArray.add(post);
             }
@@ -301,16 +408,19 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         return new PostsModel(postArray);
     }
 
-    private static PostModel postResponseObjectToPostModel(Object postObject, SiteModel site) {
+    private static String toIso8601(Date date) {
+        return date == null ? null : DateTimeUtils.iso8601UTCFromDate(date);
+    }
+
+    private static PostModel postResponseToPostModel(PostXMLRPCResponse postResponse, SiteModel site) {
         // Sanity checks
-        if (!(postObject instanceof Map)) {
+        if (postResponse == null) {
             return null;
         }
 
-        Map<?, ?> postMap = (Map<?, ?>) postObject;
         PostModel post = new PostModel();
 
-        String postID = MapUtils.getMapStr(postMap, "post_id");
+        String postID = postResponse.post_id;
         if (TextUtils.isEmpty(postID)) {
             // If we don't have a post or page ID, move on
             return null;
@@ -318,34 +428,33 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
 
         post.setLocalSiteId(site.getId());
         post.setRemotePostId(Long.valueOf(postID));
-        post.setTitle(MapUtils.getMapStr(postMap, "post_title"));
+        post.setTitle(StringUtils.notNullStr(postResponse.post_title));
 
-        Date dateCreatedGmt = MapUtils.getMapDate(postMap, "post_date_gmt");
-        String timeAsIso8601 = DateTimeUtils.iso8601UTCFromDate(dateCreatedGmt);
+        String timeAsIso8601 = DateTimeUtils.iso8601UTCFromDate(postResponse.post_date_gmt);
         post.setDateCreated(timeAsIso8601);
+        post.setLastModified(toIso8601(postResponse.post_modified_gmt));
 
-        post.setContent(MapUtils.getMapStr(postMap, "post_content"));
-        post.setLink(MapUtils.getMapStr(postMap, "link"));
+        post.setContent(StringUtils.notNullStr(postResponse.post_content));
+        post.setLink(StringUtils.notNullStr(postResponse.link));
 
-        Object[] terms = (Object[]) postMap.get("terms");
         List<Long> categoryIds = new ArrayList<>();
         List<String> tagNames = new ArrayList<>();
-        for (Object term : terms) {
-            if (!(term instanceof Map)) {
-                continue;
-            }
-            Map<?, ?> termMap = (Map<?, ?>) term;
-            String taxonomy = MapUtils.getMapStr(termMap, "taxonomy");
-            if (taxonomy.equals("category")) {
-                categoryIds.add(MapUtils.getMapLong(termMap, "term_id"));
-            } else if (taxonomy.equals("post_tag")) {
-                tagNames.add(MapUtils.getMapStr(termMap, "name"));
+        if (postResponse.terms != null) {
+            for (PostXMLRPCResponse.Term term : postResponse.terms) {
+                if (term == null) {
+                    continue;
+                }
+                if ("category".equals(term.taxonomy)) {
+                    categoryIds.add(term.term_id);
+                } else if ("post_tag".equals(term.taxonomy)) {
+                    tagNames.add(StringUtils.notNullStr(term.name));
+                }
             }
         }
         post.setCategoryIdList(categoryIds);
         post.setTagNameList(tagNames);
 
-        Object[] customFields = (Object[]) postMap.get("custom_fields");
+        List<Object> customFields = postResponse.custom_fields;
         JSONArray jsonCustomFieldsArray = new JSONArray();
         if (customFields != null) {
             PostLocation postLocation = new PostLocation();
@@ -371,28 +480,26 @@ public class PostXMLRPCClient extends BaseXMLRPCClient {
         }
         post.setCustomFields(jsonCustomFieldsArray.toString());
 
-        post.setExcerpt(MapUtils.getMapStr(postMap, "post_excerpt"));
+        post.setExcerpt(StringUtils.notNullStr(postResponse.post_excerpt));
 
-        post.setPassword(MapUtils.getMapStr(postMap, "post_password"));
-        post.setStatus(MapUtils.getMapStr(postMap, "post_status"));
+        post.setPassword(StringUtils.notNullStr(postResponse.post_password));
+        post.setStatus(StringUtils.notNullStr(postResponse.post_status));
 
-        if ("page".equals(MapUtils.getMapStr(postMap, "post_type"))) {
+        if ("page".equals(postResponse.post_type)) {
             post.setIsPage(true);
         }
 
         if (post.isPage()) {
-            post.setParentId(MapUtils.getMapLong(postMap, "wp_page_parent_id"));
-            post.setParentTitle(MapUtils.getMapStr(postMap, "wp_page_parent"));
-            post.setSlug(MapUtils.getMapStr(postMap, "wp_slug"));
+            post.setParentId(postResponse.wp_page_parent_id);
+            post.setParentTitle(StringUtils.notNullStr(postResponse.wp_page_parent));
+            post.setSlug(StringUtils.notNullStr(postResponse.wp_slug));
         } else {
             // Extract featured image ID from post_thumbnail struct
-            Object featuredImageObject = postMap.get("post_thumbnail");
-            if (featuredImageObject instanceof Map) {
-                Map<?, ?> featuredImageMap = (Map<?, ?>) featuredImageObject;
-                post.setFeaturedImageId(MapUtils.getMapInt(featuredImageMap, "attachment_id"));
+            if (postResponse.post_thumbnail != null) {
+                post.setFeaturedImageId(postResponse.post_thumbnail.attachment_id);
             }
 
-            post.setPostFormat(MapUtils.getMapStr(postMap, "post_format"));
+            post.setPostFormat(StringUtils.notNullStr(postResponse.post_format));
         }
 
         return post;
@@ -0,0 +1,43 @@
+package org.wordpress.android.fluxc.network.xmlrpc.post;
+
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Members of the wp.getPost(s) post struct used by {@link PostXMLRPCClient}, other members are skipped.
+ */
+@XMLRPCStruct
+public class PostXMLRPCResponse {
+    @XMLRPCStruct
+    public static class Term {
+        public long term_id;
+        public String name;
+        public String taxonomy;
+    }
+
+    @XMLRPCStruct
+    public static class PostThumbnail {
+        public int attachment_id;
+    }
+
+    public String post_id;
+    public String post_title;
+    public Date post_date_gmt;
+    public Date post_modified_gmt;
+    public String post_content;
+    public String link;
+    public List<Term> terms;
+    // Custom fields are stored as is in the post, they are read as generic maps
+    public List<Object> custom_fields;
+    public String post_excerpt;
+    public String post_password;
+    public String post_status;
+    public String post_type;
+    public long wp_page_parent_id;
+    public String wp_page_parent;
+    public String wp_slug;
+    public PostThumbnail post_thumbnail;
+    public String post_format;
+}
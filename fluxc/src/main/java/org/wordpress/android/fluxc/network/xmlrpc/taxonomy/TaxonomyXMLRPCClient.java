@@ -10,6 +10,7 @@ import org.apache.commons.text.StringEscapeUtils;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.action.TaxonomyAction;
 import org.wordpress.android.fluxc.generated.TaxonomyActionBuilder;
+import org.wordpress.android.fluxc.generated.TermXMLRPCResponseStructReader;
 import org.wordpress.android.fluxc.generated.endpoint.XMLRPC;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.fluxc.model.TermModel;
@@ -20,12 +21,13 @@ import org.wordpress.android.fluxc.network.HTTPAuthManager;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.xmlrpc.BaseXMLRPCClient;
 import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCRequest;
+import org.wordpress.android.fluxc.network.xmlrpc.XMLRPCValueReaders;
 import org.wordpress.android.fluxc.store.TaxonomyStore.FetchTermResponsePayload;
 import org.wordpress.android.fluxc.store.TaxonomyStore.FetchTermsResponsePayload;
 import org.wordpress.android.fluxc.store.TaxonomyStore.RemoteTermPayload;
 import org.wordpress.android.fluxc.store.TaxonomyStore.TaxonomyError;
 import org.wordpress.android.fluxc.store.TaxonomyStore.TaxonomyErrorType;
-import org.wordpress.android.util.MapUtils;
+import org.wordpress.android.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -54,11 +56,12 @@ public class TaxonomyXMLRPCClient extends BaseXMLRPCClient {
         params.add(term.getRemoteTermId());
 
         final XMLRPCRequest request = new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_TERM, params,
-                new Listener<Object>() {
+                new TermXMLRPCResponseStructReader(),
+                new Listener<TermXMLRPCResponse>() {
                     @Override
-                    public void onResponse(Object response) {
-                    if (response != null && response instanceof Map) {
-                        TermModel termModel = termResponseObjectToTermModel(response, site);
+                    public void onResponse(TermXMLRPCResponse response) {
+                    if (response != null) {
+                        TermModel termModel = termResponseToTermModel(response, site);
                         FetchTermResponsePayload payload;
                         if (termModel != null) {
                             if (origin == TaxonomyAction.PUSH_TERM) {
@@ -110,9 +113,10 @@ public class TaxonomyXMLRPCClient extends BaseXMLRPCClient {
         params.add(taxonomyName);
 
         final XMLRPCRequest request = new XMLRPCRequest(site.getXmlRpcUrl(), XMLRPC.GET_TERMS, params,
-                new Listener<Object[]>() {
+                XMLRPCValueReaders.listOf(new TermXMLRPCResponseStructReader()),
+                new Listener<List<TermXMLRPCResponse>>() {
                     @Override
-                    public void onResponse(Object[] response) {
+                    public void onResponse(List<TermXMLRPCResponse> response) {
                         TermsModel terms = termsResponseToTermsModel(response, site);
 
                         FetchTermsResponsePayload payload = new FetchTermsResponsePayload(terms, site, taxonomyName);
@@ -243,18 +247,16 @@ public class TaxonomyXMLRPCClient extends BaseXMLRPCClient {
         add(request);
     }
 
-    private TermsModel termsResponseToTermsModel(Object[] response, SiteModel site) {
-        List<Map<?, ?>> termsList = new ArrayList<>();
-        for (Object responseObject : response) {
-            Map<?, ?> termMap = (Map<?, ?>) responseObject;
-            termsList.add(termMap);
+    private TermsModel termsResponseToTermsModel(List<TermXMLRPCResponse> response, SiteModel site) {
+        if (response == null) {
+            return null;
         }
 
         List<TermModel> termArray = new ArrayList<>();
         TermModel term;
 
-        for (Object termObject : termsList) {
-            term = termResponseObjectToTermModel(termObject, site);
+        for (TermXMLRPCResponse termResponse : response) {
+            term = termResponseToTermModel(termResponse, site);
             if (term != null) {
                 termArray.add(term);
             }
@@ -267,29 +269,22 @@ public class TaxonomyXMLRPCClient extends BaseXMLRPCClient {
         return new TermsModel(termArray);
     }
 
-    private TermModel termResponseObjectToTermModel(Object termObject, SiteModel site) {
+    private TermModel termResponseToTermModel(TermXMLRPCResponse termResponse, SiteModel site) {
         // Sanity checks
-        if (!(termObject instanceof Map)) {
-            return null;
-        }
-
-        Map<?, ?> termMap = (Map<?, ?>) termObject;
-        TermModel term = new TermModel();
-
-        String termId = MapUtils.getMapStr(termMap, "term_id");
-        if (TextUtils.isEmpty(termId)) {
+        if (termResponse == null || TextUtils.isEmpty(termResponse.term_id)) {
             // If we don't have a term ID, move on
             return null;
         }
 
+        TermModel term = new TermModel();
         term.setLocalSiteId(site.getId());
-        term.setRemoteTermId(Integer.valueOf(termId));
-        term.setSlug(MapUtils.getMapStr(termMap, "slug"));
-        term.setName(StringEscapeUtils.unescapeHtml4(MapUtils.getMapStr(termMap, "name")));
-        term.setDescription(StringEscapeUtils.unescapeHtml4(MapUtils.getMapStr(termMap, "description")));
-        term.setParentRemoteId(MapUtils.getMapLong(termMap, "parent"));
-        term.setTaxonomy(MapUtils.getMapStr(termMap, "taxonomy"));
-        term.setPostCount(MapUtils.getMapInt(termMap, "count", 0));
+        term.setRemoteTermId(Integer.valueOf(termResponse.term_id));
+        term.setSlug(StringUtils.notNullStr(termResponse.slug));
+        term.setName(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(termResponse.name)));
+        term.setDescription(StringEscapeUtils.unescapeHtml4(StringUtils.notNullStr(termResponse.description)));
+        term.setParentRemoteId(termResponse.parent);
+        term.setTaxonomy(StringUtils.notNullStr(termResponse.taxonomy));
+        term.setPostCount(termResponse.count);
 
         return term;
     }
@@ -0,0 +1,17 @@
+package org.wordpress.android.fluxc.network.xmlrpc.taxonomy;
+
+import org.wordpress.android.fluxc.annotations.XMLRPCStruct;
+
+/**
+ * Members of the wp.getTerm(s) term struct used by {@link TaxonomyXMLRPCClient}, other members are skipped.
+ */
+@XMLRPCStruct
+public class TermXMLRPCResponse {
+    public String term_id;
+    public String name;
+    public String slug;
+    public String description;
+    public long parent;
+    public String taxonomy;
+    public int count;
+}
@@ -11,6 +11,17 @@ import org.wordpress.android.fluxc.network.HTTPAuthModel;
 import java.util.List;
 
 public class HTTPAuthSqlUtils {
+    // Incremented on every write to the HTTPAuthModel table, so that copies kept in memory know when to reload it
+    private static volatile int sTableVersion;
+
+    public static int getTableVersion() {
+        return sTableVersion;
+    }
+
+    static synchronized void onTableChanged() {
+        sTableVersion++;
+    }
+
     public static void insertOrUpdateModel(HTTPAuthModel model) {
         List<HTTPAuthModel> modelResult = WellSql.select(HTTPAuthModel.class)
                 .where().equals(HTTPAuthModelTable.ROOT_URL, model.getRootUrl()).endWhere()
@@ -33,5 +44,6 @@ public class HTTPAuthSqlUtils {
                        }
                    }).execute();
         }
+        onTableChanged();
     }
 }
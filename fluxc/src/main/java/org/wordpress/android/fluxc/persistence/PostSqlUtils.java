@@ -1,12 +1,18 @@
 package org.wordpress.android.fluxc.persistence;
 
+import android.database.Cursor;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
 import com.wellsql.generated.PostModelTable;
 import com.yarolegovich.wellsql.SelectQuery;
 import com.yarolegovich.wellsql.WellSql;
 
 import org.wordpress.android.fluxc.model.PostModel;
 import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.model.post.PostListItem;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -111,6 +117,65 @@ public class PostSqlUtils {
                 .getAsModel();
     }
 
+    /**
+     * @return the most recent server modification date of the uploaded posts of the site, or null if none of them
+     * has one: changes made on the server up to that date are in the local posts
+     */
+    public static @Nullable String getLastModifiedForSite(SiteModel site, boolean getPages) {
+        if (site == null) {
+            return null;
+        }
+
+        // Dates are stored in UTC with the same format, so their text order is their chronological order
+        Cursor cursor = WellSql.select(PostModel.class)
+                .columns(PostModelTable.LAST_MODIFIED)
+                .where().beginGroup()
+                .equals(PostModelTable.LOCAL_SITE_ID, site.getId())
+                .equals(PostModelTable.IS_PAGE, getPages)
+                .equals(PostModelTable.IS_LOCAL_DRAFT, false)
+                .endGroup().endWhere()
+                .orderBy(PostModelTable.LAST_MODIFIED, SelectQuery.ORDER_DESCENDING)
+                .getAsCursor();
+        try {
+            if (cursor.moveToFirst()) {
+                String lastModified = cursor.getString(0);
+                return TextUtils.isEmpty(lastModified) ? null : lastModified;
+            }
+            return null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * @return the identity and dates of the uploaded posts of the site without local changes, the posts which can be
+     * refreshed or removed when they changed on the server
+     */
+    public static List<PostListItem> getPostListItemsForSite(SiteModel site, boolean getPages) {
+        if (site == null) {
+            return Collections.emptyList();
+        }
+
+        Cursor cursor = WellSql.select(PostModel.class)
+                .columns(PostModelTable.REMOTE_POST_ID, PostModelTable.DATE_CREATED, PostModelTable.LAST_MODIFIED)
+                .where().beginGroup()
+                .equals(PostModelTable.LOCAL_SITE_ID, site.getId())
+                .equals(PostModelTable.IS_PAGE, getPages)
+                .equals(PostModelTable.IS_LOCAL_DRAFT, false)
+                .equals(PostModelTable.IS_LOCALLY_CHANGED, false)
+                .endGroup().endWhere()
+                .getAsCursor();
+        try {
+            List<PostListItem> items = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                items.add(new PostListItem(cursor.getLong(0), cursor.getString(1), cursor.getString(2)));
+            }
+            return items;
+        } finally {
+            cursor.close();
+        }
+    }
+
     public static PostModel insertPostForResult(PostModel post) {
         WellSql.insert(post).asSingleTransaction(true).execute();
 
@@ -147,6 +212,26 @@ public class PostSqlUtils {
                 .execute();
     }
 
+    /**
+     * Deletes the given uploaded posts of the site, unless they have local changes.
+     */
+    public static int deleteUploadedPostsForSite(SiteModel site, boolean pages, List<Long> remotePostIds) {
+        if (site == null || remotePostIds.isEmpty()) {
+            return 0;
+        }
+
+        return WellSql.delete(PostModel.class)
+                .where().beginGroup()
+                .equals(PostModelTable.LOCAL_SITE_ID, site.getId())
+                .equals(PostModelTable.IS_PAGE, pages)
+                .equals(PostModelTable.IS_LOCAL_DRAFT, false)
+                .equals(PostModelTable.IS_LOCALLY_CHANGED, false)
+                .isIn(PostModelTable.REMOTE_POST_ID, remotePostIds)
+                .endGroup()
+                .endWhere()
+                .execute();
+    }
+
     public static int deleteAllPosts() {
         return WellSql.delete(PostModel.class).execute();
     }
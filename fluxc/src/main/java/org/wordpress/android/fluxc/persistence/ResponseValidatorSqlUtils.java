@@ -0,0 +1,56 @@
+package org.wordpress.android.fluxc.persistence;
+
+import android.content.ContentValues;
+import android.support.annotation.Nullable;
+
+import com.wellsql.generated.ResponseValidatorModelTable;
+import com.yarolegovich.wellsql.WellSql;
+import com.yarolegovich.wellsql.mapper.InsertMapper;
+
+import org.wordpress.android.fluxc.model.ResponseValidatorModel;
+
+import java.util.List;
+
+public class ResponseValidatorSqlUtils {
+    public static @Nullable ResponseValidatorModel getValidatorForUrl(String url) {
+        List<ResponseValidatorModel> result = WellSql.select(ResponseValidatorModel.class)
+                .where().equals(ResponseValidatorModelTable.URL, url).endWhere()
+                .getAsModel();
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Saves the validators of a response, or deletes the validators of its URL if the response had none.
+     */
+    public static void insertOrUpdateValidator(ResponseValidatorModel model) {
+        if (model.getEtag() == null && model.getLastModified() == null) {
+            deleteValidatorForUrl(model.getUrl());
+            return;
+        }
+        ResponseValidatorModel oldModel = getValidatorForUrl(model.getUrl());
+        if (oldModel == null) {
+            WellSql.insert(model).asSingleTransaction(true).execute();
+        } else {
+            WellSql.update(ResponseValidatorModel.class).whereId(oldModel.getId())
+                    .put(model, new InsertMapper<ResponseValidatorModel>() {
+                        @Override
+                        public ContentValues toCv(ResponseValidatorModel item) {
+                            ContentValues cv = new ContentValues();
+                            cv.put(ResponseValidatorModelTable.ETAG, item.getEtag());
+                            cv.put(ResponseValidatorModelTable.LAST_MODIFIED, item.getLastModified());
+                            return cv;
+                        }
+                    }).execute();
+        }
+    }
+
+    public static int deleteValidatorForUrl(String url) {
+        return WellSql.delete(ResponseValidatorModel.class)
+                .where().equals(ResponseValidatorModelTable.URL, url).endWhere()
+                .execute();
+    }
+
+    public static int deleteAllValidators() {
+        return WellSql.delete(ResponseValidatorModel.class).execute();
+    }
+}
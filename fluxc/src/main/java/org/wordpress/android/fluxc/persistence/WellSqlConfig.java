@@ -41,7 +41,7 @@ public class WellSqlConfig extends DefaultWellConfig {
 
     @Override
     public int getDbVersion() {
-        return 30;
+        return 32;
     }
 
     @Override
@@ -249,6 +249,15 @@ public class WellSqlConfig extends DefaultWellConfig {
                            + "SHOULD_NOTIFY_POSTS INTEGER,SHOULD_EMAIL_POSTS INTEGER,EMAIL_POSTS_FREQUENCY TEXT,"
                            + "SHOULD_EMAIL_COMMENTS INTEGER)");
                 oldVersion++;
+            case 30:
+                AppLog.d(T.DB, "Migrating to version " + (oldVersion + 1));
+                db.execSQL("CREATE TABLE ResponseValidatorModel (_id INTEGER PRIMARY KEY AUTOINCREMENT,URL TEXT,"
+                           + "ETAG TEXT,LAST_MODIFIED TEXT,UNIQUE (URL))");
+                oldVersion++;
+            case 31:
+                AppLog.d(T.DB, "Migrating to version " + (oldVersion + 1));
+                db.execSQL("ALTER TABLE PostModel ADD LAST_MODIFIED TEXT");
+                oldVersion++;
         }
         db.setTransactionSuccessful();
         db.endTransaction();
@@ -278,6 +287,7 @@ public class WellSqlConfig extends DefaultWellConfig {
             db.execSQL("DROP TABLE IF EXISTS " + table.getTableName());
             db.execSQL(table.createStatement());
         }
+        HTTPAuthSqlUtils.onTableChanged();
     }
 
     private void migrateAddOn(@AddOn String addOnName, SQLiteDatabase db, int oldDbVersion) {
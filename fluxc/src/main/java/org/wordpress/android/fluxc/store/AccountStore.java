@@ -12,6 +12,7 @@ import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.action.AccountAction;
 import org.wordpress.android.fluxc.action.AuthenticationAction;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.model.AccountModel;
@@ -35,6 +36,7 @@ import org.wordpress.android.fluxc.network.rest.wpcom.auth.Authenticator;
 import org.wordpress.android.fluxc.network.rest.wpcom.auth.Authenticator.AuthEmailResponsePayload;
 import org.wordpress.android.fluxc.network.rest.wpcom.auth.Authenticator.Token;
 import org.wordpress.android.fluxc.persistence.AccountSqlUtils;
+import org.wordpress.android.fluxc.persistence.ResponseValidatorSqlUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.AppLog.T;
 
@@ -47,6 +49,7 @@ import javax.inject.Singleton;
 /**
  * In-memory based and persisted in SQLite.
  */
+@HandlesActions({AccountAction.class, AuthenticationAction.class})
 @Singleton
 public class AccountStore extends Store {
     // Payloads
@@ -1041,6 +1044,8 @@ public class AccountStore extends Store {
         OnAccountChanged accountChanged = new OnAccountChanged();
         accountChanged.accountInfosChanged = true;
         emitChange(accountChanged);
+        // Remove validators of responses to the account's requests
+        ResponseValidatorSqlUtils.deleteAllValidators();
         // Remove authentication token
         mAccessToken.set(null);
         emitChange(new OnAuthenticationChanged());
@@ -6,6 +6,7 @@ import org.greenrobot.eventbus.ThreadMode
 import org.wordpress.android.fluxc.Dispatcher
 import org.wordpress.android.fluxc.Payload
 import org.wordpress.android.fluxc.action.ActivityLogAction
+import org.wordpress.android.fluxc.annotations.HandlesActions
 import org.wordpress.android.fluxc.annotations.action.Action
 import org.wordpress.android.fluxc.model.SiteModel
 import org.wordpress.android.fluxc.model.activity.ActivityLogModel
@@ -19,6 +20,7 @@ import javax.inject.Singleton
 
 private const val ACTIVITY_LOG_PAGE_SIZE = 10
 
+@HandlesActions(ActivityLogAction::class)
 @Singleton
 class ActivityLogStore
 @Inject constructor(
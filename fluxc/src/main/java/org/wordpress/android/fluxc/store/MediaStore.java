@@ -9,9 +9,11 @@ import com.yarolegovich.wellsql.WellCursor;
 
 import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
+import org.wordpress.android.fluxc.CoalescableEvent;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.action.MediaAction;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.model.MediaModel;
@@ -39,6 +41,7 @@ import java.util.Locale;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+@HandlesActions(MediaAction.class)
 @Singleton
 public class MediaStore extends Store {
     public static final int DEFAULT_NUM_MEDIA_PER_FETCH = 50;
@@ -277,7 +280,7 @@ public class MediaStore extends Store {
         }
     }
 
-    public static class OnMediaUploaded extends OnChanged<MediaError> {
+    public static class OnMediaUploaded extends OnChanged<MediaError> implements CoalescableEvent {
         public MediaModel media;
         public float progress;
         public boolean completed;
@@ -288,6 +291,17 @@ public class MediaStore extends Store {
             this.completed = completed;
             this.canceled = canceled;
         }
+
+        @Override
+        public Object getCoalescingKey() {
+            return media != null ? media.getId() : null;
+        }
+
+        @Override
+        public boolean isCoalescable() {
+            // Only intermediate progress can be superseded
+            return media != null && !completed && !canceled && !isError();
+        }
     }
 
     @SuppressWarnings("WeakerAccess")
@@ -1,6 +1,9 @@
 package org.wordpress.android.fluxc.store;
 
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
 
 import com.wellsql.generated.PostModelTable;
 import com.yarolegovich.wellsql.WellSql;
@@ -9,12 +12,16 @@ import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.Payload;
+import org.wordpress.android.fluxc.action.AccountAction;
 import org.wordpress.android.fluxc.action.PostAction;
+import org.wordpress.android.fluxc.action.SiteAction;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.model.PostModel;
 import org.wordpress.android.fluxc.model.PostsModel;
 import org.wordpress.android.fluxc.model.SiteModel;
+import org.wordpress.android.fluxc.model.post.PostListItem;
 import org.wordpress.android.fluxc.model.post.PostStatus;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
 import org.wordpress.android.fluxc.network.rest.wpcom.post.PostRestClient;
@@ -22,17 +29,29 @@ import org.wordpress.android.fluxc.network.xmlrpc.post.PostXMLRPCClient;
 import org.wordpress.android.fluxc.persistence.PostSqlUtils;
 import org.wordpress.android.util.AppLog;
 import org.wordpress.android.util.DateTimeUtils;
+import org.wordpress.android.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+@HandlesActions({PostAction.class, SiteAction.class, AccountAction.class})
 @Singleton
 public class PostStore extends Store {
     public static final int NUM_POSTS_PER_FETCH = 20;
+    public static final int NUM_POST_LIST_ITEMS_PER_FETCH = 100;
+    // A sync still running after this long is given up, in case one of its requests never reported back
+    public static final long POST_LIST_SYNC_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
 
     public static final List<PostStatus> DEFAULT_POST_STATUS_LIST = Collections.unmodifiableList(Arrays.asList(
             PostStatus.DRAFT,
@@ -103,6 +122,9 @@ public class PostStore extends Store {
         public boolean isPages;
         public boolean loadedMore;
         public boolean canLoadMore;
+        public int offset;
+        // If set, the posts are the ones modified on the server after that date, most recently modified first
+        public String modifiedAfter;
 
         public FetchPostsResponsePayload(PostsModel posts, SiteModel site, boolean isPages, boolean loadedMore,
                                          boolean canLoadMore) {
@@ -118,6 +140,29 @@ public class PostStore extends Store {
         }
     }
 
+    public static class FetchPostListResponsePayload extends Payload<PostError> {
+        public List<PostListItem> items;
+        public SiteModel site;
+        public boolean isPages;
+        public int offset;
+        public boolean canLoadMore;
+
+        public FetchPostListResponsePayload(List<PostListItem> items, SiteModel site, boolean isPages, int offset,
+                                            boolean canLoadMore) {
+            this.items = items;
+            this.site = site;
+            this.isPages = isPages;
+            this.offset = offset;
+            this.canLoadMore = canLoadMore;
+        }
+
+        public FetchPostListResponsePayload(SiteModel site, boolean isPages, PostError error) {
+            this.site = site;
+            this.isPages = isPages;
+            this.error = error;
+        }
+    }
+
     public static class RemotePostPayload extends Payload<PostError> {
         public PostModel post;
         public SiteModel site;
@@ -129,7 +174,8 @@ public class PostStore extends Store {
     }
 
     public static class FetchPostResponsePayload extends RemotePostPayload {
-        public PostAction origin = PostAction.FETCH_POST; // Only used to track fetching newly uploaded XML-RPC posts
+        // Used to track fetching newly uploaded XML-RPC posts, and posts refreshed by a post list sync
+        public PostAction origin = PostAction.FETCH_POST;
 
         public FetchPostResponsePayload(PostModel post, SiteModel site) {
             super(post, site);
@@ -211,8 +257,40 @@ public class PostStore extends Store {
         }
     }
 
+    /**
+     * State of the sync of the uploaded posts or pages of a site with the server, when some are already stored. The
+     * posts modified since the last sync are fetched, then the IDs and dates of the posts are listed to find the
+     * posts deleted on the server, and the changes the first step missed. The sync ends, with a single
+     * {@link OnPostChanged}, once the listing is done and the posts it found to be outdated are refreshed.
+     */
+    private static class PostListSync {
+        final long startedAtMs = SystemClock.elapsedRealtime();
+        // To drop the WP.com syncs on sign out
+        final boolean isUsingWpComRestApi;
+        // Most recent modification date of the stored posts, the posts modified after it are fetched
+        final String lastModified;
+        // Date of the oldest stored post: the stored posts are the most recent ones, for the next page to be fetched
+        // by offset, older posts are left for that page
+        final Date oldestDate;
+        // Date of the oldest post listed so far, the next list page holds the posts dated before it
+        Date listedUntil;
+        int rowsAffected;
+        int pendingRefreshCount;
+        // Set when the listing is done (or failed), the sync ends once the pending refreshes are done too
+        boolean isListed;
+        boolean canLoadMore;
+        PostError error;
+
+        PostListSync(SiteModel site, String lastModified, Date oldestDate) {
+            this.isUsingWpComRestApi = site.isUsingWpComRestApi();
+            this.lastModified = lastModified;
+            this.oldestDate = oldestDate;
+        }
+    }
+
     private final PostRestClient mPostRestClient;
     private final PostXMLRPCClient mPostXMLRPCClient;
+    private final Map<String, PostListSync> mPostListSyncs = new ConcurrentHashMap<>();
     // Ensures that the UploadStore is initialized whenever the PostStore is,
     // to ensure actions are shadowed and repeated by the UploadStore
     @SuppressWarnings("unused")
@@ -360,11 +438,18 @@ public class PostStore extends Store {
     @Override
     public void onAction(Action action) {
         IAction actionType = action.getType();
-        if (!(actionType instanceof PostAction)) {
-            return;
+        if (actionType instanceof PostAction) {
+            onPostAction((PostAction) actionType, action);
+        } else if (actionType instanceof SiteAction) {
+            onSiteAction((SiteAction) actionType, action);
+        } else if (actionType == AccountAction.SIGN_OUT) {
+            // The WP.com syncs can't complete anymore
+            removePostListSyncs(true);
         }
+    }
 
-        switch ((PostAction) actionType) {
+    private void onPostAction(PostAction actionType, Action action) {
+        switch (actionType) {
             case FETCH_POSTS:
                 fetchPosts((FetchPostsPayload) action.getPayload(), false);
                 break;
@@ -374,6 +459,9 @@ public class PostStore extends Store {
             case FETCHED_POSTS:
                 handleFetchPostsCompleted((FetchPostsResponsePayload) action.getPayload());
                 break;
+            case FETCHED_POST_LIST:
+                handleFetchPostListCompleted((FetchPostListResponsePayload) action.getPayload());
+                break;
             case FETCH_POST:
                 fetchPost((RemotePostPayload) action.getPayload());
                 break;
@@ -413,6 +501,23 @@ public class PostStore extends Store {
         }
     }
 
+    @SuppressWarnings("EnumSwitchStatementWhichMissesCases")
+    private void onSiteAction(SiteAction actionType, Action action) {
+        switch (actionType) {
+            case REMOVE_SITE:
+                SiteModel site = (SiteModel) action.getPayload();
+                mPostListSyncs.remove(getPostListSyncKey(site, false));
+                mPostListSyncs.remove(getPostListSyncKey(site, true));
+                break;
+            case REMOVE_ALL_SITES:
+                removePostListSyncs(false);
+                break;
+            case REMOVE_WPCOM_AND_JETPACK_SITES:
+                removePostListSyncs(true);
+                break;
+        }
+    }
+
     private void deletePost(RemotePostPayload payload) {
         if (payload.site.isUsingWpComRestApi()) {
             mPostRestClient.deletePost(payload.post, payload.site);
@@ -432,6 +537,15 @@ public class PostStore extends Store {
     }
 
     private void fetchPosts(FetchPostsPayload payload, boolean pages) {
+        if (!payload.loadMore) {
+            // Once posts are stored, only their changes are fetched
+            String lastModified = PostSqlUtils.getLastModifiedForSite(payload.site, pages);
+            if (lastModified != null) {
+                startPostListSync(payload.site, pages, lastModified);
+                return;
+            }
+        }
+
         int offset = 0;
         if (payload.loadMore) {
             offset = PostSqlUtils.getUploadedPostsForSite(payload.site, pages).size();
@@ -471,7 +585,222 @@ public class PostStore extends Store {
         emitChange(event);
     }
 
+    private void startPostListSync(SiteModel site, boolean pages, String lastModified) {
+        String key = getPostListSyncKey(site, pages);
+        PostListSync currentSync = mPostListSyncs.get(key);
+        if (currentSync != null) {
+            if (SystemClock.elapsedRealtime() - currentSync.startedAtMs < POST_LIST_SYNC_TIMEOUT_MS) {
+                // Its result is emitted when it completes
+                AppLog.d(AppLog.T.POSTS, "Posts of site " + site.getId() + " are already being synced");
+                return;
+            }
+            AppLog.w(AppLog.T.POSTS, "Giving up the stalled sync of the posts of site " + site.getId());
+        }
+
+        Date oldestDate = null;
+        for (PostListItem item : PostSqlUtils.getPostListItemsForSite(site, pages)) {
+            Date date = parseDate(item.dateCreated);
+            if (date != null && (oldestDate == null || date.before(oldestDate))) {
+                oldestDate = date;
+            }
+        }
+        mPostListSyncs.put(key, new PostListSync(site, lastModified, oldestDate));
+        fetchModifiedPosts(site, pages, lastModified, 0);
+    }
+
+    private void fetchModifiedPosts(SiteModel site, boolean pages, String modifiedAfter, int offset) {
+        if (site.isUsingWpComRestApi()) {
+            mPostRestClient.fetchPosts(site, pages, DEFAULT_POST_STATUS_LIST, offset, modifiedAfter);
+        } else {
+            mPostXMLRPCClient.fetchPosts(site, pages, offset, modifiedAfter);
+        }
+    }
+
+    private void fetchPostList(SiteModel site, boolean pages, int offset) {
+        if (site.isUsingWpComRestApi()) {
+            mPostRestClient.fetchPostList(site, pages, DEFAULT_POST_STATUS_LIST, offset);
+        } else {
+            mPostXMLRPCClient.fetchPostList(site, pages, offset);
+        }
+    }
+
+    private void refreshPost(SiteModel site, boolean pages, PostListSync sync, long remotePostId) {
+        sync.pendingRefreshCount++;
+        PostModel post = new PostModel();
+        post.setRemotePostId(remotePostId);
+        post.setLocalSiteId(site.getId());
+        PostAction origin = pages ? PostAction.FETCH_PAGES : PostAction.FETCH_POSTS;
+        if (site.isUsingWpComRestApi()) {
+            mPostRestClient.fetchPost(post, site, origin);
+        } else {
+            mPostXMLRPCClient.fetchPost(post, site, origin);
+        }
+    }
+
+    private void handleFetchModifiedPostsCompleted(FetchPostsResponsePayload payload) {
+        PostListSync sync = mPostListSyncs.get(getPostListSyncKey(payload.site, payload.isPages));
+        if (sync == null) {
+            return;
+        }
+        if (payload.isError()) {
+            completePostListing(payload.site, payload.isPages, sync, payload.error, false);
+            return;
+        }
+
+        boolean reachedLastModified = false;
+        for (PostModel post : payload.posts.getPosts()) {
+            // XML-RPC can't filter posts on their modification date, they are only sorted by it
+            if (post.getLastModified().compareTo(sync.lastModified) <= 0) {
+                reachedLastModified = true;
+                break;
+            }
+            if (isWithinStoredPosts(post, payload.site, sync)) {
+                sync.rowsAffected += PostSqlUtils.insertOrUpdatePostKeepingLocalChanges(post);
+            }
+        }
+
+        if (payload.canLoadMore && !reachedLastModified) {
+            fetchModifiedPosts(payload.site, payload.isPages, sync.lastModified,
+                    payload.offset + payload.posts.getPosts().size());
+        } else {
+            fetchPostList(payload.site, payload.isPages, 0);
+        }
+    }
+
+    private void handleFetchPostListCompleted(FetchPostListResponsePayload payload) {
+        PostListSync sync = mPostListSyncs.get(getPostListSyncKey(payload.site, payload.isPages));
+        if (sync == null) {
+            return;
+        }
+        if (payload.isError()) {
+            completePostListing(payload.site, payload.isPages, sync, payload.error, false);
+            return;
+        }
+
+        // The listed posts are all the posts dated between the oldest listed post and the previous page, if any.
+        // On the last page, there is no older post.
+        Date newestDate = sync.listedUntil;
+        Date oldestDate = null;
+        if (payload.canLoadMore && !payload.items.isEmpty()) {
+            oldestDate = parseDate(payload.items.get(payload.items.size() - 1).dateCreated);
+        }
+
+        Map<Long, PostListItem> remoteItems = new HashMap<>();
+        for (PostListItem item : payload.items) {
+            remoteItems.put(item.remotePostId, item);
+        }
+
+        List<Long> deletedPostIds = new ArrayList<>();
+        for (PostListItem localItem : PostSqlUtils.getPostListItemsForSite(payload.site, payload.isPages)) {
+            PostListItem remoteItem = remoteItems.remove(localItem.remotePostId);
+            if (remoteItem == null) {
+                // Dates are compared strictly, a post dated like the oldest listed one might be on the next page
+                Date date = parseDate(localItem.dateCreated);
+                if (date != null && (oldestDate == null || date.after(oldestDate))
+                        && (newestDate == null || date.before(newestDate))) {
+                    deletedPostIds.add(localItem.remotePostId);
+                }
+            } else if (!StringUtils.equals(localItem.lastModified, remoteItem.lastModified)) {
+                refreshPost(payload.site, payload.isPages, sync, remoteItem.remotePostId);
+            }
+        }
+        boolean hasOlderPosts = false;
+        for (PostListItem remoteItem : remoteItems.values()) {
+            // New posts the first step missed, unless they are stored with local changes, or older than the stored
+            // posts: those are left for "load more"
+            Date date = parseDate(remoteItem.dateCreated);
+            if (date != null && sync.oldestDate != null && date.before(sync.oldestDate)) {
+                hasOlderPosts = true;
+            } else if (getPostByRemotePostId(remoteItem.remotePostId, payload.site) == null) {
+                refreshPost(payload.site, payload.isPages, sync, remoteItem.remotePostId);
+            }
+        }
+        sync.rowsAffected += PostSqlUtils.deleteUploadedPostsForSite(payload.site, payload.isPages, deletedPostIds);
+
+        if (oldestDate != null && sync.oldestDate != null && oldestDate.after(sync.oldestDate)) {
+            // Some stored posts are older than the listed ones
+            sync.listedUntil = oldestDate;
+            fetchPostList(payload.site, payload.isPages, payload.offset + payload.items.size());
+        } else {
+            // More posts can be loaded if the server has posts older than the stored ones, on this page or the next
+            completePostListing(payload.site, payload.isPages, sync, null, payload.canLoadMore || hasOlderPosts);
+        }
+    }
+
+    private void completePostListing(SiteModel site, boolean pages, PostListSync sync, @Nullable PostError error,
+                                     boolean canLoadMore) {
+        sync.isListed = true;
+        sync.error = error;
+        sync.canLoadMore = canLoadMore;
+        if (sync.pendingRefreshCount == 0) {
+            finishPostListSync(site, pages, sync);
+        }
+    }
+
+    private void handlePostListSyncRefreshCompleted(FetchPostResponsePayload payload) {
+        boolean pages = payload.origin == PostAction.FETCH_PAGES;
+        PostListSync sync = mPostListSyncs.get(getPostListSyncKey(payload.site, pages));
+        int rowsAffected = 0;
+        if (payload.isError()) {
+            AppLog.w(AppLog.T.POSTS, "Can't refresh post " + payload.post.getRemotePostId() + ": "
+                    + payload.error.type);
+        } else {
+            // Keeps local changes like post list fetches do
+            rowsAffected = PostSqlUtils.insertOrUpdatePostKeepingLocalChanges(payload.post);
+        }
+        if (sync == null || sync.pendingRefreshCount == 0) {
+            // No sync is waiting for this refresh, e.g. the one that started it was given up
+            return;
+        }
+        sync.rowsAffected += rowsAffected;
+        if (--sync.pendingRefreshCount == 0 && sync.isListed) {
+            finishPostListSync(payload.site, pages, sync);
+        }
+    }
+
+    /**
+     * Drops the running syncs, without emitting their result, e.g. when their sites are removed.
+     */
+    private void removePostListSyncs(boolean wpComRestApiOnly) {
+        Iterator<PostListSync> iterator = mPostListSyncs.values().iterator();
+        while (iterator.hasNext()) {
+            PostListSync sync = iterator.next();
+            if (!wpComRestApiOnly || sync.isUsingWpComRestApi) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void finishPostListSync(SiteModel site, boolean pages, PostListSync sync) {
+        mPostListSyncs.remove(getPostListSyncKey(site, pages));
+        OnPostChanged onPostChanged = new OnPostChanged(sync.rowsAffected, sync.canLoadMore);
+        onPostChanged.error = sync.error;
+        onPostChanged.causeOfChange = pages ? PostAction.FETCH_PAGES : PostAction.FETCH_POSTS;
+        emitChange(onPostChanged);
+    }
+
+    private boolean isWithinStoredPosts(PostModel post, SiteModel site, PostListSync sync) {
+        if (sync.oldestDate == null || getPostByRemotePostId(post.getRemotePostId(), site) != null) {
+            return true;
+        }
+        Date date = parseDate(post.getDateCreated());
+        return date == null || !date.before(sync.oldestDate);
+    }
+
+    private static String getPostListSyncKey(SiteModel site, boolean pages) {
+        return site.getId() + (pages ? ":pages" : ":posts");
+    }
+
+    private static @Nullable Date parseDate(String iso8601Date) {
+        return TextUtils.isEmpty(iso8601Date) ? null : DateTimeUtils.dateUTCFromIso8601(iso8601Date);
+    }
+
     private void handleFetchPostsCompleted(FetchPostsResponsePayload payload) {
+        if (payload.modifiedAfter != null) {
+            handleFetchModifiedPostsCompleted(payload);
+            return;
+        }
+
         OnPostChanged onPostChanged;
 
         if (payload.isError()) {
@@ -517,6 +846,12 @@ public class PostStore extends Store {
     }
 
     private void handleFetchSinglePostCompleted(FetchPostResponsePayload payload) {
+        if (payload.origin == PostAction.FETCH_POSTS || payload.origin == PostAction.FETCH_PAGES) {
+            // Refreshed by a post list sync
+            handlePostListSyncRefreshCompleted(payload);
+            return;
+        }
+
         if (payload.origin == PostAction.PUSH_POST) {
             OnPostUploaded onPostUploaded = new OnPostUploaded(payload.post);
             if (payload.isError()) {
@@ -587,6 +922,7 @@ public class PostStore extends Store {
     }
 
     private void removeAllPosts() {
+        mPostListSyncs.clear();
         int rowsAffected = PostSqlUtils.deleteAllPosts();
         OnPostChanged event = new OnPostChanged(rowsAffected);
         event.causeOfChange = PostAction.REMOVE_ALL_POSTS;
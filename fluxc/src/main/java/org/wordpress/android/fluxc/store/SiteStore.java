@@ -14,9 +14,11 @@ import org.greenrobot.eventbus.ThreadMode;
 import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.action.SiteAction;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.model.PostFormatModel;
+import org.wordpress.android.fluxc.model.ResponseValidatorModel;
 import org.wordpress.android.fluxc.model.RoleModel;
 import org.wordpress.android.fluxc.model.SiteModel;
 import org.wordpress.android.fluxc.model.SitesModel;
@@ -31,6 +33,7 @@ import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteRestClient.FetchW
 import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteRestClient.IsWPComResponsePayload;
 import org.wordpress.android.fluxc.network.rest.wpcom.site.SiteRestClient.NewSiteResponsePayload;
 import org.wordpress.android.fluxc.network.xmlrpc.site.SiteXMLRPCClient;
+import org.wordpress.android.fluxc.persistence.ResponseValidatorSqlUtils;
 import org.wordpress.android.fluxc.persistence.SiteSqlUtils;
 import org.wordpress.android.fluxc.persistence.SiteSqlUtils.DuplicateSiteException;
 import org.wordpress.android.fluxc.utils.SiteErrorUtils;
@@ -47,6 +50,7 @@ import javax.inject.Singleton;
 /**
  * SQLite based only. There is no in memory copy of mapped data, everything is queried from the DB.
  */
+@HandlesActions(SiteAction.class)
 @Singleton
 public class SiteStore extends Store {
     // Payloads
@@ -873,7 +877,8 @@ public class SiteStore extends Store {
                 fetchSite((SiteModel) action.getPayload());
                 break;
             case FETCH_SITES:
-                mSiteRestClient.fetchSites();
+                // Without local sites, there is nothing a "not modified" response could refer to
+                mSiteRestClient.fetchSites(getSitesAccessedViaWPComRestCount() > 0);
                 break;
             case FETCHED_SITES:
                 handleFetchedSitesWPComRest((SitesModel) action.getPayload());
@@ -1048,13 +1053,21 @@ public class SiteStore extends Store {
         if (fetchedSites.isError()) {
             // TODO: what kind of error could we get here?
             event.error = SiteErrorUtils.genericToSiteError(fetchedSites.error);
-        } else {
+        } else if (!fetchedSites.isNotModified()) {
+            ResponseValidatorModel validator = fetchedSites.getResponseValidator();
+            if (validator != null) {
+                // Until the sites are stored, the validators of the previous response no longer match them
+                ResponseValidatorSqlUtils.deleteValidatorForUrl(validator.getUrl());
+            }
             UpdateSitesResult res = createOrUpdateSites(fetchedSites);
             event.rowsAffected = res.rowsAffected;
             if (res.duplicateSiteFound) {
                 event.error = new SiteError(SiteErrorType.DUPLICATE_SITE);
             }
             SiteSqlUtils.removeWPComRestSitesAbsentFromList(fetchedSites.getSites());
+            if (validator != null) {
+                ResponseValidatorSqlUtils.insertOrUpdateValidator(validator);
+            }
         }
         emitChange(event);
     }
@@ -24,6 +24,8 @@ public abstract class Store {
 
     /**
      * onAction should {@link org.greenrobot.eventbus.Subscribe} with ASYNC {@link org.greenrobot.eventbus.ThreadMode}.
+     * Stores should also declare the action types they handle with
+     * {@link org.wordpress.android.fluxc.annotations.HandlesActions}, so the {@link Dispatcher} only delivers those.
      */
     public abstract void onAction(Action action);
     public abstract void onRegister();
@@ -9,6 +9,7 @@ import org.wordpress.android.fluxc.Dispatcher;
 import org.wordpress.android.fluxc.Payload;
 import org.wordpress.android.fluxc.action.MediaAction;
 import org.wordpress.android.fluxc.action.UploadAction;
+import org.wordpress.android.fluxc.annotations.HandlesActions;
 import org.wordpress.android.fluxc.annotations.action.Action;
 import org.wordpress.android.fluxc.annotations.action.IAction;
 import org.wordpress.android.fluxc.generated.MediaActionBuilder;
@@ -19,6 +20,7 @@ import org.wordpress.android.fluxc.model.MediaUploadModel;
 import org.wordpress.android.fluxc.model.PostModel;
 import org.wordpress.android.fluxc.model.PostUploadModel;
 import org.wordpress.android.fluxc.network.BaseRequest.BaseNetworkError;
+import org.wordpress.android.fluxc.network.MediaUploadScheduler;
 import org.wordpress.android.fluxc.persistence.MediaSqlUtils;
 import org.wordpress.android.fluxc.persistence.UploadSqlUtils;
 import org.wordpress.android.fluxc.store.MediaStore.CancelMediaPayload;
@@ -40,6 +42,7 @@ import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+@HandlesActions({MediaAction.class, UploadAction.class})
 @Singleton
 public class UploadStore extends Store {
     public static class ClearMediaPayload extends Payload<BaseNetworkError> {
@@ -77,6 +80,9 @@ public class UploadStore extends Store {
         }
     }
 
+    // Shared by the media network clients, which queue their uploads with it
+    @Inject MediaUploadScheduler mUploadScheduler;
+
     @Inject
     public UploadStore(Dispatcher dispatcher) {
         super(dispatcher);
@@ -239,6 +245,18 @@ public class UploadStore extends Store {
         return null;
     }
 
+    /**
+     * Gives priority to the upload of media attached to the given post (e.g. the post being edited) over the other
+     * media uploads, which are paused if needed to make room for them.
+     *
+     * @param postModel the post in the foreground, or null if there is none anymore
+     */
+    public void setForegroundPost(@Nullable PostModel postModel) {
+        if (mUploadScheduler != null) {
+            mUploadScheduler.setForegroundPost(postModel != null ? postModel.getId() : 0);
+        }
+    }
+
     public float getUploadProgressForMedia(MediaModel mediaModel) {
         MediaUploadModel mediaUploadModel = UploadSqlUtils.getMediaUploadModelForLocalId(mediaModel.getId());
         if (mediaUploadModel != null) {
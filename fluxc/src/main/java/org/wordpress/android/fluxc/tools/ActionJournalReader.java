@@ -0,0 +1,159 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.gson.Gson;
+
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.annotations.action.IAction;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads back the actions recorded by {@link ActionJournalWriter}, in the order they were dispatched.
+ */
+public class ActionJournalReader implements Closeable {
+    public static class Entry {
+        public final long offsetMs;
+        public final Action action;
+        // False if the payload couldn't be serialized or deserialized, in which case the action has no payload
+        public final boolean isComplete;
+
+        Entry(long offsetMs, Action action, boolean isComplete) {
+            this.offsetMs = offsetMs;
+            this.action = action;
+            this.isComplete = isComplete;
+        }
+    }
+
+    private final DataInputStream mInput;
+    private final Gson mGson = ActionJournalWriter.createJournalGson();
+    private final Map<Integer, String> mStrings = new HashMap<>();
+    private final Map<String, Class<?>> mClasses = new HashMap<>();
+
+    public ActionJournalReader(@NonNull InputStream inputStream) throws IOException {
+        mInput = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)));
+        if (mInput.readInt() != ActionJournalWriter.MAGIC) {
+            throw new IOException("Not an action journal");
+        }
+    }
+
+    public static ActionJournalReader open(@NonNull File file) throws IOException {
+        return new ActionJournalReader(new FileInputStream(file));
+    }
+
+    /**
+     * @return the next recorded action, or null at the end of the journal
+     */
+    public @Nullable Entry next() throws IOException {
+        while (true) {
+            int recordType = mInput.read();
+            switch (recordType) {
+                case -1:
+                    return null;
+                case ActionJournalWriter.RECORD_STRING:
+                    int id = (int) readVarLong(mInput);
+                    mStrings.put(id, mInput.readUTF());
+                    break;
+                case ActionJournalWriter.RECORD_ACTION:
+                    return readAction();
+                default:
+                    throw new IOException("Unknown journal record type: " + recordType);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInput.close();
+    }
+
+    private Entry readAction() throws IOException {
+        long offsetMs = readVarLong(mInput);
+        String actionClassName = getString((int) readVarLong(mInput));
+        String actionName = getString((int) readVarLong(mInput));
+        int payloadClassId = (int) readVarLong(mInput);
+        byte[] payloadBytes = null;
+        if (payloadClassId != ActionJournalWriter.NO_PAYLOAD) {
+            payloadBytes = new byte[(int) readVarLong(mInput)];
+            mInput.readFully(payloadBytes);
+        }
+
+        IAction actionType = getActionType(actionClassName, actionName);
+        Object payload = null;
+        boolean isComplete = true;
+        if (payloadBytes != null) {
+            if (payloadBytes.length == 0) {
+                isComplete = false;
+            } else {
+                try {
+                    Class<?> payloadClass = getClass(getString(payloadClassId));
+                    payload = mGson.fromJson(new String(payloadBytes, ActionJournalWriter.UTF_8), payloadClass);
+                } catch (RuntimeException e) {
+                    isComplete = false;
+                }
+            }
+        }
+        return new Entry(offsetMs, new Action<>(actionType, payload), isComplete);
+    }
+
+    @SuppressWarnings("unchecked")
+    private IAction getActionType(String actionClassName, String actionName) throws IOException {
+        Class<?> actionClass = getClass(actionClassName);
+        if (!actionClass.isEnum() || !IAction.class.isAssignableFrom(actionClass)) {
+            throw new IOException(actionClassName + " is not an action enum");
+        }
+        try {
+            return (IAction) Enum.valueOf((Class<? extends Enum>) actionClass, actionName);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown action " + actionClassName + "." + actionName, e);
+        }
+    }
+
+    private Class<?> getClass(String className) throws IOException {
+        Class<?> clazz = mClasses.get(className);
+        if (clazz == null) {
+            try {
+                clazz = Class.forName(className);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unknown class in journal: " + className, e);
+            }
+            mClasses.put(className, clazz);
+        }
+        return clazz;
+    }
+
+    private String getString(int id) throws IOException {
+        String string = mStrings.get(id);
+        if (string == null) {
+            throw new IOException("Corrupted journal, undefined string id: " + id);
+        }
+        return string;
+    }
+
+    static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.read();
+            if (b == -1) {
+                throw new EOFException("Truncated journal");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted journal, malformed varint");
+    }
+}
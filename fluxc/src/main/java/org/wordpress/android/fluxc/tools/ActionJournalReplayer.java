@@ -0,0 +1,108 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.support.annotation.NonNull;
+
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.fluxc.annotations.action.IAction;
+import org.wordpress.android.fluxc.store.Store;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays an action journal against a set of stores, synchronously and as fast as possible (the recorded timing is
+ * ignored), so that the stores and their database layer can be benchmarked without any network.
+ *
+ * Actions are delivered straight to {@link Store#onAction}, bypassing the Dispatcher. Stores calling their network
+ * clients should be given mocked clients.
+ */
+public class ActionJournalReplayer {
+    public static class ReplayStats {
+        private int mReplayedCount;
+        private int mSkippedCount;
+        private long mElapsedNanos;
+        private final Map<IAction, Long> mNanosPerActionType = new HashMap<>();
+
+        public int getReplayedCount() {
+            return mReplayedCount;
+        }
+
+        /**
+         * @return the number of actions which weren't replayed because their payload couldn't be restored
+         */
+        public int getSkippedCount() {
+            return mSkippedCount;
+        }
+
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        public double getActionsPerSecond() {
+            if (mElapsedNanos == 0) {
+                return 0;
+            }
+            return mReplayedCount / (mElapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        /**
+         * @return the total time spent in the stores for each action type
+         */
+        public Map<IAction, Long> getNanosPerActionType() {
+            return Collections.unmodifiableMap(mNanosPerActionType);
+        }
+
+        @Override
+        public String toString() {
+            return "Replayed " + mReplayedCount + " actions (" + mSkippedCount + " skipped) in "
+                    + TimeUnit.NANOSECONDS.toMillis(mElapsedNanos) + "ms: "
+                    + Math.round(getActionsPerSecond()) + " actions/s";
+        }
+    }
+
+    private final List<Store> mStores;
+
+    public ActionJournalReplayer(@NonNull Store... stores) {
+        mStores = Arrays.asList(stores);
+    }
+
+    public ReplayStats replay(@NonNull ActionJournalReader reader) throws IOException {
+        ReplayStats stats = new ReplayStats();
+        ActionJournalReader.Entry entry;
+        while ((entry = reader.next()) != null) {
+            if (!entry.isComplete) {
+                stats.mSkippedCount++;
+                continue;
+            }
+            replay(entry.action, stats);
+        }
+        return stats;
+    }
+
+    public ReplayStats replay(@NonNull List<Action> actions) {
+        ReplayStats stats = new ReplayStats();
+        for (Action action : actions) {
+            replay(action, stats);
+        }
+        return stats;
+    }
+
+    private void replay(Action action, ReplayStats stats) {
+        long startNanos = System.nanoTime();
+        for (Store store : mStores) {
+            store.onAction(action);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        stats.mReplayedCount++;
+        stats.mElapsedNanos += elapsedNanos;
+        Long actionTypeNanos = stats.mNanosPerActionType.get(action.getType());
+        stats.mNanosPerActionType.put(action.getType(),
+                actionTypeNanos == null ? elapsedNanos : actionTypeNanos + elapsedNanos);
+    }
+}
@@ -0,0 +1,167 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.support.annotation.NonNull;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.wordpress.android.fluxc.annotations.action.Action;
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records dispatched actions and their payloads to a compact binary journal, which can be read back with
+ * {@link ActionJournalReader} and replayed against stores with {@link ActionJournalReplayer}.
+ *
+ * The journal is a gzipped stream of records. Class and action names are written once in a string table and then
+ * referenced by id, payloads are serialized with Gson. Payloads are serialized on the dispatching thread, as they were
+ * dispatched and before any store can change them, the records are then compressed and written on a background
+ * thread, in dispatch order.
+ *
+ * Attach it with {@link org.wordpress.android.fluxc.Dispatcher#setActionJournalWriter}.
+ */
+public class ActionJournalWriter implements Closeable {
+    static final int MAGIC = 0x464a4e31; // "FJN1"
+    static final byte RECORD_STRING = 1;
+    static final byte RECORD_ACTION = 2;
+    static final int NO_PAYLOAD = 0;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final DataOutputStream mOutput;
+    private final Gson mGson = createJournalGson();
+    private final ExecutorService mWriteExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, Integer> mStringIds = new HashMap<>();
+    private final long mStartNanos = System.nanoTime();
+
+    public ActionJournalWriter(@NonNull OutputStream outputStream) throws IOException {
+        mOutput = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream)));
+        mOutput.writeInt(MAGIC);
+    }
+
+    public static ActionJournalWriter create(@NonNull File file) throws IOException {
+        return new ActionJournalWriter(new FileOutputStream(file));
+    }
+
+    public void record(@NonNull Action action) {
+        final long offsetMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mStartNanos);
+        final String actionClassName = action.getType().getClass().getName();
+        final String actionName = action.getType().toString();
+        Object payload = action.getPayload();
+        final String payloadClassName = payload != null ? payload.getClass().getName() : null;
+        final byte[] payloadBytes = payload != null ? serializePayload(payload) : null;
+        try {
+            mWriteExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeAction(offsetMs, actionClassName, actionName, payloadClassName, payloadBytes);
+                    } catch (IOException e) {
+                        AppLog.e(T.API, "Unable to write to the action journal: " + e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The journal has been closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriteExecutor.shutdown();
+        try {
+            mWriteExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mOutput.close();
+    }
+
+    private byte[] serializePayload(Object payload) {
+        try {
+            return mGson.toJson(payload).getBytes(UTF_8);
+        } catch (RuntimeException e) {
+            // Recorded with an empty payload, the reader will report the entry as incomplete
+            AppLog.e(T.API, "Unable to serialize " + payload.getClass().getName() + " for the action journal: " + e);
+            return new byte[0];
+        }
+    }
+
+    private void writeAction(long offsetMs, String actionClassName, String actionName, String payloadClassName,
+                             byte[] payloadBytes) throws IOException {
+        int actionClassId = getStringId(actionClassName);
+        int actionNameId = getStringId(actionName);
+        int payloadClassId = payloadClassName != null ? getStringId(payloadClassName) : NO_PAYLOAD;
+
+        mOutput.writeByte(RECORD_ACTION);
+        writeVarLong(mOutput, offsetMs);
+        writeVarLong(mOutput, actionClassId);
+        writeVarLong(mOutput, actionNameId);
+        writeVarLong(mOutput, payloadClassId);
+        if (payloadClassId != NO_PAYLOAD) {
+            writeVarLong(mOutput, payloadBytes.length);
+            mOutput.write(payloadBytes);
+        }
+    }
+
+    private int getStringId(String string) throws IOException {
+        Integer id = mStringIds.get(string);
+        if (id == null) {
+            // Ids start at 1, 0 is reserved for NO_PAYLOAD
+            id = mStringIds.size() + 1;
+            mStringIds.put(string, id);
+            mOutput.writeByte(RECORD_STRING);
+            writeVarLong(mOutput, id);
+            mOutput.writeUTF(string);
+        }
+        return id;
+    }
+
+    static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    static Gson createJournalGson() {
+        return new GsonBuilder()
+                // Errors can carry exceptions (e.g. VolleyError), which can't be (de)serialized
+                .addSerializationExclusionStrategy(new ThrowableExclusionStrategy())
+                .addDeserializationExclusionStrategy(new ThrowableExclusionStrategy())
+                .serializeSpecialFloatingPointValues()
+                .create();
+    }
+
+    private static class ThrowableExclusionStrategy implements ExclusionStrategy {
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+            return Throwable.class.isAssignableFrom(field.getDeclaredClass());
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.util.LruCache;
+
+import com.android.volley.toolbox.ImageLoader.ImageCache;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Memory cache of decoded bitmaps, bounded by their size in bytes.
+ *
+ * It also keeps a smaller pool of bitmaps which were never displayed (e.g. the intermediate bitmaps of the decoding,
+ * see {@link FluxCImageRequest}), so that the memory of their pixels can be reused to decode new images (with
+ * {@link BitmapFactory.Options#inBitmap}) instead of being allocated again. Bitmaps evicted from the cache are not
+ * reused: views may still display them.
+ */
+public class BitmapLruCache extends LruCache<String, Bitmap> implements ImageCache {
+    private static final int MEMORY_CLASS_FRACTION = 8;
+    private static final int REUSABLE_BITMAPS_FRACTION = 4;
+
+    private final int mMaxReusableBytes;
+    private final LinkedList<Bitmap> mReusableBitmaps = new LinkedList<>();
+    private int mReusableBytes;
+
+    /**
+     * @param maxBytes maximum size of the cached bitmaps, the pool of reusable bitmaps can hold a quarter of that
+     */
+    public BitmapLruCache(int maxBytes) {
+        super(maxBytes);
+        mMaxReusableBytes = maxBytes / REUSABLE_BITMAPS_FRACTION;
+    }
+
+    /**
+     * @return a cache size suitable for the memory available to the app
+     */
+    public static int getDefaultMaxBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / MEMORY_CLASS_FRACTION);
+    }
+
+    @Override
+    public Bitmap getBitmap(String url) {
+        return get(url);
+    }
+
+    @Override
+    public void putBitmap(String url, Bitmap bitmap) {
+        put(url, bitmap);
+    }
+
+    @Override
+    protected int sizeOf(String key, Bitmap bitmap) {
+        return getBitmapBytes(bitmap);
+    }
+
+    /**
+     * Offers a bitmap for reuse. It must never have been handed out, since its pixels will be overwritten.
+     */
+    void addReusableBitmap(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled()) {
+            return;
+        }
+        synchronized (mReusableBitmaps) {
+            mReusableBitmaps.addFirst(bitmap);
+            mReusableBytes += getBitmapBytes(bitmap);
+            while (mReusableBytes > mMaxReusableBytes && !mReusableBitmaps.isEmpty()) {
+                mReusableBytes -= getBitmapBytes(mReusableBitmaps.removeLast());
+            }
+        }
+    }
+
+    /**
+     * @param options options of the decoding, with the dimensions of the image and the sample size set
+     * @return a bitmap which can be used as {@link BitmapFactory.Options#inBitmap} for the decoding, or null
+     */
+    @Nullable
+    Bitmap takeReusableBitmap(BitmapFactory.Options options) {
+        synchronized (mReusableBitmaps) {
+            Iterator<Bitmap> iterator = mReusableBitmaps.iterator();
+            while (iterator.hasNext()) {
+                Bitmap candidate = iterator.next();
+                if (candidate.isRecycled()) {
+                    iterator.remove();
+                    mReusableBytes -= getBitmapBytes(candidate);
+                } else if (canBeReusedFor(candidate, options)) {
+                    iterator.remove();
+                    mReusableBytes -= getBitmapBytes(candidate);
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean canBeReusedFor(Bitmap candidate, BitmapFactory.Options options) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Any bitmap large enough can be reused
+            int width = options.outWidth / options.inSampleSize;
+            int height = options.outHeight / options.inSampleSize;
+            return width * height * getBytesPerPixel(candidate.getConfig()) <= candidate.getAllocationByteCount();
+        }
+        // Before KitKat, the bitmap must have the same size, and the image can't be sampled
+        return candidate.getWidth() == options.outWidth && candidate.getHeight() == options.outHeight
+               && options.inSampleSize == 1;
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) {
+            return 4;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static int getBitmapBytes(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+}
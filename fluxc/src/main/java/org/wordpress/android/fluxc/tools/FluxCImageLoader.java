@@ -1,19 +1,16 @@
 package org.wordpress.android.fluxc.tools;
 
 import android.graphics.Bitmap;
-import android.util.Base64;
 import android.widget.ImageView.ScaleType;
 
-import com.android.volley.AuthFailureError;
 import com.android.volley.Request;
+import com.android.volley.Request.Priority;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.ImageLoader;
-import com.android.volley.toolbox.ImageRequest;
 
 import org.wordpress.android.fluxc.network.HTTPAuthManager;
-import org.wordpress.android.fluxc.network.HTTPAuthModel;
 import org.wordpress.android.fluxc.network.UserAgent;
 import org.wordpress.android.fluxc.network.rest.wpcom.auth.AccessToken;
 import org.wordpress.android.fluxc.utils.WPUrlUtils;
@@ -24,11 +21,25 @@ import java.util.Map;
 
 /**
  * Image Loader that leverage the Volley queue, stored access token and stored HTTP Auth credentials
+ *
+ * Images are decoded at the size they're displayed at (see {@link FluxCImageRequest}), and kept in a
+ * {@link BitmapLruCache} unless the app provides its own cache. Requests for images which went offscreen should be
+ * canceled with {@link ImageContainer#cancelRequest()}, and can be given a lower priority than the visible ones with
+ * {@link #get(String, ImageListener, int, int, ScaleType, Priority)}.
  */
 public class FluxCImageLoader extends ImageLoader {
     private AccessToken mAccessToken;
     private HTTPAuthManager mHTTPAuthManager;
     private UserAgent mUserAgent;
+    private BitmapLruCache mBitmapLruCache;
+    // Priority of the request being created by the current get() call (always made on the main thread)
+    private Priority mRequestPriority = Priority.NORMAL;
+
+    public FluxCImageLoader(RequestQueue queue, AccessToken accessToken, HTTPAuthManager httpAuthManager,
+                            UserAgent userAgent) {
+        this(queue, new BitmapLruCache(BitmapLruCache.getDefaultMaxBytes()), accessToken, httpAuthManager,
+                userAgent);
+    }
 
     public FluxCImageLoader(RequestQueue queue, ImageCache imageCache, AccessToken accessToken,
                             HTTPAuthManager httpAuthManager, UserAgent userAgent) {
@@ -36,48 +47,61 @@ public class FluxCImageLoader extends ImageLoader {
         mAccessToken = accessToken;
         mHTTPAuthManager = httpAuthManager;
         mUserAgent = userAgent;
+        if (imageCache instanceof BitmapLruCache) {
+            mBitmapLruCache = (BitmapLruCache) imageCache;
+        }
         // http://stackoverflow.com/a/17035814 - Responses from the ImageLoader are actually delayed / batched
         // up before being delivered. So images that are ready are not being delivered as soon as they
         // possible can be to achieve a sort of page load aesthetic.
         setBatchedResponseDelay(0);
     }
 
+    /**
+     * Same as {@link #get(String, ImageListener, int, int, ScaleType)}, with the priority of the request if the image
+     * needs to be fetched (e.g. {@link Priority#LOW} for images prefetched ahead of the visible ones).
+     */
+    public ImageContainer get(String requestUrl, ImageListener imageListener, int maxWidth, int maxHeight,
+                              ScaleType scaleType, Priority priority) {
+        mRequestPriority = priority;
+        try {
+            return get(requestUrl, imageListener, maxWidth, maxHeight, scaleType);
+        } finally {
+            mRequestPriority = Priority.NORMAL;
+        }
+    }
+
     @Override
     protected Request<Bitmap> makeImageRequest(String requestUrl, int maxWidth, int maxHeight,
                                                ScaleType scaleType, final String cacheKey) {
         if (WPUrlUtils.isWordPressCom(requestUrl) && !UrlUtils.isHttps(requestUrl)) {
             requestUrl = UrlUtils.makeHttps(requestUrl);
         }
-        final String url = requestUrl;
-        return new ImageRequest(url, new Response.Listener<Bitmap>() {
-            @Override
-            public void onResponse(Bitmap response) {
-                onGetImageSuccess(cacheKey, response);
-            }
-        }, maxWidth, maxHeight, scaleType, Bitmap.Config.RGB_565, new Response.ErrorListener() {
-            @Override
-            public void onErrorResponse(VolleyError error) {
-                onGetImageError(cacheKey, error);
-            }
-        }) {
-            @Override
-            public Map<String, String> getHeaders() throws AuthFailureError {
-                HashMap<String, String> headers = new HashMap<>();
-                headers.put("User-Agent", mUserAgent.getUserAgent());
-                if (WPUrlUtils.safeToAddWordPressComAuthToken(url)) {
-                    headers.put("Authorization", "Bearer " + mAccessToken.get());
-                } else {
-                    // Check if we had HTTP Auth credentials for the root url
-                    HTTPAuthModel httpAuthModel = mHTTPAuthManager.getHTTPAuthModel(url);
-                    if (httpAuthModel != null) {
-                        String creds = String.format("%s:%s", httpAuthModel.getUsername(), httpAuthModel.getPassword());
-                        String auth = "Basic " + Base64.encodeToString(creds.getBytes(), Base64.NO_WRAP);
-                        headers.put("Authorization", auth);
+        return new FluxCImageRequest(requestUrl, getHeaders(requestUrl), maxWidth, maxHeight, scaleType,
+                mRequestPriority, mBitmapLruCache, new Response.Listener<Bitmap>() {
+                    @Override
+                    public void onResponse(Bitmap response) {
+                        onGetImageSuccess(cacheKey, response);
+                    }
+                }, new Response.ErrorListener() {
+                    @Override
+                    public void onErrorResponse(VolleyError error) {
+                        onGetImageError(cacheKey, error);
                     }
-                }
-                return headers;
+                });
+    }
+
+    private Map<String, String> getHeaders(String url) {
+        Map<String, String> headers = new HashMap<>(2);
+        headers.put("User-Agent", mUserAgent.getUserAgent());
+        if (WPUrlUtils.safeToAddWordPressComAuthToken(url)) {
+            headers.put("Authorization", "Bearer " + mAccessToken.get());
+        } else {
+            // Check if we had HTTP Auth credentials for the root url
+            String authorizationHeader = mHTTPAuthManager.getAuthorizationHeader(url);
+            if (authorizationHeader != null) {
+                headers.put("Authorization", authorizationHeader);
             }
-        };
+        }
+        return headers;
     }
 }
-
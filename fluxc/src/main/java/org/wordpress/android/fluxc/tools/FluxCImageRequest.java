@@ -0,0 +1,237 @@
+package org.wordpress.android.fluxc.tools;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.Nullable;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.Cache;
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import org.wordpress.android.util.AppLog;
+import org.wordpress.android.util.AppLog.T;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Image request decoding the image at the size it's displayed at, like Volley's ImageRequest. In addition:
+ * - the image is sampled while it's decoded, into a bitmap reused from the {@link BitmapLruCache} when possible
+ * - the downsampled image is cached instead of the original response, keyed by URL and target size, so that it
+ * doesn't have to be downloaded or decoded at full size again
+ * - requests canceled while they were being downloaded (e.g. for images which went offscreen) are not decoded
+ */
+class FluxCImageRequest extends Request<Bitmap> {
+    private static final int IMAGE_TIMEOUT_MS = 1000;
+    private static final int IMAGE_MAX_RETRIES = 2;
+    private static final float IMAGE_BACKOFF_MULT = 2f;
+    private static final int VARIANT_JPEG_QUALITY = 90;
+    // Marks the cached responses holding a downsampled image
+    private static final String HEADER_IMAGE_VARIANT = "X-FluxC-Image-Variant";
+    // Decode one image at a time, like Volley's ImageRequest, to limit the memory used by large images
+    private static final Object DECODE_LOCK = new Object();
+
+    private final Response.Listener<Bitmap> mListener;
+    private final Map<String, String> mHeaders;
+    private final int mMaxWidth;
+    private final int mMaxHeight;
+    private final ScaleType mScaleType;
+    private final Priority mPriority;
+    private final BitmapLruCache mBitmapLruCache;
+
+    /**
+     * @param bitmapLruCache cache providing bitmaps to reuse, or null
+     */
+    FluxCImageRequest(String url, Map<String, String> headers, int maxWidth, int maxHeight, ScaleType scaleType,
+                      Priority priority, @Nullable BitmapLruCache bitmapLruCache, Response.Listener<Bitmap> listener,
+                      Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        setRetryPolicy(new DefaultRetryPolicy(IMAGE_TIMEOUT_MS, IMAGE_MAX_RETRIES, IMAGE_BACKOFF_MULT));
+        mListener = listener;
+        mHeaders = headers;
+        mMaxWidth = maxWidth;
+        mMaxHeight = maxHeight;
+        mScaleType = scaleType;
+        mPriority = priority;
+        mBitmapLruCache = bitmapLruCache;
+    }
+
+    @Override
+    public String getCacheKey() {
+        return getVariantCacheKey(getUrl(), mMaxWidth, mMaxHeight, mScaleType);
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return mHeaders;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return mPriority;
+    }
+
+    @Override
+    protected Response<Bitmap> parseNetworkResponse(NetworkResponse response) {
+        if (isCanceled()) {
+            return Response.error(new VolleyError("Request canceled before decoding"));
+        }
+        synchronized (DECODE_LOCK) {
+            try {
+                return doParse(response);
+            } catch (OutOfMemoryError e) {
+                AppLog.e(T.API, "Can't decode image of " + response.data.length + " bytes for " + getUrl());
+                return Response.error(new ParseError(e));
+            }
+        }
+    }
+
+    @Override
+    protected void deliverResponse(Bitmap response) {
+        mListener.onResponse(response);
+    }
+
+    static String getVariantCacheKey(String url, int maxWidth, int maxHeight, ScaleType scaleType) {
+        return ImageVariantCache.KEY_PREFIX + "#W" + maxWidth + "#H" + maxHeight + "#S" + scaleType.ordinal() + url;
+    }
+
+    private Response<Bitmap> doParse(NetworkResponse response) {
+        Bitmap bitmap = decode(response.data);
+        if (bitmap == null) {
+            return Response.error(new ParseError(response));
+        }
+        Cache.Entry cacheEntry = HttpHeaderParser.parseCacheHeaders(response);
+        boolean isVariant = response.headers != null && response.headers.containsKey(HEADER_IMAGE_VARIANT);
+        if (cacheEntry != null && !isVariant) {
+            cacheEntry = toVariantCacheEntry(cacheEntry, bitmap);
+        }
+        return Response.success(bitmap, cacheEntry);
+    }
+
+    private Bitmap decode(byte[] data) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        int actualWidth = options.outWidth;
+        int actualHeight = options.outHeight;
+        if (actualWidth <= 0 || actualHeight <= 0) {
+            return null;
+        }
+
+        int desiredWidth = Math.max(1,
+                getResizedDimension(mMaxWidth, mMaxHeight, actualWidth, actualHeight, mScaleType));
+        int desiredHeight = Math.max(1,
+                getResizedDimension(mMaxHeight, mMaxWidth, actualHeight, actualWidth, mScaleType));
+
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inSampleSize = findBestSampleSize(actualWidth, actualHeight, desiredWidth, desiredHeight);
+        // Decoded bitmaps are mutable so that they can be reused later
+        options.inMutable = true;
+        if (mBitmapLruCache != null) {
+            options.inBitmap = mBitmapLruCache.takeReusableBitmap(options);
+        }
+
+        Bitmap sampledBitmap;
+        try {
+            sampledBitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } catch (IllegalArgumentException e) {
+            // The reused bitmap didn't fit after all
+            options.inBitmap = null;
+            sampledBitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+        if (sampledBitmap == null
+                || (sampledBitmap.getWidth() <= desiredWidth && sampledBitmap.getHeight() <= desiredHeight)) {
+            return sampledBitmap;
+        }
+
+        // Sampling only divides the size by powers of 2, scale the rest of the way
+        Bitmap bitmap = Bitmap.createScaledBitmap(sampledBitmap, desiredWidth, desiredHeight, true);
+        if (bitmap != sampledBitmap && mBitmapLruCache != null) {
+            mBitmapLruCache.addReusableBitmap(sampledBitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Replaces the original image by the decoded one in the cache entry.
+     */
+    private static Cache.Entry toVariantCacheEntry(Cache.Entry cacheEntry, Bitmap bitmap) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+        if (!bitmap.compress(format, VARIANT_JPEG_QUALITY, outputStream)) {
+            return null;
+        }
+        cacheEntry.data = outputStream.toByteArray();
+        Map<String, String> headers = new HashMap<>();
+        if (cacheEntry.responseHeaders != null) {
+            headers.putAll(cacheEntry.responseHeaders);
+        }
+        headers.put(HEADER_IMAGE_VARIANT, "1");
+        cacheEntry.responseHeaders = headers;
+        return cacheEntry;
+    }
+
+    /**
+     * Same as in Volley's ImageRequest: scales one side of a rectangle to fit aspect ratio.
+     */
+    static int getResizedDimension(int maxPrimary, int maxSecondary, int actualPrimary, int actualSecondary,
+                                   ScaleType scaleType) {
+        // If no dominant value at all, just return the actual
+        if (maxPrimary == 0 && maxSecondary == 0) {
+            return actualPrimary;
+        }
+
+        // If ScaleType.FIT_XY fill the whole rectangle, ignore ratio
+        if (scaleType == ScaleType.FIT_XY) {
+            return maxPrimary == 0 ? actualPrimary : maxPrimary;
+        }
+
+        // If primary is unspecified, scale primary to match secondary's scaling ratio
+        if (maxPrimary == 0) {
+            double ratio = (double) maxSecondary / (double) actualSecondary;
+            return (int) (actualPrimary * ratio);
+        }
+
+        if (maxSecondary == 0) {
+            return maxPrimary;
+        }
+
+        double ratio = (double) actualSecondary / (double) actualPrimary;
+        int resized = maxPrimary;
+
+        // If ScaleType.CENTER_CROP fill the whole rectangle, preserve aspect ratio
+        if (scaleType == ScaleType.CENTER_CROP) {
+            if ((resized * ratio) < maxSecondary) {
+                resized = (int) (maxSecondary / ratio);
+            }
+            return resized;
+        }
+
+        if ((resized * ratio) > maxSecondary) {
+            resized = (int) (maxSecondary / ratio);
+        }
+        return resized;
+    }
+
+    /**
+     * @return the largest power of 2 sample size which keeps the image at least as large as the desired size
+     */
+    static int findBestSampleSize(int actualWidth, int actualHeight, int desiredWidth, int desiredHeight) {
+        double widthRatio = (double) actualWidth / desiredWidth;
+        double heightRatio = (double) actualHeight / desiredHeight;
+        double ratio = Math.min(widthRatio, heightRatio);
+        int sampleSize = 1;
+        while (sampleSize * 2 <= ratio) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+}
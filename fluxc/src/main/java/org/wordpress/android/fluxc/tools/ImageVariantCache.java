@@ -0,0 +1,59 @@
+package org.wordpress.android.fluxc.tools;
+
+import com.android.volley.Cache;
+
+/**
+ * Volley cache keeping the downsampled images of {@link FluxCImageLoader} apart from the other responses, so that
+ * browsing a large media library doesn't evict them.
+ */
+public class ImageVariantCache implements Cache {
+    static final String KEY_PREFIX = "fluxc-image:";
+
+    private final Cache mCache;
+    private final Cache mImageCache;
+
+    /**
+     * @param cache cache of the other responses
+     * @param imageCache cache of the downsampled images
+     */
+    public ImageVariantCache(Cache cache, Cache imageCache) {
+        mCache = cache;
+        mImageCache = imageCache;
+    }
+
+    @Override
+    public Entry get(String key) {
+        return getCache(key).get(key);
+    }
+
+    @Override
+    public void put(String key, Entry entry) {
+        getCache(key).put(key, entry);
+    }
+
+    @Override
+    public void initialize() {
+        mCache.initialize();
+        mImageCache.initialize();
+    }
+
+    @Override
+    public void invalidate(String key, boolean fullExpire) {
+        getCache(key).invalidate(key, fullExpire);
+    }
+
+    @Override
+    public void remove(String key) {
+        getCache(key).remove(key);
+    }
+
+    @Override
+    public void clear() {
+        mCache.clear();
+        mImageCache.clear();
+    }
+
+    private Cache getCache(String key) {
+        return key.startsWith(KEY_PREFIX) ? mImageCache : mCache;
+    }
+}
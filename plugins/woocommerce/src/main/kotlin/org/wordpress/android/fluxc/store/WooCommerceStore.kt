@@ -5,6 +5,7 @@ import org.greenrobot.eventbus.Subscribe
 import org.greenrobot.eventbus.ThreadMode
 import org.wordpress.android.fluxc.Dispatcher
 import org.wordpress.android.fluxc.action.WooCommerceAction
+import org.wordpress.android.fluxc.annotations.HandlesActions
 import org.wordpress.android.fluxc.annotations.action.Action
 import org.wordpress.android.fluxc.model.SiteModel
 import org.wordpress.android.fluxc.persistence.SiteSqlUtils
@@ -13,6 +14,7 @@ import org.wordpress.android.util.AppLog.T
 import javax.inject.Inject
 import javax.inject.Singleton
 
+@HandlesActions(WooCommerceAction::class)
 @Singleton
 class WooCommerceStore @Inject constructor(dispatcher: Dispatcher) : Store(dispatcher) {
     override fun onRegister() {